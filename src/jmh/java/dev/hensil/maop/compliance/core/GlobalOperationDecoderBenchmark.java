@@ -0,0 +1,81 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.Operation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The incremental parse of a {@link GlobalStream}: a batch of global operations split at random boundaries, as the kwik
+ * receiver thread delivers them.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalOperationDecoderBenchmark {
+
+    private static final int OPERATIONS = 256;
+
+    /**
+     * The largest fragment; zero delivers the whole batch at once.
+     * */
+    @Param({ "1", "7", "64", "1200", "0" })
+    public int fragment;
+
+    @Param({ "42" })
+    public long seed;
+
+    private final @NotNull GlobalOperationDecoder decoder = new GlobalOperationDecoder();
+    private ByteBuffer @NotNull [] fragments = new ByteBuffer[0];
+
+    @Setup
+    public void setup() {
+        @NotNull Random random = new Random(seed);
+        byte @NotNull [] batch = Samples.globalBatch(OPERATIONS, random);
+
+        @NotNull List<ByteBuffer> fragments = new ArrayList<>();
+        for (int offset = 0; offset < batch.length; ) {
+            int length = fragment == 0 ? batch.length : 1 + random.nextInt(fragment);
+            length = Math.min(length, batch.length - offset);
+
+            fragments.add(ByteBuffer.wrap(batch, offset, length).slice());
+            offset += length;
+        }
+
+        this.fragments = fragments.toArray(new ByteBuffer[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public int decode(@NotNull Blackhole blackhole) {
+        int count = 0;
+
+        for (@NotNull ByteBuffer buffer : fragments) {
+            buffer.clear();
+
+            @Nullable Operation operation;
+            while ((operation = decoder.decode(buffer)) != null) {
+                blackhole.consume(operation);
+                count++;
+            }
+        }
+
+        if (count != OPERATIONS) {
+            throw new IllegalStateException("Decoded " + count + " of " + OPERATIONS + " operations");
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.Operation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding through {@link OperationUtil#read}, encoding through {@link Operation#toBytes()} and
+ * {@link Operation#writeTo(ByteBuffer)} into a reused buffer, and the code lookup done on every frame read, for every
+ * operation code.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationCodecBenchmark {
+
+    @Param({ "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10" })
+    public int code;
+
+    private OperationUtil util;
+    private Operation operation;
+    private ByteBuffer buffer;
+
+    private ByteArrayInputStream bytes;
+    private DataInputStream input;
+
+    @Setup
+    public void setup() {
+        @Nullable OperationUtil util = OperationUtil.getByCode((byte) code);
+        if (util == null) {
+            throw new IllegalStateException("Unknown operation code: " + code);
+        }
+
+        this.util = util;
+        this.operation = Samples.operation(code);
+        this.buffer = ByteBuffer.allocate(operation.getLength());
+        this.bytes = new ByteArrayInputStream(Samples.body(code));
+        this.input = new DataInputStream(bytes);
+    }
+
+    @Benchmark
+    public Operation read() throws IOException {
+        bytes.reset();
+        return util.read(input);
+    }
+
+    @Benchmark
+    public boolean lookup() {
+        @Nullable OperationUtil util = OperationUtil.getByCode((byte) code);
+        return util != null && util.isGlobalOperation();
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return operation.toBytes();
+    }
+
+    @Benchmark
+    public ByteBuffer writeTo() {
+        buffer.clear();
+        operation.writeTo(buffer);
+
+        return buffer;
+    }
+}
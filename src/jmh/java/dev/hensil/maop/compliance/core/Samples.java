@@ -0,0 +1,73 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.MAOPError;
+import dev.hensil.maop.compliance.model.operation.*;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Operations and their bytes as the model encodes them, which is the framing received from the wire, shared by the
+ * benchmarks.
+ * */
+final class Samples {
+
+    // Static initializers
+
+    static final int CODES = 11;
+
+    private static final byte @NotNull [] REASON = "Benchmark failure reason".getBytes(StandardCharsets.UTF_8);
+
+    static @NotNull Operation operation(int code) {
+        return switch (code) {
+            case 0x00 -> new Message((short) 1, 1024L, (byte) 0);
+            case 0x01 -> new Request((short) 1, (short) 0, 1024L, (byte) 0, 1000);
+            case 0x02 -> new Response(1024L, System.currentTimeMillis(), 12);
+            case 0x03 -> new Proceed(new Proceed.Entry[] { new Proceed.Entry(0), new Proceed.Entry(4), new Proceed.Entry(8) });
+            case 0x04 -> new Refuse(new Refuse.Entry[] { new Refuse.Entry(0, 500, (short) 1), new Refuse.Entry(4, 500, (short) 1) });
+            case 0x05 -> new Block(new byte[1024]);
+            case 0x06 -> new BlockEnd(1024L);
+            case 0x07 -> new Fail(12, MAOPError.UNKNOWN_ERROR.getCode(), REASON);
+            case 0x08 -> new Done(new Done.Entry[] { new Done.Entry(0, 10, 20), new Done.Entry(4, 10, 20) });
+            case 0x09 -> new DisconnectRequest(1000, "Benchmark");
+            case 0x0A -> new Disconnect();
+            default -> throw new IllegalArgumentException("Unknown operation code: " + code);
+        };
+    }
+
+    /**
+     * @return the bytes read by {@link OperationUtil#read}, after the operation code, as the model encodes them
+     * */
+    static byte @NotNull [] body(int code) {
+        return operation(code).toBytes();
+    }
+
+    /**
+     * @return a batch of random global operations, each one preceded by its code
+     * */
+    static byte @NotNull [] globalBatch(int operations, @NotNull Random random) {
+        @NotNull ByteBuffer buffer = ByteBuffer.allocate(operations * 128);
+        int[] codes = { 0x03, 0x04, 0x07, 0x08 };
+
+        for (int i = 0; i < operations; i++) {
+            int code = codes[random.nextInt(codes.length)];
+            buffer.put((byte) code).put(body(code));
+        }
+
+        buffer.flip();
+
+        byte @NotNull [] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+    // Constructor
+
+    private Samples() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,80 @@
+package dev.hensil.maop.compliance.model;
+
+import dev.hensil.maop.compliance.model.authentication.Approved;
+import dev.hensil.maop.compliance.model.authentication.Authentication;
+import dev.hensil.maop.compliance.model.authentication.Disapproved;
+import dev.hensil.maop.compliance.model.authentication.Result;
+
+import org.jetbrains.annotations.NotNull;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The authentication handshake codecs and the success message parse, run once per connection and per request.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelCodecBenchmark {
+
+    private Authentication authentication;
+    private ByteBuffer authenticationBytes;
+    private ByteBuffer approvedBytes;
+    private ByteBuffer disapprovedBytes;
+    private byte[] successMessageBytes;
+
+    @Setup
+    public void setup() {
+        @NotNull Version version = Version.parse("1.0.0");
+
+        this.authentication = new Authentication("token", new byte[32], Map.of("client", "benchmark", "region", "local"), version, "benchmark");
+        this.authenticationBytes = authentication.toByteBuffer();
+        this.approvedBytes = new Approved(version, "benchmark", UUID.randomUUID(), "connection-1").toByteBuffer();
+        this.disapprovedBytes = new Disapproved(version, "benchmark", (short) 1, "Invalid token", Duration.ofSeconds(1)).toByteBuffer();
+
+        byte @NotNull [] contentType = "text/plain".getBytes(StandardCharsets.US_ASCII);
+        byte @NotNull [] body = "Success".getBytes(StandardCharsets.US_ASCII);
+
+        this.successMessageBytes = ByteBuffer.allocate(2 + contentType.length + body.length)
+                .put((byte) contentType.length)
+                .put(contentType)
+                .put((byte) body.length)
+                .put(body)
+                .array();
+    }
+
+    @Benchmark
+    public ByteBuffer authenticationToByteBuffer() {
+        return authentication.toByteBuffer();
+    }
+
+    @Benchmark
+    public Authentication authenticationParse() {
+        return Authentication.parse(authenticationBytes.duplicate());
+    }
+
+    @Benchmark
+    public Result approvedParse() {
+        return Result.parse(approvedBytes.duplicate());
+    }
+
+    @Benchmark
+    public Result disapprovedParse() {
+        return Result.parse(disapprovedBytes.duplicate());
+    }
+
+    @Benchmark
+    public SuccessMessage successMessageParse() {
+        return SuccessMessage.parse(successMessageBytes);
+    }
+}
@@ -0,0 +1,58 @@
+package dev.hensil.maop.compliance.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The version parse, from a string and from the raw bytes of a Result through the cache, and the precedence comparisons,
+ * run at least once per authentication.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+    private String text;
+    private byte[] bytes;
+
+    private Version release;
+    private Version prerelease;
+    private Version build;
+    private Version otherBuild;
+
+    @Setup
+    public void setup() {
+        this.text = "1.4.12";
+        this.bytes = text.getBytes(StandardCharsets.UTF_8);
+
+        this.release = Version.parse("1.4.12");
+        this.prerelease = Version.parse("1.4.12-rc.10");
+        this.build = Version.parse("1.4.12+20240101.42");
+        this.otherBuild = Version.parse("1.4.12+20240101.43");
+    }
+
+    @Benchmark
+    public Version parseString() {
+        return Version.parse(text);
+    }
+
+    @Benchmark
+    public Version parseCachedBytes() {
+        return Version.parse(bytes, 0, bytes.length);
+    }
+
+    @Benchmark
+    public int comparePrerelease() {
+        return release.compareTo(prerelease);
+    }
+
+    @Benchmark
+    public int compareWithBuild() {
+        return Version.PRECEDENCE_WITH_BUILD.compare(build, otherBuild);
+    }
+}
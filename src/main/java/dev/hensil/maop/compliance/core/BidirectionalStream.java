@@ -1,14 +1,18 @@
 package dev.hensil.maop.compliance.core;
 
+import dev.hensil.maop.compliance.model.operation.Operation;
+
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import tech.kwik.core.QuicStream;
 
 import java.io.*;
 
-public sealed class BidirectionalStream extends DirectionalStream implements DataInput, DataOutput permits GlobalStream {
+public sealed class BidirectionalStream extends DirectionalStream implements DataInput, OperationOutput permits GlobalStream {
 
+    private final @NotNull OperationWriter writer;
     private final @NotNull DataOutputStream output;
-    private final @NotNull DataInputStream input;
+    private final @NotNull StreamInput input;
 
     // Constructors
 
@@ -19,8 +23,9 @@ public sealed class BidirectionalStream extends DirectionalStream implements Dat
             throw new IllegalArgumentException("The quick stream must to be bidirectional");
         }
 
-        this.output = new DataOutputStream(quicStream.getOutputStream());
-        this.input = new DataInputStream(quicStream.getInputStream());
+        this.writer = new OperationWriter(quicStream.getOutputStream());
+        this.output = new DataOutputStream(writer);
+        this.input = new StreamInput(quicStream.getInputStream());
     }
 
     // Getters
@@ -34,12 +39,41 @@ public sealed class BidirectionalStream extends DirectionalStream implements Dat
         }
     }
 
+    /**
+     * @return the bytes readable without blocking, buffered or still in the QUIC stream
+     * */
     public int available() throws IOException {
         return input.available();
     }
 
     // Modules
 
+    @Override
+    public void writeOperation(@NotNull Operation operation) throws IOException {
+        writer.writeOperation(operation);
+    }
+
+    @Override
+    public void cork() {
+        writer.cork();
+    }
+
+    @Override
+    public boolean isCorked() {
+        return writer.isCorked();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void abort() {
+        writer.discard();
+        getQuicStream().resetStream(0);
+    }
+
     public void write(int b) throws IOException {
         output.write(b);
     }
@@ -157,8 +191,8 @@ public sealed class BidirectionalStream extends DirectionalStream implements Dat
     }
 
     @Override
-    public @NotNull String readLine() throws IOException {
-        return input.readUTF();
+    public @Nullable String readLine() throws IOException {
+        return input.readLine();
     }
 
     public @NotNull String readUTF() throws IOException {
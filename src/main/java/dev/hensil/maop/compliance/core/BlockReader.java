@@ -0,0 +1,151 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.BlockEnd;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Receives the Blocks and the Block end following a Response, streaming the Block contents into a {@link BlockSink}
+ * through a single reused chunk instead of allocating the payload. The declared Response payload, every Block length and
+ * the Block end total are checked with long counters, so payloads of any size are verified in constant memory.
+ * <p>
+ * Every wait for a Block header or the next chunk is bounded by the timeout, and a Block is never awaited as a whole, so a
+ * Block larger than the stream's flow control window is still received. A reader is used by a single thread at a time.
+ * */
+public final class BlockReader {
+
+    // Static initializers
+
+    public static final int DEFAULT_CHUNK = 8192;
+
+    // Objects
+
+    private final byte @NotNull [] chunk;
+
+    // Constructor
+
+    public BlockReader() {
+        this(new byte[DEFAULT_CHUNK]);
+    }
+
+    /**
+     * @param chunk the array the Block contents are read into before being passed to the sink
+     * */
+    public BlockReader(byte @NotNull [] chunk) {
+        if (chunk.length == 0) {
+            throw new IllegalArgumentException("Empty chunk");
+        }
+
+        this.chunk = chunk;
+    }
+
+    // Modules
+
+    /**
+     * Reads the Blocks of the payload and the Block end.
+     *
+     * @return the number of Blocks read
+     * @throws IOException if the stream fails, the sink refuses the payload or the Blocks do not match the payload
+     * @throws TimeoutException if a Block header, a chunk or the Block end does not come within the timeout
+     * */
+    @Blocking
+    public long read(@NotNull BidirectionalStream stream, long payload, @NotNull BlockSink sink, int timeout, @NotNull TimeUnit unit) throws IOException, TimeoutException {
+        long blocks = readBlocks(stream, payload, sink, timeout, unit);
+        readEnd(stream, payload, timeout, unit);
+
+        return blocks;
+    }
+
+    /**
+     * Reads Blocks until the declared payload is received, without the Block end.
+     *
+     * @return the number of Blocks read
+     * @see #read(BidirectionalStream, long, BlockSink, int, TimeUnit)
+     * */
+    @Blocking
+    public long readBlocks(@NotNull BidirectionalStream stream, long payload, @NotNull BlockSink sink, int timeout, @NotNull TimeUnit unit) throws IOException, TimeoutException {
+        if (payload < 0) {
+            throw new IOException("Illegal response payload: " + payload);
+        }
+
+        @NotNull Connection connection = stream.getConnection();
+        sink.expect(payload);
+
+        long remaining = payload;
+        long blocks = 0;
+
+        while (remaining > 0) {
+            connection.awaitReading(OperationUtil.BLOCK.getHeaderLength() + 1, stream, timeout, unit);
+
+            byte code = stream.readByte();
+            @Nullable OperationUtil util = OperationUtil.getByCode(code);
+            if (util == null) {
+                throw new IOException("There is not operation with code: " + code);
+            }
+
+            if (util == OperationUtil.BLOCK_END) {
+                throw new IOException("Block end was received before reading all payload data (remaining = " + remaining + ")");
+            }
+
+            if (util != OperationUtil.BLOCK) {
+                throw new IOException("A Block operation was expected but it was " + code + " (" + util.getName() + ")");
+            }
+
+            int length = stream.readInt();
+            if (length < 0) {
+                throw new IOException("Illegal block payload: " + length);
+            }
+
+            if (length > remaining) {
+                throw new IOException("The blocks exceed the declared response payload (response payload = " + payload + " & total read = " + (payload - remaining + length) + ")");
+            }
+
+            int left = length;
+            while (left > 0) {
+                int size = Math.min(left, chunk.length);
+                connection.awaitReading(size, stream, timeout, unit);
+
+                stream.readFully(chunk, 0, size);
+                sink.accept(chunk, 0, size);
+
+                left -= size;
+            }
+
+            remaining -= length;
+            blocks++;
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Reads the Block end and checks its total against the declared payload.
+     *
+     * @see #read(BidirectionalStream, long, BlockSink, int, TimeUnit)
+     * */
+    @Blocking
+    public void readEnd(@NotNull BidirectionalStream stream, long payload, int timeout, @NotNull TimeUnit unit) throws IOException, TimeoutException {
+        stream.getConnection().awaitReading(OperationUtil.BLOCK_END.getHeaderLength() + 1, stream, timeout, unit);
+
+        byte code = stream.readByte();
+        @Nullable OperationUtil util = OperationUtil.getByCode(code);
+        if (util == null) {
+            throw new IOException("There is not operation with code: " + code);
+        }
+
+        if (util != OperationUtil.BLOCK_END) {
+            throw new IOException("A Block end operation was expected but it was " + code + " (" + util.getName() + ")");
+        }
+
+        @NotNull BlockEnd end = (BlockEnd) util.read(stream);
+        if (end.getTotal() != payload) {
+            throw new IOException("Block end total bytes mismatch (block end total bytes = " + end.getTotal() + " & response payload = " + payload + ")");
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * Where the Block contents of a Response go while they are received by a {@link BlockReader}, chunk by chunk instead of
+ * accumulated. A sink discards the contents, feeds them to a digest, writes them to a file or keeps them in a buffer
+ * bounded by a capacity, so only the buffer sink needs memory proportional to the payload.
+ * <p>
+ * Sinks are not thread-safe and receive a single payload.
+ * */
+public abstract class BlockSink implements Closeable {
+
+    // Static initializers
+
+    /**
+     * A sink counting the received bytes and dropping them.
+     * */
+    public static @NotNull BlockSink discard() {
+        return new DiscardSink();
+    }
+
+    /**
+     * A sink updating the digest with every received byte; the digest is completed by the caller.
+     * */
+    public static @NotNull BlockSink digest(@NotNull MessageDigest digest) {
+        return new DigestSink(digest);
+    }
+
+    /**
+     * A sink updating the payload digest with every received byte, compared by the caller with the expected value once
+     * the Block end is read.
+     * */
+    public static @NotNull BlockSink digest(@NotNull PayloadDigest digest) {
+        return new PayloadDigestSink(digest);
+    }
+
+    /**
+     * @param position the position the payload is written at, the channel's position is not moved
+     * */
+    public static @NotNull BlockSink ofChannel(@NotNull FileChannel channel, long position) {
+        return new ChannelSink(channel, position, false);
+    }
+
+    /**
+     * Creates or truncates the file and writes the payload into it; the file is closed with the sink.
+     * */
+    public static @NotNull BlockSink open(@NotNull Path path) throws IOException {
+        @NotNull FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new ChannelSink(channel, 0, true);
+    }
+
+    /**
+     * A sink keeping the payload in memory, refusing a declared payload longer than the capacity before any Block is read.
+     * */
+    public static @NotNull Buffer buffer(int capacity) {
+        return new Buffer(capacity);
+    }
+
+    // Objects
+
+    private long received = 0;
+
+    protected BlockSink() {
+        //
+    }
+
+    // Getters
+
+    /**
+     * @return the bytes received so far
+     * */
+    public final long getReceived() {
+        return received;
+    }
+
+    // Modules
+
+    /**
+     * Called once with the payload declared by the Response, before any Block is received.
+     *
+     * @throws IOException if the sink cannot take the payload
+     * */
+    public void expect(long payload) throws IOException {
+        //
+    }
+
+    /**
+     * Receives the next bytes of the payload.
+     * */
+    public final void accept(byte @NotNull [] b, int off, int len) throws IOException {
+        write(b, off, len);
+        this.received += len;
+    }
+
+    protected abstract void write(byte @NotNull [] b, int off, int len) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        //
+    }
+
+    // Classes
+
+    /**
+     * A sink keeping the payload in an array allocated with the declared payload length, which is at most the capacity.
+     * */
+    public static final class Buffer extends BlockSink {
+
+        private final int capacity;
+        private byte @NotNull [] bytes = new byte[0];
+
+        private Buffer(int capacity) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Illegal capacity: " + capacity);
+            }
+
+            this.capacity = capacity;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * @return the bytes received so far, without a copy once the whole declared payload is received
+         * */
+        public byte @NotNull [] toByteArray() {
+            if (getReceived() == bytes.length) {
+                return bytes;
+            }
+
+            byte @NotNull [] copy = new byte[(int) getReceived()];
+            System.arraycopy(bytes, 0, copy, 0, copy.length);
+
+            return copy;
+        }
+
+        @Override
+        public void expect(long payload) throws IOException {
+            if (payload < 0 || payload > capacity) {
+                throw new IOException("The payload exceeds the buffer capacity (payload = " + payload + " & capacity = " + capacity + ")");
+            }
+
+            this.bytes = new byte[(int) payload];
+        }
+
+        @Override
+        protected void write(byte @NotNull [] b, int off, int len) throws IOException {
+            if (getReceived() + len > bytes.length) {
+                throw new IOException("The received bytes exceed the buffer (received = " + (getReceived() + len) + " & buffer = " + bytes.length + ")");
+            }
+
+            System.arraycopy(b, off, bytes, (int) getReceived(), len);
+        }
+    }
+
+    private static final class DiscardSink extends BlockSink {
+
+        @Override
+        protected void write(byte @NotNull [] b, int off, int len) {
+            //
+        }
+    }
+
+    private static final class DigestSink extends BlockSink {
+
+        private final @NotNull MessageDigest digest;
+
+        private DigestSink(@NotNull MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        protected void write(byte @NotNull [] b, int off, int len) {
+            digest.update(b, off, len);
+        }
+    }
+
+    private static final class PayloadDigestSink extends BlockSink {
+
+        private final @NotNull PayloadDigest digest;
+
+        private PayloadDigestSink(@NotNull PayloadDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        protected void write(byte @NotNull [] b, int off, int len) {
+            digest.update(b, off, len);
+        }
+    }
+
+    private static final class ChannelSink extends BlockSink {
+
+        private final @NotNull FileChannel channel;
+        private final long start;
+        private final boolean owner;
+
+        private ChannelSink(@NotNull FileChannel channel, long start, boolean owner) {
+            this.channel = channel;
+            this.start = start;
+            this.owner = owner;
+        }
+
+        @Override
+        protected void write(byte @NotNull [] b, int off, int len) throws IOException {
+            @NotNull ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            long position = start + getReceived();
+
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (owner) {
+                channel.close();
+            }
+        }
+    }
+}
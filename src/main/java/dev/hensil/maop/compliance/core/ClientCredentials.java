@@ -0,0 +1,147 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.X509KeyManager;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * The client certificate chain and its private key, derived once from a {@link Preset} and given to the builder of every
+ * connection. Handing kwik the key store makes it build a key manager and decrypt the key again on each handshake, which
+ * for a PKCS#12 store means a password derivation per connection; the derived material skips it.
+ * <p>
+ * A key store is read through a {@link X509KeyManager} built once from it, which chooses the alias the way a JSSE
+ * client does and gives the whole certificate chain of it. The key manager is kept for callers that select the
+ * certificate themselves.
+ * */
+public final class ClientCredentials {
+
+    // Static initializers
+
+    /**
+     * The key types offered to the key manager, in order of preference.
+     * */
+    private static final @NotNull String @NotNull [] KEY_TYPES = new String[] { "RSA", "RSASSA-PSS", "EC", "EdDSA" };
+
+    /**
+     * @return the credentials of the preset, or null if the preset does not authenticate the client
+     * @throws GeneralSecurityException if the key store cannot be read or has no private key with a X.509 certificate chain
+     * */
+    static @Nullable ClientCredentials of(@NotNull Preset preset) throws GeneralSecurityException {
+        if (preset.isServerNoCertification()) {
+            return null;
+        }
+
+        @Nullable X509Certificate certificate = preset.getCertificate();
+        @Nullable PrivateKey privateKey = preset.getPrivateKey();
+
+        if (certificate != null && privateKey != null) {
+            return new ClientCredentials(List.of(certificate), privateKey, null, null);
+        }
+
+        @Nullable KeyStore keyStore = preset.getKeyStore();
+        @Nullable String password = preset.getKeyPassword();
+
+        if (keyStore == null || password == null) {
+            throw new GeneralSecurityException("Incomplete client credentials");
+        }
+
+        @NotNull X509KeyManager keyManager = newKeyManager(keyStore, password);
+
+        @Nullable String alias = keyManager.chooseClientAlias(KEY_TYPES, null, null);
+        if (alias == null) {
+            throw new GeneralSecurityException("The key store has no private key with a X.509 certificate chain");
+        }
+
+        X509Certificate @Nullable [] chain = keyManager.getCertificateChain(alias);
+        @Nullable PrivateKey key = keyManager.getPrivateKey(alias);
+
+        if (chain == null || chain.length == 0 || key == null) {
+            throw new GeneralSecurityException("Incomplete key store entry: " + alias);
+        }
+
+        return new ClientCredentials(List.of(chain), key, keyManager, alias);
+    }
+
+    private static @NotNull X509KeyManager newKeyManager(@NotNull KeyStore keyStore, @NotNull String password) throws GeneralSecurityException {
+        @NotNull KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore, password.toCharArray());
+
+        for (@NotNull KeyManager manager : factory.getKeyManagers()) {
+            if (manager instanceof X509KeyManager x509) {
+                return x509;
+            }
+        }
+
+        throw new GeneralSecurityException("No X.509 key manager for the key store");
+    }
+
+    // Objects
+
+    private final @Unmodifiable @NotNull List<X509Certificate> chain;
+    private final @NotNull PrivateKey privateKey;
+    private final @Nullable X509KeyManager keyManager;
+    private final @Nullable String alias;
+
+    // Constructor
+
+    private ClientCredentials(@NotNull List<X509Certificate> chain, @NotNull PrivateKey privateKey, @Nullable X509KeyManager keyManager, @Nullable String alias) {
+        this.chain = chain;
+        this.privateKey = privateKey;
+        this.keyManager = keyManager;
+        this.alias = alias;
+    }
+
+    // Getters
+
+    /**
+     * @return the end entity certificate, the first of the chain
+     * */
+    public @NotNull X509Certificate getCertificate() {
+        return chain.get(0);
+    }
+
+    /**
+     * @return the certificate chain, from the end entity certificate to the last intermediate of the key store entry
+     * */
+    public @Unmodifiable @NotNull List<X509Certificate> getCertificateChain() {
+        return chain;
+    }
+
+    public @NotNull PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
+    /**
+     * @return the key manager built from the key store, or null if the preset has a certificate and a key instead
+     * */
+    public @Nullable X509KeyManager getKeyManager() {
+        return keyManager;
+    }
+
+    /**
+     * @return the alias chosen by the key manager, or null if the preset has a certificate and a key instead
+     * */
+    public @Nullable String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ClientCredentials{" +
+                "subject=" + getCertificate().getSubjectX500Principal().getName() +
+                ", chain=" + chain.size() +
+                ", algorithm=" + privateKey.getAlgorithm() +
+                (alias != null ? ", alias=" + alias : "") +
+                '}';
+    }
+}
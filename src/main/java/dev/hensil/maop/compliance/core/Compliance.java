@@ -3,8 +3,8 @@ package dev.hensil.maop.compliance.core;
 import com.jlogm.Logger;
 import com.jlogm.context.LogCtx;
 import com.jlogm.context.Stack;
-import com.jlogm.utils.Coloured;
 
+import dev.hensil.maop.compliance.Elapsed;
 import dev.hensil.maop.compliance.exception.ConnectionException;
 import dev.hensil.maop.compliance.situation.Situation;
 
@@ -19,15 +19,16 @@ import dev.meinicke.plugin.main.Plugins;
 import org.jetbrains.annotations.*;
 
 import tech.kwik.core.QuicClientConnection;
+import tech.kwik.core.QuicSessionTicket;
+import tech.kwik.core.QuicStream;
 import tech.kwik.core.log.NullLogger;
 
-import java.awt.*;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.time.Duration;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class has no responsibility, and it doesn't exhibit any behavior for third-party Executors, except when it is initiated with its own Executor.
@@ -67,25 +68,50 @@ public class Compliance {
 
     private final @NotNull Preset preset;
     private final @NotNull Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final @NotNull HashedWheelTimer timer = new HashedWheelTimer("compliance");
+    private final @NotNull SessionCache sessions = new SessionCache();
 
     private @NotNull Executor executor;
     private @NotNull CompletableFuture<Void> join = new CompletableFuture<>();
+    private volatile @Nullable SituationScheduler scheduler;
+    private volatile @NotNull ConnectionPool pool;
 
     private volatile boolean selfExecutor;
+    private volatile boolean virtualThreads;
     private volatile boolean running;
+    private volatile int parallelism;
+    private volatile int bidirectionalStreamPoolSize = StreamPool.DEFAULT_SIZE;
+    private volatile int unidirectionalStreamPoolSize = StreamPool.DEFAULT_SIZE;
+    private volatile boolean sessionResumption = true;
+    private volatile boolean earlyAuthentication = false;
 
     // Constructor
 
     public Compliance(@NotNull Preset preset) {
+        this(preset, 1);
+    }
+
+    /**
+     * @param parallelism the maximum number of independent situations running at the same time
+     * */
+    public Compliance(@NotNull Preset preset, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+
         this.preset = preset;
+        this.parallelism = parallelism;
         this.selfExecutor = true;
         this.executor = newDefaultExecutor();
+        this.pool = new ConnectionPool(this, ConnectionPool.DEFAULT_MINIMUM, ConnectionPool.DEFAULT_MAXIMUM, ConnectionPool.DEFAULT_LEASE_TIMEOUT);
     }
 
     public Compliance(@NotNull Preset preset, @NotNull Executor executor) {
         this.preset = preset;
+        this.parallelism = 1;
         this.selfExecutor = false;
         this.executor = executor;
+        this.pool = new ConnectionPool(this, ConnectionPool.DEFAULT_MINIMUM, ConnectionPool.DEFAULT_MAXIMUM, ConnectionPool.DEFAULT_LEASE_TIMEOUT);
     }
 
     // Getters
@@ -107,36 +133,195 @@ public class Compliance {
         this.selfExecutor = false;
     }
 
-    private @NotNull Executor newDefaultExecutor() {
-        return Executors.newSingleThreadExecutor(r -> {
-            @NotNull Thread thread = new Thread(r);
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
 
-            thread.setUncaughtExceptionHandler((t, ex) -> {
-                try (
-                        @NotNull LogCtx.Scope logContext = LogCtx.builder()
-                                .put("compliance id", uuid)
-                                .put("running", running)
-                                .put("exception", ex)
-                                .install();
-
-                        @NotNull Stack.Scope logScope = Stack.pushScope("Uncaught exception handler");
-                ) {
-                    if (running) {
-                        log.severe("Unexpected internal error");
-                        log.debug().cause(ex).log();
-                        stop();
-
-                        return;
-                    }
+    /**
+     * Runs every situation on its own virtual thread instead of a fixed pool of platform threads, so the blocking awaits
+     * of the situations do not hold a platform thread each. The parallelism still bounds the situations running at the
+     * same time. It only affects the executor that belongs to this class, which is renewed.
+     *
+     * @throws UnsupportedOperationException if this runtime does not create virtual threads (before Java 21)
+     * */
+    public synchronized void setVirtualThreads(boolean virtualThreads) {
+        if (running) {
+            throw new IllegalStateException("Compliance is running");
+        }
 
-                    log.trace().cause(ex).log("Unexpected internal error occurs while stopping: " + ex);
-                }
-            });
+        Threads.checkVirtual(virtualThreads);
+
+        this.virtualThreads = virtualThreads;
+
+        if (selfExecutor) {
+            ((ExecutorService) this.executor).shutdown();
+            this.executor = newDefaultExecutor();
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Defines how many situations without pending dependencies can run concurrently. When the executor belongs to this
+     * class, it is renewed with the same number of threads.
+     * */
+    public synchronized void setParallelism(int parallelism) {
+        if (running) {
+            throw new IllegalStateException("Compliance is running");
+        } else if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+
+        this.parallelism = parallelism;
+
+        if (selfExecutor) {
+            ((ExecutorService) this.executor).shutdown();
+            this.executor = newDefaultExecutor();
+        }
+    }
+
+    /**
+     * The timer of every protocol timeout of the connections of this compliance.
+     * */
+    @ApiStatus.Internal
+    public @NotNull HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    /**
+     * The pool of authenticated connections leased by the situations.
+     * */
+    public @NotNull ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    public synchronized void setConnectionPoolSize(int minimum, int maximum) {
+        setConnectionPoolSize(minimum, maximum, ConnectionPool.DEFAULT_LEASE_TIMEOUT);
+    }
+
+    public synchronized void setConnectionPoolSize(int minimum, int maximum, @NotNull Duration leaseTimeout) {
+        if (running) {
+            throw new IllegalStateException("Compliance is running");
+        }
+
+        @NotNull ConnectionPool pool = new ConnectionPool(this, minimum, maximum, leaseTimeout);
+        this.pool.clear();
+        this.pool = pool;
+    }
+
+    public int getBidirectionalStreamPoolSize() {
+        return bidirectionalStreamPoolSize;
+    }
+
+    public int getUnidirectionalStreamPoolSize() {
+        return unidirectionalStreamPoolSize;
+    }
+
+    /**
+     * Sets how many streams of each kind every new connection creates ahead, see {@link StreamPool}. Both are 0 by
+     * default, so the streams are only created on demand.
+     * */
+    public synchronized void setStreamPoolSize(int bidirectional, int unidirectional) {
+        if (running) {
+            throw new IllegalStateException("Compliance is running");
+        } else if (bidirectional < 0) {
+            throw new IllegalArgumentException("Illegal bidirectional pool size: " + bidirectional);
+        } else if (unidirectional < 0) {
+            throw new IllegalArgumentException("Illegal unidirectional pool size: " + unidirectional);
+        }
+
+        this.bidirectionalStreamPoolSize = bidirectional;
+        this.unidirectionalStreamPoolSize = unidirectional;
+    }
+
+    /**
+     * The session tickets kept to resume the sessions of the next connections, with the handshake times.
+     * */
+    public @NotNull SessionCache getSessionCache() {
+        return sessions;
+    }
+
+    public boolean isSessionResumption() {
+        return sessionResumption;
+    }
+
+    /**
+     * Sets whether the new connections offer a session ticket of a previous connection to the same host, resuming the
+     * session instead of doing a full handshake. Enabled by default.
+     * */
+    public synchronized void setSessionResumption(boolean sessionResumption) {
+        if (running) {
+            throw new IllegalStateException("Compliance is running");
+        }
+
+        this.sessionResumption = sessionResumption;
+        if (!sessionResumption) {
+            this.sessions.clear();
+        }
+    }
+
+    public boolean isEarlyAuthentication() {
+        return earlyAuthentication;
+    }
+
+    /**
+     * Sets whether the connections created to be authenticated at once, as the ones of the {@link ConnectionPool}, send
+     * the authentication as 0-RTT early data when they resume a session. Early data can be replayed by an attacker, so
+     * it is disabled by default and only makes sense against a server that accepts it.
+     * */
+    public synchronized void setEarlyAuthentication(boolean earlyAuthentication) {
+        if (running) {
+            throw new IllegalStateException("Compliance is running");
+        }
+
+        this.earlyAuthentication = earlyAuthentication;
+    }
+
+    /**
+     * @return the wall time of every situation already finished by the last (or current) diagnostics
+     * */
+    public @Unmodifiable @NotNull Map<Situation, Elapsed> getElapsed() {
+        @Nullable SituationScheduler scheduler = this.scheduler;
+        return scheduler != null ? scheduler.getElapsed() : Collections.emptyMap();
+    }
+
+    private @NotNull Executor newDefaultExecutor() {
+        if (virtualThreads) {
+            return Threads.newVirtualExecutor("maop-situation-", this::uncaught);
+        }
+
+        return Executors.newFixedThreadPool(parallelism, r -> {
+            @NotNull Thread thread = new Thread(r);
+            thread.setUncaughtExceptionHandler(this::uncaught);
 
             return thread;
         });
     }
 
+    private void uncaught(@NotNull Thread thread, @NotNull Throwable ex) {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("compliance id", uuid)
+                        .put("running", running)
+                        .put("exception", ex)
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Uncaught exception handler");
+        ) {
+            if (running) {
+                log.severe("Unexpected internal error");
+                log.debug().cause(ex).log();
+                stop();
+
+                return;
+            }
+
+            log.trace().cause(ex).log("Unexpected internal error occurs while stopping: " + ex);
+        }
+    }
+
     @ApiStatus.Internal
     void remove(@NotNull Connection connection) {
         for (@NotNull Map.Entry<String, Connection> entry : connections.entrySet()) {
@@ -170,7 +355,15 @@ public class Compliance {
         }
     }
 
-    @NotNull Connection createConnection(@NotNull String name) throws ConnectionException {
+    public @NotNull Connection createConnection(@NotNull String name) throws ConnectionException {
+        return createConnection(name, false);
+    }
+
+    /**
+     * @param authenticating true if the connection is authenticated right after, so the authentication may be sent as
+     * early data, see {@link #setEarlyAuthentication(boolean)}
+     * */
+    @NotNull Connection createConnection(@NotNull String name, boolean authenticating) throws ConnectionException {
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("running", running)
@@ -212,24 +405,56 @@ public class Compliance {
                     builder
                             .noServerCertificateCheck();
                 } else {
+                    @Nullable ClientCredentials credentials;
+
+                    try {
+                        credentials = preset.getClientCredentials();
+                    } catch (GeneralSecurityException e) {
+                        throw new ConnectionException("Cannot read the client credentials", e);
+                    }
+
+                    if (credentials == null) {
+                        throw new AssertionError("Internal error");
+                    }
+
+                    // Kwik only sends the end entity certificate, the intermediates of the chain are not sent
                     builder
-                            .clientCertificate(preset.getCertificate())
-                            .clientCertificateKey(preset.getPrivateKey())
-                            .clientKeyManager(preset.getKeyStore())
-                            .clientKey(preset.getKeyPassword());
+                            .clientCertificate(credentials.getCertificate())
+                            .clientCertificateKey(credentials.getPrivateKey());
+                }
+
+                @Nullable QuicSessionTicket ticket = sessionResumption ? sessions.poll(preset.getHost()) : null;
+                if (ticket != null) {
+                    builder.sessionTicket(ticket);
                 }
 
                 try {
                     @NotNull QuicClientConnection client = builder.build();
-                    log.trace("Connecting in server.. (" + client + ")");
+                    log.trace("Connecting in server.. (" + client + ")" + (ticket != null ? " offering a session ticket" : ""));
+
+                    @Nullable QuicStream early = null;
+                    long start = System.nanoTime();
 
-                    client.connect();
+                    if (ticket != null && authenticating && earlyAuthentication) {
+                        // Kwik sends the stream data again after the handshake if the server refuses the early data
+                        @NotNull QuicClientConnection.StreamEarlyData data = new QuicClientConnection.StreamEarlyData(preset.getAuthentication().toByteBuffer().array(), true);
+                        @NotNull List<QuicStream> streams = client.connect(List.of(data));
+
+                        early = streams.isEmpty() ? null : streams.get(0);
+                    } else {
+                        client.connect();
+                    }
+
+                    long elapsed = System.nanoTime() - start;
 
                     if (!client.isConnected()) {
                         throw new IOException("Cannot connect for unknown reason");
                     }
 
-                    connection = new Connection(client, this);
+                    sessions.record(ticket != null, elapsed);
+                    log.trace("Handshake done in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms (" + sessions + ")");
+
+                    connection = new Connection(client, this, early);
                     this.connections.put(name, connection);
 
                     return connection;
@@ -272,46 +497,10 @@ public class Compliance {
         ) {
             // Prepare situations
 
-            @NotNull Set<Situation> situations = new LinkedHashSet<>(Compliance.situations);
-            @NotNull AtomicBoolean canceled = new AtomicBoolean(false);
+            @NotNull SituationScheduler scheduler = new SituationScheduler(this, new LinkedHashSet<>(Compliance.situations), executor, parallelism);
+            this.scheduler = scheduler;
 
-            for (@NotNull Situation situation : situations) {
-                if (canceled.get() || Thread.currentThread().isInterrupted() || !running) {
-                    break;
-                }
-
-                this.executor.execute(() -> {
-                    try (
-                            @NotNull LogCtx.Scope logContext2 = LogCtx.builder()
-                                    .put("remaining situations", situations.size())
-                                    .put("situation name", situation.getName())
-                                    .install();
-
-                            @NotNull Stack.Scope logScope2 = Stack.pushScope("Scheduling situation")
-                    ) {
-                        if (canceled.get() || !running) {
-                            return;
-                        }
-
-                        situations.remove(situation);
-
-                        log.info("Next situation: " + Coloured.of(situation.getName()).color(Color.CYAN).print());
-                        boolean severe = situation.diagnostic(this);
-
-                        if (severe && running) {
-                            log.severe("The " + situation + " ended severely. Interrupting all diagnostics...");
-                            canceled.set(true);
-                            stop();
-                            return;
-                        }
-
-                        if (situations.isEmpty()) {
-                            log.info("All diagnoses have been successfully completed");
-                            stop();
-                        }
-                    }
-                });
-            }
+            scheduler.start();
         }
     }
 
@@ -347,6 +536,13 @@ public class Compliance {
 
         this.running = false;
 
+        @Nullable SituationScheduler scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.cancel();
+        }
+
+        this.pool.clear();
+
         for (@NotNull String key : this.connections.keySet()) {
             try {
                 @NotNull Connection connection = this.connections.remove(key);
@@ -356,10 +552,14 @@ public class Compliance {
             }
         }
 
+        // Fails the timeouts still waited on, the timer starts again with the next one
+        this.timer.stop();
+
         if (selfExecutor) {
             ((ExecutorService) this.executor).shutdownNow();
         }
 
+        log.info("Handshakes: " + sessions);
         log.info("Successfully close compliance");
 
         this.join.complete(null);
@@ -7,6 +7,7 @@ import com.jlogm.context.Stack;
 import com.jlogm.utils.Coloured;
 
 import dev.hensil.maop.compliance.Elapsed;
+import dev.hensil.maop.compliance.exception.AuthenticationException;
 import dev.hensil.maop.compliance.exception.DirectionalStreamException;
 import dev.hensil.maop.compliance.model.authentication.Approved;
 import dev.hensil.maop.compliance.model.authentication.Authentication;
@@ -14,22 +15,24 @@ import dev.hensil.maop.compliance.model.authentication.Disapproved;
 import dev.hensil.maop.compliance.model.authentication.Result;
 import dev.hensil.maop.compliance.model.operation.Operation;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Blocking;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import tech.kwik.core.QuicClientConnection;
+import tech.kwik.core.QuicSessionTicket;
+import tech.kwik.core.QuicStream;
 
 import java.awt.*;
 import java.io.Closeable;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 public final class Connection implements Closeable {
 
@@ -60,25 +63,46 @@ public final class Connection implements Closeable {
     private final @NotNull Compliance compliance;
     private final @NotNull QuicClientConnection connection;
 
-    private final @NotNull Map<Long, DirectionalStreamObserver> observers = new ConcurrentHashMap<>();
-
-    private final @NotNull Map<Class<? extends DirectionalStream>, Set<DirectionalStream>> streams = new ConcurrentHashMap<>(3, 1f) {{
-        this.put(BidirectionalStream.class, ConcurrentHashMap.newKeySet(16));
-        this.put(UnidirectionalOutputStream.class, ConcurrentHashMap.newKeySet(16));
-    }};
+    private final @NotNull StreamIndex streams = new StreamIndex();
+    private final @NotNull StreamPool pool;
 
     private final @NotNull AtomicInteger severeBehaviorCount = new AtomicInteger(0);
+
+    // Counted by the stream observers, which go away with their streams
+    private final @NotNull AtomicLong droppedOperations = new AtomicLong(0);
+    private final @NotNull AtomicLong timedOutOperationWaits = new AtomicLong(0);
     private final @NotNull CompletableFuture<Void> polices = new CompletableFuture<>();
     private final @NotNull CountDownLatch disconnectionLatch = new CountDownLatch(1);
 
     private @Nullable Approved authentication = null;
     private volatile boolean closing = false;
 
+    // The stream that carried the authentication as early data, until its Result is read
+    private volatile @Nullable BidirectionalStream early = null;
+    private int harvested = 0;
+
     // Constructor
 
     Connection(@NotNull QuicClientConnection connection, @NotNull Compliance compliance) {
+        this(connection, compliance, null);
+    }
+
+    /**
+     * @param early the stream opened by the handshake with the authentication as early data, observed before the stream
+     * listener is set so its Result is never read by an unknown stream
+     * */
+    Connection(@NotNull QuicClientConnection connection, @NotNull Compliance compliance, @Nullable QuicStream early) {
         this.connection = connection;
         this.compliance = compliance;
+        this.pool = new StreamPool(connection, compliance.getBidirectionalStreamPoolSize(), compliance.getUnidirectionalStreamPoolSize());
+
+        if (early != null) {
+            @NotNull BidirectionalStream stream = new BidirectionalStream(this, early);
+            register(stream);
+            observe(stream);
+
+            this.early = stream;
+        }
 
         this.polices.whenComplete((v, error) -> {
             if (error == null) {
@@ -106,6 +130,8 @@ public final class Connection implements Closeable {
 
             this.disconnectionLatch.countDown();
         });
+
+        this.pool.fill();
     }
 
     // Getters
@@ -122,22 +148,49 @@ public final class Connection implements Closeable {
         this.authentication = authentication;
     }
 
-    @NotNull Map<Class<? extends DirectionalStream>, Set<DirectionalStream>> getStreams() {
-        return streams;
+    int getStreamCount() {
+        return streams.size();
     }
 
     @Nullable DirectionalStreamObserver getObserver(@NotNull DirectionalStream stream) {
-        return observers.get(stream.getId());
+        return streams.getObserver(stream.getId());
     }
 
     @Nullable DirectionalStreamObserver getObserver(long streamId) {
-        return observers.get(streamId);
+        return streams.getObserver(streamId);
+    }
+
+    /**
+     * @return how many operations received for the streams of this connection were discarded because their stream already
+     * held as many unconsumed operations as it buffers
+     * */
+    public long getDroppedOperations() {
+        return droppedOperations.get();
+    }
+
+    /**
+     * @return how many waits for the next operation of a stream of this connection timed out before it arrived
+     * */
+    public long getTimedOutOperationWaits() {
+        return timedOutOperationWaits.get();
     }
 
     @NotNull Compliance getCompliance() {
         return compliance;
     }
 
+    /**
+     * The streams created ahead by this connection, with its hit and miss counts.
+     * */
+    public @NotNull StreamPool getStreamPool() {
+        return pool;
+    }
+
+    @ApiStatus.Internal
+    public @NotNull HashedWheelTimer getTimer() {
+        return compliance.getTimer();
+    }
+
     public boolean isClosed() {
         return closing;
     }
@@ -146,31 +199,38 @@ public final class Connection implements Closeable {
         return this.connection.isConnected();
     }
 
-    @SuppressWarnings("unchecked")
-    public <T extends DirectionalStream> @Nullable T getDirectionalStream(@NotNull Class<? extends T> type, long id) {
-        return (T) streams.get(type).stream()
-                .filter(s -> s.getId() == id)
-                .findFirst()
-                .orElse(null);
+    public <T extends DirectionalStream> @Nullable T getDirectionalStream(@NotNull Class<T> type, long id) {
+        return streams.get(type, id);
     }
 
     public @Nullable DirectionalStream getDirectionalStream(long id) {
-        @NotNull Collection<Set<DirectionalStream>> sets = this.streams.values();
-        for (@NotNull Set<DirectionalStream> streams : sets) {
-            for (@NotNull DirectionalStream stream : streams) {
-                if (stream.getId() == id) {
-                    return stream;
-                }
-            }
-        }
+        return streams.get(id);
+    }
 
-        return null;
+    /**
+     * @return false if the stream was already registered
+     * */
+    boolean register(@NotNull DirectionalStream stream) {
+        return streams.put(stream);
+    }
+
+    /**
+     * Removes the stream and its observer, only if it is the stream currently registered with its id.
+     * */
+    boolean unregister(@NotNull DirectionalStream stream) {
+        return streams.remove(stream);
     }
 
     // Modules
 
+    /**
+     * Authenticates this connection with the authentication of the preset, doing nothing if it is already authenticated.
+     * A disapproved authentication is not retried here: the caller decides whether and when to retry, honouring the retry
+     * after of the {@link AuthenticationException}.
+     *
+     * @throws AuthenticationException if the server disapproves the authentication
+     * */
     public void authenticate() throws IOException, TimeoutException {
-        // Todo retry_after
         if (isAuthenticated()) {
             return;
         }
@@ -184,21 +244,28 @@ public final class Connection implements Closeable {
         ) {
             log.trace(Coloured.of("Authenticating connection (" + this + ")").color(Color.orange).print());
 
-            @NotNull Authentication authentication = new Authentication(compliance.getPreset());
-            @NotNull BidirectionalStream stream = createBidirectionalStream();
+            @Nullable BidirectionalStream stream = this.early;
+            this.early = null;
 
-            @NotNull ByteBuffer bb = authentication.toByteBuffer();
-            stream.write(bb.array(), bb.position(), bb.limit());
-            stream.closeOutput();
+            if (stream != null) {
+                log.debug("Authentication already sent as early data");
+            } else {
+                @NotNull Authentication authentication = compliance.getPreset().getAuthentication();
+                stream = createBidirectionalStream();
+
+                authentication.writeTo(stream);
+                stream.closeOutput();
+            }
 
             try {
                 log.debug("Written authentication and waiting for Result response");
                 @NotNull Result result = Result.readResult(stream, 5, TimeUnit.SECONDS);
                 if (result instanceof Disapproved disapproved) {
-                    throw new IOException("Authentication disapproved: " + disapproved);
+                    throw new AuthenticationException(disapproved);
                 }
 
                 setAuthenticated((Approved) result);
+                harvestTickets();
                 log.trace(Coloured.of("Successfully authenticate connection (" + this + ")").color(Color.orange).print());
 
             } finally {
@@ -206,7 +273,7 @@ public final class Connection implements Closeable {
                     stream.closeInput();
                 } catch (IOException ignore) {}
 
-                boolean removed = this.streams.get(BidirectionalStream.class).remove(stream);
+                boolean removed = unregister(stream);
                 if (!removed) {
                     log.warn("Bidirectional stream used in authentication has not been removed from the streams list.");
                 }
@@ -214,18 +281,66 @@ public final class Connection implements Closeable {
         }
     }
 
-    public @NotNull UnidirectionalOutputStream createUnidirectionalStream() throws DirectionalStreamException {
-        @NotNull CompletableFuture<UnidirectionalOutputStream> future = new CompletableFuture<>();
-        future.orTimeout(8, TimeUnit.SECONDS);
+    /**
+     * Creates a unidirectional output stream without blocking the caller, taking it from the {@link #getStreamPool() pool}
+     * when there is one idle. The stream is already registered and observed when the future completes; if it is created
+     * after the 8 seconds timeout, it is closed.
+     *
+     * @return a future completed exceptionally with an {@link IOException} or a {@link TimeoutException} on failure, or
+     * with the unchecked exception thrown while the stream was set up; this method itself never throws
+     * */
+    public @NotNull CompletableFuture<UnidirectionalOutputStream> createUnidirectionalStreamAsync() {
+        return createStreamAsync(false, stream -> new UnidirectionalOutputStream(this, stream));
+    }
+
+    /**
+     * Creates a bidirectional stream without blocking the caller, taking it from the {@link #getStreamPool() pool} when
+     * there is one idle. The stream is already registered and observed when the future completes; if it is created after
+     * the 8 seconds timeout, it is closed.
+     *
+     * @return a future completed exceptionally with an {@link IOException} or a {@link TimeoutException} on failure, or
+     * with the unchecked exception thrown while the stream was set up; this method itself never throws
+     * */
+    public @NotNull CompletableFuture<BidirectionalStream> createBidirectionalStreamAsync() {
+        return createStreamAsync(true, stream -> new BidirectionalStream(this, stream));
+    }
+
+    private <T extends DirectionalStream> @NotNull CompletableFuture<T> createStreamAsync(boolean bidirectional, @NotNull Function<QuicStream, T> factory) {
+        @Nullable QuicStream pooled = pool.poll(bidirectional);
+        if (pooled != null) {
+            try {
+                @NotNull T stream = factory.apply(pooled);
+                register(stream);
+                observe(stream);
+
+                return CompletableFuture.completedFuture(stream);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @NotNull CompletableFuture<T> future = getTimer().orTimeout(new CompletableFuture<>(), 8, TimeUnit.SECONDS);
 
+        // Kwik blocks while the peer does not grant more streams
         CompletableFuture.runAsync(() -> {
             try {
-                future.complete(new UnidirectionalOutputStream(this, this.connection.createStream(false)));
-            } catch (IOException e) {
+                @NotNull T stream = factory.apply(this.connection.createStream(bidirectional));
+                register(stream);
+                observe(stream);
+
+                if (!future.complete(stream)) {
+                    stream.close();
+                }
+            } catch (IOException | RuntimeException e) {
                 future.completeExceptionally(e);
             }
-        });
+        }, Threads.blocking());
 
+        return future;
+    }
+
+    @Blocking
+    public @NotNull UnidirectionalOutputStream createUnidirectionalStream() throws DirectionalStreamException {
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -236,19 +351,14 @@ public final class Connection implements Closeable {
             log.trace(Coloured.of("Creating unidirectional output stream from connection (" + this + ")").color(Color.orange).print());
 
             @NotNull Elapsed elapsed = new Elapsed();
-            @NotNull UnidirectionalOutputStream stream = future.join();
+            @NotNull UnidirectionalOutputStream stream = createUnidirectionalStreamAsync().join();
             elapsed.freeze();
 
             if (elapsed.getElapsedMillis() > 700) {
                 log.warn("The server takes " + elapsed + " to create a unidirectional stream");
             }
 
-            this.streams.get(UnidirectionalOutputStream.class).add(stream);
             log.trace("New unidirectional stream created by connection (" + this + ") with id: " + stream.getId());
-
-            log.debug("Put stream (" + stream.getId() + ") as observable");
-            observe(stream);
-
             return stream;
         } catch (CompletionException e) {
             if (e.getCause() instanceof TimeoutException) {
@@ -263,18 +373,8 @@ public final class Connection implements Closeable {
         }
     }
 
+    @Blocking
     public @NotNull BidirectionalStream createBidirectionalStream() throws DirectionalStreamException {
-        @NotNull CompletableFuture<BidirectionalStream> future = new CompletableFuture<>();
-        future.orTimeout(8, TimeUnit.SECONDS);
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                future.complete(new BidirectionalStream(this, this.connection.createStream(true)));
-            } catch (IOException e) {
-                future.completeExceptionally(e);
-            }
-        });
-
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -285,19 +385,14 @@ public final class Connection implements Closeable {
             log.trace(Coloured.of("Creating bidirectional from connection (" + this + ")").color(Color.orange).print());
 
             @NotNull Elapsed elapsed = new Elapsed();
-            @NotNull BidirectionalStream stream = future.join();
+            @NotNull BidirectionalStream stream = createBidirectionalStreamAsync().join();
             elapsed.freeze();
 
             if (elapsed.getElapsedMillis() > 700) {
                 log.warn("The server takes " + elapsed + " to create a bidirectional stream");
             }
 
-            this.streams.get(BidirectionalStream.class).add(stream);
             log.trace("New bidirectional stream created by connection (" + this + ") with id: " + stream.getId());
-
-            log.debug("Put stream (" + stream.getId() + ") as observable");
-            observe(stream);
-
             return stream;
         } catch (CompletionException e) {
             if (e.getCause() instanceof TimeoutException) {
@@ -313,13 +408,11 @@ public final class Connection implements Closeable {
     }
 
     private void observe(@NotNull DirectionalStream stream) {
-        @Nullable DirectionalStreamObserver observer = this.observers.get(stream.getId());
-        if (observer != null) {
+        if (streams.getObserver(stream.getId()) != null) {
             return;
         }
 
-        observer = new DirectionalStreamObserver(stream);
-        this.observers.put(stream.getId(), observer);
+        streams.putObserver(stream.getId(), new DirectionalStreamObserver(stream));
     }
 
     public boolean awaitDisconnection(int timeout, @NotNull TimeUnit unit) {
@@ -330,6 +423,64 @@ public final class Connection implements Closeable {
         }
     }
 
+    /**
+     * @return a future completed with the next operation received by the stream, directly from the receiver thread
+     * */
+    public @NotNull CompletableFuture<Operation> awaitOperationAsync(@NotNull UnidirectionalOutputStream stream) {
+        return awaitOperationAsync0(stream);
+    }
+
+    /**
+     * @return a future completed with the next operation received by the stream, directly from the receiver thread
+     * */
+    public @NotNull CompletableFuture<Operation> awaitOperationAsync(@NotNull BidirectionalStream stream) {
+        return awaitOperationAsync0(stream);
+    }
+
+    public @NotNull CompletableFuture<Operation> awaitOperationAsync(@NotNull BidirectionalStream stream, int timeout, @NotNull TimeUnit unit) {
+        return getTimer().orTimeout(awaitOperationAsync0(stream), timeout, unit);
+    }
+
+    public @NotNull CompletableFuture<Operation> awaitOperationAsync(@NotNull UnidirectionalOutputStream stream, int timeout, @NotNull TimeUnit unit) {
+        return getTimer().orTimeout(awaitOperationAsync0(stream), timeout, unit);
+    }
+
+    private @NotNull CompletableFuture<Operation> awaitOperationAsync0(@NotNull DirectionalStream stream) {
+        @Nullable DirectionalStreamObserver observer = getObserver(stream);
+        if (observer == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Stream " + stream.getId() + " is not observed"));
+        }
+
+        return observer.awaitOperationAsync();
+    }
+
+    /**
+     * @return a future completed with the available bytes of the stream, from the receiver thread, as soon as there are at
+     * least {@code untilAvailable} bytes to read, or exceptionally with an {@link java.io.EOFException} if the peer
+     * finishes the stream before
+     * */
+    public @NotNull CompletableFuture<Long> awaitReadingAsync(long untilAvailable, @NotNull BidirectionalStream stream) {
+        try {
+            long available = stream.available();
+            if (available >= untilAvailable && available > 0) {
+                return CompletableFuture.completedFuture(available);
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        @Nullable DirectionalStreamObserver observer = getObserver(stream);
+        if (observer == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Stream " + stream.getId() + " is not observed"));
+        }
+
+        return observer.awaitReadingAsync(Math.max(untilAvailable, 1));
+    }
+
+    public @NotNull CompletableFuture<Long> awaitReadingAsync(long untilAvailable, @NotNull BidirectionalStream stream, int timeout, @NotNull TimeUnit unit) {
+        return getTimer().orTimeout(awaitReadingAsync(untilAvailable, stream), timeout, unit);
+    }
+
     @Blocking
     public @NotNull Operation awaitOperation(@NotNull UnidirectionalOutputStream stream, int timeout, @NotNull TimeUnit timeUnit) throws IOException, TimeoutException {
         return await0(stream, timeout, timeUnit);
@@ -347,40 +498,26 @@ public final class Connection implements Closeable {
 
     @Blocking
     public long awaitReading(long untilAvailable, @NotNull BidirectionalStream stream, int timeout, @NotNull TimeUnit unit) throws TimeoutException {
-        @Nullable DirectionalStreamObserver observer = null;
+        @NotNull CompletableFuture<Long> future = awaitReadingAsync(untilAvailable, stream, timeout, unit);
 
         try {
-            long available = stream.available();
-            if (available >= untilAvailable) {
-                return available;
-            }
-
-            observer = this.getObserver(stream);
-            if (observer == null) {
-                throw new AssertionError("Internal error");
-            }
-
-            observer.setUntilAvailable(untilAvailable);
-
-            boolean success = observer.awaitReading(timeout, unit);
-            if (!success) {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while awaiting reading");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
                 throw new TimeoutException(timeout + " " + unit.name().toLowerCase());
             }
 
-            available = stream.available();
-            if (available == 0) {
-                throw new AssertionError("Internal error");
-            }
-
-            return available;
-        } catch (IOException | IllegalStateException e) {
-            throw new AssertionError("Internal error", e);
+            throw new AssertionError("Internal error", e.getCause());
         }
     }
 
     @Blocking
     private @NotNull Operation await0(@NotNull DirectionalStream stream, int timeout, @NotNull TimeUnit timeUnit) throws TimeoutException {
-        @Nullable DirectionalStreamObserver observer = this.observers.get(stream.getId());
+        @Nullable DirectionalStreamObserver observer = getObserver(stream);
         if (observer == null) {
             throw new AssertionError("Internal error");
         }
@@ -393,6 +530,14 @@ public final class Connection implements Closeable {
         return operation;
     }
 
+    void countDroppedOperation() {
+        this.droppedOperations.incrementAndGet();
+    }
+
+    void countTimedOutOperationWait() {
+        this.timedOutOperationWaits.incrementAndGet();
+    }
+
     /**
      * Help method to increase counter and throws when polices limits are be exceeded.
      * */
@@ -418,17 +563,66 @@ public final class Connection implements Closeable {
         }
     }
 
+    /**
+     * Gives the session tickets received since the last harvest to the session cache of the compliance.
+     * */
+    private synchronized void harvestTickets() {
+        @NotNull List<QuicSessionTicket> tickets;
+
+        try {
+            tickets = connection.getNewSessionTickets();
+        } catch (RuntimeException e) {
+            log.trace("Cannot read the session tickets: " + e);
+            return;
+        }
+
+        if (tickets.size() > harvested) {
+            compliance.getSessionCache().offer(compliance.getPreset().getHost(), tickets.subList(harvested, tickets.size()));
+            this.harvested = tickets.size();
+        }
+    }
+
+    /**
+     * @return true if the peer never misbehaved on this connection and none of its global streams is in the middle of an
+     * operation, so the next owner inherits neither the severe behaviours nor the rest of an operation
+     * */
+    boolean isReusable() {
+        if (severeBehaviorCount.get() > 0 || polices.isDone()) {
+            return false;
+        }
+
+        for (@NotNull DirectionalStream stream : streams.values()) {
+            if (stream instanceof GlobalStream global && global.isPending()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private int globalStreamSize() {
-        return streams.get(BidirectionalStream.class).stream()
-                .filter(s -> s instanceof GlobalStream)
-                .toList()
-                .size();
+        return streams.count(GlobalStream.class);
     }
 
     private boolean isLimitExceeded() {
         return severeBehaviorCount.get() >= SEVERE_BEHAVIORS_LIMITS || globalStreamSize() >= GLOBAL_STREAM_LIMIT;
     }
 
+    /**
+     * Closes every stream of this connection, except the global streams created by the peer, keeping the connection alive.
+     * */
+    void closeStreams() {
+        for (@NotNull DirectionalStream stream : streams.values()) {
+            if (stream instanceof GlobalStream) {
+                continue;
+            }
+
+            try {
+                stream.close();
+            } catch (IOException ignore) {}
+        }
+    }
+
     @Override
     public void close() throws IOException {
         if (closing) return;
@@ -437,16 +631,17 @@ public final class Connection implements Closeable {
         this.authentication = null;
 
         this.compliance.remove(this);
+        this.pool.close();
+        this.early = null;
 
-        for (@NotNull Set<DirectionalStream> set : streams.values()) {
-            for (@NotNull DirectionalStream stream : set) {
-                try {
-                    this.observers.remove(stream.getId());
-                    stream.close();
-                } catch (IOException ignore) {}
-            }
-            set.clear();
+        harvestTickets();
+
+        for (@NotNull DirectionalStream stream : streams.values()) {
+            try {
+                stream.close();
+            } catch (IOException ignore) {}
         }
+        streams.clear();
 
         this.connection.close();
     }
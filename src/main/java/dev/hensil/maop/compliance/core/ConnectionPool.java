@@ -0,0 +1,255 @@
+package dev.hensil.maop.compliance.core;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+
+import dev.hensil.maop.compliance.exception.ConnectionException;
+import dev.hensil.maop.compliance.situation.Situation;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of authenticated connections shared by the situations. Each connection is leased by a single owner at a time and
+ * must be given back with {@link #release(Connection)}, which closes the streams left open by the lease and only keeps the
+ * connection if it is still connected and authenticated.
+ * */
+public final class ConnectionPool {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(ConnectionPool.class).formatter(Main.FORMATTER);
+
+    public static final int DEFAULT_MINIMUM = 0;
+    public static final int DEFAULT_MAXIMUM = 8;
+    public static final @NotNull Duration DEFAULT_LEASE_TIMEOUT = Duration.ofSeconds(10);
+
+    // Connecting and authenticating block, so the pools fill on daemon threads of their own
+    private static final @NotNull ThreadFactory FILLERS = Threads.newFactory("maop-pool-filler-", false);
+
+    // Objects
+
+    private final @NotNull Compliance compliance;
+    private final int minimum;
+    private final int maximum;
+    private final @NotNull Duration leaseTimeout;
+
+    private final @NotNull Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final @NotNull Set<Connection> leased = ConcurrentHashMap.newKeySet();
+    private final @NotNull Semaphore permits;
+
+    private final @NotNull AtomicInteger sequence = new AtomicInteger(0);
+    private final @NotNull AtomicBoolean filling = new AtomicBoolean(false);
+
+    // Constructor
+
+    ConnectionPool(@NotNull Compliance compliance, int minimum, int maximum, @NotNull Duration leaseTimeout) {
+        if (minimum < 0) {
+            throw new IllegalArgumentException("Minimum pool size cannot be negative: " + minimum);
+        } else if (maximum < 1 || maximum < minimum) {
+            throw new IllegalArgumentException("Illegal maximum pool size: " + maximum + " (minimum = " + minimum + ")");
+        }
+
+        this.compliance = compliance;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.leaseTimeout = leaseTimeout;
+        this.permits = new Semaphore(maximum, true);
+    }
+
+    // Getters
+
+    public int getMinimum() {
+        return minimum;
+    }
+
+    public int getMaximum() {
+        return maximum;
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public int getLeased() {
+        return leased.size();
+    }
+
+    private int size() {
+        return idle.size() + leased.size();
+    }
+
+    // Modules
+
+    @Blocking
+    public @NotNull Connection lease(@NotNull Situation situation) throws ConnectionException {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("compliance id", compliance.getId())
+                        .put("situation name", situation.getName())
+                        .install();
+                @NotNull Stack.Scope logScope = Stack.pushScope("Lease")
+        ) {
+            log.trace("Leasing authenticated connection to the " + situation);
+            return lease();
+        }
+    }
+
+    /**
+     * Leases an authenticated connection, reusing an idle one when available or creating and authenticating a new one
+     * otherwise. Waits up to the lease timeout when all the {@link #getMaximum()} connections are leased.
+     *
+     * @throws ConnectionException if there is no connection available or a new one cannot be authenticated
+     * */
+    @Blocking
+    public @NotNull Connection lease() throws ConnectionException {
+        try {
+            if (!permits.tryAcquire(leaseTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ConnectionException("No connection available in the pool after " + leaseTimeout.toMillis() + "ms (maximum = " + maximum + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionException(e);
+        }
+
+        try {
+            @Nullable Connection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isHealthy(connection)) {
+                    log.trace("Reusing authenticated connection (" + connection + ")");
+                    leased.add(connection);
+                    return connection;
+                }
+
+                log.debug("Discarding unhealthy idle connection (" + connection + ")");
+                discard(connection);
+            }
+
+            connection = newConnection();
+            leased.add(connection);
+
+            if (size() < minimum && !filling.get()) {
+                FILLERS.newThread(this::fill).start();
+            }
+
+            return connection;
+        } catch (ConnectionException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back a leased connection. Every stream left open by the lease is closed, and the connection returns to the
+     * idle connections only if it passes the health check.
+     * */
+    public void release(@NotNull Connection connection) {
+        if (!leased.remove(connection)) {
+            log.trace("Releasing a connection that was not leased: " + connection);
+            return;
+        }
+
+        try {
+            connection.closeStreams();
+
+            if (isHealthy(connection) && compliance.isRunning() && size() < maximum) {
+                idle.addFirst(connection);
+            } else {
+                log.debug("Connection (" + connection + ") did not pass the health check and will be closed");
+                discard(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Offers an already authenticated connection to the pool, so it can be reused by the next leases.
+     *
+     * @return true if the connection was accepted
+     * */
+    public boolean offer(@NotNull Connection connection) {
+        if (!isHealthy(connection) || leased.contains(connection) || idle.contains(connection)) {
+            return false;
+        } else if (size() >= maximum) {
+            return false;
+        }
+
+        connection.closeStreams();
+        idle.addLast(connection);
+        log.trace("Authenticated connection (" + connection + ") offered to the pool");
+
+        return true;
+    }
+
+    /**
+     * Creates and authenticates connections until the pool holds at least the {@link #getMinimum()} connections.
+     * */
+    @Blocking
+    public void fill() {
+        if (!filling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            while (compliance.isRunning() && size() < minimum) {
+                idle.addLast(newConnection());
+            }
+        } catch (ConnectionException e) {
+            log.warn("Cannot fill the connection pool: " + e.getMessage());
+        } finally {
+            filling.set(false);
+        }
+    }
+
+    /**
+     * Closes all the idle connections. Leased connections are closed when released.
+     * */
+    void clear() {
+        @Nullable Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    private @NotNull Connection newConnection() throws ConnectionException {
+        @NotNull Connection connection = compliance.createConnection("pool-" + sequence.incrementAndGet(), true);
+
+        try {
+            connection.authenticate();
+            return connection;
+        } catch (IOException | TimeoutException e) {
+            discard(connection);
+            throw new ConnectionException(e);
+        }
+    }
+
+    /**
+     * A connection is only kept while it is connected and authenticated, and while it is {@link Connection#isReusable()}:
+     * the severe behaviour count and the global operations of a lease are not reset, so a connection that carries them
+     * is closed instead of being handed to the next lease.
+     * */
+    @VisibleForTesting
+    boolean isHealthy(@NotNull Connection connection) {
+        return !connection.isClosed() && connection.isConnected() && connection.isAuthenticated() && connection.isReusable();
+    }
+
+    private void discard(@NotNull Connection connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            log.trace("Cannot close discarded connection: " + e);
+        }
+    }
+}
@@ -9,7 +9,6 @@ import tech.kwik.core.QuicStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Objects;
-import java.util.Set;
 
 public abstract class DirectionalStream implements Closeable {
 
@@ -40,10 +39,7 @@ public abstract class DirectionalStream implements Closeable {
     @Override
     @MustBeInvokedByOverriders
     public void close() throws IOException {
-        @Nullable Set<DirectionalStream> stream = this.connection.getStreams().get(this.getClass());
-        if (stream != null) {
-            stream.remove(this);
-        }
+        this.connection.unregister(this);
     }
 
     // Native
@@ -4,22 +4,40 @@ import dev.hensil.maop.compliance.model.operation.Operation;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pairs the operations received by the global streams with the threads waiting for them on a single stream. The kwik
+ * receiver thread never blocks here: operations go into a lock-free ring buffer, dropped when it is full, and a serialized
+ * drain loop hands them to the waiters in arrival order.
+ * */
+final class DirectionalStreamObserver {
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+    // Static initializers
 
-final class DirectionalStreamObserver {
+    @VisibleForTesting
+    static final int OPERATIONS_CAPACITY = 32;
 
     // Objects
 
     private final @NotNull DirectionalStream stream;
-    private final @NotNull LinkedBlockingQueue<Operation> globalOperations = new LinkedBlockingQueue<>(30);
 
-    private final @NotNull AtomicLong count = new AtomicLong(0);
-    private volatile long untilAvailable = 0;
-    private volatile @NotNull CountDownLatch readWaiter = new CountDownLatch(0);
+    private final @NotNull MpscRingBuffer<Operation> operations = new MpscRingBuffer<>(OPERATIONS_CAPACITY);
+    private final @NotNull Queue<CompletableFuture<Operation>> operationWaiters = new ConcurrentLinkedQueue<>();
+    private final @NotNull Queue<ReadWaiter> readWaiters = new ConcurrentLinkedQueue<>();
+
+    private final @NotNull AtomicInteger wip = new AtomicInteger(0);
+
+    private volatile boolean ended = false;
+
+    // Only accessed by the thread holding the drain loop
+    private @Nullable Operation carry = null;
 
     // Constructor
 
@@ -29,78 +47,172 @@ final class DirectionalStreamObserver {
 
     // Modules
 
-    void fireOperation(@NotNull Operation operation) {
+    /**
+     * Hands the operation to the oldest operation waiter, or keeps it until the next one arrives. Called from the kwik
+     * receiver thread and never blocks.
+     *
+     * @return false if the operation was dropped because the buffer is full
+     * */
+    boolean fireOperation(@NotNull Operation operation) {
         if (!stream.getConnection().isConnected()) {
             throw new IllegalStateException("Connection lost");
         }
 
-        try {
-            boolean offered = this.globalOperations.offer(operation, 1, TimeUnit.SECONDS);
-            if (!offered) {
-                throw new IllegalStateException("The queue of operations is full");
-            }
-        } catch (InterruptedException ignore) {
+        if (!operations.offer(operation)) {
+            stream.getConnection().countDroppedOperation();
+            return false;
+        }
+
+        drain();
+        return true;
+    }
 
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
         }
+
+        int missed = 1;
+        do {
+            while (true) {
+                @Nullable CompletableFuture<Operation> waiter = operationWaiters.peek();
+                if (waiter == null) {
+                    break;
+                } else if (waiter.isDone()) {
+                    operationWaiters.remove(waiter);
+                    continue;
+                }
+
+                @Nullable Operation operation = carry != null ? carry : operations.poll();
+                if (operation == null) {
+                    break;
+                }
+
+                this.carry = null;
+
+                // The waiter may time out concurrently, then the operation goes to the next one
+                if (!operationWaiters.remove(waiter) || !waiter.complete(operation)) {
+                    this.carry = operation;
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
     }
 
+    /**
+     * Completes every reading waiter whose threshold is already available. Called from the kwik receiver thread.
+     * */
     void fireReading(long newBytes) {
-        if (!isWaitReading()) {
+        if (readWaiters.isEmpty()) {
+            return;
+        }
+
+        long available;
+        try {
+            available = available();
+        } catch (IOException e) {
+            for (@NotNull ReadWaiter waiter : readWaiters) {
+                waiter.future.completeExceptionally(e);
+            }
+
             return;
         }
 
-        long total = this.count.addAndGet(newBytes);
-        if (total >= untilAvailable) {
-            this.readWaiter.countDown();
-            resetReading();
+        for (@NotNull ReadWaiter waiter : readWaiters) {
+            if (available >= waiter.untilAvailable) {
+                waiter.future.complete(available);
+            }
         }
     }
 
-    boolean isWaitReading() {
-        return readWaiter.getCount() > 0;
-    }
+    /**
+     * Fails every reading waiter, and the ones registered later, with an {@link EOFException}. Called from the kwik
+     * receiver thread when the stream signals a reading with nothing to read, which only happens once the peer finished it.
+     * */
+    void fireEnd() {
+        this.ended = true;
 
-    private void setWaitReading(boolean waitReading) {
-        if (waitReading && !isWaitReading()) {
-            this.readWaiter = new CountDownLatch(1);
+        for (@NotNull ReadWaiter waiter : readWaiters) {
+            waiter.future.completeExceptionally(new EOFException("Stream " + stream.getId() + " finished by the peer"));
         }
     }
 
-    private void resetReading() {
-        setWaitReading(false);
-
-        this.untilAvailable = 0;
-        this.count.set(0);
+    boolean isWaitReading() {
+        return !readWaiters.isEmpty();
     }
 
-    void setUntilAvailable(long bytes) {
-        if (isWaitReading()) {
-            throw new IllegalStateException("Already waiting for available bytes: " + untilAvailable);
+    /**
+     * @return a future completed with the available bytes as soon as there are at least {@code untilAvailable} bytes,
+     * exceptionally with an {@link EOFException} if the stream ends before
+     * */
+    @NotNull CompletableFuture<Long> awaitReadingAsync(long untilAvailable) {
+        @NotNull ReadWaiter waiter = new ReadWaiter(untilAvailable);
+        readWaiters.add(waiter);
+        waiter.future.whenComplete((available, error) -> readWaiters.remove(waiter));
+
+        // Bytes may have arrived before the waiter was registered, and the end is only signalled once
+        fireReading(0);
+
+        if (ended) {
+            waiter.future.completeExceptionally(new EOFException("Stream " + stream.getId() + " finished by the peer"));
         }
 
-        setWaitReading(true);
-        this.untilAvailable = bytes;
+        return waiter.future;
     }
 
-    public boolean awaitReading(int timeout, @NotNull TimeUnit unit) {
-        if (!isWaitReading()) {
-            return false;
-        }
+    @NotNull CompletableFuture<Operation> awaitOperationAsync() {
+        @NotNull CompletableFuture<Operation> future = new CompletableFuture<>();
+        future.whenComplete((operation, error) -> {
+            if (error instanceof TimeoutException) {
+                stream.getConnection().countTimedOutOperationWait();
+            }
 
-        try {
-            return this.readWaiter.await(timeout, unit);
-        } catch (InterruptedException e) {
-            return false;
-        } finally {
-            resetReading();
-        }
+            if (error != null) {
+                operationWaiters.remove(future);
+            }
+        });
+
+        operationWaiters.add(future);
+        drain();
+
+        return future;
     }
 
     public @Nullable Operation awaitOperation(int timeout, @NotNull TimeUnit timeUnit) {
+        // The timer and the drain loop race to complete the future, so an operation is never lost after the timeout
+        @NotNull CompletableFuture<Operation> future = stream.getConnection().getTimer().orTimeout(awaitOperationAsync(), timeout, timeUnit);
+
         try {
-            return this.globalOperations.poll(timeout, timeUnit);
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
         } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
             return null;
         }
     }
-}
\ No newline at end of file
+
+    private long available() throws IOException {
+        if (stream instanceof BidirectionalStream bidirectional) {
+            return bidirectional.available();
+        } else if (stream instanceof UnidirectionalInputStream input) {
+            return input.available();
+        }
+
+        return 0;
+    }
+
+    // Classes
+
+    private static final class ReadWaiter {
+
+        private final long untilAvailable;
+        private final @NotNull CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private ReadWaiter(long untilAvailable) {
+            this.untilAvailable = untilAvailable;
+        }
+    }
+}
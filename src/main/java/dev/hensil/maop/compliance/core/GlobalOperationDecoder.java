@@ -0,0 +1,262 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A resumable, single pass decoder of the operations received by a {@link GlobalStream}. It consumes whatever is available
+ * in the given buffer, remembers where it stopped and continues on the next call, so an operation may be split at any byte.
+ * Fixed size fields are read straight from the input buffer whenever they are contiguous, and only the fields split across
+ * two readings are assembled in a small scratch buffer.
+ * */
+final class GlobalOperationDecoder {
+
+    // Static initializers
+
+    private static final int PHASE_HEADER = 0;
+    private static final int PHASE_ENTRIES = 1;
+    private static final int PHASE_REASON = 2;
+
+    // Objects
+
+    private final @NotNull ByteBuffer scratch = ByteBuffer.allocate(16);
+
+    private @Nullable OperationUtil util = null;
+    private int phase = PHASE_HEADER;
+
+    private int count;
+    private int index;
+    private @Nullable Object @Nullable [] entries;
+
+    private long stream;
+    private short error;
+    private int drainTime;
+    private byte @Nullable [] reason;
+    private int reasonPosition;
+
+    // Getters
+
+    /**
+     * @return the operation being decoded, or null if the decoder is waiting for the next operation code
+     * */
+    @Nullable OperationUtil getPending() {
+        return util;
+    }
+
+    // Modules
+
+    /**
+     * Decodes the next operation from the buffer, consuming only the bytes that belong to it.
+     *
+     * @return the decoded operation, or null if every byte of the buffer was consumed and the operation is not finished
+     * @throws IllegalArgumentException if the stream carries a non-global operation or an illegal count or length. The
+     * decoder is reset and the rest of the stream cannot be trusted.
+     * */
+    @Nullable Operation decode(@NotNull ByteBuffer in) {
+        if (util == null) {
+            if (!in.hasRemaining()) {
+                return null;
+            }
+
+            byte code = in.get();
+            @Nullable OperationUtil util = OperationUtil.getByCode(code);
+
+            if (util == null) {
+                throw new IllegalArgumentException("Illegal operation code: " + code);
+            } else if (!util.isGlobalOperation()) {
+                throw new IllegalArgumentException("Would expect to read a global operation but a " + util + " operation was read");
+            } else if (util == OperationUtil.DISCONNECT) {
+                return new Disconnect();
+            }
+
+            this.util = util;
+            this.phase = PHASE_HEADER;
+        }
+
+        if (phase == PHASE_HEADER) {
+            @Nullable ByteBuffer header = take(in, headerSize());
+            if (header == null) {
+                return null;
+            }
+
+            try {
+                readHeader(header);
+            } catch (IllegalArgumentException e) {
+                reset();
+                throw e;
+            } finally {
+                release(header);
+            }
+        }
+
+        if (phase == PHASE_ENTRIES) {
+            int size = entrySize();
+
+            while (index < count) {
+                @Nullable ByteBuffer entry = take(in, size);
+                if (entry == null) {
+                    return null;
+                }
+
+                readEntry(entry);
+                release(entry);
+                index++;
+            }
+        } else if (phase == PHASE_REASON) {
+            assert reason != null;
+
+            int length = Math.min(reason.length - reasonPosition, in.remaining());
+            in.get(reason, reasonPosition, length);
+            reasonPosition += length;
+
+            if (reasonPosition < reason.length) {
+                return null;
+            }
+        }
+
+        @NotNull Operation operation = build();
+        reset();
+
+        return operation;
+    }
+
+    void reset() {
+        this.util = null;
+        this.phase = PHASE_HEADER;
+        this.entries = null;
+        this.reason = null;
+        this.count = 0;
+        this.index = 0;
+        this.reasonPosition = 0;
+        this.scratch.clear();
+    }
+
+    /**
+     * @return the input itself if the next {@code length} bytes are contiguous, the completed scratch buffer if they were
+     * split, or null if the bytes are not all available yet
+     * */
+    private @Nullable ByteBuffer take(@NotNull ByteBuffer in, int length) {
+        if (scratch.position() == 0 && in.remaining() >= length) {
+            return in;
+        }
+
+        int missing = length - scratch.position();
+        int available = Math.min(missing, in.remaining());
+
+        scratch.put(scratch.position(), in, in.position(), available);
+        scratch.position(scratch.position() + available);
+        in.position(in.position() + available);
+
+        if (available < missing) {
+            return null;
+        }
+
+        scratch.flip();
+        return scratch;
+    }
+
+    private void release(@NotNull ByteBuffer buffer) {
+        if (buffer == scratch) {
+            scratch.clear();
+        }
+    }
+
+    private int headerSize() {
+        if (util == OperationUtil.FAIL) {
+            return Long.BYTES + Short.BYTES + Short.BYTES;
+        } else if (util == OperationUtil.DISCONNECT_REQUEST) {
+            return Integer.BYTES + Short.BYTES;
+        } else {
+            return Short.BYTES; // Entry count
+        }
+    }
+
+    private int entrySize() {
+        if (util == OperationUtil.PROCEED) {
+            return Long.BYTES;
+        } else if (util == OperationUtil.REFUSE) {
+            return Long.BYTES + Integer.BYTES + Short.BYTES;
+        } else if (util == OperationUtil.DONE) {
+            return Long.BYTES + Integer.BYTES + Integer.BYTES;
+        }
+
+        throw new AssertionError("Internal error");
+    }
+
+    private void readHeader(@NotNull ByteBuffer buffer) {
+        assert util != null;
+
+        if (util == OperationUtil.FAIL || util == OperationUtil.DISCONNECT_REQUEST) {
+            if (util == OperationUtil.FAIL) {
+                this.stream = buffer.getLong();
+                this.error = buffer.getShort();
+            } else {
+                this.drainTime = buffer.getInt();
+            }
+
+            short length = buffer.getShort();
+            if (length < 0) {
+                throw new IllegalArgumentException(util + " reason length is illegal: " + length);
+            }
+
+            this.reason = new byte[length];
+            this.reasonPosition = 0;
+            this.phase = PHASE_REASON;
+
+            return;
+        }
+
+        short count = buffer.getShort();
+        int max = util.getHeaderLength() / entrySize();
+
+        if (count < 0 || count > max) {
+            throw new IllegalArgumentException(util + " entry count is illegal: " + count);
+        }
+
+        this.count = count;
+        this.index = 0;
+        this.phase = PHASE_ENTRIES;
+
+        if (util == OperationUtil.PROCEED) {
+            this.entries = new Proceed.Entry[count];
+        } else if (util == OperationUtil.REFUSE) {
+            this.entries = new Refuse.Entry[count];
+        } else {
+            this.entries = new Done.Entry[count];
+        }
+    }
+
+    private void readEntry(@NotNull ByteBuffer buffer) {
+        assert entries != null;
+
+        if (util == OperationUtil.PROCEED) {
+            entries[index] = new Proceed.Entry(buffer.getLong());
+        } else if (util == OperationUtil.REFUSE) {
+            entries[index] = new Refuse.Entry(buffer.getLong(), buffer.getInt(), buffer.getShort());
+        } else {
+            entries[index] = new Done.Entry(buffer.getLong(), buffer.getInt(), buffer.getInt());
+        }
+    }
+
+    private @NotNull Operation build() {
+        if (util == OperationUtil.PROCEED) {
+            return new Proceed((Proceed.Entry[]) entries);
+        } else if (util == OperationUtil.REFUSE) {
+            return new Refuse((Refuse.Entry[]) entries);
+        } else if (util == OperationUtil.DONE) {
+            return new Done((Done.Entry[]) entries);
+        }
+
+        assert reason != null;
+        if (util == OperationUtil.FAIL) {
+            return new Fail(stream, error, reason);
+        } else {
+            return new DisconnectRequest(drainTime, (short) reason.length, new String(reason, StandardCharsets.UTF_8));
+        }
+    }
+}
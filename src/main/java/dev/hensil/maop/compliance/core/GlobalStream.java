@@ -4,6 +4,8 @@ import com.jlogm.Logger;
 import com.jlogm.context.LogCtx;
 import com.jlogm.context.Stack;
 
+import dev.hensil.maop.compliance.model.operation.Disconnect;
+import dev.hensil.maop.compliance.model.operation.DisconnectRequest;
 import dev.hensil.maop.compliance.model.operation.Operation;
 
 import org.jetbrains.annotations.NotNull;
@@ -15,19 +17,17 @@ import tech.kwik.core.StreamReadListener;
 import tech.kwik.core.stream.NullStreamInputStream;
 import tech.kwik.core.stream.QuicStreamImpl;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.Set;
 
 public final class GlobalStream extends BidirectionalStream {
 
     // Static initializers
 
     private static final @NotNull Logger log = Logger.create(GlobalStream.class);
+    private static final int BUFFER_SIZE = 512;
 
     static @NotNull StreamReadListener newGlobalListener(@NotNull Connection connection) {
         return (qs, length) -> {
@@ -51,16 +51,12 @@ public final class GlobalStream extends BidirectionalStream {
 
                     @NotNull Stack.Scope logScope = Stack.pushScope("Global stream listener")
             ) {
-                if (length == 0) {
-                    return;
-                }
+                boolean empty = false;
 
                 {
                     @UnknownNullability InputStream inputStream = quicStream.getInputStream();
                     if (!(inputStream instanceof NullStreamInputStream)) try {
-                        if (inputStream.available() == 0) {
-                            return;
-                        }
+                        empty = inputStream.available() == 0;
                     } catch (IOException ignore) {
 
                     }
@@ -69,10 +65,22 @@ public final class GlobalStream extends BidirectionalStream {
                 if (quicStream.isSelfInitiated()) {
                     @Nullable DirectionalStreamObserver observer = connection.getObserver(quicStream.getStreamId());
                     if (observer == null) {
+                        if (empty) {
+                            return;
+                        }
+
                         throw new AssertionError("Internal error");
                     }
 
-                    if (observer.isWaitReading()) {
+                    if (!observer.isWaitReading()) {
+                        return;
+                    }
+
+                    // The waiting thread is not reading, so a reading with nothing to read is the end of the stream
+                    if (empty) {
+                        log.trace("Firing the end of the stream in the Observer (stream = " + quicStream.getStreamId() + ")");
+                        observer.fireEnd();
+                    } else {
                         log.trace("Firing new readings in the Observer (stream = " + quicStream.getStreamId() + " & length = " + length + ")");
                         observer.fireReading(length);
                     }
@@ -80,6 +88,10 @@ public final class GlobalStream extends BidirectionalStream {
                     return;
                 }
 
+                if (length == 0 || empty) {
+                    return;
+                }
+
                 if (quicStream.isUnidirectional()) { // Reject
                     log.warn("Useless unidirectional stream created by peer: " + quicStream);
 
@@ -115,213 +127,89 @@ public final class GlobalStream extends BidirectionalStream {
                     return;
                 }
 
-                @Nullable BidirectionalStream bidirectionalStream = connection.getDirectionalStream(BidirectionalStream.class, quicStream.getStreamId());
-                @Nullable GlobalStream globalStream = null;
-                boolean isNewbie = bidirectionalStream == null;
-
-                @NotNull Set<DirectionalStream> streams = connection.getStreams().get(BidirectionalStream.class);
-                try {
-                    if (isNewbie) {
-                        if (length > Short.MAX_VALUE) {
-                            log.warn("Too many bytes in a newbie global stream");
-
-                            try {
-                                quicStream.getInputStream().close();
-                                quicStream.getOutputStream().close();
-                            } catch (IOException e) {
-                                log.trace("I/O error occurred while trying to close an illegal bidirectional stream with id" + quicStream.getStreamId() + "): " + e);
-                            }
-
-                            log.trace("Reporting " + quicStream);
-                            connection.reportGlobalPolicies();
-                        }
+                @Nullable GlobalStream globalStream = connection.getDirectionalStream(GlobalStream.class, quicStream.getStreamId());
+                boolean isNewbie = globalStream == null;
 
-                        log.info("New incoming bidirectional stream with id " + quicStream.getStreamId());
-                        bidirectionalStream = new BidirectionalStream(connection, quicStream);
+                if (isNewbie) {
+                    if (length > Short.MAX_VALUE) {
+                        log.warn("Too many bytes in a newbie global stream");
 
-                        boolean added = streams.add(bidirectionalStream);
-                        if (!added) {
-                            throw new AssertionError("Internal error");
+                        try {
+                            quicStream.getInputStream().close();
+                            quicStream.getOutputStream().close();
+                        } catch (IOException e) {
+                            log.trace("I/O error occurred while trying to close an illegal bidirectional stream with id" + quicStream.getStreamId() + "): " + e);
                         }
 
-                        log.debug("Number of potential global streams by the connection " + connection + ": " + streams.size());
-                        log.trace("Reading new operation from potential global stream with id " + bidirectionalStream.getId());
+                        log.trace("Reporting " + quicStream);
+                        connection.reportGlobalPolicies();
 
-                        byte code = bidirectionalStream.readByte();
-                        @Nullable OperationUtil utils = OperationUtil.getByCode(code);
-                        boolean illegal = utils == null || !utils.isGlobalOperation();
+                        return;
+                    }
+
+                    log.info("New incoming bidirectional stream with id " + quicStream.getStreamId());
+                    globalStream = new GlobalStream(connection, quicStream);
+
+                    boolean added = connection.register(globalStream);
+                    if (!added) {
+                        throw new AssertionError("Internal error");
+                    }
+
+                    log.debug("Number of potential global streams by the connection " + connection + ": " + connection.getStreamCount());
+                } else {
+                    log.trace("Non newbie Global stream (" + quicStream + ") with " + globalStream.available() + " bytes available received");
+                }
 
-                        if (utils == OperationUtil.DISCONNECT || utils == OperationUtil.DISCONNECT_REQUEST) {
-                            log.severe("Received a disconnect operation without reason: " + utils);
+                try (
+                        @NotNull LogCtx.Scope logContext2 = LogCtx.builder()
+                                .put("newbie", isNewbie)
+                                .put("pending operation", String.valueOf(globalStream.decoder.getPending()))
+                                .install();
+
+                        @NotNull Stack.Scope logScope2 = Stack.pushScope("Read operation")
+                ) {
+                    @Nullable Operation operation;
+                    while ((operation = globalStream.next()) != null) {
+                        if (operation instanceof Disconnect || operation instanceof DisconnectRequest) {
+                            log.severe("Received a disconnect operation: " + operation);
                             shutdown(connection);
+
+                            return;
                         }
 
-                        try (
-                                @NotNull LogCtx.Scope logContext2 = LogCtx.builder()
-                                        .put("operation code", code)
-                                        .put("illegal operation", illegal)
-                                        .install();
-
-                                @NotNull Stack.Scope logScope2 = Stack.pushScope("Read newbie operation")
-                        ) {
-                            if (illegal) {
-                                if (utils == null) {
-                                    log.trace("Illegal operation read by Bidirectional Stream ( " + quicStream + ") with code: " + code);
-                                } else {
-                                    log.trace("Would expect to read a Global operation on a bidirectional stream (" + quicStream + ") but a " + utils + " operation was read");
-                                }
-
-                                log.trace("Reporting " + quicStream);
-                                connection.reportGlobalPolicies();
-
-                                try {
-                                    bidirectionalStream.close();
-                                } catch (IOException e) {
-                                    log.trace("I/O error occurred while trying to close an illegal bidirectional stream with id" + bidirectionalStream.getId() + "): " + e);
-                                }
-
-                                return;
-                            }
-
-                            // It is a Global stream now
-                            streams.remove(bidirectionalStream);
-                            globalStream = new GlobalStream(connection, quicStream);
-                            streams.add(globalStream);
-                            log.trace("New Global stream (" + quicStream + ") was defined with " + length + " bytes available");
-
-                            try {
-                                log.trace("New " + utils + " operation is pending to be completed");
-                                globalStream.pending(utils);
-
-                                if (globalStream.isComplete()) { // Finished
-                                    @Nullable ByteBuffer buffer = globalStream.getBuffer();
-                                    if (buffer == null) {
-                                        throw new AssertionError("Internal error");
-                                    }
-
-                                    @NotNull Operation operation = utils.read(new DataInputStream(new ByteArrayInputStream(buffer.array(), buffer.position(), buffer.limit())));
-                                    log.trace("Successfully read operation on newbie global stream (" + quicStream + ") : " + operation);
-                                    utils.handleObserve(operation, connection);
-                                    globalStream.resetAll();
-                                }
-                            } catch (Throwable e) {
-                                log.severe("Fatal error occurs while read global operation operation: " + e.getMessage());
-                                log.debug().cause(e).log();
-                                shutdown(connection);
-                            }
+                        @Nullable OperationUtil util = OperationUtil.getByCode(operation.getCode());
+                        if (util == null) {
+                            throw new AssertionError("Internal error");
                         }
+
+                        log.trace("Successfully read operation on the global stream (" + quicStream + ") : " + operation);
+                        util.handleObserve(operation, connection);
                     }
 
-                    // It is not newbie.
-
-                    else {
-                        globalStream = (GlobalStream) bidirectionalStream;
-                        log.trace("Non newbie Global stream (" + quicStream + ") with " + globalStream.available() + " bytes available received");
-
-                        if (globalStream.hasPendingOperation()) {
-                            @Nullable OperationUtil util = globalStream.pendingOperation;
-                            @Nullable ByteBuffer buffer = globalStream.getBuffer();
-                            if (util == null || buffer == null) {
-                                throw new AssertionError("Internal error");
-                            }
-
-                            log.trace("Trying to finish read " + util + " operation");
-                            try (
-                                    @NotNull LogCtx.Scope logContext2 = LogCtx.builder()
-                                            .put("operation code", util.getCode())
-                                            .put("buffer capacity", buffer.capacity())
-                                            .install();
-
-                                    @NotNull Stack.Scope logScope2 = Stack.pushScope("Read operation")
-                            ) {
-                                globalStream.proceed();
-
-                                if (globalStream.isComplete()) {
-                                    log.trace(util + " operation ready to be complete on " + globalStream);
-
-                                    @NotNull Operation operation = util.read(new DataInputStream(new ByteArrayInputStream(buffer.array(), buffer.position(), buffer.limit())));
-                                    log.trace("Successfully read operation on the global stream (" + quicStream + ") : " + operation);
-                                    util.handleObserve(operation, connection);
-                                    globalStream.resetAll();
-                                }
-                            } catch (Throwable e) {
-                                log.severe("Fatal error occurs while read global operation operation: " + e.getMessage());
-                                log.debug().cause(e).log();
-                            }
-                        } else {
-                            log.trace("Reading new operation from Global stream with id " + globalStream.getId());
-
-                            byte code = globalStream.readByte();
-                            @Nullable OperationUtil utils = OperationUtil.getByCode(code);
-                            boolean illegal = utils == null || !utils.isGlobalOperation();
-
-                            if (utils == OperationUtil.DISCONNECT || utils == OperationUtil.DISCONNECT_REQUEST) {
-                                log.severe("Received a disconnect operation without reason: " + utils);
-                                shutdown(connection);
-                            }
-
-                            if (illegal) {
-                                if (utils == null) {
-                                    log.warn("Illegal operation read by Global Stream ( " + quicStream + ") with code: " + code);
-                                } else {
-                                    log.warn("Would expect to read a global operation on a bidirectional stream (" + quicStream + ") but a " + utils + " operation was read");
-                                }
-
-                                log.trace("Reporting " + quicStream);
-                                connection.reportGlobalPolicies();
-
-                                try {
-                                    globalStream.close();
-                                } catch (IOException e) {
-                                    log.trace("I/O error occurred while trying to close an illegal bidirectional stream with id" + bidirectionalStream.getId() + "): " + e);
-                                }
-
-                                return;
-                            }
-
-                            try {
-                                log.trace("New " + utils + " operation is pending to be completed");
-                                globalStream.pending(utils);
-
-                                if (globalStream.isComplete()) {
-                                    log.trace(utils + " operation ready to be complete on " + globalStream);
-
-                                    @Nullable ByteBuffer buffer = globalStream.getBuffer();
-                                    if (buffer == null) {
-                                        throw new AssertionError("Internal error");
-                                    }
-
-                                    @NotNull Operation operation = utils.read(new DataInputStream(new ByteArrayInputStream(buffer.array(), buffer.position(), buffer.limit())));
-                                    log.trace("Successfully read operation on the global stream (" + quicStream + ") : " + operation);
-                                    utils.handleObserve(operation, connection);
-                                    globalStream.resetAll();
-                                }
-                            } catch (Throwable e) {
-                                log.severe("Fatal error occurs while read global operation operation: " + e.getMessage());
-                                log.debug().cause(e).log();
-                            }
-                        }
+                    if (globalStream.decoder.getPending() != null) {
+                        log.trace("New " + globalStream.decoder.getPending() + " operation is pending to be completed");
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn("Illegal operation read by Global Stream (" + quicStream + "): " + e.getMessage());
+
+                    // Removed before reporting, so it is not counted as a global stream
+                    try {
+                        globalStream.close();
+                    } catch (IOException ex) {
+                        log.trace("I/O error occurred while trying to close an illegal bidirectional stream with id" + globalStream.getId() + "): " + ex);
                     }
+
+                    log.trace("Reporting " + quicStream);
+                    connection.reportGlobalPolicies();
                 } catch (IOException e) {
                     if (!connection.isClosed()) {
                         log.trace("I/O error in stream: " + e);
 
-                        if (globalStream != null) {
-                            streams.remove(globalStream);
-
-                            try {
-                                globalStream.close();
-                            } catch (IOException ignore) {
-
-                            }
+                        try {
+                            globalStream.close();
+                        } catch (IOException ignore) {
 
-                            return;
                         }
-
-                        streams.remove(bidirectionalStream);
-                        try {
-                            bidirectionalStream.close();
-                        } catch (IOException ignore) {}
                     }
                 } catch (UnsupportedOperationException e) {
                     log.severe("Global stream read invalid operation: " + e.getMessage());
@@ -331,6 +219,8 @@ public final class GlobalStream extends BidirectionalStream {
                     log.debug().cause(e).log();
                     shutdown(connection);
                 }
+            } catch (IOException e) {
+                log.trace("I/O error in stream: " + e);
             }
         };
     }
@@ -353,9 +243,10 @@ public final class GlobalStream extends BidirectionalStream {
 
     // Objects
 
-    private @Nullable OperationUtil pendingOperation;
-    private @Nullable ByteBuffer buffer;
-    private boolean completed = false;
+    private final @NotNull GlobalOperationDecoder decoder = new GlobalOperationDecoder();
+
+    // Reused by every reading, always in read mode
+    private final @NotNull ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
 
     GlobalStream(@NotNull Connection connection, @NotNull QuicStream stream) {
         super(connection, stream);
@@ -363,37 +254,42 @@ public final class GlobalStream extends BidirectionalStream {
 
     // Getters
 
-    @Nullable ByteBuffer getBuffer() {
-        return buffer;
-    }
-
-    boolean hasPendingOperation() {
-        return pendingOperation != null;
-    }
-
-    public boolean isComplete() {
-        return hasPendingOperation() && completed;
+    /**
+     * @return true if an operation was started by the peer and is not complete yet, or decoded bytes are still buffered
+     * */
+    boolean isPending() {
+        return decoder.getPending() != null || buffer.hasRemaining();
     }
 
     // Modules
 
-    void pending(@NotNull OperationUtil util) throws IOException {
-        this.pendingOperation = util;
-        this.buffer = util.readGlobal(this);
-    }
+    /**
+     * Decodes the next operation, reading from the stream only what is already available, so it never blocks.
+     *
+     * @return the next complete operation, or null if the available bytes end in the middle of one
+     * @throws IllegalArgumentException if the peer sent an illegal operation
+     * */
+    @Nullable Operation next() throws IOException {
+        while (true) {
+            if (buffer.hasRemaining()) {
+                @Nullable Operation operation = decoder.decode(buffer);
+                if (operation != null) {
+                    return operation;
+                }
+            }
 
-    void proceed() throws IOException {
-        if (pendingOperation != null) {
-            this.buffer = pendingOperation.readGlobal(this);
-        }
-    }
+            int available = available();
+            if (available <= 0) {
+                return null;
+            }
 
-    void complete() {
-        this.completed = true;
-    }
+            int read = read(buffer.array(), 0, Math.min(available, buffer.capacity()));
+            if (read <= 0) {
+                buffer.limit(0);
+                return null;
+            }
 
-    void resetAll() {
-        this.pendingOperation = null;
-        this.buffer = null;
+            buffer.position(0).limit(read);
+        }
     }
-}
\ No newline at end of file
+}
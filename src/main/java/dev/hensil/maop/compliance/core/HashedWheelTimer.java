@@ -0,0 +1,410 @@
+package dev.hensil.maop.compliance.core;
+
+import com.jlogm.Logger;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The protocol timeouts of a compliance, kept in a hashed wheel of buckets instead of a task scheduled per deadline. A
+ * single daemon worker advances the wheel once per tick and expires the timeouts of the current bucket; a timeout more
+ * than one turn away waits in its bucket for the remaining rounds.
+ * <p>
+ * Scheduling and cancelling never take a lock nor touch the wheel: both only push the timeout into a lock-free queue that
+ * the worker drains at the next tick, so a cancellation costs a compare-and-set and the timeout is unlinked in constant
+ * time. The deadlines are precise to a tick, which is fine for protocol timeouts measured in seconds.
+ * <p>
+ * The expired tasks run on the worker thread and must be short. The futures of {@link #orTimeout(CompletableFuture, long,
+ * TimeUnit)} fail on another thread instead, so their dependent stages never delay the ticks. The worker parks while
+ * there is no pending timeout and starts with the first one. {@link #stop()} ends the worker and expires the timeouts
+ * left, so nothing waits on a timer that no longer ticks; a timeout scheduled afterwards starts a new worker.
+ * */
+@ApiStatus.Internal
+public final class HashedWheelTimer {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(HashedWheelTimer.class).formatter(Main.FORMATTER);
+    private static final @NotNull AtomicInteger counter = new AtomicInteger(0);
+
+    // Fails the timed out futures, whose dependent stages run on it
+    private static final @NotNull Executor expirations = Executors.newCachedThreadPool(Threads.newFactory("maop-timeout-", false));
+
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    // Objects
+
+    private final @NotNull String name;
+    private final long tickNanos;
+    private final int mask;
+    private final @NotNull Bucket @NotNull [] wheel;
+
+    private final @NotNull Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final @NotNull Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final @NotNull AtomicLong active = new AtomicLong(0);
+    private final @NotNull AtomicBoolean started = new AtomicBoolean(false);
+    private final long origin = System.nanoTime();
+
+    private volatile @Nullable Thread worker;
+    private volatile boolean idle = false;
+
+    // Only accessed by the worker
+    private long tick = 0;
+
+    // Constructor
+
+    public HashedWheelTimer(@NotNull String name) {
+        this(name, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param wheelSize the minimum number of buckets, rounded up to the next power of two
+     * */
+    public HashedWheelTimer(@NotNull String name, long tick, @NotNull TimeUnit unit, int wheelSize) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Illegal tick: " + tick);
+        } else if (wheelSize < 1 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("Illegal wheel size: " + wheelSize);
+        }
+
+        this.name = name;
+        this.tickNanos = unit.toNanos(tick);
+
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+    }
+
+    // Getters
+
+    /**
+     * @return the timeouts neither expired nor cancelled yet
+     * */
+    public long getPending() {
+        return active.get();
+    }
+
+    int getWheelSize() {
+        return wheel.length;
+    }
+
+    // Modules
+
+    /**
+     * Runs the task on the worker thread once the delay elapses, unless the returned timeout is cancelled before.
+     * */
+    public @NotNull Timeout schedule(@NotNull Runnable task, long delay, @NotNull TimeUnit unit) {
+        long deadline = System.nanoTime() - origin + Math.max(0, unit.toNanos(delay));
+        @NotNull Timeout timeout = new Timeout(this, task, deadline);
+
+        active.incrementAndGet();
+        pending.add(timeout);
+
+        if (!started.get() && started.compareAndSet(false, true)) {
+            start();
+        } else if (idle) {
+            LockSupport.unpark(worker);
+        }
+
+        return timeout;
+    }
+
+    /**
+     * Ends the worker and expires every timeout not expired nor cancelled yet, running its task right away, so the
+     * futures of {@link #orTimeout(CompletableFuture, long, TimeUnit)} fail instead of waiting forever. Waits for the
+     * worker to finish, unless called by one of the expired tasks.
+     * */
+    public void stop() {
+        @Nullable Thread thread = this.worker;
+        if (thread == null) {
+            return;
+        }
+
+        this.worker = null;
+        LockSupport.unpark(thread);
+
+        if (thread == Thread.currentThread()) {
+            return;
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void start() {
+        @NotNull Thread thread = new Thread(this::work, "maop-timer-" + name + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+
+        this.worker = thread;
+        thread.start();
+    }
+
+    /**
+     * Completes the future exceptionally with a {@link TimeoutException} if it is not done within the timeout, like
+     * {@link CompletableFuture#orTimeout(long, TimeUnit)}, and cancels the timeout as soon as it completes. The future
+     * fails on a thread of its own, not on the worker, so the stages chained to it may block; only the timeouts expired
+     * by {@link #stop()} fail right away, before it returns.
+     *
+     * @return the same future
+     * */
+    public <T> @NotNull CompletableFuture<T> orTimeout(@NotNull CompletableFuture<T> future, long timeout, @NotNull TimeUnit unit) {
+        if (future.isDone()) {
+            return future;
+        }
+
+        @NotNull Timeout scheduled = schedule(() -> {
+            if (worker == Thread.currentThread()) {
+                expirations.execute(() -> future.completeExceptionally(new TimeoutException()));
+            } else {
+                future.completeExceptionally(new TimeoutException());
+            }
+        }, timeout, unit);
+        future.whenComplete((value, error) -> scheduled.cancel());
+
+        return future;
+    }
+
+    private void work() {
+        @NotNull Thread current = Thread.currentThread();
+        this.tick = (System.nanoTime() - origin) / tickNanos;
+
+        while (worker == current) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleep;
+
+            while ((sleep = deadline - (System.nanoTime() - origin)) > 0 && worker == current) {
+                if (active.get() == 0) {
+                    park(current);
+                    deadline = (tick + 1) * tickNanos;
+                } else {
+                    LockSupport.parkNanos(this, sleep);
+                }
+            }
+
+            if (worker != current) {
+                break;
+            }
+
+            unlinkCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(deadline);
+
+            this.tick++;
+        }
+
+        // Stopped: the timeouts left fail now, including the ones scheduled while stopping
+        unlinkCancelled();
+        transferPending();
+
+        for (@NotNull Bucket bucket : wheel) {
+            bucket.expireAll();
+        }
+
+        this.idle = false;
+        started.set(false);
+
+        // A timeout scheduled after the final transfer would have no worker
+        if (!pending.isEmpty() && started.compareAndSet(false, true)) {
+            start();
+        }
+    }
+
+    private void park(@NotNull Thread current) {
+        unlinkCancelled();
+
+        this.idle = true;
+
+        // Rechecks after publishing the idle flag, so a timeout scheduled meanwhile unparks the worker
+        while (active.get() == 0 && worker == current) {
+            LockSupport.park(this);
+
+            // Nothing was in the wheel, so the missed ticks need no processing; the timeouts scheduled and cancelled
+            // while idle are dropped here
+            this.tick = (System.nanoTime() - origin) / tickNanos;
+            transferPending();
+            unlinkCancelled();
+        }
+
+        this.idle = false;
+    }
+
+    private void transferPending() {
+        @Nullable Timeout timeout;
+
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state.get() != Timeout.INIT) {
+                continue;
+            }
+
+            long target = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.rounds = (target - tick) / wheel.length;
+
+            wheel[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    private void unlinkCancelled() {
+        @Nullable Timeout timeout;
+
+        while ((timeout = cancelled.poll()) != null) {
+            @Nullable Bucket bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+            }
+        }
+    }
+
+    // Classes
+
+    /**
+     * A task scheduled in a {@link HashedWheelTimer}.
+     * */
+    public static final class Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final @NotNull HashedWheelTimer timer;
+        private final @NotNull Runnable task;
+        private final long deadline;
+        private final @NotNull AtomicInteger state = new AtomicInteger(INIT);
+
+        // Only accessed by the worker
+        private long rounds;
+        private @Nullable Bucket bucket;
+        private @Nullable Timeout previous;
+        private @Nullable Timeout next;
+
+        private Timeout(@NotNull HashedWheelTimer timer, @NotNull Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * @return false if the timeout already expired or was cancelled
+         * */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+
+            timer.active.decrementAndGet();
+            timer.cancelled.add(this);
+
+            return true;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+
+            timer.active.decrementAndGet();
+
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.trace("Timeout task failed: " + e);
+            }
+        }
+    }
+
+    private static final class Bucket {
+
+        private @Nullable Timeout head;
+        private @Nullable Timeout tail;
+
+        private void add(@NotNull Timeout timeout) {
+            timeout.bucket = this;
+
+            if (head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                this.tail = timeout;
+            }
+        }
+
+        private void remove(@NotNull Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                this.head = timeout.next;
+            }
+
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                this.tail = timeout.previous;
+            }
+
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        private void expireAll() {
+            @Nullable Timeout timeout;
+
+            while ((timeout = head) != null) {
+                remove(timeout);
+                timeout.expire();
+            }
+        }
+
+        private void expire(long deadline) {
+            @Nullable Timeout timeout = head;
+
+            while (timeout != null) {
+                @Nullable Timeout next = timeout.next;
+
+                if (timeout.state.get() != Timeout.INIT) {
+                    remove(timeout);
+                } else if (timeout.rounds <= 0 && timeout.deadline < deadline) {
+                    remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.rounds--;
+                }
+
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue for many producers and a single consumer. Every slot carries a sequence number telling whether
+ * it is free for the producer at that position or published for the consumer, so producers only contend on the tail and
+ * an offer never blocks: it fails when the buffer is full.
+ * <p>
+ * Only one thread at a time may call {@link #poll()}; callers are responsible for handing the consumer role over with a
+ * happens-before edge.
+ * */
+final class MpscRingBuffer<E> {
+
+    // Objects
+
+    private final int capacity;
+    private final int mask;
+
+    private final @NotNull AtomicReferenceArray<E> elements;
+    private final @NotNull AtomicLongArray sequences;
+    private final @NotNull AtomicLong tail = new AtomicLong(0);
+
+    private volatile long head = 0;
+
+    // Constructor
+
+    /**
+     * @param capacity the minimum capacity, rounded up to the next power of two
+     * */
+    MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    // Getters
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return an estimate of the elements waiting for the consumer
+     * */
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Modules
+
+    /**
+     * @return false if the buffer is full
+     * */
+    boolean offer(@NotNull E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1); // Publish
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+
+            // Another producer took this position, try again with the new tail
+        }
+    }
+
+    /**
+     * @return the oldest published element, or null if there is none
+     * */
+    @Nullable E poll() {
+        long position = head;
+        int index = (int) position & mask;
+
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        @Nullable E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + capacity); // Free for the producer of the next lap
+        this.head = position + 1;
+
+        return element;
+    }
+}
@@ -0,0 +1,40 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.Operation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The output of a stream that writes whole operation frames. Every frame, the operation code and its fields, is encoded
+ * into a buffer reused by the stream and goes out in a single write; while the output is corked, the frames and any raw
+ * bytes accumulate in that buffer until the next {@link #flush()}, so an exchange such as a Block followed by its Block
+ * end costs one write.
+ * */
+public interface OperationOutput extends DataOutput {
+
+    /**
+     * Writes the operation code followed by the operation fields, at once unless the output is corked.
+     * */
+    void writeOperation(@NotNull Operation operation) throws IOException;
+
+    /**
+     * Holds every following write in the buffer of the stream until {@link #flush()}.
+     * */
+    void cork();
+
+    boolean isCorked();
+
+    /**
+     * Writes everything held since {@link #cork()} at once and uncorks the output.
+     * */
+    void flush() throws IOException;
+
+    /**
+     * Drops everything held since {@link #cork()} and resets the stream, so the peer never reads the rest of a frame left
+     * incomplete by a failed write. Nothing can be written afterward.
+     * */
+    void abort();
+}
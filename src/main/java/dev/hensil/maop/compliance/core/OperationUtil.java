@@ -9,11 +9,9 @@ import java.io.DataInput;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public abstract class OperationUtil {
 
@@ -26,13 +24,12 @@ public abstract class OperationUtil {
         }
 
         @Override
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) {
-            throw new UnsupportedOperationException();
-        }
+        public @NotNull Message read(@NotNull DataInput dataInput) throws IOException {
+            short msgId = dataInput.readShort();
+            long payload = dataInput.readLong();
+            byte priority = dataInput.readByte();
 
-        @Override
-        public @NotNull Operation read(@NotNull DataInput dataInput) {
-            return null;
+            return new Message(msgId, payload, priority);
         }
     };
 
@@ -42,13 +39,15 @@ public abstract class OperationUtil {
             throw new UnsupportedOperationException();
         }
 
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) {
-            throw new UnsupportedOperationException();
-        }
-
         @Override
-        public @NotNull Operation read(@NotNull DataInput dataInput) {
-            return null;
+        public @NotNull Request read(@NotNull DataInput dataInput) throws IOException {
+            short msgId = dataInput.readShort();
+            long payload = dataInput.readLong();
+            byte priority = dataInput.readByte();
+            short responseId = dataInput.readShort();
+            int timeout = dataInput.readInt();
+
+            return new Request(msgId, responseId, payload, priority, timeout);
         }
     };
 
@@ -58,10 +57,6 @@ public abstract class OperationUtil {
             throw new UnsupportedOperationException();
         }
 
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) {
-            throw new UnsupportedOperationException();
-        }
-
         @Override
         public @NotNull Response read(@NotNull DataInput dataInput) throws IOException {
             long payload = dataInput.readLong();
@@ -82,45 +77,11 @@ public abstract class OperationUtil {
 
             for (@NotNull Proceed.Entry entry : proceed.getEntries()) {
                 long streamId = entry.getStream();
-                @Nullable DirectionalStream stream = connection.getDirectionalStream(streamId);
-                if (stream != null) {
-                    @Nullable DirectionalStreamObserver observer = connection.getObserver(stream);
-                    if (observer != null) {
-                        observer.fireOperation(proceed);
-                    }
-                }
-            }
-        }
-
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException {
-            @Nullable ByteBuffer buffer = stream.getBuffer();
-            short count = -1;
-            if (buffer == null) {
-                count = stream.readShort();
-                if (count > getHeaderLength() / 8) {
-                    throw new IllegalArgumentException("Proceed stream count is too long: " + count);
+                @Nullable DirectionalStreamObserver observer = connection.getObserver(streamId);
+                if (observer != null) {
+                    observer.fireOperation(proceed);
                 }
-
-                int header = Short.BYTES + (count * 8);
-                buffer = ByteBuffer.allocate(header);
-                buffer.putShort(count);
-            }
-
-            if (stream.available() < buffer.remaining()) {
-                return buffer;
-            }
-
-            count = count == -1 ? buffer.getShort(0) : count;
-            for (short i = 0; i < count; i++) {
-                buffer.putLong(stream.readLong());
             }
-
-            if (buffer.remaining() == 0) {
-                buffer.flip();
-                stream.complete();
-            }
-
-            return buffer;
         }
 
         @Override
@@ -148,47 +109,11 @@ public abstract class OperationUtil {
 
             for (@NotNull Refuse.Entry entry : refuse.getEntries()) {
                 long streamId = entry.getStream();
-                @Nullable DirectionalStream stream = connection.getDirectionalStream(streamId);
-                if (stream != null) {
-                    @Nullable DirectionalStreamObserver observer = connection.getObserver(stream);
-                    if (observer != null) {
-                        observer.fireOperation(refuse);
-                    }
-                }
-            }
-        }
-
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException {
-            @Nullable ByteBuffer buffer = stream.getBuffer();
-            short count = -1;
-            if (buffer == null) {
-                count = stream.readShort();
-                if (count > getHeaderLength() / 14) {
-                    throw new IllegalArgumentException("Refuse entry count is too long: " + count);
+                @Nullable DirectionalStreamObserver observer = connection.getObserver(streamId);
+                if (observer != null) {
+                    observer.fireOperation(refuse);
                 }
-
-                int header = Short.BYTES + (count * 14);
-                buffer = ByteBuffer.allocate(header);
-                buffer.putShort(count);
-            }
-
-            if (stream.available() < buffer.remaining()) {
-                return buffer;
-            }
-
-            count = count == -1 ? buffer.getShort(0) : count;
-            for (short i = 0; i < count; i++) {
-                buffer.putLong(stream.readLong()); // stream id
-                buffer.putInt(stream.readInt()); // retry after
-                buffer.putShort(stream.readShort()); // reason code
             }
-
-            if (buffer.remaining() == 0) {
-                buffer.flip();
-                stream.complete();
-            }
-
-            return buffer;
         }
 
         @Override
@@ -217,10 +142,6 @@ public abstract class OperationUtil {
             throw new UnsupportedOperationException();
         }
 
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) {
-            throw new UnsupportedOperationException();
-        }
-
         @Override
         public @NotNull Block read(@NotNull DataInput dataInput) throws IOException {
             int payload = dataInput.readInt();
@@ -237,10 +158,6 @@ public abstract class OperationUtil {
             throw new UnsupportedOperationException();
         }
 
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) {
-            throw new UnsupportedOperationException();
-        }
-
         @Override
         public @NotNull BlockEnd read(@NotNull DataInput dataInput) throws IOException {
             return new BlockEnd(dataInput.readLong());
@@ -255,47 +172,12 @@ public abstract class OperationUtil {
             }
 
             long streamId = fail.getStream();
-            @Nullable DirectionalStream stream = connection.getDirectionalStream(streamId);
-            if (stream != null) {
-                @Nullable DirectionalStreamObserver observer = connection.getObserver(stream);
-                if (observer != null) {
-                    observer.fireOperation(fail);
-                }
+            @Nullable DirectionalStreamObserver observer = connection.getObserver(streamId);
+            if (observer != null) {
+                observer.fireOperation(fail);
             }
         }
 
-        @Override
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException {
-            @Nullable ByteBuffer buffer = stream.getBuffer();
-            if (buffer == null) {
-                buffer = ByteBuffer.allocate(getHeaderLength() + 64);
-            }
-
-            if (stream.available() < getHeaderLength() + 1) {
-                return buffer;
-            }
-
-            if (buffer.position() == 0) {
-                buffer.putLong(stream.readLong()); // stream id
-                buffer.putShort(stream.readShort()); // error
-                buffer.putShort(stream.readShort()); // reason len
-            }
-
-            short len = buffer.getShort(9);
-            if (stream.available() < len) {
-                return buffer;
-            }
-
-            byte @NotNull [] bytes = new byte[len];
-            stream.readFully(bytes);
-
-            buffer.put(bytes);
-            buffer.flip();
-            stream.complete();
-
-            return buffer;
-        }
-
         @Override
         public @NotNull Operation read(@NotNull DataInput dataInput) throws IOException {
             long stream = dataInput.readLong();
@@ -315,48 +197,11 @@ public abstract class OperationUtil {
 
             for (@NotNull Done.Entry entry : done.getEntries()) {
                 long streamId = entry.getStream();
-                @Nullable DirectionalStream stream = connection.getDirectionalStream(streamId);
-                if (stream != null) {
-                    @Nullable DirectionalStreamObserver observer = connection.getObserver(stream);
-                    if (observer != null) {
-                        observer.fireOperation(done);
-                    }
-                }
-            }
-        }
-
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException {
-            @Nullable ByteBuffer buffer = stream.getBuffer();
-            short count = -1;
-            if (buffer == null) {
-                count = stream.readShort();
-                if (count > getHeaderLength() / 16) {
-                    throw new IllegalArgumentException("Done entry count is too long: " + count);
+                @Nullable DirectionalStreamObserver observer = connection.getObserver(streamId);
+                if (observer != null) {
+                    observer.fireOperation(done);
                 }
-
-                int header = Short.BYTES + (count * 16);
-                buffer = ByteBuffer.allocate(header);
-
-                buffer.putShort(count);
-            }
-
-            count = count == -1 ? buffer.getShort(0) : count;
-            if (stream.available() < buffer.remaining()) {
-                return buffer;
-            }
-
-            for (short i = 0; i < count; i++) {
-                buffer.putLong(stream.readLong()); // stream id
-                buffer.putInt(stream.readInt()); // start exec
-                buffer.putInt(stream.readInt()); // end exec
-            }
-
-            if (buffer.remaining() == 0) {
-                buffer.flip();
-                stream.complete();
             }
-
-            return buffer;
         }
 
         @Override
@@ -386,13 +231,17 @@ public abstract class OperationUtil {
         }
 
         @Override
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException {
-            throw new UnsupportedOperationException();
-        }
+        public @NotNull DisconnectRequest read(@NotNull DataInput dataInput) throws IOException {
+            int drainTime = dataInput.readInt();
+            short reasonLen = dataInput.readShort();
+            if (reasonLen < 0) {
+                throw new IllegalArgumentException("Disconnect request reason length is illegal: " + reasonLen);
+            }
 
-        @Override
-        public @NotNull Operation read(@NotNull DataInput dataInput) throws IOException {
-            return null;
+            byte @NotNull [] reason = new byte[reasonLen];
+            dataInput.readFully(reason);
+
+            return new DisconnectRequest(drainTime, reasonLen, new String(reason, StandardCharsets.UTF_8));
         }
     };
 
@@ -403,19 +252,24 @@ public abstract class OperationUtil {
         }
 
         @Override
-        @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException {
-            throw new UnsupportedOperationException();
-        }
-
-        @Override
-        public @NotNull Operation read(@NotNull DataInput dataInput) throws IOException {
-            return null;
+        public @NotNull Disconnect read(@NotNull DataInput dataInput) {
+            return new Disconnect();
         }
     };
 
-    private static final @NotNull Map<Byte, OperationUtil> map = new HashMap<>();
+    /**
+     * The operations indexed by the unsigned code, looked up on every frame read without boxing the code.
+     * */
+    private static final @Nullable OperationUtil @NotNull [] table = new OperationUtil[256];
+
+    /**
+     * The bit {@code 1 << code} is set for every global operation, all of them with a code below 64.
+     * */
+    private static final long globals;
 
     static {
+        long mask = 0L;
+
         for (@NotNull Field field : OperationUtil.class.getFields()) {
             if (field.getDeclaringClass() == OperationUtil.class &&
                     Modifier.isStatic(field.getModifiers()) &&
@@ -423,16 +277,48 @@ public abstract class OperationUtil {
             ) {
                 try {
                     @NotNull OperationUtil util = (OperationUtil) field.get(null);
-                    map.put(util.code, util);
-                } catch (Throwable e) {
+                    int index = util.code & 0xFF;
+
+                    if (table[index] != null) {
+                        throw new AssertionError("Duplicated operation code: " + index);
+                    }
+
+                    table[index] = util;
+
+                    if (isGlobal(util.reference)) {
+                        if (index >= Long.SIZE) {
+                            throw new AssertionError("Global operation code out of the mask: " + index);
+                        }
+
+                        mask |= 1L << index;
+                    }
+                } catch (IllegalAccessException e) {
                     throw new AssertionError("Internal error", e);
                 }
             }
         }
+
+        globals = mask;
     }
 
     public static @Nullable OperationUtil getByCode(byte code) {
-        return map.get(code);
+        return table[code & 0xFF];
+    }
+
+    /**
+     * @return true if the code belongs to a global operation, without looking the operation up
+     * */
+    public static boolean isGlobalOperation(byte code) {
+        return code >= 0 && code < Long.SIZE && (globals & (1L << code)) != 0;
+    }
+
+    private static boolean isGlobal(@NotNull Class<? extends Operation> reference) {
+        return reference == Refuse.class ||
+                reference == Proceed.class ||
+                reference == Fail.class ||
+                reference == Done.class ||
+                reference == Disconnect.class ||
+                reference == DisconnectRequest.class;
     }
 
     // Objects
@@ -464,12 +350,7 @@ public abstract class OperationUtil {
     }
 
     public final boolean isGlobalOperation() {
-        return reference == Refuse.class ||
-                reference == Proceed.class ||
-                reference == Fail.class ||
-                reference == Done.class ||
-                reference == Disconnect.class ||
-                reference == DisconnectRequest.class;
+        return isGlobalOperation(code);
     }
 
     @Override
@@ -485,8 +366,6 @@ public abstract class OperationUtil {
      * */
     abstract void handleObserve(@NotNull Operation operation, @NotNull Connection connection);
 
-    abstract @NotNull ByteBuffer readGlobal(@NotNull GlobalStream stream) throws IOException;
-
     /**
      * @throws UnsupportedOperationException if this operation util is not observable
      * */
@@ -0,0 +1,168 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.Operation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Sits between the data output of a stream and the kwik output stream, encoding operation frames into a reused buffer.
+ * Uncorked raw bytes pass straight through, and while corked they are appended to the buffer, so the bytes keep the
+ * order they were written in.
+ * <p>
+ * Not thread-safe, like the streams using it.
+ * */
+final class OperationWriter extends OutputStream {
+
+    // Static initializers
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The most bytes held while corked; a larger write first flushes them.
+     * */
+    static final int MAX_CORKED = 64 * 1024;
+
+    // Objects
+
+    private final @NotNull OutputStream output;
+    private @NotNull ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    private boolean corked = false;
+
+    OperationWriter(@NotNull OutputStream output) {
+        this.output = output;
+    }
+
+    // Getters
+
+    boolean isCorked() {
+        return corked;
+    }
+
+    int buffered() {
+        return buffer.position();
+    }
+
+    // Modules
+
+    void writeOperation(@NotNull Operation operation) throws IOException {
+        int length = 1 + operation.getLength();
+
+        if (length > MAX_CORKED) {
+            // Too large to be held, the frame goes out on its own after whatever is buffered
+            drain();
+
+            @NotNull ByteBuffer frame = ByteBuffer.allocate(length);
+            frame.put(operation.getCode());
+            operation.writeTo(frame);
+
+            output.write(frame.array(), 0, frame.position());
+            return;
+        }
+
+        reserve(length);
+        buffer.put(operation.getCode());
+        operation.writeTo(buffer);
+
+        if (!corked) {
+            drain();
+        }
+    }
+
+    void cork() {
+        this.corked = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!corked) {
+            output.write(b);
+            return;
+        }
+
+        reserve(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte @NotNull [] b, int off, int len) throws IOException {
+        if (!corked) {
+            output.write(b, off, len);
+            return;
+        } else if (len > MAX_CORKED) {
+            drain();
+            output.write(b, off, len);
+            return;
+        }
+
+        reserve(len);
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * Writes the buffered bytes at once and uncorks.
+     * */
+    @Override
+    public void flush() throws IOException {
+        this.corked = false;
+
+        drain();
+        output.flush();
+    }
+
+    /**
+     * Drops the buffered bytes and uncorks.
+     * */
+    void discard() {
+        this.corked = false;
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            output.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+
+        try {
+            output.write(buffer.array(), 0, buffer.position());
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void reserve(int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return;
+        } else if (buffer.position() + length > MAX_CORKED) {
+            drain();
+
+            if (buffer.remaining() >= length) {
+                return;
+            }
+        }
+
+        int capacity = buffer.capacity();
+        while (capacity < buffer.position() + length) {
+            capacity <<= 1;
+        }
+
+        @NotNull ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+
+        this.buffer = grown;
+    }
+}
@@ -0,0 +1,275 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+/**
+ * A 64-bit digest of a payload computed while its Blocks stream, so the content of an upload or a Response is verified
+ * without keeping it in memory. The expected value comes from the same digest over a deterministic {@link PayloadSource}
+ * or over the reference server's response, and is compared with {@link #getValue()} once the Block end is read.
+ * <p>
+ * CRC32C is the cheapest and catches accidental corruption; SipHash-2-4 is keyed and also catches a server that forges
+ * a payload of the right length. Digests are not thread-safe.
+ * */
+public abstract class PayloadDigest {
+
+    // Static initializers
+
+    /**
+     * The SipHash key used when none is given, the bytes 0 to 15 of the SipHash reference vectors.
+     * */
+    private static final byte @NotNull [] DEFAULT_KEY = {
+            0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07,
+            0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F
+    };
+
+    public static @NotNull PayloadDigest crc32c() {
+        return new Crc32cDigest();
+    }
+
+    public static @NotNull PayloadDigest sipHash() {
+        return new SipHashDigest(DEFAULT_KEY);
+    }
+
+    /**
+     * @param key the 16 bytes SipHash key
+     * */
+    public static @NotNull PayloadDigest sipHash(byte @NotNull [] key) {
+        if (key.length != 16) {
+            throw new IllegalArgumentException("Illegal SipHash key length: " + key.length);
+        }
+
+        return new SipHashDigest(key.clone());
+    }
+
+    // Objects
+
+    private final @NotNull String name;
+    private long length = 0;
+
+    protected PayloadDigest(@NotNull String name) {
+        this.name = name;
+    }
+
+    // Getters
+
+    public final @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * @return the bytes digested since the creation or the last reset
+     * */
+    public final long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the digest of the bytes so far; reading it does not change the digest, which may go on with more bytes
+     * */
+    public abstract long getValue();
+
+    // Modules
+
+    public final void update(byte @NotNull [] b, int off, int len) {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException("Illegal range (offset = " + off + ", length = " + len + ", array = " + b.length + ")");
+        }
+
+        update0(b, off, len);
+        this.length += len;
+    }
+
+    protected abstract void update0(byte @NotNull [] b, int off, int len);
+
+    public final void reset() {
+        reset0();
+        this.length = 0;
+    }
+
+    protected abstract void reset0();
+
+    /**
+     * @return a new digest of the same algorithm and key, without any byte
+     * */
+    public abstract @NotNull PayloadDigest fresh();
+
+    /**
+     * Reads the remaining payload of the source into this digest, which gives the value expected from the receiver of a
+     * deterministic payload.
+     *
+     * @return the digest value
+     * */
+    public final long digest(@NotNull PayloadSource source) throws IOException {
+        byte @NotNull [] chunk = new byte[(int) Math.max(1, Math.min(PayloadSource.MAX_CHUNK, source.getRemaining()))];
+        int read;
+
+        while ((read = source.read(chunk, 0, chunk.length)) > 0) {
+            update(chunk, 0, read);
+        }
+
+        return getValue();
+    }
+
+    /**
+     * @return the digest value of the whole array
+     * */
+    public final long digest(byte @NotNull [] bytes) {
+        update(bytes, 0, bytes.length);
+        return getValue();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return name + " (length = " + length + ")";
+    }
+
+    // Classes
+
+    private static final class Crc32cDigest extends PayloadDigest {
+
+        private final @NotNull CRC32C crc = new CRC32C();
+
+        private Crc32cDigest() {
+            super("CRC32C");
+        }
+
+        @Override
+        public long getValue() {
+            return crc.getValue();
+        }
+
+        @Override
+        protected void update0(byte @NotNull [] b, int off, int len) {
+            crc.update(b, off, len);
+        }
+
+        @Override
+        protected void reset0() {
+            crc.reset();
+        }
+
+        @Override
+        public @NotNull PayloadDigest fresh() {
+            return new Crc32cDigest();
+        }
+    }
+
+    /**
+     * SipHash-2-4 over a running state: the whole 8 bytes words are compressed straight from the array, only the bytes of
+     * an incomplete word are kept between updates, and {@link #getValue()} restores the state it finalizes, so it can be
+     * read at any point and the digest goes on.
+     * */
+    private static final class SipHashDigest extends PayloadDigest {
+
+        private static final @NotNull VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        private final byte @NotNull [] key;
+        private final long k0;
+        private final long k1;
+
+        private long v0;
+        private long v1;
+        private long v2;
+        private long v3;
+
+        // The bytes of the incomplete word, little-endian
+        private long tail;
+        private int tailLength;
+
+        private SipHashDigest(byte @NotNull [] key) {
+            super("SipHash-2-4");
+
+            this.key = key;
+            this.k0 = (long) LONG.get(key, 0);
+            this.k1 = (long) LONG.get(key, 8);
+
+            reset0();
+        }
+
+        @Override
+        public long getValue() {
+            long v0 = this.v0;
+            long v1 = this.v1;
+            long v2 = this.v2;
+            long v3 = this.v3;
+
+            try {
+                compress(tail | (getLength() << 56));
+
+                this.v2 ^= 0xFF;
+                for (int i = 0; i < 4; i++) {
+                    round();
+                }
+
+                return this.v0 ^ this.v1 ^ this.v2 ^ this.v3;
+            } finally {
+                this.v0 = v0;
+                this.v1 = v1;
+                this.v2 = v2;
+                this.v3 = v3;
+            }
+        }
+
+        @Override
+        protected void update0(byte @NotNull [] b, int off, int len) {
+            int end = off + len;
+
+            // Completes the word started by the previous updates
+            while (tailLength > 0 && off < end) {
+                this.tail |= (b[off++] & 0xFFL) << (tailLength << 3);
+
+                if (++tailLength == Long.BYTES) {
+                    compress(tail);
+
+                    this.tail = 0;
+                    this.tailLength = 0;
+                }
+            }
+
+            for (; off + Long.BYTES <= end; off += Long.BYTES) {
+                compress((long) LONG.get(b, off));
+            }
+
+            while (off < end) {
+                this.tail |= (b[off++] & 0xFFL) << (tailLength << 3);
+                this.tailLength++;
+            }
+        }
+
+        private void compress(long m) {
+            this.v3 ^= m;
+            round();
+            round();
+            this.v0 ^= m;
+        }
+
+        private void round() {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+
+        @Override
+        protected void reset0() {
+            this.v0 = k0 ^ 0x736F6D6570736575L;
+            this.v1 = k1 ^ 0x646F72616E646F6DL;
+            this.v2 = k0 ^ 0x6C7967656E657261L;
+            this.v3 = k1 ^ 0x7465646279746573L;
+
+            this.tail = 0;
+            this.tailLength = 0;
+        }
+
+        @Override
+        public @NotNull PayloadDigest fresh() {
+            return new SipHashDigest(key);
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.BlockEnd;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The payload uploaded in Blocks after a Proceed, read sequentially in chunks instead of held on heap. A source streams
+ * from a file channel, from memory-mapped regions of a file, or from a deterministic generator, so a Request of several
+ * gigabytes only needs one chunk of heap while it is written by {@link #writeBlocks(OperationOutput, int)}.
+ * <p>
+ * Sources are not thread-safe and are read only once.
+ * */
+public abstract class PayloadSource implements Closeable {
+
+    // Static initializers
+
+    /**
+     * The largest chunk read from a source at once; a larger Block is written in several chunks.
+     * */
+    public static final int MAX_CHUNK = 64 * 1024;
+
+    /**
+     * The size of every memory-mapped region, which the mapped source moves along the file.
+     * */
+    public static final long MAPPED_REGION = 256L * 1024 * 1024;
+
+    /**
+     * @param position the position of the payload in the channel, which is not moved
+     * */
+    public static @NotNull PayloadSource ofChannel(@NotNull FileChannel channel, long position, long length) {
+        return new ChannelSource(channel, position, length, false);
+    }
+
+    /**
+     * @param position the position of the payload in the channel, mapped in regions of {@link #MAPPED_REGION} bytes
+     * */
+    public static @NotNull PayloadSource ofMapped(@NotNull FileChannel channel, long position, long length) throws IOException {
+        return new MappedSource(channel, position, length, false);
+    }
+
+    /**
+     * Opens the whole file as the payload; the file is closed with the source.
+     * */
+    public static @NotNull PayloadSource open(@NotNull Path path, boolean mapped) throws IOException {
+        @NotNull FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            return mapped ? new MappedSource(channel, 0, channel.size(), true) : new ChannelSource(channel, 0, channel.size(), true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A payload generated from the seed, where every byte depends only on the seed and its position, so the same bytes
+     * come out whatever the chunk sizes and a receiver may verify them with {@link #generatedByte(long, long)} at any offset.
+     * */
+    public static @NotNull PayloadSource generated(long length, long seed) {
+        return new GeneratedSource(length, seed);
+    }
+
+    /**
+     * @return the byte at the position of the payload generated from the seed
+     * */
+    public static byte generatedByte(long seed, long position) {
+        return (byte) (mix(seed + (position >>> 3)) >>> ((position & 7) << 3));
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Objects
+
+    private final long length;
+    private long position = 0;
+
+    protected PayloadSource(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Illegal payload length: " + length);
+        }
+
+        this.length = length;
+    }
+
+    // Getters
+
+    public final long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the bytes already read
+     * */
+    public final long getPosition() {
+        return position;
+    }
+
+    public final long getRemaining() {
+        return length - position;
+    }
+
+    // Modules
+
+    /**
+     * Reads up to {@code len} bytes of the payload into the array.
+     *
+     * @return the bytes read, or -1 if the whole payload was already read
+     * @throws EOFException if the underlying file is shorter than the payload
+     * */
+    public final int read(byte @NotNull [] b, int off, int len) throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+
+        int count = read(position, b, off, (int) Math.min(len, length - position));
+        if (count <= 0) {
+            throw new EOFException("Payload source ended at " + position + " of " + length + " bytes");
+        }
+
+        this.position += count;
+        return count;
+    }
+
+    /**
+     * Reads the bytes at the offset of the payload; {@code len} never exceeds the remaining bytes.
+     * */
+    protected abstract int read(long offset, byte @NotNull [] b, int off, int len) throws IOException;
+
+    /**
+     * Writes the remaining payload as Blocks of at most {@code blockSize} bytes followed by the Block end, reusing a single
+     * chunk of at most {@link #MAX_CHUNK} bytes. The output is corked meanwhile, so small Blocks are coalesced, and it is
+     * {@link OperationOutput#abort() aborted} if the payload cannot be read or written, so the peer never reads a partial
+     * Block.
+     *
+     * @return the payload total written in the Block end
+     * */
+    public final long writeBlocks(@NotNull OperationOutput output, int blockSize) throws IOException {
+        return writeBlocks(output, blockSize, new byte[(int) Math.max(1, Math.min(Math.min(blockSize, MAX_CHUNK), getRemaining()))]);
+    }
+
+    /**
+     * @param chunk the array the payload is read into before being written, reused by the caller across uploads
+     * @see #writeBlocks(OperationOutput, int)
+     * */
+    public final long writeBlocks(@NotNull OperationOutput output, int blockSize, byte @NotNull [] chunk) throws IOException {
+        return writeBlocks(output, blockSize, chunk, null);
+    }
+
+    /**
+     * @param digest updated with every byte written, so the upload can be checked against the receiver's digest
+     * @see #writeBlocks(OperationOutput, int, byte[])
+     * */
+    public final long writeBlocks(@NotNull OperationOutput output, int blockSize, byte @NotNull [] chunk, @Nullable PayloadDigest digest) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        } else if (chunk.length == 0) {
+            throw new IllegalArgumentException("Empty chunk");
+        }
+
+        long total = getRemaining();
+
+        output.cork();
+
+        try {
+            while (getRemaining() > 0) {
+                int block = (int) Math.min(blockSize, getRemaining());
+
+                output.writeByte(OperationUtil.BLOCK.getCode());
+                output.writeInt(block);
+
+                while (block > 0) {
+                    int read = read(chunk, 0, Math.min(block, chunk.length));
+                    output.write(chunk, 0, read);
+
+                    if (digest != null) {
+                        digest.update(chunk, 0, read);
+                    }
+
+                    block -= read;
+                }
+            }
+
+            output.writeOperation(new BlockEnd(total));
+        } catch (Throwable e) {
+            // The held frames end in a partial Block, which must not be flushed
+            try {
+                output.abort();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+
+            throw e;
+        }
+
+        output.flush();
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        //
+    }
+
+    // Classes
+
+    private static final class ChannelSource extends PayloadSource {
+
+        private final @NotNull FileChannel channel;
+        private final long start;
+        private final boolean owner;
+
+        private ChannelSource(@NotNull FileChannel channel, long start, long length, boolean owner) {
+            super(length);
+
+            this.channel = channel;
+            this.start = start;
+            this.owner = owner;
+        }
+
+        @Override
+        protected int read(long offset, byte @NotNull [] b, int off, int len) throws IOException {
+            return channel.read(ByteBuffer.wrap(b, off, len), start + offset);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (owner) {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class MappedSource extends PayloadSource {
+
+        private final @NotNull FileChannel channel;
+        private final long start;
+        private final boolean owner;
+
+        private @NotNull MappedByteBuffer region;
+        private long regionOffset = 0;
+
+        private MappedSource(@NotNull FileChannel channel, long start, long length, boolean owner) throws IOException {
+            super(length);
+
+            if (start + length > channel.size()) {
+                throw new IllegalArgumentException("The payload exceeds the file size (end = " + (start + length) + ", size = " + channel.size() + ")");
+            }
+
+            this.channel = channel;
+            this.start = start;
+            this.owner = owner;
+            this.region = map(0);
+        }
+
+        private @NotNull MappedByteBuffer map(long offset) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start + offset, Math.min(MAPPED_REGION, getLength() - offset));
+        }
+
+        @Override
+        protected int read(long offset, byte @NotNull [] b, int off, int len) throws IOException {
+            if (offset >= regionOffset + region.capacity()) {
+                // The previous region is unmapped once collected
+                this.regionOffset = offset;
+                this.region = map(offset);
+            }
+
+            int position = (int) (offset - regionOffset);
+            int count = Math.min(len, region.capacity() - position);
+
+            region.get(position, b, off, count);
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (owner) {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class GeneratedSource extends PayloadSource {
+
+        private final long seed;
+
+        private GeneratedSource(long length, long seed) {
+            super(length);
+            this.seed = seed;
+        }
+
+        @Override
+        protected int read(long offset, byte @NotNull [] b, int off, int len) {
+            int i = 0;
+
+            // The leading bytes up to a word boundary
+            while (i < len && ((offset + i) & 7) != 0) {
+                b[off + i] = generatedByte(seed, offset + i);
+                i++;
+            }
+
+            // Whole words, least significant byte first
+            while (len - i >= 8) {
+                long word = mix(seed + ((offset + i) >>> 3));
+
+                for (int j = 0; j < 8; j++) {
+                    b[off + i + j] = (byte) (word >>> (j << 3));
+                }
+
+                i += 8;
+            }
+
+            while (i < len) {
+                b[off + i] = generatedByte(seed, offset + i);
+                i++;
+            }
+
+            return len;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package dev.hensil.maop.compliance.core;
 
 import dev.hensil.maop.compliance.model.Version;
+import dev.hensil.maop.compliance.model.authentication.Authentication;
+
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.net.URI;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
@@ -34,6 +37,12 @@ public final class Preset {
     private final @Nullable X509Certificate certificate;
     private final @Nullable PrivateKey privateKey;
 
+    // Encoded once on first use; racing threads encode the same immutable frame
+    private volatile @Nullable Authentication authentication;
+
+    // Derived once on first use, like the authentication
+    private volatile @Nullable ClientCredentials credentials;
+
     // Constructor
 
     public Preset(
@@ -82,6 +91,20 @@ public final class Preset {
         return vendor;
     }
 
+    /**
+     * @return the authentication of this preset, encoded once and shared by every connection
+     * */
+    public @NotNull Authentication getAuthentication() {
+        @Nullable Authentication authentication = this.authentication;
+
+        if (authentication == null) {
+            authentication = new Authentication(this);
+            this.authentication = authentication;
+        }
+
+        return authentication;
+    }
+
     public @NotNull URI getHost() {
         return host;
     }
@@ -106,6 +129,26 @@ public final class Preset {
         return privateKey;
     }
 
+    /**
+     * @return the client certificate chain and key of this preset, derived once and shared by every connection, or null if the
+     * preset does not authenticate the client
+     * @throws GeneralSecurityException if the key store cannot be read or has no usable private key
+     * */
+    public @Nullable ClientCredentials getClientCredentials() throws GeneralSecurityException {
+        if (isServerNoCertification()) {
+            return null;
+        }
+
+        @Nullable ClientCredentials credentials = this.credentials;
+
+        if (credentials == null) {
+            credentials = ClientCredentials.of(this);
+            this.credentials = credentials;
+        }
+
+        return credentials;
+    }
+
     // Classes
 
     public static final class Builder {
@@ -0,0 +1,134 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import tech.kwik.core.QuicSessionTicket;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TLS session tickets received from every host, offered by the next connections to the same host so they resume the
+ * session instead of doing a full handshake. Each ticket is used once, the most recent first, and only the latest
+ * {@link #getCapacity()} tickets of a host are kept; a ticket the server no longer accepts just falls back to a full
+ * handshake.
+ * <p>
+ * The cache also measures the handshakes, apart for the connections that offered a ticket and the ones that did not.
+ * Kwik does not tell whether the server accepted the ticket, so an offered handshake may still have been a full one;
+ * the mean times of both sets show how often the server really resumes.
+ * */
+public final class SessionCache {
+
+    // Static initializers
+
+    public static final int DEFAULT_CAPACITY = 8;
+
+    // Objects
+
+    private final int capacity;
+    private final @NotNull Map<URI, Deque<QuicSessionTicket>> tickets = new ConcurrentHashMap<>();
+
+    private final @NotNull AtomicLong fullHandshakes = new AtomicLong(0);
+    private final @NotNull AtomicLong fullNanos = new AtomicLong(0);
+    private final @NotNull AtomicLong offeredHandshakes = new AtomicLong(0);
+    private final @NotNull AtomicLong offeredNanos = new AtomicLong(0);
+
+    // Constructor
+
+    SessionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    SessionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+
+        this.capacity = capacity;
+    }
+
+    // Getters
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the tickets kept for the host
+     * */
+    public int getTickets(@NotNull URI host) {
+        @Nullable Deque<QuicSessionTicket> tickets = this.tickets.get(host);
+        return tickets != null ? tickets.size() : 0;
+    }
+
+    /**
+     * @param offered true for the handshakes that offered a ticket, whether the server accepted it or not
+     * */
+    public long getHandshakes(boolean offered) {
+        return (offered ? offeredHandshakes : fullHandshakes).get();
+    }
+
+    /**
+     * @param offered true for the handshakes that offered a ticket, whether the server accepted it or not
+     * @return the mean time of the handshakes, or zero if there was none
+     * */
+    public @NotNull Duration getAverageHandshake(boolean offered) {
+        long count = getHandshakes(offered);
+        long nanos = (offered ? offeredNanos : fullNanos).get();
+
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(nanos / count);
+    }
+
+    // Modules
+
+    /**
+     * Takes the most recent ticket of the host, which is not offered again.
+     * */
+    @Nullable QuicSessionTicket poll(@NotNull URI host) {
+        @Nullable Deque<QuicSessionTicket> tickets = this.tickets.get(host);
+        return tickets != null ? tickets.pollFirst() : null;
+    }
+
+    /**
+     * Keeps the new tickets of the host, dropping the oldest ones over the capacity.
+     * */
+    void offer(@NotNull URI host, @NotNull List<QuicSessionTicket> tickets) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+
+        @NotNull Deque<QuicSessionTicket> deque = this.tickets.computeIfAbsent(host, k -> new ConcurrentLinkedDeque<>());
+
+        for (@NotNull QuicSessionTicket ticket : tickets) {
+            deque.addFirst(ticket);
+        }
+
+        while (deque.size() > capacity) {
+            deque.pollLast();
+        }
+    }
+
+    void record(boolean offered, long nanos) {
+        (offered ? offeredHandshakes : fullHandshakes).incrementAndGet();
+        (offered ? offeredNanos : fullNanos).addAndGet(nanos);
+    }
+
+    void clear() {
+        tickets.clear();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "SessionCache{" +
+                "full=" + getHandshakes(false) + " (" + getAverageHandshake(false).toMillis() + "ms)" +
+                ", offered=" + getHandshakes(true) + " (" + getAverageHandshake(true).toMillis() + "ms)" +
+                '}';
+    }
+}
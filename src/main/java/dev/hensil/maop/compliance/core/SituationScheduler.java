@@ -0,0 +1,317 @@
+package dev.hensil.maop.compliance.core;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+import com.jlogm.utils.Coloured;
+
+import dev.hensil.maop.compliance.Elapsed;
+import dev.hensil.maop.compliance.situation.Situation;
+
+import dev.meinicke.plugin.annotation.Dependencies;
+import dev.meinicke.plugin.annotation.Dependency;
+import dev.meinicke.plugin.annotation.Priority;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.annotations.Unmodifiable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs the situations as a dependency graph built from the {@link Dependency}, {@link Dependencies} and {@link Priority}
+ * annotations. A situation is only dispatched after all of its dependencies finished without a severe result, and at most
+ * {@code parallelism} situations are running at the same time, regardless of the executor size.
+ * */
+final class SituationScheduler {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(SituationScheduler.class).formatter(Main.FORMATTER);
+
+    static @NotNull Set<Class<?>> getDependencies(@NotNull Situation situation) {
+        @NotNull Set<Class<?>> dependencies = new LinkedHashSet<>();
+        @NotNull Class<?> type = situation.getClass();
+
+        for (@NotNull Dependency dependency : type.getAnnotationsByType(Dependency.class)) {
+            dependencies.add(dependency.type());
+        }
+
+        @Nullable Dependencies container = type.getAnnotation(Dependencies.class);
+        if (container != null) {
+            for (@NotNull Dependency dependency : container.value()) {
+                dependencies.add(dependency.type());
+            }
+        }
+
+        return dependencies;
+    }
+
+    static int getPriority(@NotNull Situation situation) {
+        @Nullable Priority priority = situation.getClass().getAnnotation(Priority.class);
+        return priority != null ? priority.value() : 0;
+    }
+
+    // Objects
+
+    private final @NotNull Compliance compliance;
+    private final @NotNull Executor executor;
+    private final int parallelism;
+
+    private final @NotNull Map<Class<?>, Node> nodes = new LinkedHashMap<>();
+    private final @NotNull PriorityQueue<Node> ready = new PriorityQueue<>(
+            Comparator.comparingInt((Node node) -> node.priority).reversed().thenComparingInt(node -> node.index)
+    );
+    private final @NotNull Map<Situation, Elapsed> elapsed = new ConcurrentHashMap<>();
+
+    private int inFlight = 0;
+    private int remaining;
+    private boolean canceled = false;
+
+    // Constructor
+
+    SituationScheduler(@NotNull Compliance compliance, @NotNull Collection<Situation> situations, @NotNull Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+
+        this.compliance = compliance;
+        this.executor = executor;
+        this.parallelism = parallelism;
+
+        for (@NotNull Situation situation : situations) {
+            this.nodes.put(situation.getClass(), new Node(situation, nodes.size()));
+        }
+
+        for (@NotNull Node node : nodes.values()) {
+            for (@NotNull Class<?> type : getDependencies(node.situation)) {
+                @Nullable Node dependency = nodes.get(type);
+                if (dependency == null) {
+                    log.trace("The dependency " + type.getSimpleName() + " of " + node.situation + " is not loaded and will be ignored");
+                    continue;
+                }
+
+                dependency.dependents.add(node);
+                node.pending++;
+            }
+        }
+
+        checkAcyclic();
+
+        this.remaining = nodes.size();
+        for (@NotNull Node node : nodes.values()) {
+            if (node.pending == 0) {
+                this.ready.add(node);
+            }
+        }
+    }
+
+    // Getters
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    @Unmodifiable @NotNull Map<Situation, Elapsed> getElapsed() {
+        return Collections.unmodifiableMap(elapsed);
+    }
+
+    synchronized boolean isCanceled() {
+        return canceled;
+    }
+
+    synchronized int getRemaining() {
+        return remaining;
+    }
+
+    @TestOnly
+    @VisibleForTesting
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    // Modules
+
+    void start() {
+        log.debug("Scheduling " + nodes.size() + " situations with parallelism " + parallelism);
+        dispatch();
+    }
+
+    synchronized void cancel() {
+        this.canceled = true;
+        this.ready.clear();
+    }
+
+    private void dispatch() {
+        @NotNull List<Node> batch = new LinkedList<>();
+
+        synchronized (this) {
+            while (!canceled && inFlight < parallelism && !ready.isEmpty()) {
+                inFlight++;
+                batch.add(ready.poll());
+            }
+        }
+
+        for (@NotNull Node node : batch) {
+            try {
+                this.executor.execute(() -> run(node));
+            } catch (RejectedExecutionException e) {
+                abort(node, "The " + node.situation + " was rejected by the executor (" + e.getMessage() + "). Interrupting all diagnostics...");
+            }
+        }
+    }
+
+    private void run(@NotNull Node node) {
+        @NotNull Situation situation = node.situation;
+        boolean severe;
+
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("compliance id", compliance.getId())
+                        .put("remaining situations", getRemaining())
+                        .put("situation name", situation.getName())
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Scheduling situation")
+        ) {
+            if (isCanceled() || !compliance.isRunning()) {
+                abort(node, "The " + node.situation + " was not run because the diagnostics are stopping");
+                return;
+            }
+
+            log.info("Next situation: " + Coloured.of(situation.getName()).color(Color.CYAN).print());
+
+            @NotNull Elapsed elapsed = new Elapsed();
+            try {
+                severe = situation.diagnostic(compliance);
+            } catch (Throwable e) {
+                log.severe("Unexpected internal error on " + situation + ": " + e);
+                log.debug().cause(e).log();
+                severe = true;
+            }
+            elapsed.freeze();
+
+            this.elapsed.put(situation, elapsed);
+            log.info("The " + situation + " took " + elapsed);
+
+            complete(node, severe);
+        }
+    }
+
+    private void complete(@NotNull Node node, boolean severe) {
+        boolean finished;
+
+        synchronized (this) {
+            inFlight--;
+            remaining--;
+
+            if (severe) {
+                if (canceled) {
+                    return;
+                }
+
+                cancel();
+                finished = false;
+            } else {
+                for (@NotNull Node dependent : node.dependents) {
+                    if (--dependent.pending == 0) {
+                        ready.add(dependent);
+                    }
+                }
+
+                finished = remaining == 0 && !canceled;
+            }
+        }
+
+        if (severe) {
+            log.severe("The " + node.situation + " ended severely. Interrupting all diagnostics...");
+            compliance.stop();
+            return;
+        }
+
+        if (finished) {
+            log.info("All diagnoses have been successfully completed");
+            compliance.stop();
+            return;
+        }
+
+        dispatch();
+    }
+
+    /**
+     * Gives up a dispatched situation that will not run, cancelling the others and stopping the compliance as a severe
+     * result does, so {@link Compliance#join()} is not left waiting for it.
+     * */
+    private void abort(@NotNull Node node, @NotNull String message) {
+        boolean first;
+
+        synchronized (this) {
+            inFlight--;
+            first = !canceled;
+
+            cancel();
+        }
+
+        if (first) {
+            log.severe(message);
+        } else {
+            log.trace(message);
+        }
+
+        compliance.stop();
+    }
+
+    private void checkAcyclic() {
+        @NotNull Map<Node, Integer> pending = new HashMap<>();
+        @NotNull Deque<Node> queue = new ArrayDeque<>();
+
+        for (@NotNull Node node : nodes.values()) {
+            pending.put(node, node.pending);
+            if (node.pending == 0) {
+                queue.add(node);
+            }
+        }
+
+        int visited = 0;
+        while (!queue.isEmpty()) {
+            @NotNull Node node = queue.poll();
+            visited++;
+
+            for (@NotNull Node dependent : node.dependents) {
+                int count = pending.merge(dependent, -1, Integer::sum);
+                if (count == 0) {
+                    queue.add(dependent);
+                }
+            }
+        }
+
+        if (visited != nodes.size()) {
+            throw new IllegalStateException("Cyclic dependencies between situations");
+        }
+    }
+
+    // Classes
+
+    private static final class Node {
+
+        private final @NotNull Situation situation;
+        private final @NotNull List<Node> dependents = new ArrayList<>();
+        private final int index;
+        private final int priority;
+
+        private int pending = 0;
+
+        private Node(@NotNull Situation situation, int index) {
+            this.situation = situation;
+            this.index = index;
+            this.priority = getPriority(situation);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An open addressing registry of the streams of a connection, keyed by the primitive QUIC stream id. Each slot holds the
+ * stream, which also carries its type, and its observer, so the receiver thread resolves both with a single probe and no
+ * boxing.
+ * */
+final class StreamIndex {
+
+    // Static initializers
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    @VisibleForTesting
+    static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Objects
+
+    private long @NotNull [] keys;
+    private @Nullable DirectionalStream @NotNull [] streams;
+    private @Nullable DirectionalStreamObserver @NotNull [] observers;
+
+    private int mask;
+    private int size = 0;
+
+    // Constructor
+
+    StreamIndex() {
+        allocate(MIN_CAPACITY);
+    }
+
+    // Getters
+
+    synchronized int size() {
+        return size;
+    }
+
+    @TestOnly
+    @VisibleForTesting
+    synchronized int getCapacity() {
+        return keys.length;
+    }
+
+    synchronized @Nullable DirectionalStream get(long id) {
+        int slot = find(id);
+        return slot >= 0 ? streams[slot] : null;
+    }
+
+    synchronized <T extends DirectionalStream> @Nullable T get(@NotNull Class<T> type, long id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return null;
+        }
+
+        @Nullable DirectionalStream stream = streams[slot];
+        return type.isInstance(stream) ? type.cast(stream) : null;
+    }
+
+    synchronized @Nullable DirectionalStreamObserver getObserver(long id) {
+        int slot = find(id);
+        return slot >= 0 ? observers[slot] : null;
+    }
+
+    synchronized int count(@NotNull Class<? extends DirectionalStream> type) {
+        int count = 0;
+        for (@Nullable DirectionalStream stream : streams) {
+            if (type.isInstance(stream)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    synchronized @NotNull List<DirectionalStream> values() {
+        @NotNull List<DirectionalStream> values = new ArrayList<>(size);
+        for (@Nullable DirectionalStream stream : streams) {
+            if (stream != null) {
+                values.add(stream);
+            }
+        }
+
+        return values;
+    }
+
+    // Modules
+
+    /**
+     * Registers the stream, replacing any other stream with the same id and keeping its observer.
+     *
+     * @return false if this same stream was already registered
+     * */
+    synchronized boolean put(@NotNull DirectionalStream stream) {
+        long id = stream.getId();
+        int slot = find(id);
+
+        if (slot >= 0) {
+            if (streams[slot] == stream) {
+                return false;
+            }
+
+            streams[slot] = stream;
+            return true;
+        }
+
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            allocate(keys.length << 1);
+        }
+
+        slot = hash(id) & mask;
+        while (streams[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = id;
+        streams[slot] = stream;
+        observers[slot] = null;
+        size++;
+
+        return true;
+    }
+
+    /**
+     * @return the observer already defined for the stream, or the given one if there was none
+     * */
+    synchronized @Nullable DirectionalStreamObserver putObserver(long id, @NotNull DirectionalStreamObserver observer) {
+        int slot = find(id);
+        if (slot < 0) {
+            return null;
+        }
+
+        @Nullable DirectionalStreamObserver current = observers[slot];
+        if (current != null) {
+            return current;
+        }
+
+        observers[slot] = observer;
+        return observer;
+    }
+
+    /**
+     * Removes the stream only if it is the one currently registered with its id.
+     * */
+    synchronized boolean remove(@NotNull DirectionalStream stream) {
+        int slot = find(stream.getId());
+        if (slot < 0 || streams[slot] != stream) {
+            return false;
+        }
+
+        delete(slot);
+        return true;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(streams, null);
+        Arrays.fill(observers, null);
+        this.size = 0;
+    }
+
+    private int find(long id) {
+        int slot = hash(id) & mask;
+
+        while (streams[slot] != null) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Backward shift deletion, keeping every probe sequence free of holes without tombstones.
+     * */
+    private void delete(int slot) {
+        int hole = slot;
+        int next = (slot + 1) & mask;
+
+        while (streams[next] != null) {
+            int ideal = hash(keys[next]) & mask;
+            boolean shift = hole <= next ? (ideal <= hole || ideal > next) : (ideal <= hole && ideal > next);
+
+            if (shift) {
+                keys[hole] = keys[next];
+                streams[hole] = streams[next];
+                observers[hole] = observers[next];
+                hole = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        streams[hole] = null;
+        observers[hole] = null;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        long @Nullable [] oldKeys = this.keys;
+        @Nullable DirectionalStream @Nullable [] oldStreams = this.streams;
+        @Nullable DirectionalStreamObserver @Nullable [] oldObservers = this.observers;
+
+        this.keys = new long[capacity];
+        this.streams = new DirectionalStream[capacity];
+        this.observers = new DirectionalStreamObserver[capacity];
+        this.mask = capacity - 1;
+
+        if (oldStreams == null) {
+            return;
+        }
+
+        for (int i = 0; i < oldStreams.length; i++) {
+            if (oldStreams[i] == null) {
+                continue;
+            }
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (streams[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            streams[slot] = oldStreams[i];
+            observers[slot] = oldObservers[i];
+        }
+    }
+}
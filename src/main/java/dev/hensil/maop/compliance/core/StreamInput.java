@@ -0,0 +1,284 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The buffered reading side of a directional stream. Every refill takes whatever the QUIC stream already has, up to the
+ * buffer capacity, in a single bulk read, and the primitives are decoded straight from the buffer, so reading a Response
+ * or a Block header costs one refill at most instead of a call on the stream per byte. Reads longer than the buffer skip
+ * it once the buffered bytes are consumed.
+ * <p>
+ * The input is read by a single thread at a time. {@link #available()} may also be called by the kwik receiver thread
+ * to fire the reading waiters: a waiter is registered through a concurrent queue after the reading thread last touched
+ * the buffer, so the receiver sees the buffered count as of the registration.
+ * */
+final class StreamInput implements DataInput, Closeable {
+
+    // Static initializers
+
+    static final int DEFAULT_CAPACITY = 8192;
+
+    // Objects
+
+    private final @NotNull InputStream input;
+
+    // Always in read mode between calls
+    private final @NotNull ByteBuffer buffer;
+
+    // Constructor
+
+    StreamInput(@NotNull InputStream input) {
+        this(input, DEFAULT_CAPACITY);
+    }
+
+    StreamInput(@NotNull InputStream input, int capacity) {
+        if (capacity < Long.BYTES) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+
+        this.input = input;
+        this.buffer = ByteBuffer.allocate(capacity).flip();
+    }
+
+    // Getters
+
+    /**
+     * @return the bytes already in the buffer, which are read without touching the stream
+     * */
+    int getBuffered() {
+        return buffer.remaining();
+    }
+
+    /**
+     * @return the bytes that can be read without blocking, in the buffer and in the stream together
+     * */
+    int available() throws IOException {
+        int available = input.available();
+        int buffered = buffer.remaining();
+
+        return available > Integer.MAX_VALUE - buffered ? Integer.MAX_VALUE : available + buffered;
+    }
+
+    // Modules
+
+    /**
+     * Makes at least {@code length} bytes available in the buffer, reading from the stream as many as it has.
+     * */
+    private void require(int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+
+        buffer.compact();
+
+        try {
+            while (buffer.position() < length) {
+                int read = input.read(buffer.array(), buffer.position(), buffer.remaining());
+                if (read < 0) {
+                    throw new EOFException();
+                }
+
+                buffer.position(buffer.position() + read);
+            }
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Refills the empty buffer with whatever the stream has, up to its capacity.
+     *
+     * @return false if the stream ended
+     * */
+    private boolean fill() throws IOException {
+        int read;
+
+        do {
+            read = input.read(buffer.array(), 0, buffer.capacity());
+        } while (read == 0);
+
+        buffer.position(0).limit(Math.max(read, 0));
+        return read > 0;
+    }
+
+    public int read(byte @NotNull [] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    public int read(byte @NotNull [] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            if (len >= buffer.capacity()) {
+                return input.read(b, off, len);
+            } else if (!fill()) {
+                return -1;
+            }
+        }
+
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+
+        return count;
+    }
+
+    @Override
+    public void readFully(byte @NotNull [] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte @NotNull [] b, int off, int len) throws IOException {
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+
+        off += count;
+        len -= count;
+
+        while (len > 0) {
+            int read = read(b, off, len);
+            if (read < 0) {
+                throw new EOFException();
+            }
+
+            off += read;
+            len -= read;
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int count = Math.min(Math.max(n, 0), buffer.remaining());
+        buffer.position(buffer.position() + count);
+
+        while (count < n) {
+            long skipped = input.skip(n - count);
+            if (skipped <= 0) {
+                break;
+            }
+
+            count += (int) skipped;
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(Short.BYTES);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(Character.BYTES);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads the bytes up to the next {@code \n}, {@code \r\n} or {@code \r} as a line of Latin-1 characters, like
+     * {@link DataInputStream#readLine()}: the terminator is consumed but not returned.
+     *
+     * @return the line, or null if the stream ended before any byte of it
+     * */
+    @Override
+    public @Nullable String readLine() throws IOException {
+        @Nullable StringBuilder line = null;
+
+        while (buffer.hasRemaining() || fill()) {
+            byte @NotNull [] array = buffer.array();
+            int start = buffer.position();
+            int end = start;
+
+            while (end < buffer.limit() && array[end] != '\n' && array[end] != '\r') {
+                end++;
+            }
+
+            if (line == null) {
+                line = new StringBuilder(end - start);
+            }
+
+            for (int i = start; i < end; i++) {
+                line.append((char) (array[i] & 0xFF));
+            }
+
+            buffer.position(end);
+            if (end == buffer.limit()) {
+                continue;
+            }
+
+            if (buffer.get() == '\r' && (buffer.hasRemaining() || fill()) && buffer.get(buffer.position()) == '\n') {
+                buffer.get();
+            }
+
+            return line.toString();
+        }
+
+        return line != null ? line.toString() : null;
+    }
+
+    @Override
+    public @NotNull String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.clear().flip();
+        input.close();
+    }
+}
@@ -0,0 +1,224 @@
+package dev.hensil.maop.compliance.core;
+
+import com.jlogm.Logger;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import tech.kwik.core.QuicConnection;
+import tech.kwik.core.QuicStream;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The streams created ahead by a connection, so the next stream is taken without waiting for kwik. A QUIC stream is only
+ * seen by the peer once something is written on it, so an idle pooled stream costs one unit of the credit granted by the
+ * peer and nothing on the wire.
+ * <p>
+ * Each kind of stream is refilled up to its size by a single background task, which blocks in kwik while the peer does
+ * not grant more streams. The tasks run on daemon threads of their own rather than on the common pool, which a task
+ * parked in kwik for every connection would starve. A pool of size 0 never creates a stream and counts neither hits nor
+ * misses.
+ * */
+public final class StreamPool {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(StreamPool.class).formatter(Main.FORMATTER);
+
+    public static final int DEFAULT_SIZE = 0;
+
+    /**
+     * The refill tasks, at most one per kind of stream of every open connection.
+     * */
+    private static final @NotNull ExecutorService refill = Executors.newCachedThreadPool(Threads.newFactory("maop-stream-pool-", false));
+
+    // Objects
+
+    private final @NotNull QuicConnection connection;
+
+    private final @NotNull Kind bidirectional;
+    private final @NotNull Kind unidirectional;
+
+    private volatile boolean closed = false;
+
+    // Constructor
+
+    StreamPool(@NotNull QuicConnection connection, int bidirectional, int unidirectional) {
+        if (bidirectional < 0) {
+            throw new IllegalArgumentException("Illegal bidirectional pool size: " + bidirectional);
+        } else if (unidirectional < 0) {
+            throw new IllegalArgumentException("Illegal unidirectional pool size: " + unidirectional);
+        }
+
+        this.connection = connection;
+        this.bidirectional = new Kind(true, bidirectional);
+        this.unidirectional = new Kind(false, unidirectional);
+    }
+
+    // Getters
+
+    public int getSize(boolean bidirectional) {
+        return kind(bidirectional).size;
+    }
+
+    /**
+     * @return the streams created ahead and not taken yet
+     * */
+    public int getIdle(boolean bidirectional) {
+        return kind(bidirectional).idle.size();
+    }
+
+    /**
+     * @return the streams taken from the pool without waiting
+     * */
+    public long getHits(boolean bidirectional) {
+        return kind(bidirectional).hits.get();
+    }
+
+    /**
+     * @return the streams asked while the pool was empty, which were created on demand
+     * */
+    public long getMisses(boolean bidirectional) {
+        return kind(bidirectional).misses.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private @NotNull Kind kind(boolean bidirectional) {
+        return bidirectional ? this.bidirectional : this.unidirectional;
+    }
+
+    // Modules
+
+    /**
+     * Takes a stream created ahead, and refills the pool in the background.
+     *
+     * @return the stream, or null if the pool is empty and the caller must create it
+     * */
+    @Nullable QuicStream poll(boolean bidirectional) {
+        @NotNull Kind kind = kind(bidirectional);
+        if (kind.size == 0 || closed) {
+            return null;
+        }
+
+        @Nullable QuicStream stream = kind.idle.pollFirst();
+        (stream != null ? kind.hits : kind.misses).incrementAndGet();
+
+        kind.fill();
+        return stream;
+    }
+
+    /**
+     * Starts the background refill of both kinds of streams.
+     * */
+    void fill() {
+        bidirectional.fill();
+        unidirectional.fill();
+    }
+
+    /**
+     * Stops the refill and resets the idle streams, so kwik releases them instead of keeping them open until the
+     * connection ends.
+     * */
+    void close() {
+        this.closed = true;
+
+        bidirectional.drain();
+        unidirectional.drain();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "StreamPool{" +
+                "bidirectional=" + bidirectional +
+                ", unidirectional=" + unidirectional +
+                '}';
+    }
+
+    // Classes
+
+    private final class Kind {
+
+        private final boolean bidirectional;
+        private final int size;
+
+        private final @NotNull Deque<QuicStream> idle = new ConcurrentLinkedDeque<>();
+        private final @NotNull AtomicBoolean filling = new AtomicBoolean(false);
+
+        private final @NotNull AtomicLong hits = new AtomicLong(0);
+        private final @NotNull AtomicLong misses = new AtomicLong(0);
+
+        private Kind(boolean bidirectional, int size) {
+            this.bidirectional = bidirectional;
+            this.size = size;
+        }
+
+        private boolean isFull() {
+            return closed || idle.size() >= size;
+        }
+
+        private void fill() {
+            if (isFull() || !filling.compareAndSet(false, true)) {
+                return;
+            }
+
+            CompletableFuture.runAsync(() -> {
+                boolean failed = false;
+
+                try {
+                    while (!isFull()) {
+                        // Kwik blocks while the peer does not grant more streams
+                        @NotNull QuicStream stream = connection.createStream(bidirectional);
+                        idle.addLast(stream);
+
+                        // The pool may have been drained while kwik was creating the stream
+                        if (closed) {
+                            drain();
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Cannot fill the " + (bidirectional ? "bidirectional" : "unidirectional") + " stream pool: " + e);
+                    failed = true;
+                } finally {
+                    filling.set(false);
+                }
+
+                // A stream may have been taken after the last check, while this task still held the refill
+                if (!failed) {
+                    fill();
+                }
+            }, refill);
+        }
+
+        private void drain() {
+            @Nullable QuicStream stream;
+
+            while ((stream = idle.pollFirst()) != null) {
+                try {
+                    stream.resetStream(0);
+
+                    if (bidirectional) {
+                        stream.abortReading(0);
+                    }
+                } catch (RuntimeException e) {
+                    log.trace("Cannot reset the pooled stream " + stream.getStreamId() + ": " + e);
+                }
+            }
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return idle.size() + "/" + size + " (hits=" + hits + ", misses=" + misses + ")";
+        }
+    }
+}
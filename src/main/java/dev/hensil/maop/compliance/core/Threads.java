@@ -0,0 +1,173 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The thread kinds available to the compliance. This is the Java 17 version; the multi-release jar built by the
+ * {@code java21} profile replaces it with {@code META-INF/versions/21/.../Threads.class}, which creates virtual threads
+ * directly. Both versions must keep the same signatures.
+ * <p>
+ * Only the jar carries the Java 21 version: {@code mvn test}, {@code mvn exec} and the IDEs run the classes directory,
+ * so this version looks up the virtual thread API reflectively and creates them too when the runtime has it.
+ * */
+@ApiStatus.Internal
+public final class Threads {
+
+    // Static initializers
+
+    // Thread.ofVirtual() and the Thread.Builder methods, null if this runtime does not create virtual threads
+    private static final @Nullable Method OF_VIRTUAL;
+    private static final @Nullable Method NAME;
+    private static final @Nullable Method HANDLER;
+    private static final @Nullable Method FACTORY;
+    private static final @Nullable Method IS_VIRTUAL;
+    private static final @Nullable Method THREAD_PER_TASK;
+
+    static {
+        @Nullable Method ofVirtual = null;
+        @Nullable Method name = null;
+        @Nullable Method handler = null;
+        @Nullable Method factory = null;
+        @Nullable Method isVirtual = null;
+        @Nullable Method threadPerTask = null;
+
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+
+            // A preview API in Java 19 and 20, that throws unless enabled
+            ofVirtual.invoke(null);
+
+            name = ofVirtual.getReturnType().getMethod("name", String.class, long.class);
+            handler = ofVirtual.getReturnType().getMethod("uncaughtExceptionHandler", Thread.UncaughtExceptionHandler.class);
+            factory = ofVirtual.getReturnType().getMethod("factory");
+            isVirtual = Thread.class.getMethod("isVirtual");
+            threadPerTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        HANDLER = handler;
+        FACTORY = factory;
+        IS_VIRTUAL = isVirtual;
+        THREAD_PER_TASK = threadPerTask;
+    }
+
+    private static final @NotNull Executor BLOCKING = isVirtualSupported()
+            ? newVirtualExecutor("maop-blocking-", null)
+            : Executors.newCachedThreadPool(newFactory("maop-blocking-", false));
+
+    /**
+     * @return true if this runtime creates virtual threads
+     * */
+    public static boolean isVirtualSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    public static boolean isVirtual(@NotNull Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+
+        return (boolean) invoke(IS_VIRTUAL, thread);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if virtual threads are asked and this runtime does not create them
+     * */
+    public static void checkVirtual(boolean virtual) {
+        if (virtual && !isVirtualSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+        }
+    }
+
+    /**
+     * @param prefix the name of the threads, followed by a counter starting at 1
+     * @param virtual creates virtual threads instead of daemon platform threads
+     * @throws UnsupportedOperationException if virtual threads are asked and this runtime does not create them
+     * */
+    public static @NotNull ThreadFactory newFactory(@NotNull String prefix, boolean virtual) {
+        if (virtual) {
+            return newVirtualFactory(prefix, null);
+        }
+
+        @NotNull AtomicInteger threads = new AtomicInteger(0);
+
+        return r -> {
+            @NotNull Thread thread = new Thread(r, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+    /**
+     * @param prefix the name of the threads, followed by a counter starting at 1
+     * @throws UnsupportedOperationException if this runtime does not create virtual threads
+     * */
+    public static @NotNull ThreadFactory newVirtualFactory(@NotNull String prefix, @Nullable Thread.UncaughtExceptionHandler handler) {
+        checkVirtual(true);
+        assert OF_VIRTUAL != null && NAME != null && HANDLER != null && FACTORY != null;
+
+        @NotNull Object builder = invoke(OF_VIRTUAL, null);
+        builder = invoke(NAME, builder, prefix, 1L);
+
+        if (handler != null) {
+            builder = invoke(HANDLER, builder, handler);
+        }
+
+        return (ThreadFactory) invoke(FACTORY, builder);
+    }
+
+    /**
+     * @return an executor that starts a new virtual thread for every task
+     * @throws UnsupportedOperationException if this runtime does not create virtual threads
+     * */
+    public static @NotNull ExecutorService newVirtualExecutor(@NotNull String prefix, @Nullable Thread.UncaughtExceptionHandler handler) {
+        @NotNull ThreadFactory factory = newVirtualFactory(prefix, handler);
+        assert THREAD_PER_TASK != null;
+
+        return (ExecutorService) invoke(THREAD_PER_TASK, null, factory);
+    }
+
+    /**
+     * @return the executor of the short blocking calls that must not hold the caller, such as the stream creation of kwik
+     * while the peer does not grant more streams. They get threads of their own, a virtual one per call when the runtime
+     * has them, otherwise daemon threads grown on demand and dropped once idle, instead of parking the workers of the
+     * common pool that the rest of the JVM relies on
+     * */
+    static @NotNull Executor blocking() {
+        return BLOCKING;
+    }
+
+    private static @NotNull Object invoke(@NotNull Method method, @Nullable Object target, @Nullable Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+
+            throw new AssertionError("Internal error", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new AssertionError("Internal error", e);
+        }
+    }
+
+    // Constructor
+
+    private Threads() {
+        throw new UnsupportedOperationException("This class cannot be instantiated");
+    }
+}
@@ -6,22 +6,24 @@ import org.jetbrains.annotations.Nullable;
 import tech.kwik.core.QuicStream;
 
 import java.io.DataInput;
-import java.io.DataInputStream;
 import java.io.IOException;
 
 public final class UnidirectionalInputStream extends DirectionalStream implements DataInput {
 
-    private final @NotNull DataInputStream inputStream;
+    private final @NotNull StreamInput inputStream;
 
     // Constructors
 
     UnidirectionalInputStream(@NotNull Connection connection, @NotNull QuicStream stream) {
         super(connection, stream);
-        this.inputStream = new DataInputStream(stream.getInputStream());
+        this.inputStream = new StreamInput(stream.getInputStream());
     }
 
     // Modules
 
+    /**
+     * @return the bytes readable without blocking, buffered or still in the QUIC stream
+     * */
     public int available() throws IOException {
         return inputStream.available();
     }
@@ -87,8 +89,8 @@ public final class UnidirectionalInputStream extends DirectionalStream implement
     }
 
     @Override
-    public @NotNull String readLine() throws IOException {
-        return this.inputStream.readUTF();
+    public @Nullable String readLine() throws IOException {
+        return this.inputStream.readLine();
     }
 
     public @NotNull String readUTF() throws IOException {
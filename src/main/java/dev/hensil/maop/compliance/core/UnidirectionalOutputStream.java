@@ -1,26 +1,55 @@
 package dev.hensil.maop.compliance.core;
 
+import dev.hensil.maop.compliance.model.operation.Operation;
+
 import org.jetbrains.annotations.NotNull;
 
 import tech.kwik.core.QuicStream;
 
-import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
-public final class UnidirectionalOutputStream extends DirectionalStream implements DataOutput {
+public final class UnidirectionalOutputStream extends DirectionalStream implements OperationOutput {
 
+    private final @NotNull OperationWriter writer;
     private final @NotNull DataOutputStream outputStream;
 
     // Constructors
 
     UnidirectionalOutputStream(@NotNull Connection connection, @NotNull QuicStream stream) {
         super(connection, stream);
-        this.outputStream = new DataOutputStream(stream.getOutputStream());
+        this.writer = new OperationWriter(stream.getOutputStream());
+        this.outputStream = new DataOutputStream(writer);
     }
 
     // Modules
 
+    @Override
+    public void writeOperation(@NotNull Operation operation) throws IOException {
+        this.writer.writeOperation(operation);
+    }
+
+    @Override
+    public void cork() {
+        this.writer.cork();
+    }
+
+    @Override
+    public boolean isCorked() {
+        return this.writer.isCorked();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+    @Override
+    public void abort() {
+        this.writer.discard();
+        getQuicStream().resetStream(0);
+    }
+
     public void write(int b) throws IOException {
         this.outputStream.write(b);
     }
@@ -0,0 +1,24 @@
+package dev.hensil.maop.compliance.exception;
+
+import dev.hensil.maop.compliance.model.authentication.Disapproved;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+public class AuthenticationException extends IOException {
+
+    private final @NotNull Disapproved disapproved;
+
+    public AuthenticationException(@NotNull Disapproved disapproved) {
+        super("Authentication disapproved: " + disapproved);
+        this.disapproved = disapproved;
+    }
+
+    /**
+     * @return the Result of the server, with its error code and the retry after it may hint
+     * */
+    public @NotNull Disapproved getDisapproved() {
+        return disapproved;
+    }
+}
@@ -12,4 +12,8 @@ public class ConnectionException extends IOException {
     public ConnectionException(String message) {
         super(message);
     }
+
+    public ConnectionException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,334 @@
+package dev.hensil.maop.compliance.load;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+
+import dev.hensil.maop.compliance.core.Compliance;
+import dev.hensil.maop.compliance.core.Connection;
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.core.Threads;
+import dev.hensil.maop.compliance.exception.AuthenticationException;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Floods the server with concurrent authentications: every client connects and authenticates at the same instant, and
+ * keeps retrying on a new connection until it is approved. A disapproval with a retry after is retried once the hint
+ * has passed, plus a random jitter of up to the jitter fraction of it so the clients do not come back in lockstep; a
+ * disapproval without a hint, a timeout or a failure backs off exponentially with full jitter instead.
+ * <p>
+ * The report measures how long the server takes to approve every client and how accurate its retry after hints are.
+ * */
+public final class AuthenticationStorm {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(AuthenticationStorm.class).formatter(Main.FORMATTER);
+
+    public static @NotNull Builder newBuilder(@NotNull Compliance compliance) {
+        return new Builder(compliance);
+    }
+
+    // Objects
+
+    private final @NotNull Compliance compliance;
+    private final int clients;
+    private final int attempts;
+    private final @NotNull Duration duration;
+    private final double jitter;
+    private final @NotNull Duration baseBackoff;
+    private final @NotNull Duration maxBackoff;
+    private final boolean virtualThreads;
+
+    private final @NotNull AtomicInteger sequence = new AtomicInteger(0);
+
+    // Constructor
+
+    private AuthenticationStorm(@NotNull Builder builder) {
+        this.compliance = builder.compliance;
+        this.clients = builder.clients;
+        this.attempts = builder.attempts;
+        this.duration = builder.duration;
+        this.jitter = builder.jitter;
+        this.baseBackoff = builder.baseBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.virtualThreads = builder.virtualThreads;
+    }
+
+    // Modules
+
+    /**
+     * Releases every client at once and waits until all of them are approved or give up.
+     * */
+    @Blocking
+    public @NotNull AuthenticationStormReport run() throws InterruptedException {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("clients", clients)
+                        .put("attempts", attempts)
+                        .put("duration", duration)
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Authentication storm")
+        ) {
+            log.info("Starting authentication storm of " + clients + " clients");
+
+            @NotNull AuthenticationStormReport report = new AuthenticationStormReport(clients);
+            @NotNull ExecutorService executor = Executors.newFixedThreadPool(clients, Threads.newFactory("maop-storm-", virtualThreads));
+
+            @NotNull CountDownLatch ready = new CountDownLatch(clients);
+            @NotNull CountDownLatch gate = new CountDownLatch(1);
+            long @NotNull [] start = new long[1];
+
+            try {
+                for (int i = 0; i < clients; i++) {
+                    executor.execute(() -> {
+                        ready.countDown();
+
+                        try {
+                            gate.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+
+                        client(start[0], report);
+                    });
+                }
+
+                ready.await();
+                start[0] = System.nanoTime();
+                gate.countDown();
+
+                executor.shutdown();
+                if (!executor.awaitTermination(duration.toMillis() + maxBackoff.toMillis() + 10_000, TimeUnit.MILLISECONDS)) {
+                    log.warn("Clients still authenticating after the duration of the storm");
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            log.info(report.toString());
+            return report;
+        }
+    }
+
+    private void client(long start, @NotNull AuthenticationStormReport report) {
+        long deadline = start + duration.toNanos();
+        boolean hinted = false;
+
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            @Nullable Connection connection = null;
+            long begin = System.nanoTime();
+            long wait;
+
+            try {
+                connection = compliance.createConnection("storm-" + sequence.incrementAndGet());
+                connection.authenticate();
+
+                long approved = System.nanoTime();
+                report.attempt(approved - begin);
+                report.approve(approved - start);
+
+                if (hinted) {
+                    report.hinted(true);
+                }
+
+                return;
+            } catch (AuthenticationException e) {
+                @Nullable Duration hint = e.getDisapproved().getRetryAfter();
+
+                report.attempt(System.nanoTime() - begin);
+                report.disapprove(hint != null ? hint.toNanos() : 0);
+
+                if (hinted) {
+                    report.hinted(false);
+                }
+
+                hinted = hint != null && !hint.isZero();
+                wait = hinted ? jittered(hint.toNanos()) : backoff(attempt);
+            } catch (TimeoutException e) {
+                report.timeout();
+
+                // The retry after the hint did not get approved either
+                if (hinted) {
+                    report.hinted(false);
+                }
+
+                hinted = false;
+                wait = backoff(attempt);
+            } catch (IOException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    report.timeout();
+                } else {
+                    report.fail();
+                }
+
+                log.trace("Storm authentication failed: " + e);
+
+                if (hinted) {
+                    report.hinted(false);
+                }
+
+                hinted = false;
+                wait = backoff(attempt);
+            } finally {
+                if (connection != null) {
+                    try {
+                        connection.close();
+                    } catch (IOException ignore) {}
+                }
+            }
+
+            if (attempt + 1 == attempts || System.nanoTime() + wait >= deadline) {
+                break;
+            }
+
+            report.backoff(wait);
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        report.abandon();
+    }
+
+    /**
+     * @return the hint plus a random jitter of up to the jitter fraction of it
+     * */
+    private long jittered(long hint) {
+        long spread = (long) (hint * jitter);
+        return spread > 0 ? hint + ThreadLocalRandom.current().nextLong(spread + 1) : hint;
+    }
+
+    /**
+     * @return a random wait between zero and the base backoff doubled for every attempt, up to the maximum backoff
+     * */
+    private long backoff(int attempt) {
+        long ceiling = maxBackoff.toNanos();
+        long wait = baseBackoff.toNanos() << Math.min(attempt, 30);
+
+        if (wait <= 0 || wait > ceiling) {
+            wait = ceiling;
+        }
+
+        return ThreadLocalRandom.current().nextLong(wait + 1);
+    }
+
+    // Classes
+
+    public static final class Builder {
+
+        private final @NotNull Compliance compliance;
+
+        private int clients = 100;
+        private int attempts = 10;
+        private @NotNull Duration duration = Duration.ofSeconds(60);
+        private double jitter = 0.2;
+        private @NotNull Duration baseBackoff = Duration.ofMillis(100);
+        private @NotNull Duration maxBackoff = Duration.ofSeconds(5);
+        private boolean virtualThreads = false;
+
+        // Constructor
+
+        private Builder(@NotNull Compliance compliance) {
+            this.compliance = compliance;
+        }
+
+        // Modules
+
+        /**
+         * @param clients the authentications started at the same instant, each one on its own thread
+         * */
+        public @NotNull Builder clients(int clients) {
+            if (clients < 1) {
+                throw new IllegalArgumentException("Illegal number of clients: " + clients);
+            }
+
+            this.clients = clients;
+            return this;
+        }
+
+        /**
+         * @param attempts the attempts of every client, the first one included, before it gives up
+         * */
+        public @NotNull Builder attempts(int attempts) {
+            if (attempts < 1) {
+                throw new IllegalArgumentException("Illegal number of attempts: " + attempts);
+            }
+
+            this.attempts = attempts;
+            return this;
+        }
+
+        /**
+         * @param duration how long the clients keep retrying, from the start of the storm
+         * */
+        public @NotNull Builder duration(@NotNull Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Illegal duration: " + duration);
+            }
+
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * @param jitter the fraction of the retry after added at random to it, between 0 and 1
+         * */
+        public @NotNull Builder jitter(double jitter) {
+            if (!(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("Illegal jitter: " + jitter);
+            }
+
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * @param base the backoff of the first retry without a retry after, doubled for every attempt
+         * @param max the highest backoff
+         * */
+        public @NotNull Builder backoff(@NotNull Duration base, @NotNull Duration max) {
+            if (base.isNegative() || base.isZero()) {
+                throw new IllegalArgumentException("Illegal base backoff: " + base);
+            } else if (max.compareTo(base) < 0) {
+                throw new IllegalArgumentException("Illegal maximum backoff: " + max + " (base = " + base + ")");
+            }
+
+            this.baseBackoff = base;
+            this.maxBackoff = max;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads runs every client on a virtual thread; requires Java 21 or newer
+         * */
+        public @NotNull Builder virtualThreads(boolean virtualThreads) {
+            Threads.checkVirtual(virtualThreads);
+
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public @NotNull AuthenticationStorm build() {
+            return new AuthenticationStorm(this);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package dev.hensil.maop.compliance.load;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The outcome of an authentication storm. The recovery is how long the server took to approve every client from the
+ * start of the storm, and the hint accuracy is the share of the retries made after waiting the retry after of the server
+ * that were approved: a server whose hints are too short disapproves the retries again.
+ * */
+public final class AuthenticationStormReport {
+
+    // Objects
+
+    private final int clients;
+
+    private final @NotNull LatencyHistogram attempts = new LatencyHistogram();
+    private final @NotNull LatencyHistogram approval = new LatencyHistogram();
+    private final @NotNull LatencyHistogram hints = new LatencyHistogram();
+    private final @NotNull LatencyHistogram backoff = new LatencyHistogram();
+
+    private final @NotNull AtomicLong approved = new AtomicLong(0);
+    private final @NotNull AtomicLong disapproved = new AtomicLong(0);
+    private final @NotNull AtomicLong timeouts = new AtomicLong(0);
+    private final @NotNull AtomicLong failed = new AtomicLong(0);
+    private final @NotNull AtomicLong abandoned = new AtomicLong(0);
+
+    private final @NotNull AtomicLong accurate = new AtomicLong(0);
+    private final @NotNull AtomicLong early = new AtomicLong(0);
+
+    private final @NotNull AtomicLong recovery = new AtomicLong(0);
+
+    AuthenticationStormReport(int clients) {
+        this.clients = clients;
+    }
+
+    // Getters
+
+    public int getClients() {
+        return clients;
+    }
+
+    /**
+     * @return the time of every attempt answered with a Result, from the creation of the connection until the Result
+     * */
+    public @NotNull LatencyHistogram getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return the time every approved client took to be approved, from the start of the storm
+     * */
+    public @NotNull LatencyHistogram getApproval() {
+        return approval;
+    }
+
+    /**
+     * @return the retry after hinted by every disapproval that had one
+     * */
+    public @NotNull LatencyHistogram getHints() {
+        return hints;
+    }
+
+    /**
+     * @return the time waited before every retry, with its jitter
+     * */
+    public @NotNull LatencyHistogram getBackoff() {
+        return backoff;
+    }
+
+    public long getApproved() {
+        return approved.get();
+    }
+
+    public long getDisapproved() {
+        return disapproved.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the attempts that failed for any other reason, including the handshakes that could not connect
+     * */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the clients that were not approved within their attempts or the duration of the storm
+     * */
+    public long getAbandoned() {
+        return abandoned.get();
+    }
+
+    /**
+     * @return the share of the retries made after waiting a hint that were approved, or NaN if no retry followed a hint
+     * */
+    public double getHintAccuracy() {
+        long accurate = this.accurate.get();
+        long total = accurate + early.get();
+
+        return total == 0 ? Double.NaN : accurate / (double) total;
+    }
+
+    /**
+     * @return how long after the start the last approved client was approved, which is the recovery of the server only
+     * if {@link #isRecovered()}
+     * */
+    public @NotNull Duration getRecovery() {
+        return Duration.ofNanos(recovery.get());
+    }
+
+    public boolean isRecovered() {
+        return getApproved() == clients;
+    }
+
+    // Modules
+
+    void attempt(long nanos) {
+        attempts.record(nanos);
+    }
+
+    void approve(long elapsed) {
+        approval.record(elapsed);
+        approved.incrementAndGet();
+        recovery.accumulateAndGet(elapsed, Math::max);
+    }
+
+    void disapprove(long hint) {
+        disapproved.incrementAndGet();
+
+        if (hint > 0) {
+            hints.record(hint);
+        }
+    }
+
+    void timeout() {
+        timeouts.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void abandon() {
+        abandoned.incrementAndGet();
+    }
+
+    void backoff(long nanos) {
+        backoff.record(nanos);
+    }
+
+    /**
+     * Records the outcome of a retry made after waiting the hint of the previous disapproval.
+     * */
+    void hinted(boolean approved) {
+        (approved ? accurate : early).incrementAndGet();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Authentication storm report (clients = " + clients + ", approved = " + getApproved() + ", disapproved = " + getDisapproved() + ", timeouts = " + getTimeouts() + ", failed = " + getFailed() + ", abandoned = " + getAbandoned() +
+                ", recovery = " + (isRecovered() ? getRecovery().toMillis() + "ms" : "none") + ", hint accuracy = " + String.format("%.1f%%", getHintAccuracy() * 100) + ")" +
+                "\n  attempts: " + attempts +
+                "\n  approval: " + approval +
+                "\n  hints:    " + hints +
+                "\n  backoff:  " + backoff;
+    }
+}
@@ -0,0 +1,277 @@
+package dev.hensil.maop.compliance.load;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+
+import dev.hensil.maop.compliance.core.BidirectionalStream;
+import dev.hensil.maop.compliance.core.Compliance;
+import dev.hensil.maop.compliance.core.Connection;
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.core.Threads;
+import dev.hensil.maop.compliance.model.authentication.Approved;
+import dev.hensil.maop.compliance.model.authentication.Disapproved;
+import dev.hensil.maop.compliance.model.authentication.Result;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens, authenticates and closes connections at a constant arrival rate, measuring how many new authenticated
+ * connections per second the server sustains. Like the {@link OpenLoopDriver}, the calling thread starts every cycle at
+ * its intended time and hands it over to a worker, whatever the server does with the previous ones.
+ * <p>
+ * A cycle is the sequence of {@link Connection#authenticate()} split into its phases: the QUIC handshake of
+ * {@link Compliance#createConnection(String)}, the write of the authentication on a new stream, the read of the Result
+ * and the close of the connection, each one measured apart.
+ * */
+public final class ChurnDriver {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(ChurnDriver.class).formatter(Main.FORMATTER);
+
+    public static @NotNull Builder newBuilder(@NotNull Compliance compliance) {
+        return new Builder(compliance);
+    }
+
+    // Objects
+
+    private final @NotNull Compliance compliance;
+    private final double rate;
+    private final @NotNull Duration duration;
+    private final @NotNull Duration warmup;
+    private final @NotNull Duration timeout;
+    private final boolean virtualThreads;
+    private final int workers;
+    private final @NotNull Duration lateThreshold;
+
+    private final @NotNull AtomicInteger sequence = new AtomicInteger(0);
+
+    // Constructor
+
+    private ChurnDriver(@NotNull Builder builder) {
+        this.compliance = builder.compliance;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.warmup = builder.warmup;
+        this.timeout = builder.timeout;
+        this.virtualThreads = builder.virtualThreads;
+        this.workers = builder.workers;
+        this.lateThreshold = builder.lateThreshold;
+    }
+
+    // Modules
+
+    /**
+     * Starts the cycles for the warmup and the duration and waits for the ones in flight.
+     * */
+    @Blocking
+    public @NotNull ChurnReport run() throws InterruptedException {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("rate", rate)
+                        .put("workers", workers)
+                        .put("duration", duration)
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Churn")
+        ) {
+            log.info("Starting connection churn at " + rate + " connections per second with " + workers + " workers");
+
+            @NotNull ChurnReport report = new ChurnReport(lateThreshold.toNanos());
+
+            @NotNull ExecutorService executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), Threads.newFactory("maop-churn-", virtualThreads));
+
+            @NotNull OpenLoopScheduler scheduler = new OpenLoopScheduler("Connections", rate, warmup, duration);
+            report.drop(scheduler.run(executor, timeout.multipliedBy(3), (index, intended, measured) -> () -> cycle(intended, measured, report)));
+
+            report.finish(duration);
+            log.info(report.toString());
+
+            return report;
+        }
+    }
+
+    private void cycle(long intended, boolean recorded, @NotNull ChurnReport report) {
+        long actual = System.nanoTime();
+
+        if (recorded) {
+            report.start(intended, actual);
+        }
+
+        @Nullable Connection connection = null;
+
+        try {
+            connection = compliance.createConnection("churn-" + sequence.incrementAndGet());
+            long connected = System.nanoTime();
+
+            @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
+            compliance.getPreset().getAuthentication().writeTo(stream);
+            stream.closeOutput();
+            long written = System.nanoTime();
+
+            @NotNull Result result = Result.readResult(stream, (int) timeout.toMillis(), TimeUnit.MILLISECONDS);
+            long read = System.nanoTime();
+
+            if (recorded) {
+                report.handshake(connected - actual);
+                report.write(written - connected);
+                report.result(read - written);
+            }
+
+            if (result instanceof Disapproved disapproved) {
+                if (recorded) {
+                    report.disapprove();
+                }
+
+                log.trace("Churn connection disapproved: " + disapproved);
+                return;
+            }
+
+            connection.setAuthenticated((Approved) result);
+
+            long closing = System.nanoTime();
+            connection.close();
+            long closed = System.nanoTime();
+
+            if (recorded) {
+                report.close(closed - closing);
+                report.approve(intended, closed);
+            }
+        } catch (TimeoutException e) {
+            if (recorded) {
+                report.timeout();
+            }
+        } catch (IOException e) {
+            if (recorded) {
+                if (e.getCause() instanceof TimeoutException) {
+                    report.timeout();
+                } else {
+                    report.fail();
+                }
+            }
+
+            log.trace("Churn connection failed: " + e);
+        } finally {
+            if (connection != null && !connection.isClosed()) {
+                try {
+                    connection.close();
+                } catch (IOException ignore) {}
+            }
+        }
+    }
+
+    // Classes
+
+    public static final class Builder {
+
+        private final @NotNull Compliance compliance;
+
+        private double rate = 10;
+        private @NotNull Duration duration = Duration.ofSeconds(30);
+        private @NotNull Duration warmup = Duration.ZERO;
+        private @NotNull Duration timeout = Duration.ofSeconds(5);
+        private boolean virtualThreads = false;
+        private int workers = 16;
+        private @NotNull Duration lateThreshold = Duration.ofMillis(1);
+
+        // Constructor
+
+        private Builder(@NotNull Compliance compliance) {
+            this.compliance = compliance;
+        }
+
+        // Modules
+
+        /**
+         * @param rate the connections opened per second
+         * */
+        public @NotNull Builder rate(double rate) {
+            if (!(rate > 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Illegal rate: " + rate);
+            }
+
+            this.rate = rate;
+            return this;
+        }
+
+        public @NotNull Builder duration(@NotNull Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Illegal duration: " + duration);
+            }
+
+            this.duration = duration;
+            return this;
+        }
+
+        public @NotNull Builder warmup(@NotNull Duration warmup) {
+            if (warmup.isNegative()) {
+                throw new IllegalArgumentException("Illegal warmup: " + warmup);
+            }
+
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * @param timeout how long to wait for the Result of every authentication
+         * */
+        public @NotNull Builder timeout(@NotNull Duration timeout) {
+            if (timeout.isNegative() || timeout.isZero() || timeout.toMillis() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Illegal timeout: " + timeout);
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @param workers the maximum connections in flight; the next cycles wait for a free worker and are reported late
+         * */
+        public @NotNull Builder workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("Illegal number of workers: " + workers);
+            }
+
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * @param lateThreshold how long after its intended time a cycle may start without being counted as late
+         * */
+        public @NotNull Builder lateThreshold(@NotNull Duration lateThreshold) {
+            if (lateThreshold.isNegative()) {
+                throw new IllegalArgumentException("Illegal late threshold: " + lateThreshold);
+            }
+
+            this.lateThreshold = lateThreshold;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads runs every worker on a virtual thread; requires Java 21 or newer
+         * */
+        public @NotNull Builder virtualThreads(boolean virtualThreads) {
+            Threads.checkVirtual(virtualThreads);
+
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public @NotNull ChurnDriver build() {
+            return new ChurnDriver(this);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package dev.hensil.maop.compliance.load;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The latencies and outcomes of a connection churn run. Every cycle opens a connection, authenticates it and closes it;
+ * each phase has its own histogram, and the whole cycle is measured from its intended start so the cycles that waited
+ * for a free worker are not omitted.
+ * */
+public final class ChurnReport {
+
+    // Objects
+
+    private final @NotNull LatencyHistogram handshake = new LatencyHistogram();
+    private final @NotNull LatencyHistogram write = new LatencyHistogram();
+    private final @NotNull LatencyHistogram result = new LatencyHistogram();
+    private final @NotNull LatencyHistogram close = new LatencyHistogram();
+    private final @NotNull LatencyHistogram cycle = new LatencyHistogram();
+
+    private final long lateThreshold;
+
+    private final @NotNull AtomicLong started = new AtomicLong(0);
+    private final @NotNull AtomicLong late = new AtomicLong(0);
+    private final @NotNull AtomicLong approved = new AtomicLong(0);
+    private final @NotNull AtomicLong disapproved = new AtomicLong(0);
+    private final @NotNull AtomicLong timeouts = new AtomicLong(0);
+    private final @NotNull AtomicLong failed = new AtomicLong(0);
+    private final @NotNull AtomicLong dropped = new AtomicLong(0);
+
+    private volatile @NotNull Duration duration = Duration.ZERO;
+
+    ChurnReport(long lateThreshold) {
+        this.lateThreshold = lateThreshold;
+    }
+
+    // Getters
+
+    /**
+     * @return the QUIC handshakes, from the creation of the connection until it is connected
+     * */
+    public @NotNull LatencyHistogram getHandshake() {
+        return handshake;
+    }
+
+    /**
+     * @return the authentication writes, from the creation of its stream until the output is closed
+     * */
+    public @NotNull LatencyHistogram getWrite() {
+        return write;
+    }
+
+    /**
+     * @return the Result reads, from the closed output until the Result is decoded
+     * */
+    public @NotNull LatencyHistogram getResult() {
+        return result;
+    }
+
+    /**
+     * @return the closes of the connections
+     * */
+    public @NotNull LatencyHistogram getClose() {
+        return close;
+    }
+
+    /**
+     * @return the whole cycles of the approved connections, from the intended start until the connection is closed
+     * */
+    public @NotNull LatencyHistogram getCycle() {
+        return cycle;
+    }
+
+    public long getStarted() {
+        return started.get();
+    }
+
+    /**
+     * @return the cycles started later than the late threshold after their intended time
+     * */
+    public long getLate() {
+        return late.get();
+    }
+
+    public long getApproved() {
+        return approved.get();
+    }
+
+    public long getDisapproved() {
+        return disapproved.get();
+    }
+
+    /**
+     * @return the cycles that timed out creating the stream or waiting for the Result
+     * */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the cycles that failed for any other reason, including the handshakes that could not connect
+     * */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the measured cycles that were still waiting for a free worker when the run ended, and never started
+     * */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public @NotNull Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the approved connections per second
+     * */
+    public double getThroughput() {
+        double seconds = duration.toNanos() / 1_000_000_000D;
+        return seconds == 0 ? 0 : getApproved() / seconds;
+    }
+
+    // Modules
+
+    void start(long intended, long actual) {
+        started.incrementAndGet();
+
+        if (actual - intended > lateThreshold) {
+            late.incrementAndGet();
+        }
+    }
+
+    void handshake(long nanos) {
+        handshake.record(nanos);
+    }
+
+    void write(long nanos) {
+        write.record(nanos);
+    }
+
+    void result(long nanos) {
+        result.record(nanos);
+    }
+
+    void close(long nanos) {
+        close.record(nanos);
+    }
+
+    void approve(long intended, long ended) {
+        cycle.record(ended - intended);
+        approved.incrementAndGet();
+    }
+
+    void disapprove() {
+        disapproved.incrementAndGet();
+    }
+
+    void timeout() {
+        timeouts.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void drop(long count) {
+        dropped.addAndGet(count);
+    }
+
+    void finish(@NotNull Duration duration) {
+        this.duration = duration;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Churn report (duration = " + duration.toMillis() + "ms, started = " + getStarted() + ", late = " + getLate() + ", approved = " + getApproved() + ", disapproved = " + getDisapproved() + ", timeouts = " + getTimeouts() + ", failed = " + getFailed() + ", dropped = " + getDropped() + ", throughput = " + String.format("%.1f", getThroughput()) + "/s)" +
+                "\n  handshake: " + handshake +
+                "\n  write:     " + write +
+                "\n  result:    " + result +
+                "\n  close:     " + close +
+                "\n  cycle:     " + cycle;
+    }
+}
@@ -0,0 +1,141 @@
+package dev.hensil.maop.compliance.load;
+
+import com.jlogm.Logger;
+
+import dev.hensil.maop.compliance.core.Compliance;
+import dev.hensil.maop.compliance.core.Connection;
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.exception.ConnectionException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The authenticated connections of a load run. A slot whose connection was lost is reconnected by the first worker that
+ * asks for it, until the slots are closed. The reconnection blocks under a {@link ReentrantLock} rather than a monitor, so
+ * it does not pin the carrier of a virtual thread.
+ * */
+final class ConnectionSlots {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(ConnectionSlots.class).formatter(Main.FORMATTER);
+
+    // Objects
+
+    private final @NotNull Compliance compliance;
+    private final @NotNull String name;
+    private final @NotNull AtomicReferenceArray<Connection> slots;
+    private final @NotNull ReentrantLock lock = new ReentrantLock();
+
+    private volatile boolean open = false;
+
+    ConnectionSlots(@NotNull Compliance compliance, @NotNull String name, int size) {
+        this.compliance = compliance;
+        this.name = name;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    // Getters
+
+    int size() {
+        return slots.length();
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    // Modules
+
+    /**
+     * Connects and authenticates every slot.
+     *
+     * @throws ConnectionException if a slot cannot be connected, after closing the ones already connected
+     * */
+    void open() throws ConnectionException {
+        lock.lock();
+
+        try {
+            this.open = true;
+
+            for (int i = 0; i < slots.length(); i++) {
+                try {
+                    connect(i);
+                } catch (ConnectionException e) {
+                    close();
+                    throw e;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @NotNull Connection get(int slot) throws ConnectionException {
+        @Nullable Connection connection = slots.get(slot);
+        if (connection != null && connection.isConnected()) {
+            return connection;
+        }
+
+        lock.lock();
+
+        try {
+            connection = slots.get(slot);
+            if (connection != null && connection.isConnected()) {
+                return connection;
+            } else if (!open) {
+                throw new ConnectionException("Connections are closed");
+            }
+
+            log.debug("Reconnecting " + name + " connection " + slot);
+            return connect(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+
+        try {
+            this.open = false;
+
+            for (int i = 0; i < slots.length(); i++) {
+                @Nullable Connection connection = slots.getAndSet(i, null);
+
+                if (connection != null) try {
+                    connection.close();
+                } catch (IOException e) {
+                    log.trace("Cannot close " + name + " connection: " + e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private @NotNull Connection connect(int slot) throws ConnectionException {
+        @NotNull Connection connection = compliance.createConnection(name + "-" + slot);
+
+        try {
+            connection.authenticate();
+        } catch (IOException | TimeoutException e) {
+            try {
+                connection.close();
+            } catch (IOException ignore) {
+
+            }
+
+            throw new ConnectionException(e);
+        }
+
+        slots.set(slot, connection);
+        return connection;
+    }
+}
@@ -0,0 +1,225 @@
+package dev.hensil.maop.compliance.load;
+
+import dev.hensil.maop.compliance.core.BidirectionalStream;
+import dev.hensil.maop.compliance.core.BlockReader;
+import dev.hensil.maop.compliance.core.BlockSink;
+import dev.hensil.maop.compliance.core.Connection;
+import dev.hensil.maop.compliance.core.OperationOutput;
+import dev.hensil.maop.compliance.core.OperationUtil;
+import dev.hensil.maop.compliance.core.PayloadDigest;
+import dev.hensil.maop.compliance.core.PayloadSource;
+import dev.hensil.maop.compliance.core.UnidirectionalOutputStream;
+import dev.hensil.maop.compliance.model.SuccessMessage;
+import dev.hensil.maop.compliance.model.operation.Done;
+import dev.hensil.maop.compliance.model.operation.Message;
+import dev.hensil.maop.compliance.model.operation.Operation;
+import dev.hensil.maop.compliance.model.operation.Proceed;
+import dev.hensil.maop.compliance.model.operation.Request;
+import dev.hensil.maop.compliance.model.operation.Response;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The Request exchange of the normal request situation, timed phase by phase: open a bidirectional stream, write the
+ * Request, wait for the Proceed, upload the payload if any, then read the Response, its Blocks and the Block end. The
+ * Message exchange opens a unidirectional stream instead, uploads the payload after the Proceed if any and waits for the
+ * Done.
+ * <p>
+ * An exchange is used by a single worker at a time; it reuses its buffer and keeps the timestamps of the last exchange.
+ * When given a digest, it verifies the content of every Response payload against the expected value as the Blocks stream.
+ * */
+final class Exchange {
+
+    // Static initializers
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Objects
+
+    private final long payload;
+    private final int blockSize;
+    private final int timeout;
+
+    private final byte @NotNull [] buffer;
+    private final @NotNull BlockReader reader;
+
+    private final @Nullable PayloadDigest digest;
+    private final long expected;
+
+    private long begin;
+    private long opened;
+    private long proceeded;
+    private long firstByte;
+    private long transferred;
+    private long ended;
+
+    /**
+     * @param payload the request payload, uploaded after the Proceed
+     * @param blockSize the maximum payload of each Block written
+     * @param timeout the milliseconds to wait for the Proceed and the Response
+     * */
+    Exchange(long payload, int blockSize, int timeout) {
+        this(payload, blockSize, timeout, null, 0);
+    }
+
+    /**
+     * @param digest the digest of every Response payload, or null to discard the payloads unverified
+     * @param expected the digest value every Response payload must match
+     * */
+    Exchange(long payload, int blockSize, int timeout, @Nullable PayloadDigest digest, long expected) {
+        this.payload = payload;
+        this.blockSize = blockSize;
+        this.timeout = timeout;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.reader = new BlockReader(buffer);
+        this.digest = digest;
+        this.expected = expected;
+    }
+
+    // Getters
+
+    long getBegin() {
+        return begin;
+    }
+
+    long getOpened() {
+        return opened;
+    }
+
+    long getProceeded() {
+        return proceeded;
+    }
+
+    long getFirstByte() {
+        return firstByte;
+    }
+
+    long getTransferred() {
+        return transferred;
+    }
+
+    long getEnded() {
+        return ended;
+    }
+
+    // Modules
+
+    /**
+     * @throws IOException if the stream fails or the server does not follow the exchange
+     * @throws TimeoutException if the Proceed or the Response does not come within the timeout
+     * */
+    void request(@NotNull Connection connection) throws IOException, TimeoutException {
+        this.begin = System.nanoTime();
+
+        @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
+        this.opened = System.nanoTime();
+
+        try {
+            @NotNull Request request = new Request((short) 1, SuccessMessage.MESSAGE_ID, payload, (byte) 0, timeout);
+            stream.writeOperation(request);
+
+            @NotNull Operation operation = connection.awaitOperation(stream, timeout, TimeUnit.MILLISECONDS);
+            if (!(operation instanceof Proceed)) {
+                throw new IOException("Proceed was expected but it was " + operation.getClass().getSimpleName());
+            }
+
+            this.proceeded = System.nanoTime();
+
+            if (payload > 0) {
+                upload(stream);
+            }
+
+            connection.awaitReading(1, stream, timeout, TimeUnit.MILLISECONDS);
+            this.firstByte = System.nanoTime();
+
+            expect(stream, OperationUtil.RESPONSE);
+            @NotNull Response response = (Response) OperationUtil.RESPONSE.read(stream);
+
+            @NotNull BlockSink sink = BlockSink.discard();
+            if (digest != null) {
+                digest.reset();
+                sink = BlockSink.digest(digest);
+            }
+
+            reader.readBlocks(stream, response.getPayload(), sink, timeout, TimeUnit.MILLISECONDS);
+            this.transferred = System.nanoTime();
+
+            reader.readEnd(stream, response.getPayload(), timeout, TimeUnit.MILLISECONDS);
+
+            if (digest != null) {
+                long value = digest.getValue();
+
+                if (value != expected) {
+                    throw new IOException("Response " + digest.getName() + " mismatch (received = " + Long.toHexString(value) + ", expected = " + Long.toHexString(expected) + ")");
+                }
+            }
+
+            this.ended = System.nanoTime();
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+
+            }
+        }
+    }
+
+    /**
+     * @throws IOException if the stream fails or the server does not answer with a Proceed and a Done
+     * @throws TimeoutException if the Proceed or the Done does not come within the timeout
+     * */
+    void message(@NotNull Connection connection) throws IOException, TimeoutException {
+        this.begin = System.nanoTime();
+
+        @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
+        this.opened = System.nanoTime();
+
+        try {
+            @NotNull Message message = new Message((short) 2, payload, (byte) 0);
+            stream.writeOperation(message);
+
+            if (payload > 0) {
+                @NotNull Operation operation = connection.awaitOperation(stream, timeout, TimeUnit.MILLISECONDS);
+                if (!(operation instanceof Proceed)) {
+                    throw new IOException("Proceed was expected but it was " + operation.getClass().getSimpleName());
+                }
+
+                this.proceeded = System.nanoTime();
+                upload(stream);
+            } else {
+                this.proceeded = opened;
+            }
+
+            @NotNull Operation operation = connection.awaitOperation(stream, timeout, TimeUnit.MILLISECONDS);
+            if (!(operation instanceof Done)) {
+                throw new IOException("Done was expected but it was " + operation.getClass().getSimpleName());
+            }
+
+            this.ended = System.nanoTime();
+            this.firstByte = ended;
+            this.transferred = ended;
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ignore) {
+
+            }
+        }
+    }
+
+    private void upload(@NotNull OperationOutput stream) throws IOException {
+        PayloadSource.generated(payload, begin).writeBlocks(stream, blockSize, buffer);
+    }
+
+    private static void expect(@NotNull BidirectionalStream stream, @NotNull OperationUtil expected) throws IOException {
+        byte code = stream.readByte();
+        if (code != expected.getCode()) {
+            throw new IOException("A " + expected + " operation was expected but the operation code was " + code);
+        }
+    }
+}
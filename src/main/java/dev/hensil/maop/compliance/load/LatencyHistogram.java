@@ -0,0 +1,196 @@
+package dev.hensil.maop.compliance.load;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent latency histogram with the layout of an HDR histogram: values are grouped in buckets of doubling size, each
+ * split in 2048 linear sub-buckets, so every recorded value keeps three significant digits from one nanosecond up to the
+ * highest trackable value while the memory stays fixed. Recording is a single atomic increment and never allocates.
+ * <p>
+ * Values are nanoseconds. Values above the highest trackable value are recorded as the highest trackable value.
+ * */
+public final class LatencyHistogram {
+
+    // Static initializers
+
+    public static final long DEFAULT_HIGHEST_TRACKABLE = TimeUnit.MINUTES.toNanos(10);
+
+    private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 10;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+    private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    private static final int LEADING_ZERO_COUNT_BASE = 64 - SUB_BUCKET_HALF_COUNT_MAGNITUDE - 1;
+
+    // Objects
+
+    private final long highestTrackable;
+    private final @NotNull AtomicLongArray counts;
+
+    private final @NotNull AtomicLong count = new AtomicLong(0);
+    private final @NotNull AtomicLong sum = new AtomicLong(0);
+    private final @NotNull AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final @NotNull AtomicLong max = new AtomicLong(0);
+
+    // Constructor
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE);
+    }
+
+    public LatencyHistogram(long highestTrackable) {
+        if (highestTrackable < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("Highest trackable value must be at least " + SUB_BUCKET_COUNT + ": " + highestTrackable);
+        }
+
+        int buckets = 1;
+        long smallestUntrackable = SUB_BUCKET_COUNT;
+
+        while (smallestUntrackable <= highestTrackable && smallestUntrackable > 0) {
+            smallestUntrackable <<= 1;
+            buckets++;
+        }
+
+        this.highestTrackable = highestTrackable;
+        this.counts = new AtomicLongArray((buckets + 1) * SUB_BUCKET_HALF_COUNT);
+    }
+
+    // Getters
+
+    public long getHighestTrackable() {
+        return highestTrackable;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the lowest recorded value, or 0 if nothing was recorded
+     * */
+    public long getMin() {
+        long min = this.min.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100, such as 99.9
+     * @return the highest value equivalent to the one at the given percentile, or 0 if nothing was recorded
+     * */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Illegal percentile: " + percentile);
+        }
+
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long accumulated = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            accumulated += counts.get(i);
+
+            if (accumulated >= target) {
+                return Math.min(highestEquivalent(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    // Modules
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, highestTrackable));
+
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Adds every value recorded by the other histogram to this one.
+     * */
+    public void add(@NotNull LatencyHistogram other) {
+        if (other.counts.length() > counts.length()) {
+            throw new IllegalArgumentException("The other histogram tracks higher values than this one");
+        }
+
+        for (int i = 0; i < other.counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+
+        count.addAndGet(other.getCount());
+        sum.addAndGet(other.sum.get());
+        min.accumulateAndGet(other.min.get(), Math::min);
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+
+        count.set(0);
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    private static int index(long value) {
+        int bucket = LEADING_ZERO_COUNT_BASE - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+        int subBucket = (int) (value >>> bucket);
+
+        return ((bucket + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long highestEquivalent(int index) {
+        int bucket = (index >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+        int subBucket = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+
+        if (bucket < 0) {
+            subBucket -= SUB_BUCKET_HALF_COUNT;
+            bucket = 0;
+        }
+
+        long lowest = (long) subBucket << bucket;
+        return lowest + (1L << bucket) - 1;
+    }
+
+    /**
+     * @return a summary in microseconds with the count, the mean and the p50, p99, p999 and max values
+     * */
+    @Override
+    public @NotNull String toString() {
+        return "count=" + getCount() +
+                ", mean=" + micros((long) getMean()) +
+                ", p50=" + micros(getValueAtPercentile(50)) +
+                ", p99=" + micros(getValueAtPercentile(99)) +
+                ", p999=" + micros(getValueAtPercentile(99.9)) +
+                ", max=" + micros(getMax());
+    }
+
+    private static @NotNull String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1_000D);
+    }
+}
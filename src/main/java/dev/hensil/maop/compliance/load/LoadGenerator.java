@@ -0,0 +1,326 @@
+package dev.hensil.maop.compliance.load;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+
+import dev.hensil.maop.compliance.core.Compliance;
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.core.PayloadDigest;
+import dev.hensil.maop.compliance.core.Threads;
+import dev.hensil.maop.compliance.exception.ConnectionException;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the Request exchange of the normal request situation from many connections and streams at once for a fixed
+ * duration, recording the latency of every phase in a {@link LoadReport}.
+ * <p>
+ * Every worker runs exchanges back to back on the connection assigned to it, so the load is closed-loop: the concurrency
+ * bounds the streams in flight, and an optional rate spaces the exchanges started by all the workers together. Since a
+ * worker waits for its exchange to finish, a slow server also slows the issue rate and the tail latency is under-reported.
+ * */
+public final class LoadGenerator {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(LoadGenerator.class).formatter(Main.FORMATTER);
+
+    public static @NotNull Builder newBuilder(@NotNull Compliance compliance) {
+        return new Builder(compliance);
+    }
+
+    // Objects
+
+    private final @NotNull Compliance compliance;
+    private final int connections;
+    private final int concurrency;
+    private final double rate;
+    private final @NotNull Duration duration;
+    private final @NotNull Duration warmup;
+    private final long payload;
+    private final int blockSize;
+    private final @NotNull Duration timeout;
+    private final boolean virtualThreads;
+    private final @Nullable PayloadDigest digest;
+    private final long expected;
+
+    private final @NotNull ConnectionSlots slots;
+
+    // Constructor
+
+    private LoadGenerator(@NotNull Builder builder) {
+        this.compliance = builder.compliance;
+        this.connections = builder.connections;
+        this.concurrency = builder.concurrency;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.warmup = builder.warmup;
+        this.payload = builder.payload;
+        this.blockSize = builder.blockSize;
+        this.timeout = builder.timeout;
+        this.virtualThreads = builder.virtualThreads;
+        this.digest = builder.digest;
+        this.expected = builder.expected;
+        this.slots = new ConnectionSlots(compliance, "load", connections);
+    }
+
+    // Modules
+
+    /**
+     * Opens and authenticates the connections, runs the load for the warmup and the duration, and closes the connections.
+     *
+     * @throws ConnectionException if a connection cannot be opened or authenticated before the run
+     * */
+    @Blocking
+    public @NotNull LoadReport run() throws ConnectionException, InterruptedException {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("compliance id", compliance.getId())
+                        .put("connections", connections)
+                        .put("concurrency", concurrency)
+                        .put("rate", rate)
+                        .put("duration", duration)
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Load")
+        ) {
+            slots.open();
+
+            log.info("Starting load with " + concurrency + " workers over " + connections + " connections");
+
+            @NotNull LoadReport report = new LoadReport();
+            @NotNull CountDownLatch latch = new CountDownLatch(concurrency);
+
+            long start = System.nanoTime();
+            long measured = start + warmup.toNanos();
+            long end = measured + duration.toNanos();
+            long interval = rate > 0 ? (long) (1_000_000_000D / rate) : 0;
+            @NotNull AtomicLong next = new AtomicLong(start);
+
+            @NotNull ExecutorService executor = Executors.newFixedThreadPool(concurrency, Threads.newFactory("maop-load-", virtualThreads));
+
+            try {
+                for (int i = 0; i < concurrency; i++) {
+                    int slot = i % connections;
+
+                    executor.execute(() -> {
+                        try {
+                            work(slot, report, next, interval, measured, end);
+                        } finally {
+                            latch.countDown();
+                        }
+                    });
+                }
+
+                if (!latch.await(end - System.nanoTime() + timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    log.warn("Workers did not finish within the timeout, closing the connections");
+                }
+            } finally {
+                slots.close();
+                executor.shutdownNow();
+            }
+
+            report.finish(Duration.ofNanos(Math.min(System.nanoTime(), end) - measured));
+            log.info(report.toString());
+
+            return report;
+        }
+    }
+
+    private void work(int slot, @NotNull LoadReport report, @NotNull AtomicLong next, long interval, long measured, long end) {
+        @NotNull Exchange exchange = new Exchange(payload, blockSize, (int) timeout.toMillis(), digest != null ? digest.fresh() : null, expected);
+
+        while (slots.isOpen() && !Thread.currentThread().isInterrupted()) {
+            if (interval > 0) {
+                long time = next.getAndAdd(interval);
+                if (time >= end) {
+                    return;
+                }
+
+                long wait;
+                while ((wait = time - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+            } else if (System.nanoTime() >= end) {
+                return;
+            }
+
+            try {
+                exchange.request(slots.get(slot));
+
+                if (exchange.getBegin() >= measured) {
+                    report.record(exchange);
+                }
+            } catch (IOException | TimeoutException e) {
+                if (System.nanoTime() >= measured) {
+                    report.fail();
+                }
+
+                log.trace("Load exchange failed: " + e);
+            }
+        }
+    }
+
+    // Classes
+
+    public static final class Builder {
+
+        private final @NotNull Compliance compliance;
+
+        private int connections = 1;
+        private int concurrency = 1;
+        private double rate = 0;
+        private @NotNull Duration duration = Duration.ofSeconds(30);
+        private @NotNull Duration warmup = Duration.ZERO;
+        private long payload = 0;
+        private int blockSize = 1024;
+        private @NotNull Duration timeout = Duration.ofSeconds(2);
+        private boolean virtualThreads = false;
+        private @Nullable PayloadDigest digest;
+        private long expected;
+
+        // Constructor
+
+        private Builder(@NotNull Compliance compliance) {
+            this.compliance = compliance;
+        }
+
+        // Modules
+
+        public @NotNull Builder connections(int connections) {
+            if (connections < 1) {
+                throw new IllegalArgumentException("Illegal number of connections: " + connections);
+            }
+
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * @param concurrency the number of workers, each one with a single exchange in flight
+         * */
+        public @NotNull Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Illegal concurrency: " + concurrency);
+            }
+
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * @param rate the exchanges started per second by all the workers together, or 0 to run them back to back
+         * */
+        public @NotNull Builder rate(double rate) {
+            if (rate < 0 || Double.isNaN(rate)) {
+                throw new IllegalArgumentException("Illegal rate: " + rate);
+            }
+
+            this.rate = rate;
+            return this;
+        }
+
+        public @NotNull Builder duration(@NotNull Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Illegal duration: " + duration);
+            }
+
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * @param warmup the time the load runs before being recorded
+         * */
+        public @NotNull Builder warmup(@NotNull Duration warmup) {
+            if (warmup.isNegative()) {
+                throw new IllegalArgumentException("Illegal warmup: " + warmup);
+            }
+
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * @param payload the request payload uploaded in Blocks after every Proceed
+         * */
+        public @NotNull Builder payload(long payload) {
+            if (payload < 0) {
+                throw new IllegalArgumentException("Illegal payload: " + payload);
+            }
+
+            this.payload = payload;
+            return this;
+        }
+
+        public @NotNull Builder blockSize(int blockSize) {
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("Illegal block size: " + blockSize);
+            }
+
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * @param timeout the time to wait for the Proceed and the Response of every exchange
+         * */
+        public @NotNull Builder timeout(@NotNull Duration timeout) {
+            if (timeout.isNegative() || timeout.isZero() || timeout.toMillis() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Illegal timeout: " + timeout);
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * Verifies the content of every Response payload as it streams, counting an exchange whose payload does not match
+         * the expected digest as failed.
+         *
+         * @param digest the digest algorithm and key, copied for every worker
+         * @param expected the digest value of the server's response payload
+         * */
+        public @NotNull Builder verifyResponse(@NotNull PayloadDigest digest, long expected) {
+            this.digest = digest;
+            this.expected = expected;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads runs every worker on a virtual thread, so tens of thousands of concurrent blocking exchanges do not need as many platform
+         * threads; requires Java 21 or newer
+         * */
+        public @NotNull Builder virtualThreads(boolean virtualThreads) {
+            Threads.checkVirtual(virtualThreads);
+
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public @NotNull LoadGenerator build() {
+            if (connections > concurrency) {
+                throw new IllegalArgumentException("More connections than workers (connections = " + connections + ", concurrency = " + concurrency + ")");
+            }
+
+            return new LoadGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.hensil.maop.compliance.load;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The latencies and counters of a load run. Each Request exchange is split in phases, every one with its own histogram:
+ * <ul>
+ *     <li>stream open: creating the bidirectional stream</li>
+ *     <li>proceed: from writing the Request until the Proceed is observed</li>
+ *     <li>first response byte: from the Proceed until the first byte of the Response, including the request payload upload</li>
+ *     <li>block transfer: from the first byte of the Response until the last Block is read</li>
+ *     <li>block end: reading the Block end after the last Block</li>
+ *     <li>total: the whole exchange, from opening the stream to the Block end</li>
+ * </ul>
+ * */
+public final class LoadReport {
+
+    // Objects
+
+    private final @NotNull LatencyHistogram streamOpen = new LatencyHistogram();
+    private final @NotNull LatencyHistogram proceed = new LatencyHistogram();
+    private final @NotNull LatencyHistogram firstResponseByte = new LatencyHistogram();
+    private final @NotNull LatencyHistogram blockTransfer = new LatencyHistogram();
+    private final @NotNull LatencyHistogram blockEnd = new LatencyHistogram();
+    private final @NotNull LatencyHistogram total = new LatencyHistogram();
+
+    private final @NotNull AtomicLong completed = new AtomicLong(0);
+    private final @NotNull AtomicLong failed = new AtomicLong(0);
+
+    private volatile @NotNull Duration duration = Duration.ZERO;
+
+    LoadReport() {
+        //
+    }
+
+    // Getters
+
+    public @NotNull LatencyHistogram getStreamOpen() {
+        return streamOpen;
+    }
+
+    public @NotNull LatencyHistogram getProceed() {
+        return proceed;
+    }
+
+    public @NotNull LatencyHistogram getFirstResponseByte() {
+        return firstResponseByte;
+    }
+
+    public @NotNull LatencyHistogram getBlockTransfer() {
+        return blockTransfer;
+    }
+
+    public @NotNull LatencyHistogram getBlockEnd() {
+        return blockEnd;
+    }
+
+    public @NotNull LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the measured time, without the warmup
+     * */
+    public @NotNull Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the completed exchanges per second
+     * */
+    public double getThroughput() {
+        double seconds = duration.toNanos() / 1_000_000_000D;
+        return seconds == 0 ? 0 : getCompleted() / seconds;
+    }
+
+    // Modules
+
+    void record(@NotNull Exchange exchange) {
+        streamOpen.record(exchange.getOpened() - exchange.getBegin());
+        proceed.record(exchange.getProceeded() - exchange.getOpened());
+        firstResponseByte.record(exchange.getFirstByte() - exchange.getProceeded());
+        blockTransfer.record(exchange.getTransferred() - exchange.getFirstByte());
+        blockEnd.record(exchange.getEnded() - exchange.getTransferred());
+        total.record(exchange.getEnded() - exchange.getBegin());
+
+        completed.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void finish(@NotNull Duration duration) {
+        this.duration = duration;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Load report (duration = " + duration.toMillis() + "ms, completed = " + getCompleted() + ", failed = " + getFailed() + ", throughput = " + String.format("%.1f", getThroughput()) + "/s)" +
+                "\n  stream open:         " + streamOpen +
+                "\n  proceed:             " + proceed +
+                "\n  first response byte: " + firstResponseByte +
+                "\n  block transfer:      " + blockTransfer +
+                "\n  block end:           " + blockEnd +
+                "\n  total:               " + total;
+    }
+}
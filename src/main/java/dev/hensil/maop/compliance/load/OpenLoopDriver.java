@@ -0,0 +1,317 @@
+package dev.hensil.maop.compliance.load;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+
+import dev.hensil.maop.compliance.core.Compliance;
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.core.PayloadDigest;
+import dev.hensil.maop.compliance.core.Threads;
+import dev.hensil.maop.compliance.exception.ConnectionException;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Issues Requests and Messages at a constant arrival rate, each one at a fixed intended time, no matter how fast the server
+ * answers the previous ones. The calling thread is the timer: it parks until shortly before every intended time, spins
+ * the rest and hands the operation over to a worker. When every worker is busy the operation waits in the queue, and its
+ * latency still counts from the intended time, which corrects the coordinated omission of a closed-loop driver such as
+ * the {@link LoadGenerator}.
+ * */
+public final class OpenLoopDriver {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(OpenLoopDriver.class).formatter(Main.FORMATTER);
+
+    public static @NotNull Builder newBuilder(@NotNull Compliance compliance) {
+        return new Builder(compliance);
+    }
+
+    // Objects
+
+    private final int connections;
+    private final double rate;
+    private final @NotNull Duration duration;
+    private final @NotNull Duration warmup;
+    private final double messageRatio;
+    private final long payload;
+    private final int blockSize;
+    private final @NotNull Duration timeout;
+    private final boolean virtualThreads;
+    private final @Nullable PayloadDigest digest;
+    private final long expected;
+    private final int workers;
+    private final @NotNull Duration lateThreshold;
+
+    private final @NotNull ConnectionSlots slots;
+    private final @NotNull ThreadLocal<Exchange> exchanges;
+
+    // Constructor
+
+    private OpenLoopDriver(@NotNull Builder builder) {
+        this.connections = builder.connections;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.warmup = builder.warmup;
+        this.messageRatio = builder.messageRatio;
+        this.payload = builder.payload;
+        this.blockSize = builder.blockSize;
+        this.timeout = builder.timeout;
+        this.virtualThreads = builder.virtualThreads;
+        this.digest = builder.digest;
+        this.expected = builder.expected;
+        this.workers = builder.workers;
+        this.lateThreshold = builder.lateThreshold;
+
+        this.slots = new ConnectionSlots(builder.compliance, "open-loop", connections);
+        this.exchanges = ThreadLocal.withInitial(() -> new Exchange(payload, blockSize, (int) timeout.toMillis(), digest != null ? digest.fresh() : null, expected));
+    }
+
+    // Modules
+
+    /**
+     * Opens and authenticates the connections, issues the operations for the warmup and the duration, waits for the ones
+     * in flight and closes the connections.
+     *
+     * @throws ConnectionException if a connection cannot be opened or authenticated before the run
+     * */
+    @Blocking
+    public @NotNull OpenLoopReport run() throws ConnectionException, InterruptedException {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("connections", connections)
+                        .put("rate", rate)
+                        .put("message ratio", messageRatio)
+                        .put("workers", workers)
+                        .put("duration", duration)
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Open-loop")
+        ) {
+            slots.open();
+            log.info("Starting open-loop load at " + rate + " operations per second over " + connections + " connections");
+
+            @NotNull OpenLoopReport report = new OpenLoopReport(lateThreshold.toNanos());
+
+            @NotNull ExecutorService executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), Threads.newFactory("maop-open-loop-", virtualThreads));
+
+            @NotNull OpenLoopScheduler scheduler = new OpenLoopScheduler("Operations", rate, warmup, duration);
+
+            try {
+                report.drop(scheduler.run(executor, timeout.multipliedBy(2), (index, intended, measured) -> {
+                    // Spread the Messages evenly among the Requests
+                    boolean message = (long) ((index + 1) * messageRatio) > (long) (index * messageRatio);
+                    int slot = (int) (index % connections);
+
+                    return () -> send(slot, message, intended, measured, report);
+                }));
+            } finally {
+                slots.close();
+            }
+
+            report.finish(duration);
+            log.info(report.toString());
+
+            return report;
+        }
+    }
+
+    private void send(int slot, boolean message, long intended, boolean recorded, @NotNull OpenLoopReport report) {
+        long actual = System.nanoTime();
+
+        if (recorded) {
+            report.send(intended, actual);
+        }
+
+        try {
+            @NotNull Exchange exchange = exchanges.get();
+
+            if (message) {
+                exchange.message(slots.get(slot));
+            } else {
+                exchange.request(slots.get(slot));
+            }
+
+            if (recorded) {
+                report.record(message, intended, actual, exchange.getEnded());
+            }
+        } catch (IOException | TimeoutException e) {
+            if (recorded) {
+                report.fail();
+            }
+
+            log.trace("Open-loop " + (message ? "Message" : "Request") + " failed: " + e);
+        }
+    }
+
+    // Classes
+
+    public static final class Builder {
+
+        private final @NotNull Compliance compliance;
+
+        private int connections = 1;
+        private double rate = 100;
+        private @NotNull Duration duration = Duration.ofSeconds(30);
+        private @NotNull Duration warmup = Duration.ZERO;
+        private double messageRatio = 0;
+        private long payload = 0;
+        private int blockSize = 1024;
+        private @NotNull Duration timeout = Duration.ofSeconds(2);
+        private boolean virtualThreads = false;
+        private @Nullable PayloadDigest digest;
+        private long expected;
+        private int workers = 64;
+        private @NotNull Duration lateThreshold = Duration.ofMillis(1);
+
+        // Constructor
+
+        private Builder(@NotNull Compliance compliance) {
+            this.compliance = compliance;
+        }
+
+        // Modules
+
+        public @NotNull Builder connections(int connections) {
+            if (connections < 1) {
+                throw new IllegalArgumentException("Illegal number of connections: " + connections);
+            }
+
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * @param rate the operations issued per second
+         * */
+        public @NotNull Builder rate(double rate) {
+            if (!(rate > 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Illegal rate: " + rate);
+            }
+
+            this.rate = rate;
+            return this;
+        }
+
+        public @NotNull Builder duration(@NotNull Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("Illegal duration: " + duration);
+            }
+
+            this.duration = duration;
+            return this;
+        }
+
+        public @NotNull Builder warmup(@NotNull Duration warmup) {
+            if (warmup.isNegative()) {
+                throw new IllegalArgumentException("Illegal warmup: " + warmup);
+            }
+
+            this.warmup = warmup;
+            return this;
+        }
+
+        /**
+         * @param messageRatio the fraction of the operations sent as Messages instead of Requests, between 0 and 1
+         * */
+        public @NotNull Builder messageRatio(double messageRatio) {
+            if (!(messageRatio >= 0 && messageRatio <= 1)) {
+                throw new IllegalArgumentException("Illegal message ratio: " + messageRatio);
+            }
+
+            this.messageRatio = messageRatio;
+            return this;
+        }
+
+        public @NotNull Builder payload(long payload) {
+            if (payload < 0) {
+                throw new IllegalArgumentException("Illegal payload: " + payload);
+            }
+
+            this.payload = payload;
+            return this;
+        }
+
+        public @NotNull Builder blockSize(int blockSize) {
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("Illegal block size: " + blockSize);
+            }
+
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        public @NotNull Builder timeout(@NotNull Duration timeout) {
+            if (timeout.isNegative() || timeout.isZero() || timeout.toMillis() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Illegal timeout: " + timeout);
+            }
+
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * @param workers the maximum operations in flight; the next ones wait for a free worker and are reported late
+         * */
+        public @NotNull Builder workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("Illegal number of workers: " + workers);
+            }
+
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * @param lateThreshold how long after its intended time an operation may be sent without being counted as late
+         * */
+        public @NotNull Builder lateThreshold(@NotNull Duration lateThreshold) {
+            if (lateThreshold.isNegative()) {
+                throw new IllegalArgumentException("Illegal late threshold: " + lateThreshold);
+            }
+
+            this.lateThreshold = lateThreshold;
+            return this;
+        }
+
+        /**
+         * Verifies the content of every Response payload as it streams, counting an exchange whose payload does not match
+         * the expected digest as failed.
+         *
+         * @param digest the digest algorithm and key, copied for every worker
+         * @param expected the digest value of the server's response payload
+         * */
+        public @NotNull Builder verifyResponse(@NotNull PayloadDigest digest, long expected) {
+            this.digest = digest;
+            this.expected = expected;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads runs every worker on a virtual thread, so tens of thousands of blocking exchanges do not need as many platform
+         * threads; requires Java 21 or newer
+         * */
+        public @NotNull Builder virtualThreads(boolean virtualThreads) {
+            Threads.checkVirtual(virtualThreads);
+
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public @NotNull OpenLoopDriver build() {
+            return new OpenLoopDriver(this);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package dev.hensil.maop.compliance.load;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The latencies and counters of an open-loop run. The Request and Message latencies are measured from the intended send
+ * time, so the time an operation waited for a free worker behind a slow one is counted instead of silently omitted. The
+ * service time, measured from the actual send, is kept apart to show how much of the latency is queueing.
+ * */
+public final class OpenLoopReport {
+
+    // Objects
+
+    private final @NotNull LatencyHistogram requests = new LatencyHistogram();
+    private final @NotNull LatencyHistogram messages = new LatencyHistogram();
+    private final @NotNull LatencyHistogram service = new LatencyHistogram();
+    private final @NotNull LatencyHistogram sendDelay = new LatencyHistogram();
+
+    private final long lateThreshold;
+
+    private final @NotNull AtomicLong sent = new AtomicLong(0);
+    private final @NotNull AtomicLong late = new AtomicLong(0);
+    private final @NotNull AtomicLong completed = new AtomicLong(0);
+    private final @NotNull AtomicLong failed = new AtomicLong(0);
+    private final @NotNull AtomicLong dropped = new AtomicLong(0);
+
+    private volatile @NotNull Duration duration = Duration.ZERO;
+
+    OpenLoopReport(long lateThreshold) {
+        this.lateThreshold = lateThreshold;
+    }
+
+    // Getters
+
+    /**
+     * @return the Request latencies, from the intended send time to the Block end
+     * */
+    public @NotNull LatencyHistogram getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the Message latencies, from the intended send time to the Done
+     * */
+    public @NotNull LatencyHistogram getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return the latencies of every operation from the actual send time, which omit the time spent waiting to be sent
+     * */
+    public @NotNull LatencyHistogram getService() {
+        return service;
+    }
+
+    /**
+     * @return how long after the intended time every operation was actually sent
+     * */
+    public @NotNull LatencyHistogram getSendDelay() {
+        return sendDelay;
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * @return the operations sent later than the late threshold after their intended time
+     * */
+    public long getLate() {
+        return late.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return the measured operations that were still waiting for a free worker when the run ended, and were never sent
+     * */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public @NotNull Duration getDuration() {
+        return duration;
+    }
+
+    public double getThroughput() {
+        double seconds = duration.toNanos() / 1_000_000_000D;
+        return seconds == 0 ? 0 : getCompleted() / seconds;
+    }
+
+    // Modules
+
+    void send(long intended, long actual) {
+        long delay = actual - intended;
+        sendDelay.record(delay);
+        sent.incrementAndGet();
+
+        if (delay > lateThreshold) {
+            late.incrementAndGet();
+        }
+    }
+
+    void record(boolean message, long intended, long actual, long ended) {
+        (message ? messages : requests).record(ended - intended);
+        service.record(ended - actual);
+
+        completed.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void drop(long count) {
+        dropped.addAndGet(count);
+    }
+
+    void finish(@NotNull Duration duration) {
+        this.duration = duration;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "Open-loop report (duration = " + duration.toMillis() + "ms, sent = " + getSent() + ", late = " + getLate() + ", completed = " + getCompleted() + ", failed = " + getFailed() + ", dropped = " + getDropped() + ", throughput = " + String.format("%.1f", getThroughput()) + "/s)" +
+                "\n  requests:   " + requests +
+                "\n  messages:   " + messages +
+                "\n  service:    " + service +
+                "\n  send delay: " + sendDelay;
+    }
+}
@@ -0,0 +1,128 @@
+package dev.hensil.maop.compliance.load;
+
+import com.jlogm.Logger;
+
+import dev.hensil.maop.compliance.core.Main;
+
+import org.jetbrains.annotations.Blocking;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The timer of the open-loop drivers. The calling thread starts every arrival at its intended time, a fixed interval
+ * apart: it parks until shortly before it, spins the rest and hands the arrival over to the workers. When every worker is
+ * busy the arrival waits in their FIFO queue, and its latency still counts from the intended time.
+ * <p>
+ * The arrivals of the warmup run without being measured. The measured ones still queued once the drain elapses never
+ * start, and are reported as dropped.
+ * */
+final class OpenLoopScheduler {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(OpenLoopScheduler.class).formatter(Main.FORMATTER);
+
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long remaining;
+
+        while ((remaining = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // Objects
+
+    private final @NotNull String name;
+    private final double rate;
+    private final @NotNull Duration warmup;
+    private final @NotNull Duration duration;
+
+    // Constructor
+
+    /**
+     * @param name what the arrivals are, for the logs
+     * @param rate the arrivals per second
+     * */
+    OpenLoopScheduler(@NotNull String name, double rate, @NotNull Duration warmup, @NotNull Duration duration) {
+        this.name = name;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    // Modules
+
+    /**
+     * Starts the arrivals for the warmup and the duration on the workers, then shuts them down and waits for the arrivals
+     * in flight. The workers are stopped when this method returns.
+     *
+     * @param drain how long the arrivals in flight may take once the last one started
+     * @return the measured arrivals that never started
+     * */
+    @Blocking
+    long run(@NotNull ExecutorService workers, @NotNull Duration drain, @NotNull Arrival arrival) throws InterruptedException {
+        double interval = 1_000_000_000D / rate;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measured = start + warmup.toNanos();
+        long end = measured + duration.toNanos();
+        long scheduled = 0;
+
+        try {
+            for (long i = 0; ; i++) {
+                long intended = start + (long) (i * interval);
+                if (intended >= end) {
+                    break;
+                }
+
+                @NotNull Runnable task = arrival.at(i, intended, intended >= measured);
+
+                sleepUntil(intended);
+                workers.execute(task);
+
+                if (intended >= measured) {
+                    scheduled++;
+                }
+            }
+
+            workers.shutdown();
+            if (!workers.awaitTermination(drain.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn(name + " still in flight after " + drain.toMillis() + "ms");
+            }
+        } finally {
+            // The queue is FIFO, so the arrivals that never started are the last ones scheduled
+            scheduled = Math.min(workers.shutdownNow().size(), scheduled);
+        }
+
+        return scheduled;
+    }
+
+    // Classes
+
+    @FunctionalInterface
+    interface Arrival {
+
+        /**
+         * Called by the timer thread before the intended time of every arrival, in order.
+         *
+         * @param index the arrival number, from 0
+         * @param intended the {@link System#nanoTime()} the arrival is due at
+         * @param measured false during the warmup
+         * @return the task handed over to the workers at the intended time
+         * */
+        @NotNull Runnable at(long index, long intended, boolean measured);
+    }
+}
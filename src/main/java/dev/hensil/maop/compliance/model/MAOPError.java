@@ -5,8 +5,8 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public final class MAOPError {
@@ -35,27 +35,44 @@ public final class MAOPError {
     public static final @NotNull MAOPError RESPONSE_CONSUME = new MAOPError("RESPONSE_CONSUME", (short) 19);
     public static final @NotNull MAOPError UNKNOWN_ERROR = new MAOPError("UNKNOWN_ERROR", (short) 49);
 
-    private static final @NotNull Map<Short, MAOPError> errors = new HashMap<>();
+    /**
+     * The errors indexed by their code, up to the highest one, looked up on every Fail and Disapproved without boxing.
+     * */
+    private static final @Nullable MAOPError @NotNull [] errors;
 
     static {
+        @NotNull List<MAOPError> list = new ArrayList<>();
+        int length = 0;
+
         for (@NotNull Field field : MAOPError.class.getFields()) {
             if (field.getDeclaringClass() == MAOPError.class && Modifier.isStatic(field.getModifiers())) {
                 try {
                     @NotNull MAOPError error = (MAOPError) field.get(null);
-                    errors.put(error.getCode(), error);
-                } catch (Throwable e) {
+                    if (error.getCode() < 0) {
+                        throw new AssertionError("Illegal error code: " + error.getCode());
+                    }
+
+                    list.add(error);
+                    length = Math.max(length, error.getCode() + 1);
+                } catch (IllegalAccessException e) {
                     throw new AssertionError("Internal error", e);
                 }
             }
         }
+
+        errors = new MAOPError[length];
+
+        for (@NotNull MAOPError error : list) {
+            errors[error.getCode()] = error;
+        }
     }
 
     public static @Nullable MAOPError get(short code) {
-        return errors.get(code);
+        return code >= 0 && code < errors.length ? errors[code] : null;
     }
 
     public static boolean contains(short code) {
-        return errors.containsKey(code);
+        return get(code) != null;
     }
 
     // Objects
@@ -1,15 +1,15 @@
 package dev.hensil.maop.compliance.model;
 
 import dev.hensil.maop.compliance.core.BidirectionalStream;
+import dev.hensil.maop.compliance.core.BlockReader;
+import dev.hensil.maop.compliance.core.BlockSink;
 import dev.hensil.maop.compliance.core.Connection;
 import dev.hensil.maop.compliance.core.OperationUtil;
-import dev.hensil.maop.compliance.model.operation.BlockEnd;
 import dev.hensil.maop.compliance.model.operation.Response;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -46,67 +46,10 @@ public final class SuccessMessage {
             throw new IOException("The response payload is too long for a simple Success message");
         }
 
-        expectedBytes = OperationUtil.BLOCK.getHeaderLength() + 2;
-        connection.awaitReading(expectedBytes, stream, 2, TimeUnit.SECONDS);
-
-        @NotNull ByteBuffer buffer = ByteBuffer.allocate((short) response.getPayload());
-
-        while (buffer.remaining() > 0) {
-            try {
-                code = stream.readByte();
-                @Nullable OperationUtil blockUtil = OperationUtil.getByCode(code);
-                if (blockUtil == null) {
-                    throw new IOException("There is not operation with code: " + code);
-                }
-
-                if (blockUtil == OperationUtil.BLOCK_END) {
-                    throw new IOException("Block end was received before reading all payload data (remaining = " + buffer.remaining() + ")");
-                }
-
-                if (blockUtil != OperationUtil.BLOCK) {
-                    throw new IOException("A Block operation was expected but it was " + code + " (" + util.getName() + ")");
-                }
-
-                int blockPayload = stream.readInt();
-                if (blockPayload > response.getPayload()) {
-                    throw new IOException("Block payload is greater than the declared response payload: (block payload = " + blockPayload + " & response payload = " + response.getPayload() + ")");
-                }
-
-                int total = buffer.remaining() + blockPayload;
-                if (total > response.getPayload()) {
-                    throw new IOException("The number of blocks operations exceed the declared response payload (response payload = " + response.getPayload() + " & total read = " + total + ")");
-                }
-
-                connection.awaitReading(blockPayload, stream, 2, TimeUnit.SECONDS);
-
-                byte @NotNull [] bytes = new byte[blockPayload];
-                stream.readFully(bytes);
-                buffer.put(bytes);
-            } catch (BufferOverflowException e) {
-                throw new IOException("The number of blocks operations exceed the declared response payload (response payload = " + response.getPayload() + ")", e);
-            }
-        }
-
-        buffer.flip();
-        expectedBytes = OperationUtil.BLOCK_END.getHeaderLength() + 1;
-        connection.awaitReading(expectedBytes, stream, 2, TimeUnit.SECONDS);
-
-        code = stream.readByte();
-        util = OperationUtil.getByCode(code);
-        if (util == null) {
-            throw new IOException("Operation code not found: " + code);
-        }
-
-        if (util != OperationUtil.BLOCK_END) {
-            throw new IOException("Block end operation was expected but it was " + util.getName());
-        }
-
-        @NotNull BlockEnd end = (BlockEnd) util.read(stream);
-        if (end.getTotal() != response.getPayload()) {
-            throw new IOException("Block end total bytes mismatch (block end total bytes = " + end.getTotal() + " & response payload = " + response.getPayload() + ")");
-        }
+        @NotNull BlockSink.Buffer buffer = BlockSink.buffer(Short.MAX_VALUE);
+        new BlockReader().read(stream, response.getPayload(), buffer, 2, TimeUnit.SECONDS);
 
-        @NotNull SuccessMessage message = SuccessMessage.parse(buffer.array());
+        @NotNull SuccessMessage message = SuccessMessage.parse(buffer.toByteArray());
         return message;
     }
 
@@ -4,6 +4,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public final class Version implements Comparable<Version> {
@@ -27,9 +30,7 @@ public final class Version implements Comparable<Version> {
                 boolean an = Version.Parser.isNumeric(as);
                 boolean bn = Version.Parser.isNumeric(bs);
                 if (an && bn) {
-                    BigInteger A = new BigInteger(as);
-                    BigInteger B = new BigInteger(bs);
-                    int cmp = A.compareTo(B);
+                    int cmp = compareNumeric(as, bs);
                     if (cmp != 0) {
                         return cmp;
                     }
@@ -45,10 +46,63 @@ public final class Version implements Comparable<Version> {
         }
     };
 
+    private static final int CACHE_SIZE = 256;
+
+    // Direct-mapped by the hash of the raw bytes, a colliding version replaces the previous one
+    private static final @Nullable CacheEntry @NotNull [] cache = new CacheEntry[CACHE_SIZE];
+
     public static @NotNull Version parse(@NotNull String input) {
         return (new Version.Parser(input)).parse();
     }
 
+    /**
+     * Parses the UTF-8 encoded version, as received in the authentication and the Result. The versions parsed from bytes
+     * are kept in a bounded cache keyed by those bytes, so the same version received again is neither decoded nor parsed.
+     * */
+    public static @NotNull Version parse(byte @NotNull [] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+
+        int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        @Nullable CacheEntry entry = cache[index];
+
+        if (entry != null && entry.hash == hash && Arrays.equals(entry.bytes, 0, entry.bytes.length, bytes, offset, offset + length)) {
+            return entry.version;
+        }
+
+        @NotNull Version version = parse(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        cache[index] = new CacheEntry(hash, Arrays.copyOfRange(bytes, offset, offset + length), version);
+
+        return version;
+    }
+
+    /**
+     * Parses the version of the given length at the buffer position, moving the position after it.
+     *
+     * @see #parse(byte[], int, int)
+     * */
+    public static @NotNull Version parse(@NotNull ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        if (buffer.hasArray()) {
+            @NotNull Version version = parse(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.position() + length);
+
+            return version;
+        }
+
+        byte @NotNull [] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return parse(bytes, 0, length);
+    }
+
     public static @NotNull Optional<Version> tryParse(@Nullable String input) {
         if (input == null) {
             return Optional.empty();
@@ -85,32 +139,52 @@ public final class Version implements Comparable<Version> {
 
     // Objects
 
-    private final @NotNull BigInteger major;
-    private final @NotNull BigInteger minor;
-    private final @NotNull BigInteger patch;
+    // The components fitting a long are kept as such, the BigInteger is only set for the larger ones
+    private final long major;
+    private final long minor;
+    private final long patch;
+    private final @Nullable BigInteger bigMajor;
+    private final @Nullable BigInteger bigMinor;
+    private final @Nullable BigInteger bigPatch;
+
     private final List<String> prerelease;
     private final List<String> build;
     private final @NotNull String canonical;
 
     private Version(@NotNull BigInteger major, @NotNull BigInteger minor, @NotNull BigInteger patch, @NotNull List<String> prerelease, @NotNull List<String> build) {
-        this.major = Objects.requireNonNull(major, "major");
-        this.minor = Objects.requireNonNull(minor, "minor");
-        this.patch = Objects.requireNonNull(patch, "patch");
+        this(small(Objects.requireNonNull(major, "major")), big(major), small(Objects.requireNonNull(minor, "minor")), big(minor), small(Objects.requireNonNull(patch, "patch")), big(patch), prerelease, build);
+    }
+
+    private Version(long major, @Nullable BigInteger bigMajor, long minor, @Nullable BigInteger bigMinor, long patch, @Nullable BigInteger bigPatch, @NotNull List<String> prerelease, @NotNull List<String> build) {
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+        this.bigMajor = bigMajor;
+        this.bigMinor = bigMinor;
+        this.bigPatch = bigPatch;
         this.prerelease = List.copyOf(Objects.requireNonNull(prerelease, "prerelease"));
         this.build = List.copyOf(Objects.requireNonNull(build, "build"));
         this.canonical = this.buildCanonical();
     }
 
+    private static long small(@NotNull BigInteger value) {
+        return value.bitLength() < Long.SIZE ? value.longValue() : -1;
+    }
+
+    private static @Nullable BigInteger big(@NotNull BigInteger value) {
+        return value.bitLength() < Long.SIZE ? null : value;
+    }
+
     public @NotNull BigInteger getMajor() {
-        return this.major;
+        return this.bigMajor != null ? this.bigMajor : BigInteger.valueOf(this.major);
     }
 
     public @NotNull BigInteger getMinor() {
-        return this.minor;
+        return this.bigMinor != null ? this.bigMinor : BigInteger.valueOf(this.minor);
     }
 
     public @NotNull BigInteger getPatch() {
-        return this.patch;
+        return this.bigPatch != null ? this.bigPatch : BigInteger.valueOf(this.patch);
     }
 
     public @NotNull List<String> getPrerelease() {
@@ -126,15 +200,15 @@ public final class Version implements Comparable<Version> {
     }
 
     public @NotNull Version bumpMajor() {
-        return new Version(this.major.add(BigInteger.ONE), BigInteger.ZERO, BigInteger.ZERO, Collections.emptyList(), Collections.emptyList());
+        return new Version(this.getMajor().add(BigInteger.ONE), BigInteger.ZERO, BigInteger.ZERO, Collections.emptyList(), Collections.emptyList());
     }
 
     public @NotNull Version bumpMinor() {
-        return new Version(this.major, this.minor.add(BigInteger.ONE), BigInteger.ZERO, Collections.emptyList(), Collections.emptyList());
+        return new Version(this.getMajor(), this.getMinor().add(BigInteger.ONE), BigInteger.ZERO, Collections.emptyList(), Collections.emptyList());
     }
 
     public @NotNull Version bumpPatch() {
-        return new Version(this.major, this.minor, this.patch.add(BigInteger.ONE), Collections.emptyList(), Collections.emptyList());
+        return new Version(this.getMajor(), this.getMinor(), this.getPatch().add(BigInteger.ONE), Collections.emptyList(), Collections.emptyList());
     }
 
     public @NotNull String toString() {
@@ -143,7 +217,9 @@ public final class Version implements Comparable<Version> {
 
     private @NotNull String buildCanonical() {
         StringBuilder sb = new StringBuilder();
-        sb.append(this.major).append('.').append(this.minor).append('.').append(this.patch);
+        appendComponent(sb, this.major, this.bigMajor).append('.');
+        appendComponent(sb, this.minor, this.bigMinor).append('.');
+        appendComponent(sb, this.patch, this.bigPatch);
         if (!this.prerelease.isEmpty()) {
             sb.append('-');
             joinDot(sb, this.prerelease);
@@ -157,6 +233,47 @@ public final class Version implements Comparable<Version> {
         return sb.toString();
     }
 
+    private static @NotNull StringBuilder appendComponent(@NotNull StringBuilder sb, long value, @Nullable BigInteger big) {
+        return big != null ? sb.append(big) : sb.append(value);
+    }
+
+    private static int compareComponent(long a, @Nullable BigInteger bigA, long b, @Nullable BigInteger bigB) {
+        if (bigA == null && bigB == null) {
+            return Long.compare(a, b);
+        } else if (bigA == null) {
+            return -1;
+        } else if (bigB == null) {
+            return 1;
+        } else {
+            return bigA.compareTo(bigB);
+        }
+    }
+
+    /**
+     * Compares two numeric identifiers of any length by their digits, ignoring the leading zeros allowed in build
+     * identifiers, without parsing them.
+     * */
+    private static int compareNumeric(@NotNull String a, @NotNull String b) {
+        int aStart = 0;
+        int bStart = 0;
+
+        while (aStart < a.length() - 1 && a.charAt(aStart) == '0') {
+            aStart++;
+        }
+
+        while (bStart < b.length() - 1 && b.charAt(bStart) == '0') {
+            bStart++;
+        }
+
+        int cmp = Integer.compare(a.length() - aStart, b.length() - bStart);
+
+        for (int i = 0; cmp == 0 && aStart + i < a.length(); i++) {
+            cmp = Character.compare(a.charAt(aStart + i), b.charAt(bStart + i));
+        }
+
+        return cmp;
+    }
+
     private static void joinDot(@NotNull StringBuilder sb, @NotNull List<String> list) {
         for(int i = 0; i < list.size(); ++i) {
             if (i > 0) {
@@ -169,15 +286,15 @@ public final class Version implements Comparable<Version> {
 
     public int compareTo(@NotNull Version other) {
         Objects.requireNonNull(other, "other");
-        int cmp = this.major.compareTo(other.major);
+        int cmp = compareComponent(this.major, this.bigMajor, other.major, other.bigMajor);
         if (cmp != 0) {
             return cmp;
         } else {
-            cmp = this.minor.compareTo(other.minor);
+            cmp = compareComponent(this.minor, this.bigMinor, other.minor, other.bigMinor);
             if (cmp != 0) {
                 return cmp;
             } else {
-                cmp = this.patch.compareTo(other.patch);
+                cmp = compareComponent(this.patch, this.bigPatch, other.patch, other.bigPatch);
                 if (cmp != 0) {
                     return cmp;
                 } else {
@@ -198,9 +315,7 @@ public final class Version implements Comparable<Version> {
                             boolean aNum = Version.Parser.isNumeric(aId);
                             boolean bNum = Version.Parser.isNumeric(bId);
                             if (aNum && bNum) {
-                                BigInteger A = new BigInteger(aId);
-                                BigInteger B = new BigInteger(bId);
-                                int n = A.compareTo(B);
+                                int n = compareNumeric(aId, bId);
                                 if (n != 0) {
                                     return n;
                                 }
@@ -233,12 +348,16 @@ public final class Version implements Comparable<Version> {
         } else if (!(o instanceof Version v)) {
             return false;
         } else {
-            return this.major.equals(v.major) && this.minor.equals(v.minor) && this.patch.equals(v.patch) && this.prerelease.equals(v.prerelease) && this.build.equals(v.build);
+            return this.major == v.major && this.minor == v.minor && this.patch == v.patch && Objects.equals(this.bigMajor, v.bigMajor) && Objects.equals(this.bigMinor, v.bigMinor) && Objects.equals(this.bigPatch, v.bigPatch) && this.prerelease.equals(v.prerelease) && this.build.equals(v.build);
         }
     }
 
     public int hashCode() {
-        return Objects.hash(this.major, this.minor, this.patch, this.prerelease, this.build);
+        int hash = 31 * Objects.hashCode(this.bigMajor) + Long.hashCode(this.major);
+        hash = 31 * (31 * hash + Objects.hashCode(this.bigMinor)) + Long.hashCode(this.minor);
+        hash = 31 * (31 * hash + Objects.hashCode(this.bigPatch)) + Long.hashCode(this.patch);
+
+        return 31 * (31 * hash + this.prerelease.hashCode()) + this.build.hashCode();
     }
 
     private static final class Parser {
@@ -268,12 +387,12 @@ public final class Version implements Comparable<Version> {
                 if (corePieces.length != 3) {
                     throw new IllegalArgumentException("Core version must be three dot-separated numeric identifiers: 'major.minor.patch' (found: '" + core + "')");
                 } else {
-                    BigInteger major = parseCoreNumber(corePieces[0], "major");
-                    BigInteger minor = parseCoreNumber(corePieces[1], "minor");
-                    BigInteger patch = parseCoreNumber(corePieces[2], "patch");
+                    long major = parseCoreNumber(corePieces[0], "major");
+                    long minor = parseCoreNumber(corePieces[1], "minor");
+                    long patch = parseCoreNumber(corePieces[2], "patch");
                     List<String> pre = prereleasePart.isEmpty() ? Collections.emptyList() : splitAndValidateIdentifiers(prereleasePart, true);
                     List<String> bd = buildPart.isEmpty() ? Collections.emptyList() : splitAndValidateIdentifiers(buildPart, false);
-                    return new Version(major, minor, patch, pre, bd);
+                    return new Version(major, bigCoreNumber(corePieces[0], major), minor, bigCoreNumber(corePieces[1], minor), patch, bigCoreNumber(corePieces[2], patch), pre, bd);
                 }
             }
         }
@@ -297,7 +416,10 @@ public final class Version implements Comparable<Version> {
             }
         }
 
-        private static BigInteger parseCoreNumber(String piece, String name) {
+        /**
+         * @return the component, or -1 if it does not fit a long and is kept as a BigInteger
+         * */
+        private static long parseCoreNumber(String piece, String name) {
             if (piece != null && !piece.isEmpty()) {
                 for(int i = 0; i < piece.length(); ++i) {
                     char c = piece.charAt(i);
@@ -308,14 +430,28 @@ public final class Version implements Comparable<Version> {
 
                 if (piece.length() > 1 && piece.charAt(0) == '0') {
                     throw new IllegalArgumentException(name + " component must not contain leading zeros: '" + piece + "'");
+                } else if (piece.length() > 18) {
+                    BigInteger value = new BigInteger(piece);
+                    return value.bitLength() < Long.SIZE ? value.longValue() : -1;
                 } else {
-                    return new BigInteger(piece);
+                    // At most 18 digits never overflow
+                    long value = 0;
+
+                    for (int i = 0; i < piece.length(); ++i) {
+                        value = value * 10 + (piece.charAt(i) - '0');
+                    }
+
+                    return value;
                 }
             } else {
                 throw new IllegalArgumentException(name + " component is missing");
             }
         }
 
+        private static @Nullable BigInteger bigCoreNumber(String piece, long value) {
+            return value < 0 ? new BigInteger(piece) : null;
+        }
+
         private static List<String> splitAndValidateIdentifiers(String s, boolean isPrerelease) {
             if (s.isEmpty()) {
                 return Collections.emptyList();
@@ -389,4 +525,17 @@ public final class Version implements Comparable<Version> {
             }
         }
     }
-}
\ No newline at end of file
+
+    private static final class CacheEntry {
+
+        private final int hash;
+        private final byte @NotNull [] bytes;
+        private final @NotNull Version version;
+
+        private CacheEntry(int hash, byte @NotNull [] bytes, @NotNull Version version) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.version = version;
+        }
+    }
+}
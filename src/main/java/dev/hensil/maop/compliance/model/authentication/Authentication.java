@@ -6,6 +6,8 @@ import dev.hensil.maop.compliance.model.Version;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Unmodifiable;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
@@ -40,10 +42,7 @@ public final class Authentication {
         }
 
         int versionLen = Byte.toUnsignedInt(buffer.get());
-        byte[] versionBytes = new byte[versionLen];
-        buffer.get(versionBytes);
-        String versionString = new String(versionBytes, StandardCharsets.UTF_8);
-        Version version = Version.parse(versionString);
+        Version version = Version.parse(buffer, versionLen);
         int vendorLen = Byte.toUnsignedInt(buffer.get());
         byte[] vendorBytes = new byte[vendorLen];
         buffer.get(vendorBytes);
@@ -58,6 +57,7 @@ public final class Authentication {
     private final @NotNull Map<String, String> metadata;
     private final @NotNull String version;
     private final @NotNull String vendor;
+    private final byte @NotNull [] encoded;
 
     public Authentication(@NotNull Preset preset) {
         this(preset.getAuthenticationType(), preset.getAuthenticationToken(), preset.getAuthenticationMetadata(), preset.getVersion(), preset.getVendor());
@@ -69,21 +69,61 @@ public final class Authentication {
         this.metadata = Map.copyOf(metadata);
         this.version = version;
         this.vendor = vendor;
-        if (type.getBytes(StandardCharsets.UTF_8).length > 255) {
+
+        byte[] typeBytes = type.getBytes(StandardCharsets.UTF_8);
+        byte[] versionBytes = version.getBytes(StandardCharsets.UTF_8);
+        byte[] vendorBytes = vendor.getBytes(StandardCharsets.UTF_8);
+
+        if (typeBytes.length > 255) {
             throw new IllegalArgumentException("the type length cannot be higher than 255 characters.");
         } else if (token.length > 65535) {
             throw new IllegalArgumentException("the token length cannot be higher than 65535 bytes.");
         } else if (metadata.size() > 255) {
             throw new IllegalArgumentException("the metadata size cannot be higher than 255.");
-        } else if (metadata.keySet().stream().anyMatch((key) -> key.getBytes(StandardCharsets.UTF_8).length > 65535)) {
-            throw new IllegalArgumentException("the metadata key length cannot be higher than 65535.");
-        } else if (metadata.values().stream().anyMatch((value) -> value.getBytes(StandardCharsets.UTF_8).length > 65535)) {
-            throw new IllegalArgumentException("the metadata value length cannot be higher than 65535.");
-        } else if (version.getBytes(StandardCharsets.UTF_8).length > 255) {
+        } else if (versionBytes.length > 255) {
             throw new IllegalArgumentException("the version length cannot be higher than 255.");
-        } else if (vendor.getBytes(StandardCharsets.UTF_8).length > 255) {
+        } else if (vendorBytes.length > 255) {
             throw new IllegalArgumentException("the vendor length cannot be higher than 255.");
         }
+
+        // Every string is encoded once, here, and the frame is written from the encoded bytes
+        byte[][] entries = new byte[this.metadata.size() * 2][];
+        int metadataLength = 0;
+        int index = 0;
+
+        for(Map.Entry<String, String> entry : this.metadata.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+
+            if (key.length > 65535) {
+                throw new IllegalArgumentException("the metadata key length cannot be higher than 65535.");
+            } else if (value.length > 65535) {
+                throw new IllegalArgumentException("the metadata value length cannot be higher than 65535.");
+            }
+
+            entries[index++] = key;
+            entries[index++] = value;
+            metadataLength += 4 + key.length + value.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + typeBytes.length + 2 + token.length + 1 + metadataLength + 1 + versionBytes.length + 1 + vendorBytes.length);
+        buffer.put((byte) typeBytes.length);
+        buffer.put(typeBytes);
+        buffer.putShort((short) token.length);
+        buffer.put(token);
+        buffer.put((byte) this.metadata.size());
+
+        for (byte[] entry : entries) {
+            buffer.putShort((short) entry.length);
+            buffer.put(entry);
+        }
+
+        buffer.put((byte) versionBytes.length);
+        buffer.put(versionBytes);
+        buffer.put((byte) vendorBytes.length);
+        buffer.put(vendorBytes);
+
+        this.encoded = buffer.array();
     }
 
     public Authentication(@NotNull String type, byte[] token, @NotNull Map<String, String> metadata, @NotNull Version version, @NotNull String vendor) {
@@ -110,42 +150,25 @@ public final class Authentication {
         return this.vendor;
     }
 
-    @NotNull
-    public ByteBuffer toByteBuffer() {
-        byte[] type = this.getType().getBytes(StandardCharsets.UTF_8);
-        byte[] version = this.getVersion().getBytes(StandardCharsets.UTF_8);
-        byte[] vendor = this.getVendor().getBytes(StandardCharsets.UTF_8);
-        int metadataCount = 0;
-
-        for(Map.Entry<String, String> entry : this.metadata.entrySet()) {
-            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
-            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
-            metadataCount += 4;
-            metadataCount += key.length;
-            metadataCount += value.length;
-        }
-
-        ByteBuffer buffer = ByteBuffer.allocate(1 + type.length + 2 + this.getToken().length + 1 + metadataCount + 1 + version.length + 1 + vendor.length);
-        buffer.put((byte)type.length);
-        buffer.put(type);
-        buffer.putShort((short)this.token.length);
-        buffer.put(this.getToken());
-        buffer.put((byte)this.metadata.size());
+    /**
+     * @return the length of the encoded authentication frame
+     * */
+    public int getLength() {
+        return this.encoded.length;
+    }
 
-        for(Map.Entry<String, String> entry : this.metadata.entrySet()) {
-            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
-            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
-            buffer.putShort((short)key.length);
-            buffer.put(key);
-            buffer.putShort((short)value.length);
-            buffer.put(value);
-        }
+    /**
+     * Writes the frame encoded on creation, without encoding nor copying it again.
+     * */
+    public void writeTo(@NotNull DataOutput output) throws IOException {
+        output.write(this.encoded);
+    }
 
-        buffer.put((byte)version.length);
-        buffer.put(version);
-        buffer.put((byte)vendor.length);
-        buffer.put(vendor);
-        buffer.flip();
-        return buffer;
+    /**
+     * @return a copy of the encoded frame, which the caller may modify
+     * */
+    @NotNull
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(this.encoded.clone());
     }
-}
\ No newline at end of file
+}
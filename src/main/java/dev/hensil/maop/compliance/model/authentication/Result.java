@@ -1,5 +1,6 @@
 package dev.hensil.maop.compliance.model.authentication;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -10,6 +11,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import dev.hensil.maop.compliance.core.BidirectionalStream;
 
@@ -23,106 +25,101 @@ public sealed class Result permits Disapproved, Approved {
 
     // Static initializers
 
-    public static @NotNull ByteBuffer allocate() {
-        return ByteBuffer
-                .allocate(1 +
-                        (16 + 1 + Byte.MAX_VALUE) +
-                        (2 + 4 + 2 + Short.MAX_VALUE) +
-                        1 + Byte.MAX_VALUE + 1 + Byte.MAX_VALUE
-                );
-    }
-
     public static int MIN_LENGTH = 1 + (16 + 1 + 1) + (2 + 4 + 2 + 1) + 1 + 1 + 1 + 1;
 
+    /**
+     * Reads the Result as its bytes arrive, decoding them on the thread that fires the reading of the stream instead of
+     * blocking a thread of its own.
+     *
+     * @throws IOException if the stream fails or the Result is illegal
+     * @throws EOFException if the stream ends before the whole Result
+     * @throws TimeoutException if the whole Result does not come within the timeout
+     * */
     @Blocking
     public static @NotNull Result readResult(@NotNull BidirectionalStream stream, int timeout, @NotNull TimeUnit unit) throws IOException, TimeoutException {
-        @NotNull CompletableFuture<Result> future = new CompletableFuture<>();
-        future.orTimeout(timeout, unit);
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                int approvedByte = stream.readUnsignedByte();
-                boolean approved = approvedByte == 1;
-
-                UUID sessionId = null;
-                String identifier = null;
-                short code = 0;
-                Duration retryAfter = null;
-                String reason = null;
-
-                if (approved) {
-                    long most = stream.readLong();
-                    long least = stream.readLong();
-                    sessionId = new UUID(most, least);
+        @NotNull CompletableFuture<Result> future = stream.getConnection().getTimer().orTimeout(readResultAsync(stream), timeout, unit);
 
-                    int idLen = stream.readUnsignedByte();
-                    byte[] idBytes = new byte[idLen];
-
-                    stream.readFully(idBytes);
-
-                    identifier = new String(idBytes, StandardCharsets.UTF_8);
-                } else {
-                    code = stream.readShort();
-                    int ms = stream.readInt();
-
-                    long msUnsigned = Integer.toUnsignedLong(ms);
-                    if (msUnsigned > 0L) {
-                        retryAfter = Duration.ofMillis(msUnsigned);
-                    }
-
-                    int reasonLen = stream.readUnsignedShort();
-                    if (reasonLen > 0) {
-                        byte[] reasonBytes = new byte[reasonLen];
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new TimeoutException(timeout + " " + unit.name().toLowerCase());
+            }
 
-                        stream.readFully(reasonBytes);
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
 
-                        reason = new String(reasonBytes, StandardCharsets.UTF_8);
-                    }
-                }
+            throw new AssertionError("Internal error", e.getCause());
+        }
+    }
 
-                int versionLen = stream.readUnsignedByte();
-                byte[] versionBytes = new byte[versionLen];
+    /**
+     * @return a future completed with the Result once all its bytes are decoded, exceptionally with an {@link IOException}
+     * if the stream fails, ends before the Result or the Result is illegal; completing it earlier stops the decoding
+     * */
+    public static @NotNull CompletableFuture<Result> readResultAsync(@NotNull BidirectionalStream stream) {
+        @NotNull CompletableFuture<Result> future = new CompletableFuture<>();
+        @NotNull AtomicReference<CompletableFuture<Long>> reading = new AtomicReference<>();
 
-                stream.readFully(versionBytes);
+        // Only the last reading is pending at a time
+        future.whenComplete((value, error) -> {
+            @Nullable CompletableFuture<Long> pending = reading.get();
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        });
 
-                String versionString = new String(versionBytes, StandardCharsets.UTF_8);
-                Version version;
+        decode(stream, new ResultDecoder(), future, reading);
+        return future;
+    }
 
-                try {
-                    version = Version.parse(versionString);
-                } catch (Throwable e) {
-                    throw new IOException("Invalid version", e);
+    private static void decode(@NotNull BidirectionalStream stream, @NotNull ResultDecoder decoder, @NotNull CompletableFuture<Result> future, @NotNull AtomicReference<CompletableFuture<Long>> reading) {
+        try {
+            while (true) {
+                @Nullable Result result = decoder.decode(stream);
+                if (result != null) {
+                    future.complete(result);
+                    return;
                 }
 
-                int vendorLen = stream.readUnsignedByte();
-                byte[] vendorBytes = new byte[vendorLen];
-
-                stream.readFully(vendorBytes);
-
-                String vendor = new String(vendorBytes, StandardCharsets.UTF_8);
-                if (approved) {
-                    future.complete(new Approved(version, vendor, sessionId, identifier));
+                @NotNull CompletableFuture<Long> next = stream.getConnection().awaitReadingAsync(1, stream);
+                reading.set(next);
+
+                if (future.isDone()) {
+                    next.cancel(false);
+                    return;
+                } else if (!next.isDone()) {
+                    // Continues on the thread firing the next bytes
+                    next.whenComplete((available, error) -> {
+                        if (error != null) {
+                            fail(decoder, future, error);
+                        } else {
+                            decode(stream, decoder, future, reading);
+                        }
+                    });
+
+                    return;
+                } else if (next.isCompletedExceptionally()) {
+                    next.whenComplete((available, error) -> fail(decoder, future, error));
+                    return;
                 }
 
-                future.complete(new Disapproved(version, vendor, code, reason, retryAfter));
-            } catch (IOException e) {
-                future.completeExceptionally(e);
-            }
-        });
-
-        try {
-            return future.join();
-        } catch (CompletionException e) {
-            if (e.getCause() instanceof TimeoutException) {
-                throw new TimeoutException(timeout + " " + unit.name().toLowerCase());
-            }
-
-            if (e.getCause() instanceof IOException io) {
-                throw io;
+                // The bytes already arrived, decodes them right here
             }
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
+    }
 
-            throw new AssertionError("Internal error");
+    private static void fail(@NotNull ResultDecoder decoder, @NotNull CompletableFuture<Result> future, @NotNull Throwable error) {
+        if (error instanceof EOFException) try {
+            decoder.end();
+        } catch (EOFException e) {
+            error = e;
         }
+
+        future.completeExceptionally(error);
     }
 
     @NotNull
@@ -168,10 +165,7 @@ public sealed class Result permits Disapproved, Approved {
         }
 
         int versionLen = Byte.toUnsignedInt(buffer.get());
-        byte[] versionBytes = new byte[versionLen];
-        buffer.get(versionBytes);
-        String versionString = new String(versionBytes, StandardCharsets.UTF_8);
-        Version version = Version.parse(versionString);
+        Version version = Version.parse(buffer, versionLen);
         int vendorLen = Byte.toUnsignedInt(buffer.get());
         byte[] vendorBytes = new byte[vendorLen];
         buffer.get(vendorBytes);
@@ -0,0 +1,150 @@
+package dev.hensil.maop.compliance.model.authentication;
+
+import dev.hensil.maop.compliance.core.BidirectionalStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A resumable decoder of the authentication Result, fed with whatever the stream already has and never blocking, so it
+ * runs on the thread that fires the reading of the stream. It only reads up to the next length field until the whole
+ * length of the Result is known, then up to its last byte, so the bytes following the Result stay in the stream.
+ * <p>
+ * The bytes are accumulated in a buffer that starts small and only grows for a long Disapproved reason.
+ * */
+final class ResultDecoder {
+
+    // Static initializers
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The longest Result, a Disapproved with the longest reason, version and vendor.
+     * */
+    static final int MAX_LENGTH = 1 + 2 + 4 + 2 + 0xFFFF + 1 + 0xFF + 1 + 0xFF;
+
+    // Objects
+
+    // Always in write mode
+    private @NotNull ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    // Modules
+
+    /**
+     * Reads the available bytes of the Result from the stream.
+     *
+     * @return the decoded Result, or null if the available bytes end before it
+     * @throws IOException if the stream fails or the Result is illegal
+     * */
+    @Nullable Result decode(@NotNull BidirectionalStream stream) throws IOException {
+        while (true) {
+            int wanted = wanted();
+            if (wanted == 0) {
+                return parse();
+            }
+
+            int available = stream.available();
+            if (available <= 0) {
+                return null;
+            }
+
+            int length = Math.min(wanted, available);
+            ensure(length);
+
+            stream.readFully(buffer.array(), buffer.position(), length);
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Consumes the bytes of the Result from the buffer, leaving the following ones.
+     *
+     * @return the decoded Result, or null if the buffer ends before it
+     * @throws IOException if the Result is illegal
+     * */
+    @Nullable Result decode(@NotNull ByteBuffer in) throws IOException {
+        while (true) {
+            int wanted = wanted();
+            if (wanted == 0) {
+                return parse();
+            }
+
+            if (!in.hasRemaining()) {
+                return null;
+            }
+
+            int length = Math.min(wanted, in.remaining());
+            ensure(length);
+
+            in.get(buffer.array(), buffer.position(), length);
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Tells the decoder the stream ended, so the missing bytes of the Result will never arrive.
+     *
+     * @throws EOFException unless the whole Result was already read
+     * */
+    void end() throws EOFException {
+        if (wanted() != 0) {
+            throw new EOFException("Stream ended after " + buffer.position() + " bytes of the Result");
+        }
+    }
+
+    /**
+     * @return the bytes to read before the next length field or the end of the Result, or 0 if the Result is complete
+     * */
+    private int wanted() {
+        int position = buffer.position();
+        if (position == 0) {
+            return 1;
+        }
+
+        boolean approved = buffer.get(0) == 1;
+
+        // The offset of the field giving the length that follows it
+        int field = approved ? 1 + 16 : 1 + 2 + 4;
+        int fieldSize = approved ? 1 : 2;
+
+        for (int i = 0; i < 3; i++) {
+            if (position < field + fieldSize) {
+                return field + fieldSize - position;
+            }
+
+            int length = fieldSize == 1 ? Byte.toUnsignedInt(buffer.get(field)) : Short.toUnsignedInt(buffer.getShort(field));
+
+            // The identifier or the reason, then the version and the vendor, each one prefixed by a single byte
+            field += fieldSize + length;
+            fieldSize = 1;
+        }
+
+        return field - position;
+    }
+
+    private void ensure(int length) {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+
+        int capacity = Math.min(MAX_LENGTH, Math.max(buffer.capacity() * 2, buffer.position() + length));
+        @NotNull ByteBuffer grown = ByteBuffer.allocate(capacity);
+        grown.put(buffer.array(), 0, buffer.position());
+
+        this.buffer = grown;
+    }
+
+    private @NotNull Result parse() throws IOException {
+        @NotNull ByteBuffer frame = ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+
+        try {
+            return Result.parse(frame);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid result: " + e.getMessage(), e);
+        }
+    }
+}
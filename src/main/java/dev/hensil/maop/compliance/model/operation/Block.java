@@ -28,10 +28,13 @@ public final class Block extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(8 + bytes.length)
-                .putLong(payload)
-                .put(bytes)
-                .array();
+    public int getLength() {
+        return 4 + bytes.length;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putInt(payload)
+                .put(bytes);
     }
 }
\ No newline at end of file
@@ -18,9 +18,12 @@ public final class BlockEnd extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(8)
-                .putLong(total)
-                .array();
+    public int getLength() {
+        return 8;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putLong(total);
     }
 }
@@ -2,6 +2,8 @@ package dev.hensil.maop.compliance.model.operation;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.ByteBuffer;
+
 public final class Disconnect extends Operation {
 
     public Disconnect() {
@@ -9,7 +11,12 @@ public final class Disconnect extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return new byte[0];
+    public int getLength() {
+        return 0;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        //
     }
 }
\ No newline at end of file
@@ -23,11 +23,14 @@ public final class DisconnectRequest extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(4 + 2 + reason.length())
-                .putInt(drainTime)
+    public int getLength() {
+        return 4 + 2 + reason.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putInt(drainTime)
                 .putShort(reasonLen)
-                .put(reason.getBytes(StandardCharsets.UTF_8))
-                .array();
+                .put(reason.getBytes(StandardCharsets.UTF_8));
     }
 }
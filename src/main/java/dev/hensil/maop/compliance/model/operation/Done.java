@@ -24,17 +24,19 @@ public final class Done extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        @NotNull ByteBuffer buffer = ByteBuffer.allocate(2 + (entries.length * (8 + 8 + 4)))
-                .putShort(count);
+    public int getLength() {
+        return 2 + (entries.length * (8 + 4 + 4));
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putShort(count);
 
         for (@NotNull Entry entry : entries) {
             buffer.putLong(entry.stream)
-                    .putLong(entry.start)
+                    .putInt(entry.start)
                     .putInt(entry.end);
         }
-
-        return buffer.array();
     }
 
     // Classes
@@ -42,16 +44,16 @@ public final class Done extends Operation {
     public static final class Entry {
 
         private final long stream;
-        private final long start;
+        private final int start;
         private final int end;
 
-        public Entry(long stream, long start, int end) {
+        public Entry(long stream, int start, int end) {
             this.stream = stream;
             this.start = start;
             this.end = end;
         }
 
-        public long getStart() {
+        public int getStart() {
             return start;
         }
 
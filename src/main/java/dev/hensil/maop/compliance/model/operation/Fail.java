@@ -49,12 +49,15 @@ public final class Fail extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(8 + 2 + 2 + reason.length)
-                .putLong(stream)
+    public int getLength() {
+        return 8 + 2 + 2 + reason.length;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putLong(stream)
                 .putShort(error)
                 .putShort(reasonLen)
-                .put(reason)
-                .array();
+                .put(reason);
     }
 }
\ No newline at end of file
@@ -30,11 +30,14 @@ public final class Message extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(2 + 8 + 1)
-                .putShort(msgId)
+    public int getLength() {
+        return 2 + 8 + 1;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putShort(msgId)
                 .putLong(payload)
-                .put(priority)
-                .array();
+                .put(priority);
     }
 }
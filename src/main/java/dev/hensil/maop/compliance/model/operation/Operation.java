@@ -3,6 +3,8 @@ package dev.hensil.maop.compliance.model.operation;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
+
 public abstract sealed class Operation
         permits Block, BlockEnd, Disconnect, DisconnectRequest, Done, Fail, Message, Proceed, Refuse, Request, Response {
 
@@ -22,7 +24,23 @@ public abstract sealed class Operation
         return code;
     }
 
-    public abstract byte @NotNull [] toBytes();
+    /**
+     * @return the length of the fields written by {@link #writeTo(ByteBuffer)}, without the operation code
+     * */
+    public abstract int getLength();
+
+    /**
+     * Writes the fields of this operation, without the operation code, at the position of the buffer, which must have at
+     * least {@link #getLength()} bytes remaining.
+     * */
+    public abstract void writeTo(@NotNull ByteBuffer buffer);
+
+    public byte @NotNull [] toBytes() {
+        @NotNull ByteBuffer buffer = ByteBuffer.allocate(getLength());
+        writeTo(buffer);
+
+        return buffer.array();
+    }
 
     // Native
 
@@ -19,14 +19,17 @@ public final class Proceed extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        @NotNull ByteBuffer buffer = ByteBuffer.allocate(entries.length * 8);
+    public int getLength() {
+        return 2 + entries.length * 8;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putShort((short) entries.length);
 
         for (@NotNull Entry entry : entries) {
             buffer.putLong(entry.stream);
         }
-
-        return buffer.array();
     }
 
     // Classes
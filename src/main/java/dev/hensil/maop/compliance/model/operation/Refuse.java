@@ -18,16 +18,19 @@ public final class Refuse extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        @NotNull ByteBuffer buffer = ByteBuffer.allocate(entries.length * (8 + 4 + 2));
+    public int getLength() {
+        return 2 + entries.length * (8 + 4 + 2);
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putShort((short) entries.length);
 
         for (@NotNull Entry entry : entries) {
             buffer.putLong(entry.stream)
                     .putInt(entry.retryAfter)
                     .putShort(entry.errorCode);
         }
-
-        return buffer.array();
     }
 
     // Classes
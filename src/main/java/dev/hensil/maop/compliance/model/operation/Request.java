@@ -16,8 +16,7 @@ public final class Request extends Operation {
     public static @NotNull SuccessMessage writeRequest(@NotNull BidirectionalStream stream) throws TimeoutException, IOException {
         @NotNull Request request = new Request((short) 1, (short) 0, 0L, (byte) 0, 1000);
 
-        stream.write(request.getCode());
-        stream.write(request.toBytes());
+        stream.writeOperation(request);
 
         return SuccessMessage.readAfterRequest(stream);
     }
@@ -60,13 +59,16 @@ public final class Request extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(2 + 2 + 8 + 1 + 4)
-                .putShort(msgId)
+    public int getLength() {
+        return 2 + 2 + 8 + 1 + 4;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putShort(msgId)
                 .putLong(payload)
                 .put(priority)
                 .putShort(responseId)
-                .putInt(timeout)
-                .array();
+                .putInt(timeout);
     }
 }
\ No newline at end of file
@@ -30,11 +30,14 @@ public final class Response extends Operation {
     }
 
     @Override
-    public byte @NotNull [] toBytes() {
-        return ByteBuffer.allocate(8 + 8 + 4)
-                .putLong(payload)
+    public int getLength() {
+        return 8 + 8 + 4;
+    }
+
+    @Override
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        buffer.putLong(payload)
                 .putLong(start)
-                .putInt(end)
-                .array();
+                .putInt(end);
     }
 }
\ No newline at end of file
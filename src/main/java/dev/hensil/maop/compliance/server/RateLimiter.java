@@ -0,0 +1,86 @@
+package dev.hensil.maop.compliance.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * A token bucket limiting the authentications accepted by the {@link ReferenceServer}. The bucket holds up to the burst
+ * and refills at the rate; an authentication refused for lack of a token learns exactly when the next one is available,
+ * which the server hints as the retry after.
+ * */
+final class RateLimiter {
+
+    // Static initializers
+
+    static final @NotNull RateLimiter UNLIMITED = new RateLimiter(0, 1);
+
+    // Objects
+
+    private final double rate;
+    private final int burst;
+    private final long interval;
+
+    private double tokens;
+    private long updated = System.nanoTime();
+
+    RateLimiter(double rate, int burst) {
+        if (!(rate >= 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Illegal rate: " + rate);
+        } else if (burst < 1) {
+            throw new IllegalArgumentException("Illegal burst: " + burst);
+        }
+
+        this.rate = rate;
+        this.burst = burst;
+        this.interval = rate == 0 ? 0 : (long) (1_000_000_000D / rate);
+        this.tokens = burst;
+    }
+
+    // Getters
+
+    double getRate() {
+        return rate;
+    }
+
+    int getBurst() {
+        return burst;
+    }
+
+    boolean isUnlimited() {
+        return rate == 0;
+    }
+
+    // Modules
+
+    /**
+     * @return zero if a token was taken, or how long until the next token otherwise, rounded up to the millisecond of the
+     * retry after
+     * */
+    @NotNull Duration acquire() {
+        if (isUnlimited()) {
+            return Duration.ZERO;
+        }
+
+        long nanos = acquire(System.nanoTime());
+        return Duration.ofMillis((nanos + 999_999) / 1_000_000);
+    }
+
+    /**
+     * @param now the current {@link System#nanoTime()}
+     * @return zero if a token was taken, or the nanoseconds until the next token otherwise
+     * */
+    synchronized long acquire(long now) {
+        if (now > updated) {
+            tokens = Math.min(burst, tokens + (now - updated) / (double) interval);
+            updated = now;
+        }
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        return Math.max(1, (long) Math.ceil((1 - tokens) * interval));
+    }
+}
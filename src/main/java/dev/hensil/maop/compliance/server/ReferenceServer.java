@@ -0,0 +1,511 @@
+package dev.hensil.maop.compliance.server;
+
+import com.jlogm.Logger;
+
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.core.PayloadDigest;
+import dev.hensil.maop.compliance.model.Version;
+import dev.hensil.maop.compliance.model.authentication.Authentication;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import tech.kwik.core.QuicConnection;
+import tech.kwik.core.log.NullLogger;
+import tech.kwik.core.server.ServerConnectionConfig;
+import tech.kwik.core.server.ServerConnector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-process MAOP server on the loopback interface, so the compliance situations and the load modes can run against a
+ * well-behaved peer without an external deployment. It authenticates connections, answers Messages with Proceed and Done,
+ * Requests with Proceed and a success Response, refuses the streams over the in-flight limit and fails the ones that break
+ * the protocol, all with a self-signed certificate generated on start.
+ * <p>
+ * The latency added before every reply and the payload throughput are configurable, to benchmark the client against a
+ * slower or a bandwidth limited server.
+ * */
+public final class ReferenceServer implements Closeable {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(ReferenceServer.class).formatter(Main.FORMATTER);
+
+    public static final int DEFAULT_PORT = 4433;
+    public static final @NotNull String PROTOCOL = "maop/1";
+
+    public static @NotNull Builder newBuilder() {
+        return new Builder();
+    }
+
+    // Objects
+
+    private final int port;
+    private final @NotNull Duration latency;
+    private final @NotNull Throttle throttle;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final @NotNull Duration retryAfter;
+    private final @NotNull Duration authenticationTimeout;
+    private final @NotNull RateLimiter authenticationLimiter;
+
+    private final @NotNull Version version;
+    private final @NotNull String vendor;
+    private final @Nullable String authenticationType;
+    private final byte @Nullable [] authenticationToken;
+    private final byte @NotNull [] responseBody;
+
+    private final @NotNull Set<ServerSession> sessions = ConcurrentHashMap.newKeySet();
+    private final @NotNull AtomicInteger sequence = new AtomicInteger(0);
+
+    private volatile @Nullable ServerConnector connector;
+    private volatile @Nullable SelfSignedCertificate certificate;
+    private volatile @Nullable ExecutorService executor;
+    private volatile @Nullable ScheduledExecutorService scheduler;
+
+    // Constructor
+
+    private ReferenceServer(@NotNull Builder builder) {
+        this.port = builder.port;
+        this.latency = builder.latency;
+        this.throttle = builder.throughput == 0 ? Throttle.UNLIMITED : new Throttle(builder.throughput);
+        this.blockSize = builder.blockSize;
+        this.maxInFlight = builder.maxInFlight;
+        this.retryAfter = builder.retryAfter;
+        this.authenticationLimiter = builder.authenticationRate == 0 ? RateLimiter.UNLIMITED : new RateLimiter(builder.authenticationRate, builder.authenticationBurst);
+        this.authenticationTimeout = builder.authenticationTimeout;
+        this.version = builder.version;
+        this.vendor = builder.vendor;
+        this.authenticationType = builder.authenticationType;
+        this.authenticationToken = builder.authenticationToken;
+        this.responseBody = successMessage(builder.contentType, builder.body);
+    }
+
+    // Getters
+
+    public int getPort() {
+        return port;
+    }
+
+    public @NotNull URI getUri() {
+        return URI.create("https://localhost:" + port);
+    }
+
+    public @NotNull Duration getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the payload bytes per second, or 0 if unlimited
+     * */
+    public long getThroughput() {
+        return throttle.getBytesPerSecond();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public @NotNull Version getVersion() {
+        return version;
+    }
+
+    public @NotNull String getVendor() {
+        return vendor;
+    }
+
+    /**
+     * Digests the success message sent as the payload of every Response, the value a load run verifying the responses of
+     * this server expects.
+     *
+     * @param digest a new digest, updated with the whole response payload
+     * */
+    public long getResponseDigest(@NotNull PayloadDigest digest) {
+        return digest.digest(responseBody);
+    }
+
+    /**
+     * @return the self-signed certificate of the server, or null if it is not started
+     * */
+    public @Nullable X509Certificate getCertificate() {
+        @Nullable SelfSignedCertificate certificate = this.certificate;
+        return certificate != null ? certificate.getCertificate() : null;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public boolean isRunning() {
+        return connector != null;
+    }
+
+    @NotNull Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @NotNull RateLimiter getAuthenticationLimiter() {
+        return authenticationLimiter;
+    }
+
+    @NotNull Duration getAuthenticationTimeout() {
+        return authenticationTimeout;
+    }
+
+    @NotNull Throttle getThrottle() {
+        return throttle;
+    }
+
+    byte @NotNull [] getResponseBody() {
+        return responseBody;
+    }
+
+    @NotNull ExecutorService getExecutor() {
+        @Nullable ExecutorService executor = this.executor;
+        if (executor == null) {
+            throw new IllegalStateException("Server is not running");
+        }
+
+        return executor;
+    }
+
+    @NotNull ScheduledExecutorService getScheduler() {
+        @Nullable ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler == null) {
+            throw new IllegalStateException("Server is not running");
+        }
+
+        return scheduler;
+    }
+
+    // Modules
+
+    public synchronized void start() throws IOException {
+        if (connector != null) {
+            throw new IllegalStateException("Server is already running");
+        }
+
+        @NotNull SelfSignedCertificate certificate;
+        try {
+            certificate = SelfSignedCertificate.generate("localhost", Duration.ofDays(1));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot generate the server certificate", e);
+        }
+
+        @NotNull AtomicInteger threads = new AtomicInteger(0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            @NotNull Thread thread = new Thread(r, "maop-server-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            @NotNull Thread thread = new Thread(r, "maop-server-timer");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        int streams = (int) Math.min(Math.max(maxInFlight, 100), 10_000L);
+        @NotNull ServerConnectionConfig config = ServerConnectionConfig.builder()
+                .maxIdleTimeoutInSeconds(30)
+                .maxOpenPeerInitiatedBidirectionalStreams(streams)
+                .maxOpenPeerInitiatedUnidirectionalStreams(streams)
+                .build();
+
+        try {
+            @NotNull ServerConnector connector = ServerConnector.builder()
+                    .withLogger(new NullLogger())
+                    .withPort(port)
+                    .withConfiguration(config)
+                    .withKeyStore(certificate.getKeyStore(), SelfSignedCertificate.ALIAS, certificate.getPassword())
+                    .build();
+
+            connector.registerApplicationProtocol(PROTOCOL, (String protocol, QuicConnection connection) -> {
+                @NotNull ServerSession session = new ServerSession(this, connection, sequence.incrementAndGet());
+                sessions.add(session);
+
+                log.trace("Accepted session " + session.getId());
+                return session;
+            });
+
+            connector.start();
+
+            this.certificate = certificate;
+            this.connector = connector;
+        } catch (Exception e) {
+            shutdownExecutors();
+
+            if (e instanceof IOException io) {
+                throw io;
+            }
+
+            throw new IOException("Cannot start the reference server on port " + port, e);
+        }
+
+        log.info("Reference server listening on " + getUri() + " (latency = " + latency.toMillis() + "ms, throughput = " + (throttle.isUnlimited() ? "unlimited" : throttle.getBytesPerSecond() + " B/s") + ")");
+    }
+
+    @Override
+    public synchronized void close() {
+        @Nullable ServerConnector connector = this.connector;
+        if (connector == null) {
+            return;
+        }
+
+        this.connector = null;
+
+        for (@NotNull ServerSession session : sessions) {
+            session.close();
+        }
+
+        try {
+            connector.close();
+        } catch (Exception e) {
+            log.trace("Cannot close the server connector: " + e);
+        }
+
+        shutdownExecutors();
+        log.info("Reference server closed");
+    }
+
+    /**
+     * @return true if the authentication carries the configured credentials, or any credentials if none was configured
+     * */
+    boolean accepts(@NotNull Authentication authentication) {
+        if (authenticationType != null && !authenticationType.equals(authentication.getType())) {
+            return false;
+        }
+
+        return authenticationToken == null || Arrays.equals(authenticationToken, authentication.getToken());
+    }
+
+    void remove(@NotNull ServerSession session) {
+        sessions.remove(session);
+    }
+
+    private void shutdownExecutors() {
+        @Nullable ExecutorService executor = this.executor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+
+        @Nullable ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+        this.executor = null;
+        this.scheduler = null;
+    }
+
+    private static byte @NotNull [] successMessage(@NotNull String contentType, byte @NotNull [] body) {
+        byte @NotNull [] type = contentType.getBytes(StandardCharsets.UTF_8);
+
+        @NotNull ByteArrayOutputStream out = new ByteArrayOutputStream(2 + type.length + body.length);
+        out.write(type.length);
+        out.writeBytes(type);
+        out.write(body.length);
+        out.writeBytes(body);
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ReferenceServer{" +
+                "port=" + port +
+                ", running=" + isRunning() +
+                ", sessions=" + sessions.size() +
+                '}';
+    }
+
+    // Classes
+
+    public static final class Builder {
+
+        private int port = DEFAULT_PORT;
+        private @NotNull Duration latency = Duration.ZERO;
+        private long throughput = 0;
+        private int blockSize = 1024;
+        private int maxInFlight = Integer.MAX_VALUE;
+        private @NotNull Duration retryAfter = Duration.ofMillis(250);
+        private @NotNull Duration authenticationTimeout = Duration.ofSeconds(1);
+        private double authenticationRate = 0;
+        private int authenticationBurst = 1;
+
+        private @NotNull Version version = Version.parse("1.0.0");
+        private @NotNull String vendor = "MAOP Reference Server";
+        private @Nullable String authenticationType;
+        private byte @Nullable [] authenticationToken;
+
+        private @NotNull String contentType = "text/plain";
+        private byte @NotNull [] body = "OK".getBytes(StandardCharsets.UTF_8);
+
+        // Constructor
+
+        private Builder() {
+            //
+        }
+
+        // Modules
+
+        public @NotNull Builder port(int port) {
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("Illegal port: " + port);
+            }
+
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param latency the delay added before every reply of the server
+         * */
+        public @NotNull Builder latency(@NotNull Duration latency) {
+            if (latency.isNegative()) {
+                throw new IllegalArgumentException("Latency cannot be negative: " + latency);
+            }
+
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * @param bytesPerSecond the payload bytes the server reads and writes per second across all sessions, or 0 for
+         * unlimited
+         * */
+        public @NotNull Builder throughput(long bytesPerSecond) {
+            if (bytesPerSecond < 0) {
+                throw new IllegalArgumentException("Throughput cannot be negative: " + bytesPerSecond);
+            }
+
+            this.throughput = bytesPerSecond;
+            return this;
+        }
+
+        /**
+         * @param blockSize the maximum payload of each Block written in a response
+         * */
+        public @NotNull Builder blockSize(int blockSize) {
+            if (blockSize < 1) {
+                throw new IllegalArgumentException("Illegal block size: " + blockSize);
+            }
+
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * @param maxInFlight the Messages and Requests a single connection may have in flight before new ones are refused
+         * */
+        public @NotNull Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("Illegal maximum in flight: " + maxInFlight);
+            }
+
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public @NotNull Builder retryAfter(@NotNull Duration retryAfter) {
+            if (retryAfter.isNegative()) {
+                throw new IllegalArgumentException("Retry after cannot be negative: " + retryAfter);
+            }
+
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /**
+         * Limits the authentications accepted per second, over all the sessions. An authentication over the limit is
+         * disapproved with {@code CAPACITY_LIMIT} and a retry after of exactly the time until it would be accepted.
+         *
+         * @param rate the authentications per second, or 0 for no limit
+         * @param burst the authentications accepted at once after an idle period
+         * */
+        public @NotNull Builder authenticationRate(double rate, int burst) {
+            if (!(rate >= 0) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Illegal authentication rate: " + rate);
+            } else if (burst < 1) {
+                throw new IllegalArgumentException("Illegal authentication burst: " + burst);
+            }
+
+            this.authenticationRate = rate;
+            this.authenticationBurst = burst;
+            return this;
+        }
+
+        public @NotNull Builder authenticationTimeout(@NotNull Duration timeout) {
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("Illegal authentication timeout: " + timeout);
+            }
+
+            this.authenticationTimeout = timeout;
+            return this;
+        }
+
+        public @NotNull Builder version(@NotNull Version version) {
+            this.version = version;
+            return this;
+        }
+
+        public @NotNull Builder vendor(@NotNull String vendor) {
+            this.vendor = vendor;
+            return this;
+        }
+
+        /**
+         * Only approves authentications with these credentials. Any well-formed authentication is approved by default.
+         * */
+        public @NotNull Builder credentials(@NotNull String type, byte @NotNull [] token) {
+            this.authenticationType = type;
+            this.authenticationToken = token;
+            return this;
+        }
+
+        /**
+         * @param contentType the content type of the success message answering every Request
+         * @param body the body of the success message answering every Request
+         * */
+        public @NotNull Builder response(@NotNull String contentType, byte @NotNull [] body) {
+            if (contentType.getBytes(StandardCharsets.UTF_8).length > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("The content type length cannot be higher than " + Byte.MAX_VALUE);
+            } else if (body.length > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("The body length cannot be higher than " + Byte.MAX_VALUE);
+            }
+
+            this.contentType = contentType;
+            this.body = body;
+            return this;
+        }
+
+        public @NotNull ReferenceServer build() {
+            if (vendor.getBytes(StandardCharsets.UTF_8).length > 255) {
+                throw new IllegalArgumentException("The vendor length cannot be higher than 255");
+            }
+
+            return new ReferenceServer(this);
+        }
+    }
+}
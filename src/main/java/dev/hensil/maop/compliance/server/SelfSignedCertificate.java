@@ -0,0 +1,172 @@
+package dev.hensil.maop.compliance.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A throwaway RSA certificate for the {@link ReferenceServer}, valid for {@code localhost} and {@code 127.0.0.1}. The JDK
+ * has no public API to issue certificates, so the X.509 structure is encoded by hand with the few DER elements it needs.
+ * */
+final class SelfSignedCertificate {
+
+    // Static initializers
+
+    static final @NotNull String ALIAS = "maop";
+
+    private static final byte @NotNull [] SHA256_WITH_RSA = { 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01, 0x01, 0x0B };
+    private static final byte @NotNull [] COMMON_NAME = { 0x55, 0x04, 0x03 };
+    private static final byte @NotNull [] SUBJECT_ALTERNATIVE_NAME = { 0x55, 0x1D, 0x11 };
+
+    private static final @NotNull DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'");
+
+    static @NotNull SelfSignedCertificate generate(@NotNull String commonName, @NotNull Duration validity) throws GeneralSecurityException {
+        @NotNull SecureRandom random = new SecureRandom();
+
+        @NotNull KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048, random);
+        @NotNull KeyPair pair = generator.generateKeyPair();
+
+        @NotNull ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        byte @NotNull [] algorithm = sequence(oid(SHA256_WITH_RSA), new byte[] { 0x05, 0x00 });
+        byte @NotNull [] name = sequence(set(sequence(oid(COMMON_NAME), tlv(0x0C, commonName.getBytes(StandardCharsets.UTF_8)))));
+
+        byte @NotNull [] alternativeNames = sequence(
+                tlv(0x82, "localhost".getBytes(StandardCharsets.US_ASCII)),
+                tlv(0x87, new byte[] { 127, 0, 0, 1 })
+        );
+
+        byte @NotNull [] certificateInfo = sequence(
+                tlv(0xA0, integer(BigInteger.TWO)), // Version 3
+                integer(new BigInteger(64, random).setBit(62)),
+                algorithm,
+                name,
+                sequence(time(now.minusHours(1)), time(now.plus(validity))),
+                name,
+                pair.getPublic().getEncoded(),
+                tlv(0xA3, sequence(sequence(oid(SUBJECT_ALTERNATIVE_NAME), tlv(0x04, alternativeNames))))
+        );
+
+        @NotNull Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(pair.getPrivate(), random);
+        signature.update(certificateInfo);
+
+        byte @NotNull [] signed = signature.sign();
+        byte @NotNull [] bits = new byte[signed.length + 1]; // No unused bits
+        System.arraycopy(signed, 0, bits, 1, signed.length);
+
+        byte @NotNull [] encoded = sequence(certificateInfo, algorithm, tlv(0x03, bits));
+        @NotNull X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(encoded));
+
+        char @NotNull [] password = Long.toHexString(random.nextLong()).toCharArray();
+
+        @NotNull KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try {
+            keyStore.load(null, null);
+        } catch (IOException e) {
+            throw new AssertionError("Internal error", e);
+        }
+
+        keyStore.setKeyEntry(ALIAS, pair.getPrivate(), password, new Certificate[] { certificate });
+
+        return new SelfSignedCertificate(certificate, keyStore, password);
+    }
+
+    private static byte @NotNull [] tlv(int tag, byte @NotNull [] value) {
+        @NotNull ByteArrayOutputStream out = new ByteArrayOutputStream(value.length + 6);
+        out.write(tag);
+
+        int length = value.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length <= 0xFF) {
+            out.write(0x81);
+            out.write(length);
+        } else if (length <= 0xFFFF) {
+            out.write(0x82);
+            out.write(length >>> 8);
+            out.write(length);
+        } else {
+            out.write(0x83);
+            out.write(length >>> 16);
+            out.write(length >>> 8);
+            out.write(length);
+        }
+
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+
+    private static byte @NotNull [] sequence(byte @NotNull [] @NotNull ... elements) {
+        return tlv(0x30, concat(elements));
+    }
+
+    private static byte @NotNull [] set(byte @NotNull [] @NotNull ... elements) {
+        return tlv(0x31, concat(elements));
+    }
+
+    private static byte @NotNull [] oid(byte @NotNull [] value) {
+        return tlv(0x06, value);
+    }
+
+    private static byte @NotNull [] integer(@NotNull BigInteger value) {
+        return tlv(0x02, value.toByteArray());
+    }
+
+    private static byte @NotNull [] time(@NotNull ZonedDateTime time) {
+        return tlv(0x17, UTC_TIME.format(time).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte @NotNull [] concat(byte @NotNull [] @NotNull [] elements) {
+        @NotNull ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte @NotNull [] element : elements) {
+            out.writeBytes(element);
+        }
+
+        return out.toByteArray();
+    }
+
+    // Objects
+
+    private final @NotNull X509Certificate certificate;
+    private final @NotNull KeyStore keyStore;
+    private final char @NotNull [] password;
+
+    private SelfSignedCertificate(@NotNull X509Certificate certificate, @NotNull KeyStore keyStore, char @NotNull [] password) {
+        this.certificate = certificate;
+        this.keyStore = keyStore;
+        this.password = password;
+    }
+
+    // Getters
+
+    @NotNull X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    @NotNull KeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    char @NotNull [] getPassword() {
+        return password;
+    }
+}
@@ -0,0 +1,569 @@
+package dev.hensil.maop.compliance.server;
+
+import com.jlogm.Logger;
+import com.jlogm.context.LogCtx;
+import com.jlogm.context.Stack;
+
+import dev.hensil.maop.compliance.core.Main;
+import dev.hensil.maop.compliance.core.OperationUtil;
+import dev.hensil.maop.compliance.model.MAOPError;
+import dev.hensil.maop.compliance.model.Version;
+import dev.hensil.maop.compliance.model.authentication.Approved;
+import dev.hensil.maop.compliance.model.authentication.Authentication;
+import dev.hensil.maop.compliance.model.authentication.Disapproved;
+import dev.hensil.maop.compliance.model.authentication.Result;
+import dev.hensil.maop.compliance.model.operation.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import tech.kwik.core.QuicConnection;
+import tech.kwik.core.QuicStream;
+import tech.kwik.core.server.ApplicationProtocolConnection;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The server side of a single MAOP connection accepted by the {@link ReferenceServer}. Every peer initiated stream is
+ * served by its own task with plain blocking reads, and every global operation is written to a single server initiated
+ * bidirectional stream, created when the first one is sent.
+ * <p>
+ * The operations are framed as the model encodes them and the compliance client reads them: Block lengths are an int
+ * in both directions and Done entries a long stream followed by two int times.
+ * */
+final class ServerSession implements ApplicationProtocolConnection {
+
+    // Static initializers
+
+    private static final @NotNull Logger log = Logger.create(ServerSession.class).formatter(Main.FORMATTER);
+
+    private static final int DISCARD_SIZE = 8192;
+
+    // Objects
+
+    private final @NotNull ReferenceServer server;
+    private final @NotNull QuicConnection connection;
+    private final int id;
+    private final long created = System.nanoTime();
+
+    private final @NotNull AtomicInteger inFlight = new AtomicInteger(0);
+    private final @NotNull Object globalLock = new Object();
+    private @Nullable QuicStream global;
+
+    private volatile boolean authenticated = false;
+    private volatile boolean closed = false;
+    private volatile @Nullable ScheduledFuture<?> deadline;
+
+    // Constructor
+
+    ServerSession(@NotNull ReferenceServer server, @NotNull QuicConnection connection, int id) {
+        this.server = server;
+        this.connection = connection;
+        this.id = id;
+
+        arm();
+    }
+
+    // Getters
+
+    int getId() {
+        return id;
+    }
+
+    boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Modules
+
+    @Override
+    public void acceptPeerInitiatedStream(@NotNull QuicStream stream) {
+        if (closed) {
+            return;
+        }
+
+        try {
+            server.getExecutor().execute(() -> serve(stream));
+        } catch (RejectedExecutionException e) {
+            log.trace("Server is closing, dropping stream " + stream.getStreamId() + " of session " + id);
+            close();
+        }
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+
+        this.closed = true;
+        disarm();
+
+        try {
+            connection.close();
+        } catch (Exception e) {
+            log.trace("Cannot close session " + id + ": " + e);
+        }
+
+        server.remove(this);
+    }
+
+    private void serve(@NotNull QuicStream stream) {
+        try (
+                @NotNull LogCtx.Scope logContext = LogCtx.builder()
+                        .put("session", id)
+                        .put("stream id", stream.getStreamId())
+                        .put("bidirectional", stream.isBidirectional())
+                        .put("authenticated", authenticated)
+                        .install();
+
+                @NotNull Stack.Scope logScope = Stack.pushScope("Serve stream")
+        ) {
+            @NotNull DataInputStream input = new DataInputStream(stream.getInputStream());
+
+            if (!authenticated) {
+                if (stream.isUnidirectional()) {
+                    log.debug("Unidirectional stream created before authentication, closing session " + id);
+                    close();
+
+                    return;
+                }
+
+                authenticate(stream, input);
+                return;
+            }
+
+            int code = input.read();
+            if (code == -1) {
+                return;
+            }
+
+            @Nullable OperationUtil util = OperationUtil.getByCode((byte) code);
+            if (util == null) {
+                fail(stream, MAOPError.INVALID_HEADER, "Unknown operation code: " + code);
+                return;
+            }
+
+            log.trace("Read " + util + " operation code");
+
+            if (util == OperationUtil.DISCONNECT || util == OperationUtil.DISCONNECT_REQUEST) {
+                log.debug("Client asked to disconnect session " + id);
+                close();
+            } else if (util == OperationUtil.MESSAGE) {
+                if (stream.isBidirectional()) {
+                    fail(stream, MAOPError.ILLEGAL_STREAM, "Message operations must be sent on unidirectional streams");
+                } else {
+                    message(stream, input, (Message) util.read(input));
+                }
+            } else if (util == OperationUtil.REQUEST) {
+                if (stream.isUnidirectional()) {
+                    fail(stream, MAOPError.ILLEGAL_STREAM, "Request operations must be sent on bidirectional streams");
+                } else {
+                    request(stream, input, (Request) util.read(input));
+                }
+            } else if ((util == OperationUtil.BLOCK || util == OperationUtil.BLOCK_END) && stream.isUnidirectional()) {
+                fail(stream, MAOPError.PAYLOAD_LENGTH_MISMATCH, util + " operation without a declared payload");
+            } else {
+                fail(stream, MAOPError.ORDER_VIOLATION, "Unexpected " + util + " operation");
+            }
+        } catch (EOFException e) {
+            log.trace("Stream " + stream.getStreamId() + " ended in the middle of an operation");
+        } catch (IOException e) {
+            if (!closed) {
+                log.trace("I/O error in stream " + stream.getStreamId() + ": " + e);
+            }
+        } catch (Throwable e) {
+            log.severe("Unexpected error while serving stream " + stream.getStreamId() + ": " + e);
+            log.debug().cause(e).log();
+            close();
+        }
+    }
+
+    // Authentication
+
+    private void authenticate(@NotNull QuicStream stream, @NotNull DataInputStream input) throws IOException {
+        @NotNull OutputStream output = stream.getOutputStream();
+
+        while (!closed) {
+            @Nullable Authentication authentication;
+            try {
+                authentication = readAuthentication(input);
+            } catch (EOFException e) {
+                reply(output, disapproved(MAOPError.INVALID_FORMAT, "Truncated authentication"));
+                output.close();
+
+                return;
+            }
+
+            if (authentication == null) { // Client gave up
+                output.close();
+                return;
+            }
+
+            @Nullable MAOPError error = null;
+            @Nullable String reason = null;
+
+            @NotNull Duration limited = server.getAuthenticationLimiter().acquire();
+
+            if (!limited.isZero()) {
+                log.debug("Authentication of session " + id + " limited, retry after " + limited.toMillis() + "ms");
+                reply(output, new Disapproved(server.getVersion(), server.getVendor(), MAOPError.CAPACITY_LIMIT.getCode(), "Too many authentications", limited));
+                arm();
+
+                continue;
+            }
+
+            if (Version.tryParse(authentication.getVersion()).isEmpty()) {
+                error = MAOPError.INVALID_FORMAT;
+                reason = "Illegal version: " + authentication.getVersion();
+            } else if (!server.accepts(authentication)) {
+                error = MAOPError.UNAUTHORIZED;
+                reason = "Invalid credentials";
+            }
+
+            if (error != null) {
+                log.debug("Disapproving authentication of session " + id + ": " + reason);
+                reply(output, disapproved(error, reason));
+                arm();
+
+                continue;
+            }
+
+            disarm();
+            this.authenticated = true;
+
+            log.debug("Session " + id + " authenticated (type = " + authentication.getType() + ", vendor = " + authentication.getVendor() + ")");
+            reply(output, new Approved(server.getVersion(), server.getVendor(), UUID.randomUUID(), "session-" + id));
+            output.close();
+
+            return;
+        }
+    }
+
+    /**
+     * @return the authentication read, or null if the stream ended before its first byte
+     * */
+    private static @Nullable Authentication readAuthentication(@NotNull DataInputStream input) throws IOException {
+        int typeLength = input.read();
+        if (typeLength == -1) {
+            return null;
+        }
+
+        @NotNull String type = readString(input, typeLength);
+        byte @NotNull [] token = new byte[input.readUnsignedShort()];
+        input.readFully(token);
+
+        int pairs = input.readUnsignedByte();
+        @NotNull Map<String, String> metadata = new LinkedHashMap<>(pairs);
+
+        for (int i = 0; i < pairs; i++) {
+            @NotNull String key = readString(input, input.readUnsignedShort());
+            @NotNull String value = readString(input, input.readUnsignedShort());
+            metadata.put(key, value);
+        }
+
+        @NotNull String version = readString(input, input.readUnsignedByte());
+        @NotNull String vendor = readString(input, input.readUnsignedByte());
+
+        return new Authentication(type, token, metadata, version, vendor);
+    }
+
+    private static @NotNull String readString(@NotNull DataInputStream input, int length) throws IOException {
+        byte @NotNull [] bytes = new byte[length];
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private @NotNull Disapproved disapproved(@NotNull MAOPError error, @NotNull String reason) {
+        return new Disapproved(server.getVersion(), server.getVendor(), error.getCode(), reason, server.getRetryAfter());
+    }
+
+    private void reply(@NotNull OutputStream output, @NotNull Result result) throws IOException {
+        delay();
+
+        @NotNull ByteBuffer buffer = result.toByteBuffer();
+        output.write(buffer.array(), buffer.position(), buffer.remaining());
+        output.flush();
+    }
+
+    /**
+     * Closes the session if it is not authenticated within the authentication timeout from now.
+     * */
+    private void arm() {
+        disarm();
+
+        @NotNull Duration timeout = server.getAuthenticationTimeout();
+        this.deadline = server.getScheduler().schedule(() -> {
+            if (!authenticated) {
+                log.debug("Session " + id + " was not authenticated within " + timeout.toMillis() + "ms");
+                close();
+            }
+        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void disarm() {
+        @Nullable ScheduledFuture<?> deadline = this.deadline;
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+    }
+
+    // Operations
+
+    private void message(@NotNull QuicStream stream, @NotNull DataInputStream input, @NotNull Message message) throws IOException {
+        if (message.getPayload() < 0) {
+            fail(stream, MAOPError.INVALID_HEADER, "Negative payload: " + message.getPayload());
+            return;
+        } else if (!admit(stream)) {
+            return;
+        }
+
+        try {
+            int start = uptime();
+
+            if (message.getPayload() > 0) {
+                if (!proceed(stream, input) || !receive(stream, input, message.getPayload())) {
+                    return;
+                }
+            }
+
+            delay();
+            global(OperationUtil.DONE, new Done(new Done.Entry[] {
+                    new Done.Entry(stream.getStreamId(), start, uptime())
+            }).toBytes());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void request(@NotNull QuicStream stream, @NotNull DataInputStream input, @NotNull Request request) throws IOException {
+        if (request.getPayload() < 0) {
+            fail(stream, MAOPError.INVALID_HEADER, "Negative payload: " + request.getPayload());
+            return;
+        } else if (!admit(stream)) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+
+            if (!proceed(stream, input)) {
+                return;
+            } else if (request.getPayload() > 0 && !receive(stream, input, request.getPayload())) {
+                return;
+            }
+
+            delay();
+            respond(stream, start);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Refuses the stream if the session already serves the maximum number of operations in flight.
+     * */
+    private boolean admit(@NotNull QuicStream stream) throws IOException {
+        if (inFlight.incrementAndGet() <= server.getMaxInFlight()) {
+            return true;
+        }
+
+        inFlight.decrementAndGet();
+        log.debug("Refusing stream " + stream.getStreamId() + " of session " + id + ": too many operations in flight");
+
+        int retryAfter = (int) Math.min(server.getRetryAfter().toMillis(), Integer.MAX_VALUE);
+        global(OperationUtil.REFUSE, new Refuse(new Refuse.Entry[] {
+                new Refuse.Entry(stream.getStreamId(), retryAfter, MAOPError.CAPACITY_LIMIT.getCode())
+        }).toBytes());
+
+        finish(stream);
+        return false;
+    }
+
+    private boolean proceed(@NotNull QuicStream stream, @NotNull DataInputStream input) throws IOException {
+        delay();
+
+        // Best effort: only the bytes that already arrived are seen, a payload still in flight passes and is read as Blocks
+        if (input.available() > 0) {
+            fail(stream, MAOPError.PROTOCOL_VIOLATION, "Payload sent before Proceed");
+            return false;
+        }
+
+        global(OperationUtil.PROCEED, new Proceed(new Proceed.Entry[] { new Proceed.Entry(stream.getStreamId()) }).toBytes());
+        return true;
+    }
+
+    /**
+     * Reads the Blocks and the Block end carrying the declared payload, discarding their content.
+     *
+     * @return false if the payload did not match and the stream was failed
+     * */
+    private boolean receive(@NotNull QuicStream stream, @NotNull DataInputStream input, long payload) throws IOException {
+        long total = 0;
+
+        while (true) {
+            byte code = input.readByte();
+
+            if (code == OperationUtil.BLOCK.getCode()) {
+                int length = input.readInt();
+
+                if (length < 0 || total + length > payload) {
+                    fail(stream, MAOPError.PAYLOAD_LENGTH_MISMATCH, "Blocks exceed the declared payload of " + payload + " bytes");
+                    return false;
+                }
+
+                discard(input, length);
+                total += length;
+            } else if (code == OperationUtil.BLOCK_END.getCode()) {
+                long declared = input.readLong();
+
+                if (total == 0) {
+                    fail(stream, MAOPError.PAYLOAD_LENGTH_MISMATCH, "Block end received before any Block");
+                    return false;
+                } else if (declared != payload || total != payload) {
+                    fail(stream, MAOPError.PAYLOAD_LENGTH_MISMATCH, "Payload mismatch (declared = " + payload + ", received = " + total + ", block end = " + declared + ")");
+                    return false;
+                }
+
+                return true;
+            } else {
+                fail(stream, MAOPError.ORDER_VIOLATION, "A Block or Block end was expected but the operation code was " + code);
+                return false;
+            }
+        }
+    }
+
+    private void discard(@NotNull DataInputStream input, long length) throws IOException {
+        byte @NotNull [] bytes = new byte[(int) Math.min(length, DISCARD_SIZE)];
+
+        while (length > 0) {
+            int size = (int) Math.min(length, bytes.length);
+            server.getThrottle().acquire(size);
+            input.readFully(bytes, 0, size);
+
+            length -= size;
+        }
+    }
+
+    /**
+     * Writes the Response, the Blocks and the Block end of the configured success message and finishes the stream.
+     * */
+    private void respond(@NotNull QuicStream stream, long start) throws IOException {
+        byte @NotNull [] body = server.getResponseBody();
+        int blockSize = server.getBlockSize();
+        int elapsed = (int) Math.min(System.currentTimeMillis() - start, Integer.MAX_VALUE);
+
+        @NotNull OutputStream output = stream.getOutputStream();
+        output.write(frame(OperationUtil.RESPONSE, new Response(body.length, start, elapsed).toBytes()));
+
+        for (int offset = 0; offset < body.length; offset += blockSize) {
+            int length = Math.min(blockSize, body.length - offset);
+            server.getThrottle().acquire(length);
+
+            @NotNull ByteBuffer block = ByteBuffer.allocate(1 + Integer.BYTES + length)
+                    .put((byte) OperationUtil.BLOCK.getCode())
+                    .putInt(length)
+                    .put(body, offset, length);
+
+            output.write(block.array());
+        }
+
+        output.write(frame(OperationUtil.BLOCK_END, new BlockEnd(body.length).toBytes()));
+        output.close();
+    }
+
+    private void fail(@NotNull QuicStream stream, @NotNull MAOPError error, @NotNull String reason) throws IOException {
+        log.debug("Failing stream " + stream.getStreamId() + " of session " + id + " with " + error.getName() + ": " + reason);
+
+        global(OperationUtil.FAIL, new Fail(stream.getStreamId(), error.getCode(), reason).toBytes());
+        finish(stream);
+    }
+
+    private void finish(@NotNull QuicStream stream) {
+        try {
+            stream.getInputStream().close();
+
+            if (stream.isBidirectional()) {
+                stream.getOutputStream().close();
+            }
+        } catch (IOException e) {
+            log.trace("Cannot close stream " + stream.getStreamId() + ": " + e);
+        }
+    }
+
+    private void global(@NotNull OperationUtil util, byte @NotNull [] bytes) throws IOException {
+        synchronized (globalLock) {
+            if (global == null) {
+                this.global = connection.createStream(true);
+                log.trace("Global stream " + global.getStreamId() + " created for session " + id);
+            }
+
+            @NotNull OutputStream output = global.getOutputStream();
+            output.write(frame(util, bytes));
+            output.flush();
+        }
+    }
+
+    // Utilities
+
+    private static byte @NotNull [] frame(@NotNull OperationUtil util, byte @NotNull [] bytes) {
+        byte @NotNull [] frame = new byte[bytes.length + 1];
+        frame[0] = (byte) util.getCode();
+        System.arraycopy(bytes, 0, frame, 1, bytes.length);
+
+        return frame;
+    }
+
+    /**
+     * @return the milliseconds since the session was accepted
+     * */
+    private int uptime() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - created);
+    }
+
+    private void delay() {
+        long latency = server.getLatency().toNanos();
+        if (latency <= 0) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + latency;
+        long remaining;
+
+        while ((remaining = deadline - System.nanoTime()) > 0 && !closed) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ServerSession{" +
+                "id=" + id +
+                ", authenticated=" + authenticated +
+                ", closed=" + closed +
+                ", inFlight=" + inFlight.get() +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package dev.hensil.maop.compliance.server;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces the payload bytes moved by the {@link ReferenceServer} to a fixed rate. Every caller books the time slot its bytes
+ * would take at that rate and parks until the slot starts, so concurrent streams share the rate instead of each one
+ * getting it whole.
+ * */
+final class Throttle {
+
+    // Static initializers
+
+    static final @NotNull Throttle UNLIMITED = new Throttle(0);
+
+    // Objects
+
+    private final long bytesPerSecond;
+    private long next = System.nanoTime();
+
+    Throttle(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Illegal throughput: " + bytesPerSecond);
+        }
+
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    // Getters
+
+    long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    boolean isUnlimited() {
+        return bytesPerSecond == 0;
+    }
+
+    // Modules
+
+    void acquire(long bytes) {
+        if (isUnlimited() || bytes <= 0) {
+            return;
+        }
+
+        long cost = (long) (bytes * (1_000_000_000D / bytesPerSecond));
+        long start;
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            start = Math.max(now, next);
+            next = start + cost;
+        }
+
+        long wait;
+        while ((wait = start - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
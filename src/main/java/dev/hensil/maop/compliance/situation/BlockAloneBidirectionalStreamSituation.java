@@ -39,7 +39,7 @@ final class BlockAloneBidirectionalStreamSituation extends Situation {
 
     @Override
     public boolean diagnostic(@NotNull Compliance compliance) {
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -48,19 +48,8 @@ final class BlockAloneBidirectionalStreamSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating bidirectional stream");
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
@@ -76,8 +65,7 @@ final class BlockAloneBidirectionalStreamSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing standalone Block operation");
-                stream.write((byte) 0x05);
-                stream.write(block.toBytes());
+                stream.writeOperation(block);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -135,6 +123,10 @@ final class BlockAloneBidirectionalStreamSituation extends Situation {
             }
 
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
@@ -43,7 +43,7 @@ final class BlockAloneUnidirectionalSituation extends Situation {
 
     @Override
     public boolean diagnostic(@NotNull Compliance compliance) {
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -52,19 +52,8 @@ final class BlockAloneUnidirectionalSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
             @NotNull Block block = new Block("Teste".getBytes(StandardCharsets.UTF_8));
@@ -79,8 +68,7 @@ final class BlockAloneUnidirectionalSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing standalone Block operation");
-                stream.write(block.getCode());
-                stream.write(block.toBytes());
+                stream.writeOperation(block);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -133,6 +121,10 @@ final class BlockAloneUnidirectionalSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Waiting fail operation timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
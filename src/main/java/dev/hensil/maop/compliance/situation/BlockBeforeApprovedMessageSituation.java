@@ -39,7 +39,7 @@ final class BlockBeforeApprovedMessageSituation extends Situation {
 
     @Override
     public boolean diagnostic(@NotNull Compliance compliance) {
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -48,19 +48,8 @@ final class BlockBeforeApprovedMessageSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
             byte @NotNull [] bytes = new byte[230];
@@ -79,12 +68,10 @@ final class BlockBeforeApprovedMessageSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Message operation");
-                stream.writeByte(message.getCode());
-                stream.write(message.toBytes());
+                stream.writeOperation(message);
 
                 log.info("Writing block operation before Approved");
-                stream.writeByte(block.getCode());
-                stream.write(block.toBytes());
+                stream.writeOperation(block);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -137,6 +124,10 @@ final class BlockBeforeApprovedMessageSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Waiting fail operation timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
@@ -39,7 +39,7 @@ final class BlockBeforeApprovedRequestSituation extends Situation {
 
     @Override
     public boolean diagnostic(@NotNull Compliance compliance) {
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -48,19 +48,8 @@ final class BlockBeforeApprovedRequestSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating bidirectional stream");
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
@@ -95,10 +84,8 @@ final class BlockBeforeApprovedRequestSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request and Block operation together (Block is before Approved)");
-                stream.writeByte((byte) 0X01); // Request code
-                stream.write(request.toBytes());
-                stream.writeByte((byte) 0x05); // Block code
-                stream.write(block.toBytes());
+                stream.writeOperation(request);
+                stream.writeOperation(block);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -151,6 +138,10 @@ final class BlockBeforeApprovedRequestSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Waiting fail operation timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
@@ -42,7 +42,7 @@ final class BlockEndBeforeBlockRequestSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics...");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -51,19 +51,8 @@ final class BlockEndBeforeBlockRequestSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating bidirectional stream");
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
@@ -90,8 +79,7 @@ final class BlockEndBeforeBlockRequestSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request operation");
-                stream.writeByte((byte) 0x01); // Request operation
-                stream.write(request.toBytes());
+                stream.writeOperation(request);
 
                 log.info("Waiting for Proceed signal");
                 @NotNull Operation operation = connection.awaitOperation(stream, 2, TimeUnit.SECONDS);
@@ -101,8 +89,7 @@ final class BlockEndBeforeBlockRequestSituation extends Situation {
                 }
 
                 log.info("Writing block end operation before");
-                stream.writeByte((byte) 0x06); // Block operation
-                stream.write(blockEnd.toBytes());
+                stream.writeOperation(blockEnd);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -158,6 +145,10 @@ final class BlockEndBeforeBlockRequestSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Waiting Proceed operation timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
@@ -39,7 +39,7 @@ final class BlockEndLessThanPayloadMessageSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics...");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -48,19 +48,8 @@ final class BlockEndLessThanPayloadMessageSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
             byte @NotNull [] bytes = new byte[200];
@@ -83,8 +72,7 @@ final class BlockEndLessThanPayloadMessageSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Message operation with payload: " + bytes.length);
-                stream.writeByte(message.getCode());
-                stream.write(message.toBytes());
+                stream.writeOperation(message);
 
                 log.info("Waiting for Proceed signal");
                 @NotNull Operation operation = connection.awaitOperation(stream, 2, TimeUnit.SECONDS);
@@ -94,12 +82,12 @@ final class BlockEndLessThanPayloadMessageSituation extends Situation {
                 }
 
                 log.info("Writing block operation");
-                stream.writeByte(block.getCode());
-                stream.write(block.toBytes());
+                stream.cork();
+                stream.writeOperation(block);
 
                 log.info("Writing block end operation with smaller payload: " + newLength);
-                stream.writeByte(blockEnd.getCode());
-                stream.write(blockEnd.toBytes());
+                stream.writeOperation(blockEnd);
+                stream.flush();
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -155,6 +143,10 @@ final class BlockEndLessThanPayloadMessageSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Waiting Proceed operation timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
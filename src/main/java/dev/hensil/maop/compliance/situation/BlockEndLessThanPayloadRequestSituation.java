@@ -41,7 +41,7 @@ final class BlockEndLessThanPayloadRequestSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics...");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -50,19 +50,8 @@ final class BlockEndLessThanPayloadRequestSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
             byte @NotNull [] bytes = new byte[200];
@@ -87,8 +76,7 @@ final class BlockEndLessThanPayloadRequestSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request operation with payload: " + bytes.length);
-                stream.writeByte(request.getCode());
-                stream.write(request.toBytes());
+                stream.writeOperation(request);
 
                 log.info("Waiting for Proceed signal");
                 @NotNull Operation operation = connection.awaitOperation(stream, 2, TimeUnit.SECONDS);
@@ -98,12 +86,12 @@ final class BlockEndLessThanPayloadRequestSituation extends Situation {
                 }
 
                 log.info("Writing block operation");
-                stream.writeByte(block.getCode());
-                stream.write(block.toBytes());
+                stream.cork();
+                stream.writeOperation(block);
 
                 log.info("Writing block end operation with smaller payload: " + newLength);
-                stream.writeByte(blockEnd.getCode());
-                stream.write(blockEnd.toBytes());
+                stream.writeOperation(blockEnd);
+                stream.flush();
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -159,6 +147,10 @@ final class BlockEndLessThanPayloadRequestSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Waiting Proceed operation timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
@@ -40,7 +40,7 @@ final class BlockLessThanPayloadMessageSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics...");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -49,19 +49,8 @@ final class BlockLessThanPayloadMessageSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating unidirectional stream");
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
@@ -88,8 +77,7 @@ final class BlockLessThanPayloadMessageSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing message operation with payload: " + bytes.length);
-                stream.writeByte(message.getCode());
-                stream.write(message.toBytes());
+                stream.writeOperation(message);
 
                 log.info("Waiting for Proceed signal");
                 @NotNull Operation operation = connection.awaitOperation(stream, 2, TimeUnit.SECONDS);
@@ -99,12 +87,12 @@ final class BlockLessThanPayloadMessageSituation extends Situation {
                 }
 
                 log.info("Writing Block operation with smaller payload: " + newLength);
-                stream.writeByte(block.getCode());
-                stream.write(block.toBytes());
+                stream.cork();
+                stream.writeOperation(block);
 
                 log.info("Writing block end operation");
-                stream.writeByte(blockEnd.getCode());
-                stream.write(blockEnd.toBytes());
+                stream.writeOperation(blockEnd);
+                stream.flush();
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -157,6 +145,10 @@ final class BlockLessThanPayloadMessageSituation extends Situation {
         } catch (IOException e) {
             log.severe("Write failed: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
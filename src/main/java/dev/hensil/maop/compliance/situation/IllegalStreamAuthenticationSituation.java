@@ -63,7 +63,7 @@ final class IllegalStreamAuthenticationSituation extends Situation {
             @NotNull UnidirectionalOutputStream invalidStream = connection.createUnidirectionalStream();
 
             log.info("Loading authentication presets");
-            @NotNull Authentication authentication = new Authentication(compliance.getPreset());
+            @NotNull Authentication authentication = compliance.getPreset().getAuthentication();
             @NotNull ByteBuffer buffer = authentication.toByteBuffer();
 
             try (
@@ -58,7 +58,7 @@ final class InvalidAuthenticationSituation extends Situation {
             ) {
 
                 log.info("Loading authentication presets");
-                @NotNull Authentication authentication = new Authentication(compliance.getPreset());
+                @NotNull Authentication authentication = compliance.getPreset().getAuthentication();
                 byte @NotNull [] invalidData = authentication.toByteBuffer().array();
                 log.info("Filling authentication data with invalid fields");
                 Arrays.fill(invalidData, (byte) 0xAB);
@@ -55,7 +55,7 @@ final class InvalidVersionAuthenticationSituation extends Situation {
         ) {
             log.info("Starting authentication fuzzing with invalid versions");
 
-            @NotNull Authentication preset = new Authentication(compliance.getPreset());
+            @NotNull Authentication preset = compliance.getPreset().getAuthentication();
             @NotNull Set<MAOPError> expectedErrors = Set.of(MAOPError.INVALID_FORMAT, MAOPError.PROTOCOL_VIOLATION);
 
             @NotNull String @NotNull [] invalidVersions = {
@@ -46,7 +46,7 @@ final class MessageBeforeAuthenticatedSituation extends Situation {
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
             log.info("Creating unauthenticated connection");
-            connection = compliance.createConnection("non-authenticated", this);
+            connection = compliance.createConnection("non-authenticated message", this);
 
             log.info("Creating new Unidirectional stream");
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
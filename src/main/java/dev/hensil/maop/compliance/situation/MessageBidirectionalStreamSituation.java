@@ -43,7 +43,7 @@ final class MessageBidirectionalStreamSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
 
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
@@ -53,19 +53,8 @@ final class MessageBidirectionalStreamSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating bidirectional stream");
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
@@ -86,8 +75,7 @@ final class MessageBidirectionalStreamSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing message operation");
-                stream.writeByte((byte) 0x00); // Message operation code
-                stream.write(message.toBytes());
+                stream.writeOperation(message);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail signal");
@@ -144,6 +132,10 @@ final class MessageBidirectionalStreamSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Timeout waiting for Fail operation");
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
@@ -65,7 +65,7 @@ final class NormalAuthenticationSituation extends Situation {
             ) {
 
                 log.info("Loading authentication presets");
-                @NotNull Authentication authentication = new Authentication(compliance.getPreset());
+                @NotNull Authentication authentication = compliance.getPreset().getAuthentication();
                 byte @NotNull [] data = authentication.toByteBuffer().array();
 
                 try (
@@ -146,6 +146,10 @@ final class NormalAuthenticationSituation extends Situation {
                         }
                     }
 
+                    if (compliance.getConnectionPool().offer(connection)) {
+                        log.trace("Authenticated connection offered to the connection pool");
+                    }
+
                     // Finish
                     return false;
                 }
@@ -36,7 +36,7 @@ final class NormalBlockMessageSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics...");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -45,19 +45,8 @@ final class NormalBlockMessageSituation extends Situation {
 
                 @NotNull Stack.Scope scope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
 
@@ -81,8 +70,7 @@ final class NormalBlockMessageSituation extends Situation {
                     @NotNull Stack.Scope scope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing message operation");
-                stream.writeByte(message.getCode());
-                stream.write(message.toBytes());
+                stream.writeOperation(message);
 
                 log.info("Waiting for Proceed signal");
                 @NotNull Operation operation = connection.awaitOperation(stream, 2000, TimeUnit.SECONDS);
@@ -92,12 +80,12 @@ final class NormalBlockMessageSituation extends Situation {
                 }
 
                 log.info("Writing Block operation");
-                stream.writeByte(block.getCode());
-                stream.write(block.toBytes());
+                stream.cork();
+                stream.writeOperation(block);
 
                 log.info("Writing BlockEnd operation");
-                stream.writeByte(blockEnd.getCode());
-                stream.write(blockEnd.toBytes());
+                stream.writeOperation(blockEnd);
+                stream.flush();
 
                 try (@NotNull Stack.Scope scope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Done signal");
@@ -137,6 +125,10 @@ final class NormalBlockMessageSituation extends Situation {
         } catch (IOException e) {
             log.severe("Write failed: " + e);
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
@@ -38,7 +38,7 @@ public class NormalBlockRequestSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics...");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
                         .put("compliance id", compliance.getId())
@@ -47,19 +47,8 @@ public class NormalBlockRequestSituation extends Situation {
 
                 @NotNull Stack.Scope scope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating bidirectional stream");
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
@@ -89,8 +78,7 @@ public class NormalBlockRequestSituation extends Situation {
                     @NotNull Stack.Scope scope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request operation");
-                stream.writeByte((byte) 0X01); // Request code
-                stream.write(request.toBytes());
+                stream.writeOperation(request);
 
                 log.info("Waiting for Proceed signal");
                 @NotNull Operation operation = connection.awaitOperation(stream, 2, TimeUnit.SECONDS);
@@ -100,12 +88,12 @@ public class NormalBlockRequestSituation extends Situation {
                 }
 
                 log.info("Writing Block operation");
-                stream.writeByte((byte) 0x05); // Block code
-                stream.write(block.toBytes());
+                stream.cork();
+                stream.writeOperation(block);
 
                 log.info("Writing BlockEnd operation");
-                stream.writeByte((byte) 0x06); // Block end code
-                stream.write(blockEnd.toBytes());
+                stream.writeOperation(blockEnd);
+                stream.flush();
 
                 try (@NotNull Stack.Scope scope1 = Stack.pushScope("Read")) {
                     log.info("Waiting for Response operation with SuccessMessage");
@@ -148,6 +136,10 @@ public class NormalBlockRequestSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Timeout waiting for Proceed operation");
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
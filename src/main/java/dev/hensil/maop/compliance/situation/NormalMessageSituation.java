@@ -51,22 +51,8 @@ final class NormalMessageSituation extends Situation {
         ) {
             log.info("Starting normal message diagnostics");
 
-            connection = compliance.getConnection("authentication");
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-
-                log.info("Creating new connection");
-                connection = compliance.createConnection("authentication", this);
-
-                log.info("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating unidirectional stream");
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
@@ -86,8 +72,7 @@ final class NormalMessageSituation extends Situation {
             ) {
 
                 log.info("Writing message operation");
-                stream.writeByte(message.getCode());
-                stream.write(message.toBytes());
+                stream.writeOperation(message);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read") ) {
                     log.info("Waiting for Done signal");
@@ -137,6 +122,10 @@ final class NormalMessageSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Done waiting timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
@@ -22,9 +22,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 
-import java.nio.BufferOverflowException;
-import java.nio.ByteBuffer;
-
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -45,7 +42,7 @@ final class NormalRequestSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting normal message diagnostics");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
 
         try (
                 @NotNull LogCtx.Scope logContext = LogCtx.builder()
@@ -55,19 +52,8 @@ final class NormalRequestSituation extends Situation {
 
                 @NotNull Stack.Scope logScope = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
             @NotNull Request request = new Request((short) 1, SuccessMessage.MESSAGE_ID, 0L, (byte) 0, 1000);
@@ -85,8 +71,7 @@ final class NormalRequestSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request operation");
-                stream.writeByte(request.getCode());
-                stream.write(request.toBytes());
+                stream.writeOperation(request);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Proceed operation");
@@ -137,55 +122,18 @@ final class NormalRequestSituation extends Situation {
                                     .put("response end exec", response.getEnd())
                                     .install();
                     ) {
-                        @NotNull ByteBuffer successMessageBuffer = ByteBuffer.allocate((short) response.getPayload());
+                        @NotNull BlockReader reader = new BlockReader();
+                        @NotNull BlockSink.Buffer successMessageBuffer = BlockSink.buffer(Short.MAX_VALUE);
 
-                        expectedBytes = OperationUtil.BLOCK.getHeaderLength() + 2;
                         log.info("Waiting for Block operation");
                         elapsed = new Elapsed();
 
-                        connection.awaitReading(expectedBytes, stream, 3, TimeUnit.SECONDS);
-
-                        int blocks = 0;
-                        while (successMessageBuffer.remaining() > 0) {
-                            try {
-                                byte code2 = stream.readByte();
-                                @Nullable OperationUtil blockUtil = OperationUtil.getByCode(code2);
-                                if (blockUtil == null) {
-                                    log.severe("There is not operation with code: " + code2);
-                                    return true;
-                                }
-
-                                if (blockUtil == OperationUtil.BLOCK_END) {
-                                    log.severe("Block end was received before reading all payload data (remaining = " + successMessageBuffer.remaining() + ")");
-                                    return true;
-                                }
-
-                                if (blockUtil != OperationUtil.BLOCK) {
-                                    log.severe("A Block operation was expected but it was " + code2 + " (" + blockUtil.getName() + ")");
-                                    return true;
-                                }
-
-                                int blockPayload = stream.readInt();
-                                if (blockPayload > response.getPayload()) {
-                                    log.severe("Block payload is greater than the declared response payload: (block payload = " + blockPayload + " & response payload = " + response.getPayload() + ")");
-                                    return true;
-                                }
-
-                                int total = successMessageBuffer.remaining() + blockPayload;
-                                if (total > response.getPayload()) {
-                                    throw new IOException("The number of blocks operations exceed the declared response payload (response payload = " + response.getPayload() + " & total read = " + total + ")");
-                                }
-
-                                connection.awaitReading(blockPayload, stream, 2, TimeUnit.SECONDS);
-
-                                byte @NotNull [] bytes = new byte[blockPayload];
-                                stream.readFully(bytes);
-                                successMessageBuffer.put(bytes);
-
-                                blocks++;
-                            } catch (BufferOverflowException e) {
-                                throw new IOException("The number of blocks operations exceed the declared response payload (response payload = " + response.getPayload() + ")");
-                            }
+                        long blocks;
+                        try {
+                            blocks = reader.readBlocks(stream, response.getPayload(), successMessageBuffer, 3, TimeUnit.SECONDS);
+                        } catch (IOException e) {
+                            log.severe(e.getMessage());
+                            return true;
                         }
 
                         elapsed.freeze();
@@ -195,31 +143,19 @@ final class NormalRequestSituation extends Situation {
 
                         log.info("Waiting for block end operation");
                         elapsed = new Elapsed();
-                        expectedBytes = OperationUtil.BLOCK_END.getHeaderLength() + 1;
-                        connection.awaitReading(expectedBytes, stream, 2, TimeUnit.SECONDS);
-                        elapsed.freeze();
-
-                        byte code2 = stream.readByte();
-                        @Nullable OperationUtil blockEndUtil = OperationUtil.getByCode(code2);
-                        if (blockEndUtil == null) {
-                            log.severe("There is not operation with code: " + code2);
-                            return true;
-                        }
 
-                        if (blockEndUtil != OperationUtil.BLOCK_END) {
-                            log.severe("A Block end operation was expected but it was " + code2 + " (" + blockEndUtil.getName() + ")");
+                        try {
+                            reader.readEnd(stream, response.getPayload(), 2, TimeUnit.SECONDS);
+                        } catch (IOException e) {
+                            log.severe(e.getMessage());
                             return true;
                         }
 
-                        @NotNull BlockEnd blockEnd = (BlockEnd) blockEndUtil.read(stream);
-                        if (blockEnd.getTotal() != response.getPayload()) {
-                            throw new IOException("Block end total bytes mismatch (block end total bytes = " + blockEnd.getTotal() + " & response payload = " + response.getPayload() + ")");
-                        }
-
+                        elapsed.freeze();
                         log.info("The server takes " + elapsed + " to send block end");
 
                         try (@NotNull Stack.Scope scope = Stack.pushScope("Success message parse")) {
-                            @NotNull SuccessMessage message = SuccessMessage.parse(successMessageBuffer.array());
+                            @NotNull SuccessMessage message = SuccessMessage.parse(successMessageBuffer.toByteArray());
                             log.info("Successfully receive SuccessMessage (content type = " + message.contentTypeToString() + ")");
 
                             try {
@@ -258,6 +194,10 @@ final class NormalRequestSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Read timeout: " + e.getMessage());
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
@@ -47,7 +47,7 @@ final class RequestBeforeAuthenticatedSituation extends Situation {
                 @NotNull Stack.Scope logScope1 = Stack.pushScope("Connection")
         ) {
             log.info("Creating new unauthenticated connection");
-            connection = compliance.createConnection("non-authenticated", this);
+            connection = compliance.createConnection("non-authenticated request", this);
 
             log.info("Creating new bidirectional stream");
             @NotNull BidirectionalStream stream = connection.createBidirectionalStream();
@@ -66,8 +66,7 @@ final class RequestBeforeAuthenticatedSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request operation");
-                stream.writeByte((byte) 0x01);
-                stream.write(request.toBytes());
+                stream.writeOperation(request);
 
                 log.info("Waiting for server reaction");
                 boolean disconnected = connection.awaitDisconnection(2, TimeUnit.SECONDS);
@@ -42,7 +42,7 @@ final class RequestUnidirectionalStreamSituation extends Situation {
     public boolean diagnostic(@NotNull Compliance compliance) {
         log.info("Starting diagnostics: Illegal Request on Unidirectional Stream");
 
-        @Nullable Connection connection = compliance.getConnection("authentication");
+        @Nullable Connection connection = null;
 
         try (
                 @NotNull LogCtx.Scope logContext1 = LogCtx.builder()
@@ -52,19 +52,8 @@ final class RequestUnidirectionalStreamSituation extends Situation {
 
                 @NotNull Stack.Scope logScope1 = Stack.pushScope("Connection")
         ) {
-            if (connection == null || !connection.isAuthenticated()) {
-                log.warn("Authenticated connection lost. Reconnecting...");
-                connection = compliance.createConnection("authentication", this);
-
-                log.trace("Authenticating");
-                try {
-                    connection.authenticate();
-                    log.trace("Successfully authenticated");
-                } catch (Throwable e) {
-                    log.severe("Authentication failure: " + e);
-                    return true;
-                }
-            }
+            log.info("Leasing authenticated connection");
+            connection = compliance.getConnectionPool().lease(this);
 
             log.info("Creating illegal Unidirectional stream for Request");
             @NotNull UnidirectionalOutputStream stream = connection.createUnidirectionalStream();
@@ -80,8 +69,7 @@ final class RequestUnidirectionalStreamSituation extends Situation {
                     @NotNull Stack.Scope logScope2 = Stack.pushScope("Write")
             ) {
                 log.info("Writing Request operation (Violating protocol: Unidirectional)");
-                stream.writeByte(request.getCode());
-                stream.write(request.toBytes());
+                stream.writeOperation(request);
 
                 try (@NotNull Stack.Scope logScope3 = Stack.pushScope("Read")) {
                     log.info("Waiting for Fail operation from server");
@@ -134,6 +122,10 @@ final class RequestUnidirectionalStreamSituation extends Situation {
         } catch (TimeoutException e) {
             log.severe("Timeout waiting for Fail operation");
             return true;
+        } finally {
+            if (connection != null) {
+                compliance.getConnectionPool().release(connection);
+            }
         }
     }
 }
\ No newline at end of file
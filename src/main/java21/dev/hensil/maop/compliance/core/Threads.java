@@ -0,0 +1,78 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The thread kinds available to the compliance. This is the Java 21 version, packed in {@code META-INF/versions/21} of
+ * the multi-release jar; it must keep the same signatures of the Java 17 version in {@code src/main/java}.
+ * */
+@ApiStatus.Internal
+public final class Threads {
+
+    // Static initializers
+
+    private static final @NotNull Executor BLOCKING = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("maop-blocking-", 1).factory());
+
+    public static boolean isVirtualSupported() {
+        return true;
+    }
+
+    public static boolean isVirtual(@NotNull Thread thread) {
+        return thread.isVirtual();
+    }
+
+    public static void checkVirtual(boolean virtual) {
+        // Always supported
+    }
+
+    public static @NotNull ThreadFactory newFactory(@NotNull String prefix, boolean virtual) {
+        if (virtual) {
+            return newVirtualFactory(prefix, null);
+        }
+
+        @NotNull AtomicInteger threads = new AtomicInteger(0);
+
+        return r -> {
+            @NotNull Thread thread = new Thread(r, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+
+    public static @NotNull ThreadFactory newVirtualFactory(@NotNull String prefix, @Nullable Thread.UncaughtExceptionHandler handler) {
+        @NotNull Thread.Builder.OfVirtual builder = Thread.ofVirtual().name(prefix, 1);
+
+        if (handler != null) {
+            builder.uncaughtExceptionHandler(handler);
+        }
+
+        return builder.factory();
+    }
+
+    public static @NotNull ExecutorService newVirtualExecutor(@NotNull String prefix, @Nullable Thread.UncaughtExceptionHandler handler) {
+        return Executors.newThreadPerTaskExecutor(newVirtualFactory(prefix, handler));
+    }
+
+    /**
+     * A virtual thread for every blocking call, so thousands of stream creations waiting for the peer to grant more
+     * streams do not exhaust the common pool.
+     * */
+    static @NotNull Executor blocking() {
+        return BLOCKING;
+    }
+
+    // Constructor
+
+    private Threads() {
+        throw new UnsupportedOperationException("This class cannot be instantiated");
+    }
+}
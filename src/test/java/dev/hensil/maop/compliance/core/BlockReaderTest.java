@@ -0,0 +1,114 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class BlockReaderTest {
+
+    // The frames of a Response payload as the server sends them: Blocks with an int length, then the Block end
+    private static @NotNull ByteBuffer frames() {
+        return ByteBuffer.allocate(64 * 1024);
+    }
+
+    private static void block(@NotNull ByteBuffer frames, int length) {
+        frames.put((byte) OperationUtil.BLOCK.getCode()).putInt(length);
+
+        for (int i = 0; i < length; i++) {
+            frames.put((byte) i);
+        }
+    }
+
+    private static void end(@NotNull ByteBuffer frames, long total) {
+        frames.put((byte) OperationUtil.BLOCK_END.getCode()).putLong(total);
+    }
+
+    private static @NotNull BidirectionalStream stream(@NotNull ByteBuffer frames) {
+        @NotNull Compliance compliance = MemoryConnections.newCompliance();
+        @NotNull Connection connection = MemoryConnections.newConnection(compliance, new AtomicBoolean(true));
+
+        byte @NotNull [] bytes = new byte[frames.flip().remaining()];
+        frames.get(bytes);
+
+        return new BidirectionalStream(connection, MemoryConnections.newStream(0, bytes, new ByteArrayOutputStream()));
+    }
+
+    private static long read(@NotNull ByteBuffer frames, long payload, @NotNull BlockSink sink) throws IOException, TimeoutException {
+        return new BlockReader(new byte[16]).read(stream(frames), payload, sink, 1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testBlocks() throws IOException, TimeoutException {
+        @NotNull ByteBuffer frames = frames();
+        block(frames, 10);
+        block(frames, 100); // Larger than the 16 bytes chunk
+        block(frames, 16);
+        end(frames, 126);
+
+        @NotNull BlockSink.Buffer sink = BlockSink.buffer(126);
+        Assertions.assertEquals(3, read(frames, 126, sink));
+
+        byte @NotNull [] payload = sink.toByteArray();
+        Assertions.assertEquals(126, payload.length);
+        Assertions.assertEquals(9, payload[9]);
+        Assertions.assertEquals(99, payload[10 + 99]);
+        Assertions.assertEquals(15, payload[125]);
+    }
+
+    @Test
+    public void testBlockExceedsPayload() {
+        @NotNull ByteBuffer frames = frames();
+        block(frames, 10);
+        block(frames, 11);
+        end(frames, 21);
+
+        Assertions.assertThrows(IOException.class, () -> read(frames, 20, BlockSink.discard()));
+    }
+
+    @Test
+    public void testBlockEndBeforePayload() {
+        @NotNull ByteBuffer frames = frames();
+        block(frames, 10);
+        end(frames, 10);
+
+        Assertions.assertThrows(IOException.class, () -> read(frames, 20, BlockSink.discard()));
+    }
+
+    @Test
+    public void testBlockEndMismatch() {
+        @NotNull ByteBuffer frames = frames();
+        block(frames, 20);
+        end(frames, 19);
+
+        Assertions.assertThrows(IOException.class, () -> read(frames, 20, BlockSink.discard()));
+    }
+
+    @Test
+    public void testNotBlock() {
+        // A Proceed where a Block is expected, followed by enough bytes for a Block header
+        @NotNull ByteBuffer proceed = frames();
+        proceed.put((byte) 0x03).putLong(0);
+
+        Assertions.assertThrows(IOException.class, () -> read(proceed, 20, BlockSink.discard()));
+
+        // An unknown code
+        @NotNull ByteBuffer unknown = frames();
+        unknown.put((byte) 0x7F).putLong(0);
+
+        Assertions.assertThrows(IOException.class, () -> read(unknown, 20, BlockSink.discard()));
+
+        // A Block where the Block end is expected
+        @NotNull ByteBuffer extra = frames();
+        block(extra, 20);
+        block(extra, 8);
+
+        Assertions.assertThrows(IOException.class, () -> read(extra, 20, BlockSink.discard()));
+    }
+}
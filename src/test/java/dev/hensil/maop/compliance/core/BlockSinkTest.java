@@ -0,0 +1,71 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+final class BlockSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testBuffer() throws IOException {
+        byte @NotNull [] content = payload(100);
+
+        @NotNull BlockSink.Buffer buffer = BlockSink.buffer(100);
+        buffer.expect(content.length);
+        buffer.accept(content, 0, 60);
+        buffer.accept(content, 60, 40);
+
+        Assertions.assertEquals(100, buffer.getReceived());
+        Assertions.assertArrayEquals(content, buffer.toByteArray());
+
+        // Refused before any Block once the declared payload exceeds the capacity
+        Assertions.assertThrows(IOException.class, () -> BlockSink.buffer(100).expect(101));
+
+        @NotNull BlockSink.Buffer small = BlockSink.buffer(100);
+        small.expect(10);
+        Assertions.assertThrows(IOException.class, () -> small.accept(content, 0, 11));
+    }
+
+    @Test
+    public void testDigestAndFile() throws IOException, NoSuchAlgorithmException {
+        byte @NotNull [] content = payload(50_000);
+
+        @NotNull MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        @NotNull BlockSink sink = BlockSink.digest(digest);
+        @NotNull Path file = directory.resolve("response.bin");
+
+        try (@NotNull BlockSink fileSink = BlockSink.open(file)) {
+            for (int off = 0; off < content.length; off += 4096) {
+                int len = Math.min(4096, content.length - off);
+                sink.accept(content, off, len);
+                fileSink.accept(content, off, len);
+            }
+
+            Assertions.assertEquals(content.length, fileSink.getReceived());
+        }
+
+        Assertions.assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), digest.digest());
+        Assertions.assertArrayEquals(content, Files.readAllBytes(file));
+
+        @NotNull BlockSink discard = BlockSink.discard();
+        discard.accept(content, 0, content.length);
+        Assertions.assertEquals(content.length, discard.getReceived());
+    }
+
+    private static byte @NotNull [] payload(int length) throws IOException {
+        byte @NotNull [] bytes = new byte[length];
+        PayloadSource.generated(length, 3).read(bytes, 0, length);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class ConnectionPoolTest {
+
+    @Test
+    public void testHealthy() {
+        @NotNull Compliance compliance = MemoryConnections.newCompliance();
+        @NotNull ConnectionPool pool = compliance.getConnectionPool();
+        @NotNull Connection connection = MemoryConnections.newConnection(compliance, new AtomicBoolean(true));
+
+        Assertions.assertTrue(pool.isHealthy(connection));
+        Assertions.assertTrue(pool.offer(connection));
+        Assertions.assertEquals(1, pool.getIdle());
+    }
+
+    @Test
+    public void testDisconnected() {
+        @NotNull Compliance compliance = MemoryConnections.newCompliance();
+        @NotNull AtomicBoolean connected = new AtomicBoolean(true);
+        @NotNull Connection connection = MemoryConnections.newConnection(compliance, connected);
+
+        connected.set(false);
+
+        Assertions.assertFalse(compliance.getConnectionPool().isHealthy(connection));
+        Assertions.assertFalse(compliance.getConnectionPool().offer(connection));
+    }
+
+    @Test
+    public void testSevereBehaviour() {
+        @NotNull Compliance compliance = MemoryConnections.newCompliance();
+        @NotNull Connection connection = MemoryConnections.newConnection(compliance, new AtomicBoolean(true));
+
+        // Below the limit, the connection stays open but is not reused
+        connection.reportGlobalPolicies();
+
+        Assertions.assertFalse(connection.isClosed());
+        Assertions.assertFalse(compliance.getConnectionPool().isHealthy(connection));
+        Assertions.assertFalse(compliance.getConnectionPool().offer(connection));
+    }
+
+    @Test
+    public void testPendingGlobalOperation() throws Exception {
+        @NotNull Compliance compliance = MemoryConnections.newCompliance();
+        @NotNull Connection connection = MemoryConnections.newConnection(compliance, new AtomicBoolean(true));
+
+        // A Proceed code and half of its entry count
+        @NotNull GlobalStream stream = new GlobalStream(connection, MemoryConnections.newStream(1, new byte[] { 0x03, 0x00 }, new ByteArrayOutputStream()));
+        Assertions.assertTrue(connection.register(stream));
+        Assertions.assertNull(stream.next());
+
+        Assertions.assertTrue(stream.isPending());
+        Assertions.assertFalse(compliance.getConnectionPool().isHealthy(connection));
+    }
+}
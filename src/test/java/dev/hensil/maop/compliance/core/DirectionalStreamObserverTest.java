@@ -0,0 +1,90 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.Fail;
+import dev.hensil.maop.compliance.model.operation.Operation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class DirectionalStreamObserverTest {
+
+    private final @NotNull Connection connection = MemoryConnections.newConnection(MemoryConnections.newCompliance(), new AtomicBoolean(true));
+    private final @NotNull DirectionalStreamObserver observer = new DirectionalStreamObserver(new BidirectionalStream(connection, MemoryConnections.newStream(4, new byte[0], new ByteArrayOutputStream())));
+
+    private static @NotNull Operation operation(int index) {
+        return new Fail(4, (short) index, "operation " + index);
+    }
+
+    @Test
+    public void testSeveralWaiters() {
+        @NotNull List<CompletableFuture<Operation>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(observer.awaitOperationAsync());
+        }
+
+        @NotNull Operation @NotNull [] operations = new Operation[4];
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = operation(i);
+            Assertions.assertTrue(observer.fireOperation(operations[i]));
+        }
+
+        // Each waiter gets the next operation in arrival order, the one left waits for the next waiter
+        for (int i = 0; i < waiters.size(); i++) {
+            Assertions.assertSame(operations[i], waiters.get(i).getNow(null));
+        }
+
+        Assertions.assertSame(operations[3], observer.awaitOperationAsync().getNow(null));
+        Assertions.assertEquals(0, connection.getDroppedOperations());
+    }
+
+    @Test
+    public void testFullRingDropsOperations() {
+        @NotNull Operation @NotNull [] operations = new Operation[DirectionalStreamObserver.OPERATIONS_CAPACITY];
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = operation(i);
+            Assertions.assertTrue(observer.fireOperation(operations[i]));
+        }
+
+        // Nobody consumed the buffered operations, the next ones are dropped and counted by the connection
+        Assertions.assertFalse(observer.fireOperation(operation(operations.length)));
+        Assertions.assertFalse(observer.fireOperation(operation(operations.length + 1)));
+        Assertions.assertEquals(2, connection.getDroppedOperations());
+
+        for (@NotNull Operation operation : operations) {
+            Assertions.assertSame(operation, observer.awaitOperationAsync().getNow(null));
+        }
+
+        // Consuming them makes room again
+        @NotNull Operation next = operation(operations.length + 2);
+        Assertions.assertTrue(observer.fireOperation(next));
+        Assertions.assertSame(next, observer.awaitOperationAsync().getNow(null));
+        Assertions.assertEquals(2, connection.getDroppedOperations());
+    }
+
+    @Test
+    public void testWaiterTimeout() {
+        Assertions.assertNull(observer.awaitOperation(50, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, connection.getTimedOutOperationWaits());
+
+        // The operation arriving after the timeout goes to the next waiter instead of the expired one
+        @NotNull Operation operation = operation(0);
+        Assertions.assertTrue(observer.fireOperation(operation));
+
+        @Nullable Operation received = observer.awaitOperation(1, TimeUnit.SECONDS);
+        Assertions.assertSame(operation, received);
+
+        // A waiter given up by its caller is not a timeout
+        observer.awaitOperationAsync().cancel(false);
+        Assertions.assertEquals(1, connection.getTimedOutOperationWaits());
+        Assertions.assertEquals(0, connection.getDroppedOperations());
+    }
+}
@@ -0,0 +1,86 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+final class GlobalOperationDecoderTest {
+
+    private static byte @NotNull [] batch() {
+        byte @NotNull [] reason = "Testing".getBytes(StandardCharsets.UTF_8);
+
+        return ByteBuffer.allocate(128)
+                // Proceed
+                .put((byte) 0x03).putShort((short) 2).putLong(4).putLong(8)
+                // Fail
+                .put((byte) 0x07).putLong(12).putShort((short) 1).putShort((short) reason.length).put(reason)
+                // Done
+                .put((byte) 0x08).putShort((short) 1).putLong(16).putInt(10).putInt(20)
+                // Refuse
+                .put((byte) 0x04).putShort((short) 1).putLong(20).putInt(500).putShort((short) 3)
+                .array();
+    }
+
+    private static @NotNull List<Operation> decode(byte @NotNull [] bytes, int length, int fragment) {
+        @NotNull GlobalOperationDecoder decoder = new GlobalOperationDecoder();
+        @NotNull List<Operation> operations = new ArrayList<>();
+
+        for (int offset = 0; offset < length; offset += fragment) {
+            @NotNull ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, Math.min(fragment, length - offset));
+
+            @Nullable Operation operation;
+            while ((operation = decoder.decode(buffer)) != null) {
+                operations.add(operation);
+            }
+
+            Assertions.assertFalse(buffer.hasRemaining());
+        }
+
+        Assertions.assertNull(decoder.getPending());
+        return operations;
+    }
+
+    @Test
+    public void testFragmentation() {
+        byte @NotNull [] bytes = batch();
+        int length = 1 + 2 + 16 + 1 + 12 + 7 + 1 + 2 + 16 + 1 + 2 + 14;
+
+        for (int fragment = 1; fragment <= length; fragment++) {
+            @NotNull List<Operation> operations = decode(bytes, length, fragment);
+            Assertions.assertEquals(4, operations.size());
+
+            @NotNull Proceed proceed = Assertions.assertInstanceOf(Proceed.class, operations.get(0));
+            Assertions.assertEquals(2, proceed.getEntries().length);
+            Assertions.assertEquals(8, proceed.getEntries()[1].getStream());
+
+            @NotNull Fail fail = Assertions.assertInstanceOf(Fail.class, operations.get(1));
+            Assertions.assertEquals(12, fail.getStream());
+            Assertions.assertEquals("Testing", fail.getReasonToString());
+
+            @NotNull Done done = Assertions.assertInstanceOf(Done.class, operations.get(2));
+            Assertions.assertEquals(16, done.getEntries()[0].getStream());
+            Assertions.assertEquals(20, done.getEntries()[0].getEnd());
+
+            @NotNull Refuse refuse = Assertions.assertInstanceOf(Refuse.class, operations.get(3));
+            Assertions.assertEquals(500, refuse.getEntries()[0].getRetryAfter());
+            Assertions.assertEquals(3, refuse.getEntries()[0].getErrorCode());
+        }
+    }
+
+    @Test
+    public void testIllegalOperation() {
+        @NotNull GlobalOperationDecoder decoder = new GlobalOperationDecoder();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.decode(ByteBuffer.wrap(new byte[] { 0x05, 0, 0, 0, 1 })));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.decode(ByteBuffer.wrap(new byte[] { 0x03, 0, 100 })));
+        Assertions.assertNull(decoder.getPending());
+    }
+}
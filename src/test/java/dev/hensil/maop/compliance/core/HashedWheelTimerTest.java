@@ -0,0 +1,109 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class HashedWheelTimerTest {
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        @NotNull HashedWheelTimer timer = new HashedWheelTimer("test", 1, TimeUnit.MILLISECONDS, 8);
+        @NotNull CountDownLatch latch = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        @NotNull HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assertions.assertTrue(timeout.isExpired());
+        Assertions.assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void testCancellation() throws InterruptedException {
+        // Deadlines beyond one turn of the wheel wait in their buckets for the remaining rounds
+        @NotNull HashedWheelTimer timer = new HashedWheelTimer("test", 1, TimeUnit.MILLISECONDS, 8);
+        @NotNull AtomicInteger fired = new AtomicInteger(0);
+
+        for (int i = 0; i < 10_000; i++) {
+            @NotNull HashedWheelTimer.Timeout timeout = timer.schedule(fired::incrementAndGet, 20 + i % 30, TimeUnit.MILLISECONDS);
+
+            if (i % 2 == 0) {
+                Assertions.assertTrue(timeout.cancel());
+                Assertions.assertTrue(timeout.isCancelled());
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (timer.getPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertEquals(0, timer.getPending());
+        Assertions.assertEquals(5_000, fired.get());
+    }
+
+    @Test
+    public void testFutureTimeout() {
+        @NotNull HashedWheelTimer timer = new HashedWheelTimer("test");
+
+        @NotNull CompletableFuture<String> late = timer.orTimeout(new CompletableFuture<>(), 20, TimeUnit.MILLISECONDS);
+        @NotNull CompletionException exception = Assertions.assertThrows(CompletionException.class, late::join);
+        Assertions.assertInstanceOf(TimeoutException.class, exception.getCause());
+
+        @NotNull CompletableFuture<String> future = timer.orTimeout(new CompletableFuture<>(), 1, TimeUnit.SECONDS);
+        future.complete("done");
+
+        Assertions.assertEquals("done", future.join());
+        Assertions.assertEquals(0, timer.getPending());
+    }
+
+    @Test
+    public void testFutureTimeoutOffWorker() {
+        @NotNull HashedWheelTimer timer = new HashedWheelTimer("test");
+
+        // The stages chained to a timed out future do not run on the worker of the wheel
+        @NotNull CompletableFuture<String> future = timer.orTimeout(new CompletableFuture<>(), 20, TimeUnit.MILLISECONDS);
+        @NotNull CompletableFuture<String> thread = future.handle((value, error) -> Thread.currentThread().getName());
+
+        Assertions.assertTrue(thread.join().startsWith("maop-timeout-"), thread.join());
+        Assertions.assertInstanceOf(TimeoutException.class, Assertions.assertThrows(CompletionException.class, future::join).getCause());
+    }
+
+    @Test
+    public void testStop() throws InterruptedException {
+        @NotNull HashedWheelTimer timer = new HashedWheelTimer("test", 1, TimeUnit.MILLISECONDS, 8);
+
+        // One in the current turn of the wheel and one several rounds away
+        @NotNull CompletableFuture<String> near = timer.orTimeout(new CompletableFuture<>(), 5, TimeUnit.SECONDS);
+        @NotNull CompletableFuture<String> far = timer.orTimeout(new CompletableFuture<>(), 1, TimeUnit.HOURS);
+        @NotNull AtomicInteger fired = new AtomicInteger(0);
+        @NotNull HashedWheelTimer.Timeout cancelled = timer.schedule(fired::incrementAndGet, 5, TimeUnit.SECONDS);
+        Assertions.assertTrue(cancelled.cancel());
+
+        timer.stop();
+
+        // The futures fail at once instead of waiting on a stopped timer
+        Assertions.assertTrue(near.isCompletedExceptionally());
+        Assertions.assertTrue(far.isCompletedExceptionally());
+        Assertions.assertInstanceOf(TimeoutException.class, Assertions.assertThrows(CompletionException.class, far::join).getCause());
+        Assertions.assertEquals(0, timer.getPending());
+        Assertions.assertEquals(0, fired.get());
+
+        // Stopping again does nothing, and the next timeout starts a new worker
+        timer.stop();
+
+        @NotNull CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 10, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(latch.await(2, TimeUnit.SECONDS));
+    }
+}
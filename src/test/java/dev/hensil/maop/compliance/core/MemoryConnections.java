@@ -0,0 +1,111 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.Version;
+import dev.hensil.maop.compliance.model.authentication.Approved;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import tech.kwik.core.QuicClientConnection;
+import tech.kwik.core.QuicStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connections and streams over proxied kwik objects, for the tests that need a {@link Connection} without a peer. The
+ * streams read from an array given up front and the other kwik calls answer the neutral value of their return type.
+ * */
+final class MemoryConnections {
+
+    // Static initializers
+
+    private static final @NotNull Executor DIRECT = Runnable::run;
+
+    static @NotNull Compliance newCompliance() {
+        @NotNull Preset preset = Preset.newBuilder()
+                .uri(URI.create("https://localhost:4433"))
+                .vendor("Tester")
+                .build();
+
+        return new Compliance(preset, DIRECT);
+    }
+
+    /**
+     * @param connected read by every {@link Connection#isConnected()}
+     * */
+    static @NotNull Connection newConnection(@NotNull Compliance compliance, @NotNull AtomicBoolean connected) {
+        @NotNull QuicClientConnection quic = (QuicClientConnection) Proxy.newProxyInstance(MemoryConnections.class.getClassLoader(), new Class<?>[] { QuicClientConnection.class }, (proxy, method, args) -> {
+            if (method.getName().equals("isConnected")) {
+                return connected.get();
+            }
+
+            return answer(proxy, method, args);
+        });
+
+        @NotNull Connection connection = new Connection(quic, compliance);
+        connection.setAuthenticated(new Approved(Version.parse("1.0.0"), "Tester", UUID.randomUUID(), "test"));
+
+        return connection;
+    }
+
+    /**
+     * @return a bidirectional stream with the given id that reads the received bytes and writes into the output
+     * */
+    static @NotNull QuicStream newStream(long id, byte @NotNull [] received, @NotNull OutputStream output) {
+        @NotNull ByteArrayInputStream input = new ByteArrayInputStream(received);
+
+        return (QuicStream) Proxy.newProxyInstance(MemoryConnections.class.getClassLoader(), new Class<?>[] { QuicStream.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isBidirectional":
+                    return true;
+                case "getStreamId":
+                    return id;
+                case "getInputStream":
+                    return input;
+                case "getOutputStream":
+                    return output;
+                default:
+                    return answer(proxy, method, args);
+            }
+        });
+    }
+
+    private static @Nullable Object answer(@NotNull Object proxy, @NotNull Method method, @Nullable Object @Nullable [] args) {
+        switch (method.getName()) {
+            case "equals":
+                return args != null && proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "memory";
+        }
+
+        @NotNull Class<?> type = method.getReturnType();
+
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == List.class) {
+            return List.of();
+        }
+
+        return null;
+    }
+
+    // Constructor
+
+    private MemoryConnections() {
+        throw new UnsupportedOperationException("This class cannot be instantiated");
+    }
+}
@@ -0,0 +1,78 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+final class MpscRingBufferTest {
+
+    @Test
+    public void testOverflow() {
+        @NotNull MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(30);
+        Assertions.assertEquals(32, buffer.capacity());
+
+        for (int i = 0; i < buffer.capacity(); i++) {
+            Assertions.assertTrue(buffer.offer(i));
+        }
+
+        Assertions.assertFalse(buffer.offer(-1));
+        Assertions.assertEquals(0, buffer.poll());
+        Assertions.assertTrue(buffer.offer(32));
+
+        for (int i = 1; i <= 32; i++) {
+            Assertions.assertEquals(i, buffer.poll());
+        }
+
+        Assertions.assertNull(buffer.poll());
+        Assertions.assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        @NotNull MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10_000;
+
+        @NotNull CountDownLatch start = new CountDownLatch(1);
+        @NotNull Thread[] threads = new Thread[producers];
+
+        for (int p = 0; p < producers; p++) {
+            int offset = p * perProducer;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        start.countDown();
+
+        @NotNull Set<Integer> received = new HashSet<>();
+        while (received.size() < producers * perProducer) {
+            @Nullable Integer value = buffer.poll();
+            if (value != null) {
+                Assertions.assertTrue(received.add(value));
+            }
+        }
+
+        for (@NotNull Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertNull(buffer.poll());
+    }
+}
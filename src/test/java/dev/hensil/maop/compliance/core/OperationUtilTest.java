@@ -0,0 +1,89 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.MAOPError;
+import dev.hensil.maop.compliance.model.operation.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+final class OperationUtilTest {
+
+    @Test
+    public void testLookup() {
+        @NotNull Set<OperationUtil> globals = Set.of(
+                OperationUtil.REFUSE, OperationUtil.PROCEED, OperationUtil.FAIL,
+                OperationUtil.DONE, OperationUtil.DISCONNECT_REQUEST, OperationUtil.DISCONNECT
+        );
+
+        for (int code = 0; code <= 0x0A; code++) {
+            @Nullable OperationUtil util = OperationUtil.getByCode((byte) code);
+
+            Assertions.assertNotNull(util);
+            Assertions.assertEquals(code, util.getCode());
+            Assertions.assertEquals(globals.contains(util), util.isGlobalOperation());
+            Assertions.assertEquals(globals.contains(util), OperationUtil.isGlobalOperation((byte) code));
+        }
+
+        // Unknown codes, negative ones included, have no operation
+        for (int code = 0x0B; code <= 0xFF; code++) {
+            Assertions.assertNull(OperationUtil.getByCode((byte) code));
+            Assertions.assertFalse(OperationUtil.isGlobalOperation((byte) code));
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        Assertions.assertSame(MAOPError.INVALID_FORMAT, MAOPError.get((short) 0));
+        Assertions.assertSame(MAOPError.RESPONSE_CONSUME, MAOPError.get((short) 19));
+        Assertions.assertSame(MAOPError.UNKNOWN_ERROR, MAOPError.get((short) 49));
+
+        Assertions.assertNull(MAOPError.get((short) 20));
+        Assertions.assertNull(MAOPError.get((short) 50));
+        Assertions.assertNull(MAOPError.get((short) -1));
+        Assertions.assertNull(MAOPError.get(Short.MAX_VALUE));
+
+        Assertions.assertTrue(MAOPError.contains((short) 49));
+        Assertions.assertFalse(MAOPError.contains((short) 48));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // Every operation decodes from the bytes of its own encoder, and nothing is left behind
+        @NotNull List<Operation> operations = List.of(
+                new Message((short) 1, 1024L, (byte) 0),
+                new Request((short) 1, (short) 2, 1024L, (byte) 0, 1000),
+                new Response(1024L, 1_700_000_000_000L, 12),
+                new Proceed(new Proceed.Entry[] { new Proceed.Entry(0), new Proceed.Entry(4) }),
+                new Refuse(new Refuse.Entry[] { new Refuse.Entry(0, 500, (short) 1), new Refuse.Entry(4, 500, (short) 1) }),
+                new Block(new byte[] { 1, 2, 3, 4, 5 }),
+                new BlockEnd(1024L),
+                new Fail(12, MAOPError.UNKNOWN_ERROR.getCode(), "Failure".getBytes(StandardCharsets.UTF_8)),
+                new Done(new Done.Entry[] { new Done.Entry(0, 10, 20), new Done.Entry(4, 10, 20) }),
+                new DisconnectRequest(1000, "Disconnecting"),
+                new Disconnect()
+        );
+
+        for (@NotNull Operation operation : operations) {
+            @Nullable OperationUtil util = OperationUtil.getByCode(operation.getCode());
+            Assertions.assertNotNull(util);
+
+            byte @NotNull [] bytes = operation.toBytes();
+            Assertions.assertEquals(operation.getLength(), bytes.length);
+
+            @NotNull ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+            @NotNull Operation decoded = util.read(new DataInputStream(input));
+
+            Assertions.assertEquals(0, input.available(), operation.getClass().getSimpleName());
+            Assertions.assertArrayEquals(bytes, decoded.toBytes());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.model.operation.Block;
+import dev.hensil.maop.compliance.model.operation.BlockEnd;
+import dev.hensil.maop.compliance.model.operation.Message;
+import dev.hensil.maop.compliance.model.operation.Operation;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+final class OperationWriterTest {
+
+    @Test
+    public void testFrame() throws IOException {
+        @NotNull CountingOutputStream output = new CountingOutputStream();
+        @NotNull OperationWriter writer = new OperationWriter(output);
+
+        @NotNull Message message = new Message((short) 2, 1024, (byte) 1);
+        writer.writeOperation(message);
+
+        Assertions.assertEquals(1, output.writes);
+        Assertions.assertArrayEquals(frame(message), output.toByteArray());
+        Assertions.assertEquals(0, writer.buffered());
+    }
+
+    @Test
+    public void testCork() throws IOException {
+        @NotNull CountingOutputStream output = new CountingOutputStream();
+        @NotNull OperationWriter writer = new OperationWriter(output);
+        @NotNull DataOutputStream data = new DataOutputStream(writer);
+
+        @NotNull Block block = new Block(new byte[1000]);
+        @NotNull BlockEnd end = new BlockEnd(1000);
+
+        writer.cork();
+        writer.writeOperation(block);
+        data.writeByte(0x7F);
+        writer.writeOperation(end);
+
+        Assertions.assertTrue(writer.isCorked());
+        Assertions.assertEquals(0, output.writes);
+
+        writer.flush();
+
+        @NotNull ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(frame(block));
+        expected.write(0x7F);
+        expected.write(frame(end));
+
+        Assertions.assertFalse(writer.isCorked());
+        Assertions.assertEquals(1, output.writes);
+        Assertions.assertArrayEquals(expected.toByteArray(), output.toByteArray());
+    }
+
+    @Test
+    public void testCorkLimit() throws IOException {
+        @NotNull CountingOutputStream output = new CountingOutputStream();
+        @NotNull OperationWriter writer = new OperationWriter(output);
+
+        @NotNull Block small = new Block(new byte[16]);
+        @NotNull Block large = new Block(new byte[OperationWriter.MAX_CORKED]);
+
+        writer.cork();
+        writer.writeOperation(small);
+        writer.writeOperation(large);
+        writer.writeOperation(small);
+        writer.flush();
+
+        @NotNull ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(frame(small));
+        expected.write(frame(large));
+        expected.write(frame(small));
+
+        Assertions.assertEquals(3, output.writes);
+        Assertions.assertArrayEquals(expected.toByteArray(), output.toByteArray());
+    }
+
+    private static byte @NotNull [] frame(@NotNull Operation operation) {
+        byte @NotNull [] body = operation.toBytes();
+        byte @NotNull [] frame = new byte[1 + body.length];
+
+        frame[0] = operation.getCode();
+        System.arraycopy(body, 0, frame, 1, body.length);
+
+        return frame;
+    }
+
+    // Classes
+
+    private static final class CountingOutputStream extends ByteArrayOutputStream {
+
+        private int writes = 0;
+
+        @Override
+        public synchronized void write(int b) {
+            writes++;
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte @NotNull [] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+final class PayloadDigestTest {
+
+    @Test
+    public void testReferenceVectors() {
+        byte @NotNull [] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertEquals(0xE3069283L, PayloadDigest.crc32c().digest(check));
+
+        // SipHash-2-4 of the bytes 0 to 14 under the key 0 to 15
+        byte @NotNull [] message = new byte[15];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+
+        Assertions.assertEquals(0xA129CA6149BE45E5L, PayloadDigest.sipHash().digest(message));
+    }
+
+    @Test
+    public void testValueDoesNotEndDigest() {
+        // SipHash-2-4 of the bytes 0 to 7 and 0 to 14 under the key 0 to 15
+        byte @NotNull [] message = new byte[15];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+
+        @NotNull PayloadDigest digest = PayloadDigest.sipHash();
+        digest.update(message, 0, 3);
+        digest.update(message, 3, 5);
+
+        Assertions.assertEquals(0x93F5F5799A932462L, digest.getValue());
+        Assertions.assertEquals(0x93F5F5799A932462L, digest.getValue());
+
+        digest.update(message, 8, 7);
+        Assertions.assertEquals(0xA129CA6149BE45E5L, digest.getValue());
+
+        digest.reset();
+        Assertions.assertEquals(0xA129CA6149BE45E5L, digest.digest(message));
+    }
+
+    @Test
+    public void testStreamedDigest() throws IOException {
+        for (@NotNull PayloadDigest expected : new PayloadDigest[] { PayloadDigest.crc32c(), PayloadDigest.sipHash() }) {
+            long value = expected.digest(PayloadSource.generated(100_003, 5));
+
+            // The same value whatever the chunks the payload is received in
+            @NotNull PayloadDigest streamed = expected.fresh();
+            @NotNull BlockSink sink = BlockSink.digest(streamed);
+
+            byte @NotNull [] chunk = new byte[4099];
+            @NotNull PayloadSource source = PayloadSource.generated(100_003, 5);
+            int read;
+
+            while ((read = source.read(chunk, 3, 1000)) > 0) {
+                sink.accept(chunk, 3, read);
+            }
+
+            Assertions.assertEquals(100_003, streamed.getLength());
+            Assertions.assertEquals(value, streamed.getValue());
+
+            // A single corrupted byte changes the value
+            @NotNull PayloadDigest corrupted = expected.fresh();
+            byte @NotNull [] bytes = new byte[100_003];
+            PayloadSource.generated(100_003, 5).read(bytes, 0, bytes.length);
+            bytes[50_000] ^= 1;
+
+            Assertions.assertNotEquals(value, corrupted.digest(bytes));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class PayloadSourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testGeneratedChunks() throws IOException {
+        // The same bytes whatever the chunk sizes, and addressable by position
+        byte @NotNull [] whole = readAll(PayloadSource.generated(1000, 42), 1000);
+        byte @NotNull [] chunked = readAll(PayloadSource.generated(1000, 42), 7);
+
+        Assertions.assertArrayEquals(whole, chunked);
+
+        for (int i = 0; i < whole.length; i++) {
+            Assertions.assertEquals(PayloadSource.generatedByte(42, i), whole[i]);
+        }
+
+        Assertions.assertFalse(Arrays.equals(whole, readAll(PayloadSource.generated(1000, 43), 1000)));
+    }
+
+    @Test
+    public void testFileSources() throws IOException {
+        byte @NotNull [] content = readAll(PayloadSource.generated(100_000, 7), 4096);
+        @NotNull Path file = directory.resolve("payload.bin");
+        Files.write(file, content);
+
+        try (@NotNull PayloadSource source = PayloadSource.open(file, false)) {
+            Assertions.assertEquals(content.length, source.getLength());
+            Assertions.assertArrayEquals(content, readAll(source, 3000));
+        }
+
+        try (@NotNull PayloadSource source = PayloadSource.open(file, true)) {
+            Assertions.assertArrayEquals(content, readAll(source, 3000));
+        }
+
+        try (@NotNull FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            @NotNull PayloadSource source = PayloadSource.ofChannel(channel, 100, 500);
+
+            Assertions.assertArrayEquals(Arrays.copyOfRange(content, 100, 600), readAll(source, 64));
+            Assertions.assertEquals(-1, source.read(new byte[1], 0, 1));
+        }
+    }
+
+    @Test
+    public void testShortFile() throws IOException {
+        @NotNull Path file = directory.resolve("short.bin");
+        Files.write(file, new byte[10]);
+
+        try (@NotNull FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            @NotNull PayloadSource source = PayloadSource.ofChannel(channel, 0, 20);
+            Assertions.assertThrows(EOFException.class, () -> readAll(source, 64));
+        }
+    }
+
+    @Test
+    public void testWriteBlocks() throws IOException {
+        @NotNull ByteArrayOutputStream written = new ByteArrayOutputStream();
+        @NotNull BidirectionalStream stream = stream(written);
+
+        Assertions.assertEquals(100, PayloadSource.generated(100, 1).writeBlocks(stream, 30));
+        Assertions.assertFalse(stream.isCorked());
+
+        // Four Blocks of a code and an int length, then the Block end
+        @NotNull ByteBuffer frames = ByteBuffer.wrap(written.toByteArray());
+        Assertions.assertEquals(4 * (1 + 4) + 100 + 1 + 8, frames.remaining());
+        Assertions.assertEquals(OperationUtil.BLOCK.getCode(), frames.get());
+        Assertions.assertEquals(30, frames.getInt());
+    }
+
+    @Test
+    public void testWriteBlocksFailure() throws IOException {
+        @NotNull Path file = directory.resolve("truncated.bin");
+        Files.write(file, new byte[10]);
+
+        @NotNull ByteArrayOutputStream written = new ByteArrayOutputStream();
+        @NotNull BidirectionalStream stream = stream(written);
+
+        // The channel ends before the payload does: the held Block header and bytes are dropped, not flushed
+        try (@NotNull FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            @NotNull PayloadSource source = PayloadSource.ofChannel(channel, 0, 20);
+            Assertions.assertThrows(EOFException.class, () -> source.writeBlocks(stream, 20));
+        }
+
+        Assertions.assertFalse(stream.isCorked());
+        Assertions.assertEquals(0, written.size());
+    }
+
+    private static @NotNull BidirectionalStream stream(@NotNull ByteArrayOutputStream written) {
+        @NotNull Compliance compliance = MemoryConnections.newCompliance();
+        @NotNull Connection connection = MemoryConnections.newConnection(compliance, new AtomicBoolean(true));
+
+        return new BidirectionalStream(connection, MemoryConnections.newStream(0, new byte[0], written));
+    }
+
+    private static byte @NotNull [] readAll(@NotNull PayloadSource source, int chunk) throws IOException {
+        @NotNull ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte @NotNull [] buffer = new byte[chunk];
+
+        int read;
+        while ((read = source.read(buffer, 0, buffer.length)) != -1) {
+            output.write(buffer, 0, read);
+        }
+
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.kwik.core.QuicSessionTicket;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+final class SessionCacheTest {
+
+    private static final @NotNull URI HOST = URI.create("https://localhost:4433");
+
+    private static @NotNull QuicSessionTicket ticket() {
+        return (QuicSessionTicket) Proxy.newProxyInstance(SessionCacheTest.class.getClassLoader(), new Class<?>[] { QuicSessionTicket.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Test
+    public void testCapacity() {
+        @NotNull SessionCache cache = new SessionCache(3);
+        @NotNull QuicSessionTicket @NotNull [] tickets = { ticket(), ticket(), ticket(), ticket() };
+
+        cache.offer(HOST, List.of(tickets[0], tickets[1]));
+        cache.offer(HOST, List.of(tickets[2], tickets[3]));
+
+        // The oldest ticket was dropped, and the others are taken from the most recent
+        Assertions.assertEquals(3, cache.getTickets(HOST));
+        Assertions.assertSame(tickets[3], cache.poll(HOST));
+        Assertions.assertSame(tickets[2], cache.poll(HOST));
+        Assertions.assertSame(tickets[1], cache.poll(HOST));
+        Assertions.assertNull(cache.poll(HOST));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SessionCache(0));
+    }
+
+    @Test
+    public void testSingleUse() {
+        @NotNull SessionCache cache = new SessionCache();
+        @NotNull QuicSessionTicket ticket = ticket();
+
+        cache.offer(HOST, List.of());
+        Assertions.assertEquals(0, cache.getTickets(HOST));
+
+        cache.offer(HOST, List.of(ticket));
+
+        Assertions.assertNull(cache.poll(URI.create("https://localhost:4434")));
+        Assertions.assertSame(ticket, cache.poll(HOST));
+        Assertions.assertNull(cache.poll(HOST));
+        Assertions.assertEquals(0, cache.getTickets(HOST));
+
+        cache.offer(HOST, List.of(ticket()));
+        cache.clear();
+        Assertions.assertNull(cache.poll(HOST));
+    }
+
+    @Test
+    public void testHandshakes() {
+        @NotNull SessionCache cache = new SessionCache();
+        Assertions.assertEquals(Duration.ZERO, cache.getAverageHandshake(true));
+
+        cache.record(true, TimeUnit.MILLISECONDS.toNanos(10));
+        cache.record(true, TimeUnit.MILLISECONDS.toNanos(30));
+        cache.record(false, TimeUnit.MILLISECONDS.toNanos(100));
+
+        Assertions.assertEquals(2, cache.getHandshakes(true));
+        Assertions.assertEquals(1, cache.getHandshakes(false));
+        Assertions.assertEquals(Duration.ofMillis(20), cache.getAverageHandshake(true));
+        Assertions.assertEquals(Duration.ofMillis(100), cache.getAverageHandshake(false));
+    }
+}
@@ -0,0 +1,165 @@
+package dev.hensil.maop.compliance.core;
+
+import dev.hensil.maop.compliance.situation.Situation;
+
+import dev.meinicke.plugin.annotation.Dependency;
+import dev.meinicke.plugin.annotation.Priority;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+final class SituationSchedulerTest {
+
+    // Run on the calling thread, one at a time, so the dispatch order is the run order
+    private static final @NotNull Executor DIRECT = Runnable::run;
+
+    private static final @NotNull List<Class<?>> runs = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testPriorityOrder() {
+        runs.clear();
+        @NotNull TestCompliance compliance = new TestCompliance();
+
+        new SituationScheduler(compliance, List.of(new Low(), new High(), new Plain()), DIRECT, 1).start();
+
+        Assertions.assertEquals(List.of(High.class, Plain.class, Low.class), runs);
+        Assertions.assertEquals(1, compliance.stops);
+    }
+
+    @Test
+    public void testDependencyGating() {
+        runs.clear();
+        @NotNull TestCompliance compliance = new TestCompliance();
+
+        // The dependent has the highest priority, but it waits for its dependency
+        new SituationScheduler(compliance, List.of(new Dependent(), new Plain(), new Low()), DIRECT, 1).start();
+
+        Assertions.assertEquals(List.of(Plain.class, Dependent.class, Low.class), runs);
+        Assertions.assertEquals(1, compliance.stops);
+    }
+
+    @Test
+    public void testCycle() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new SituationScheduler(new TestCompliance(), List.of(new CycleA(), new CycleB(), new Plain()), DIRECT, 1));
+    }
+
+    @Test
+    public void testCancelOnSevere() {
+        runs.clear();
+        @NotNull TestCompliance compliance = new TestCompliance();
+        @NotNull SituationScheduler scheduler = new SituationScheduler(compliance, List.of(new Severe(), new Plain(), new Dependent()), DIRECT, 1);
+
+        scheduler.start();
+
+        // Nothing runs after the severe result
+        Assertions.assertEquals(List.of(Severe.class), runs);
+        Assertions.assertTrue(scheduler.isCanceled());
+        Assertions.assertEquals(0, scheduler.getInFlight());
+        Assertions.assertEquals(1, compliance.stops);
+    }
+
+    @Test
+    public void testRejection() {
+        runs.clear();
+        @NotNull TestCompliance compliance = new TestCompliance();
+        @NotNull Executor rejecting = command -> {
+            throw new RejectedExecutionException("shut down");
+        };
+
+        @NotNull SituationScheduler scheduler = new SituationScheduler(compliance, List.of(new High(), new Plain(), new Low()), rejecting, 2);
+        scheduler.start();
+
+        // The rejected situations are not left in flight and the compliance stops, so join returns
+        Assertions.assertTrue(runs.isEmpty());
+        Assertions.assertTrue(scheduler.isCanceled());
+        Assertions.assertEquals(0, scheduler.getInFlight());
+        Assertions.assertFalse(compliance.isRunning());
+        Assertions.assertTrue(compliance.stops >= 1);
+    }
+
+    @Test
+    public void testStoppedBeforeRun() {
+        runs.clear();
+        @NotNull TestCompliance compliance = new TestCompliance();
+        compliance.running = false;
+
+        @NotNull SituationScheduler scheduler = new SituationScheduler(compliance, List.of(new Plain(), new Low()), DIRECT, 1);
+        scheduler.start();
+
+        Assertions.assertTrue(runs.isEmpty());
+        Assertions.assertTrue(scheduler.isCanceled());
+        Assertions.assertEquals(0, scheduler.getInFlight());
+    }
+
+    // Classes
+
+    private static final class TestCompliance extends Compliance {
+
+        private volatile boolean running = true;
+        private volatile int stops = 0;
+
+        private TestCompliance() {
+            super(Preset.newBuilder().uri(URI.create("https://localhost:4433")).vendor("test").build(), DIRECT);
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void stop() {
+            this.running = false;
+            this.stops++;
+        }
+    }
+
+    private static class Recorded extends Situation {
+        @Override
+        public boolean diagnostic(@NotNull Compliance compliance) {
+            runs.add(getClass());
+            return false;
+        }
+    }
+
+    private static final class Plain extends Recorded {
+    }
+
+    @Priority(10)
+    private static final class High extends Recorded {
+    }
+
+    @Priority(-10)
+    private static final class Low extends Recorded {
+    }
+
+    @Priority(100)
+    @Dependency(type = Plain.class)
+    private static final class Dependent extends Recorded {
+    }
+
+    @Priority(50)
+    private static final class Severe extends Recorded {
+        @Override
+        public boolean diagnostic(@NotNull Compliance compliance) {
+            super.diagnostic(compliance);
+            return true;
+        }
+    }
+
+    @Dependency(type = CycleB.class)
+    private static final class CycleA extends Recorded {
+    }
+
+    @Dependency(type = CycleA.class)
+    private static final class CycleB extends Recorded {
+    }
+}
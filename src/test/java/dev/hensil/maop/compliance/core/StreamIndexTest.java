@@ -0,0 +1,179 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+final class StreamIndexTest {
+
+    private final @NotNull Connection connection = MemoryConnections.newConnection(MemoryConnections.newCompliance(), new AtomicBoolean(true));
+
+    private @NotNull BidirectionalStream stream(long id) {
+        return new BidirectionalStream(connection, MemoryConnections.newStream(id, new byte[0], new ByteArrayOutputStream()));
+    }
+
+    /**
+     * @return the first ids, from the given one on, whose probe starts at the slot of a table with the given capacity
+     * */
+    private static long @NotNull [] ids(int slot, int capacity, long from, int count) {
+        long @NotNull [] ids = new long[count];
+
+        for (long id = from, found = 0; found < count; id++) {
+            if ((StreamIndex.hash(id) & (capacity - 1)) == slot) {
+                ids[(int) found++] = id;
+            }
+        }
+
+        return ids;
+    }
+
+    private static void assertIndexed(@NotNull StreamIndex index, @NotNull DirectionalStream stream, @NotNull DirectionalStreamObserver observer) {
+        Assertions.assertSame(stream, index.get(stream.getId()));
+        Assertions.assertSame(observer, index.getObserver(stream.getId()));
+    }
+
+    @Test
+    public void testCollisionChainDeletion() {
+        @NotNull StreamIndex index = new StreamIndex();
+        long @NotNull [] ids = ids(3, index.getCapacity(), 0, 4);
+
+        @NotNull BidirectionalStream @NotNull [] streams = new BidirectionalStream[ids.length];
+        @NotNull DirectionalStreamObserver @NotNull [] observers = new DirectionalStreamObserver[ids.length];
+
+        for (int i = 0; i < ids.length; i++) {
+            streams[i] = stream(ids[i]);
+            observers[i] = new DirectionalStreamObserver(streams[i]);
+
+            Assertions.assertTrue(index.put(streams[i]));
+            Assertions.assertSame(observers[i], index.putObserver(ids[i], observers[i]));
+        }
+
+        // Removing from the middle of the chain shifts the rest back, with their observers
+        Assertions.assertTrue(index.remove(streams[1]));
+        Assertions.assertNull(index.get(ids[1]));
+        Assertions.assertNull(index.getObserver(ids[1]));
+
+        assertIndexed(index, streams[0], observers[0]);
+        assertIndexed(index, streams[2], observers[2]);
+        assertIndexed(index, streams[3], observers[3]);
+
+        // Then from its head and its tail
+        Assertions.assertTrue(index.remove(streams[0]));
+        Assertions.assertTrue(index.remove(streams[3]));
+        Assertions.assertFalse(index.remove(streams[3]));
+
+        assertIndexed(index, streams[2], observers[2]);
+        Assertions.assertEquals(1, index.size());
+
+        // A stream replaced by another one with the same id is not removed through the old one
+        @NotNull BidirectionalStream replacement = stream(ids[2]);
+        Assertions.assertTrue(index.put(replacement));
+        Assertions.assertFalse(index.remove(streams[2]));
+        assertIndexed(index, replacement, observers[2]);
+    }
+
+    @Test
+    public void testWraparoundDeletion() {
+        @NotNull StreamIndex index = new StreamIndex();
+        int capacity = index.getCapacity();
+
+        // Three ids starting at the last slot take it and wrap to the first two, and an id starting at the first slot
+        // is pushed to the third one
+        long @NotNull [] last = ids(capacity - 1, capacity, 0, 3);
+        long first = ids(0, capacity, 0, 1)[0];
+
+        @NotNull BidirectionalStream @NotNull [] streams = new BidirectionalStream[] {
+                stream(last[0]), stream(last[1]), stream(last[2]), stream(first)
+        };
+        @NotNull DirectionalStreamObserver @NotNull [] observers = new DirectionalStreamObserver[streams.length];
+
+        for (int i = 0; i < streams.length; i++) {
+            observers[i] = new DirectionalStreamObserver(streams[i]);
+
+            Assertions.assertTrue(index.put(streams[i]));
+            index.putObserver(streams[i].getId(), observers[i]);
+        }
+
+        Assertions.assertTrue(index.remove(streams[0]));
+
+        for (int i = 1; i < streams.length; i++) {
+            assertIndexed(index, streams[i], observers[i]);
+        }
+
+        Assertions.assertTrue(index.remove(streams[2]));
+
+        assertIndexed(index, streams[1], observers[1]);
+        assertIndexed(index, streams[3], observers[3]);
+
+        Assertions.assertTrue(index.remove(streams[1]));
+        assertIndexed(index, streams[3], observers[3]);
+        Assertions.assertEquals(1, index.size());
+        Assertions.assertEquals(capacity, index.getCapacity());
+    }
+
+    @Test
+    public void testResize() {
+        @NotNull StreamIndex index = new StreamIndex();
+        int capacity = index.getCapacity();
+
+        @NotNull BidirectionalStream @NotNull [] streams = new BidirectionalStream[capacity * 4];
+        @NotNull DirectionalStreamObserver @NotNull [] observers = new DirectionalStreamObserver[streams.length];
+
+        for (int i = 0; i < streams.length; i++) {
+            // Client initiated bidirectional ids, as kwik assigns them
+            streams[i] = stream(i * 4L);
+            observers[i] = new DirectionalStreamObserver(streams[i]);
+
+            Assertions.assertTrue(index.put(streams[i]));
+            index.putObserver(streams[i].getId(), observers[i]);
+        }
+
+        Assertions.assertEquals(streams.length, index.size());
+        Assertions.assertTrue(index.getCapacity() >= streams.length * 2);
+
+        for (int i = 0; i < streams.length; i++) {
+            assertIndexed(index, streams[i], observers[i]);
+        }
+
+        for (int i = 0; i < streams.length; i += 2) {
+            Assertions.assertTrue(index.remove(streams[i]));
+        }
+
+        for (int i = 1; i < streams.length; i += 2) {
+            assertIndexed(index, streams[i], observers[i]);
+        }
+
+        Assertions.assertEquals(streams.length / 2, index.size());
+        Assertions.assertEquals(streams.length / 2, index.values().size());
+    }
+
+    @Test
+    public void testCount() {
+        @NotNull StreamIndex index = new StreamIndex();
+
+        for (int i = 0; i < 40; i++) {
+            @NotNull DirectionalStream stream = i % 4 == 1
+                    ? new GlobalStream(connection, MemoryConnections.newStream(i, new byte[0], new ByteArrayOutputStream()))
+                    : stream(i);
+
+            Assertions.assertTrue(index.put(stream));
+            Assertions.assertFalse(index.put(stream));
+        }
+
+        Assertions.assertEquals(10, index.count(GlobalStream.class));
+        Assertions.assertEquals(40, index.count(BidirectionalStream.class));
+        Assertions.assertEquals(0, index.count(UnidirectionalOutputStream.class));
+
+        Assertions.assertNotNull(index.get(GlobalStream.class, 5));
+        Assertions.assertNull(index.get(GlobalStream.class, 4));
+
+        index.clear();
+
+        Assertions.assertEquals(0, index.size());
+        Assertions.assertEquals(0, index.count(GlobalStream.class));
+        Assertions.assertNull(index.get(5));
+    }
+}
@@ -0,0 +1,146 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+final class StreamInputTest {
+
+    @Test
+    public void testPrimitives() throws IOException {
+        byte @NotNull [] bytes = frames();
+
+        // Fragmented into single bytes, like a stream receiving one byte per packet
+        for (@NotNull InputStream stream : new InputStream[] { new ByteArrayInputStream(bytes), new Fragmented(bytes) }) {
+            @NotNull StreamInput input = new StreamInput(stream, 16);
+            Assertions.assertEquals(bytes.length, input.available());
+
+            Assertions.assertEquals(0x02, input.readByte());
+            Assertions.assertEquals(Long.MAX_VALUE - 1, input.readLong());
+            Assertions.assertEquals(-7L, input.readLong());
+            Assertions.assertEquals(123_456, input.readInt());
+            Assertions.assertEquals((short) -2, input.readShort());
+            Assertions.assertEquals("maop", input.readUTF());
+
+            byte @NotNull [] block = new byte[100];
+            input.readFully(block);
+
+            for (int i = 0; i < block.length; i++) {
+                Assertions.assertEquals((byte) i, block[i]);
+            }
+
+            Assertions.assertEquals(0x06, input.readUnsignedByte());
+            Assertions.assertEquals(0, input.available());
+            Assertions.assertThrows(EOFException.class, input::readInt);
+        }
+    }
+
+    @Test
+    public void testBulkRefill() throws IOException {
+        byte @NotNull [] bytes = frames();
+        @NotNull Counting stream = new Counting(bytes);
+        @NotNull StreamInput input = new StreamInput(stream);
+
+        input.readByte();
+
+        // A single read buffers the whole frame, the next primitives come from the buffer
+        Assertions.assertEquals(1, stream.reads);
+        Assertions.assertEquals(bytes.length - 1, input.getBuffered());
+        Assertions.assertEquals(bytes.length - 1, input.available());
+
+        input.readLong();
+        input.readLong();
+        input.readInt();
+
+        Assertions.assertEquals(1, stream.reads);
+    }
+
+    @Test
+    public void testReadLine() throws IOException {
+        // A line longer than the buffer, every terminator, and a last line without one
+        byte @NotNull [] bytes = "first line longer than the buffer\nsecond\r\nthird\r\n\nfourth\rfifth".getBytes(StandardCharsets.ISO_8859_1);
+
+        for (@NotNull InputStream stream : new InputStream[] { new ByteArrayInputStream(bytes), new Fragmented(bytes) }) {
+            @NotNull StreamInput input = new StreamInput(stream, 16);
+
+            Assertions.assertEquals("first line longer than the buffer", input.readLine());
+            Assertions.assertEquals("second", input.readLine());
+            Assertions.assertEquals("third", input.readLine());
+            Assertions.assertEquals("", input.readLine());
+            Assertions.assertEquals("fourth", input.readLine());
+            Assertions.assertEquals("fifth", input.readLine());
+            Assertions.assertNull(input.readLine());
+        }
+    }
+
+    @Test
+    public void testReadLineThenPrimitives() throws IOException {
+        @NotNull ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        @NotNull DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeBytes("line\r\n");
+        output.writeInt(42);
+
+        @NotNull StreamInput input = new StreamInput(new ByteArrayInputStream(bytes.toByteArray()));
+
+        Assertions.assertEquals("line", input.readLine());
+        Assertions.assertEquals(42, input.readInt());
+        Assertions.assertEquals(0, input.available());
+    }
+
+    private static byte @NotNull [] frames() throws IOException {
+        @NotNull ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        @NotNull DataOutputStream output = new DataOutputStream(bytes);
+
+        output.writeByte(0x02);
+        output.writeLong(Long.MAX_VALUE - 1);
+        output.writeLong(-7);
+        output.writeInt(123_456);
+        output.writeShort(-2);
+        output.writeUTF("maop");
+
+        for (int i = 0; i < 100; i++) {
+            output.writeByte(i);
+        }
+
+        output.writeByte(0x06);
+        return bytes.toByteArray();
+    }
+
+    // Classes
+
+    private static final class Fragmented extends ByteArrayInputStream {
+
+        private Fragmented(byte @NotNull [] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte @NotNull [] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+
+    private static final class Counting extends ByteArrayInputStream {
+
+        private int reads = 0;
+
+        private Counting(byte @NotNull [] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte @NotNull [] b, int off, int len) {
+            reads++;
+            return super.read(b, off, len);
+        }
+    }
+}
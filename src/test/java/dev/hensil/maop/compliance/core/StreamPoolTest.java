@@ -0,0 +1,157 @@
+package dev.hensil.maop.compliance.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.kwik.core.QuicConnection;
+import tech.kwik.core.QuicStream;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+final class StreamPoolTest {
+
+    /**
+     * A kwik connection whose streams are counted and remember whether they were reset. Every stream creation waits for
+     * the gate first.
+     * */
+    private static final class Peer {
+
+        private final @NotNull List<QuicStream> created = new CopyOnWriteArrayList<>();
+        private final @NotNull Set<QuicStream> reset = ConcurrentHashMap.newKeySet();
+        private final @NotNull AtomicInteger requests = new AtomicInteger(0);
+        private final @NotNull QuicConnection connection;
+
+        private Peer(@NotNull CountDownLatch gate) {
+            this.connection = (QuicConnection) Proxy.newProxyInstance(StreamPoolTest.class.getClassLoader(), new Class<?>[] { QuicConnection.class }, (proxy, method, args) -> {
+                if (method.getName().equals("createStream")) {
+                    requests.incrementAndGet();
+                    gate.await();
+
+                    return newStream(created.size());
+                }
+
+                return method.getReturnType() == boolean.class ? false : null;
+            });
+        }
+
+        private @NotNull QuicStream newStream(long id) {
+            @NotNull QuicStream stream = (QuicStream) Proxy.newProxyInstance(StreamPoolTest.class.getClassLoader(), new Class<?>[] { QuicStream.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "resetStream":
+                        reset.add((QuicStream) proxy);
+                        return null;
+                    case "getStreamId":
+                        return id;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return method.getReturnType() == boolean.class ? false : null;
+                }
+            });
+
+            created.add(stream);
+            return stream;
+        }
+    }
+
+    private static void await(@NotNull BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                Assertions.fail("Condition not met in time");
+            }
+
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        @NotNull Peer peer = new Peer(new CountDownLatch(0));
+        @NotNull StreamPool pool = new StreamPool(peer.connection, 0, 0);
+
+        pool.fill();
+
+        Assertions.assertNull(pool.poll(true));
+        Assertions.assertNull(pool.poll(false));
+        Assertions.assertEquals(0, pool.getMisses(true));
+        Assertions.assertEquals(0, pool.getHits(true));
+        Assertions.assertTrue(peer.created.isEmpty());
+    }
+
+    @Test
+    public void testHitsAndMisses() throws InterruptedException {
+        @NotNull CountDownLatch gate = new CountDownLatch(1);
+        @NotNull Peer peer = new Peer(gate);
+        @NotNull StreamPool pool = new StreamPool(peer.connection, 2, 0);
+
+        // Nothing was created yet: the caller creates the stream itself
+        Assertions.assertNull(pool.poll(true));
+        Assertions.assertEquals(1, pool.getMisses(true));
+        Assertions.assertEquals(0, pool.getHits(true));
+
+        gate.countDown();
+        await(() -> pool.getIdle(true) == 2);
+
+        @Nullable QuicStream stream = pool.poll(true);
+        Assertions.assertSame(peer.created.get(0), stream);
+        Assertions.assertEquals(1, pool.getHits(true));
+        Assertions.assertEquals(1, pool.getMisses(true));
+
+        // The taken stream is replaced in the background
+        await(() -> pool.getIdle(true) == 2);
+        Assertions.assertEquals(3, peer.created.size());
+
+        // The other kind has no pool
+        Assertions.assertNull(pool.poll(false));
+        Assertions.assertEquals(0, pool.getMisses(false));
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        @NotNull Peer peer = new Peer(new CountDownLatch(0));
+        @NotNull StreamPool pool = new StreamPool(peer.connection, 3, 2);
+
+        pool.fill();
+        await(() -> pool.getIdle(true) == 3 && pool.getIdle(false) == 2);
+
+        pool.close();
+
+        Assertions.assertTrue(pool.isClosed());
+        Assertions.assertEquals(0, pool.getIdle(true));
+        Assertions.assertEquals(0, pool.getIdle(false));
+        Assertions.assertEquals(5, peer.reset.size());
+        Assertions.assertNull(pool.poll(true));
+    }
+
+    @Test
+    public void testCloseWhileCreating() throws InterruptedException {
+        @NotNull CountDownLatch gate = new CountDownLatch(1);
+        @NotNull Peer peer = new Peer(gate);
+        @NotNull StreamPool pool = new StreamPool(peer.connection, 1, 0);
+
+        pool.fill();
+        await(() -> peer.requests.get() == 1);
+        pool.close();
+
+        // The stream kwik was creating when the pool closed is reset as soon as it arrives
+        gate.countDown();
+        await(() -> peer.reset.size() == 1);
+
+        Assertions.assertEquals(1, peer.created.size());
+        Assertions.assertEquals(0, pool.getIdle(true));
+    }
+}
@@ -0,0 +1,60 @@
+package dev.hensil.maop.compliance.load;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+final class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        @NotNull LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000); // 1us to 10ms
+        }
+
+        Assertions.assertEquals(10_000, histogram.getCount());
+        Assertions.assertEquals(1_000, histogram.getMin());
+        Assertions.assertEquals(10_000_000, histogram.getMax());
+
+        assertClose(5_000_000, histogram.getValueAtPercentile(50));
+        assertClose(9_900_000, histogram.getValueAtPercentile(99));
+        assertClose(9_990_000, histogram.getValueAtPercentile(99.9));
+        Assertions.assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testExactLowValues() {
+        @NotNull LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 2048; i++) {
+            histogram.record(i);
+        }
+
+        Assertions.assertEquals(1023, histogram.getValueAtPercentile(50));
+        Assertions.assertEquals(2047, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testAddAndClamp() {
+        @NotNull LatencyHistogram first = new LatencyHistogram();
+        @NotNull LatencyHistogram second = new LatencyHistogram();
+
+        first.record(100);
+        second.record(Long.MAX_VALUE);
+        first.add(second);
+
+        Assertions.assertEquals(2, first.getCount());
+        Assertions.assertEquals(LatencyHistogram.DEFAULT_HIGHEST_TRACKABLE, first.getMax());
+        Assertions.assertEquals(100, first.getValueAtPercentile(50));
+
+        first.reset();
+        Assertions.assertEquals(0, first.getCount());
+        Assertions.assertEquals(0, first.getValueAtPercentile(99));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assertions.assertTrue(Math.abs(expected - actual) <= expected / 1000, "expected " + expected + " but was " + actual);
+    }
+}
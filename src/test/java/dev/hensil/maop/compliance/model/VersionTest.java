@@ -0,0 +1,61 @@
+package dev.hensil.maop.compliance.model;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+final class VersionTest {
+
+    @Test
+    public void testLongAndBigComponents() {
+        @NotNull Version small = Version.parse("1.20.300");
+        Assertions.assertEquals(BigInteger.valueOf(20), small.getMinor());
+        Assertions.assertEquals("1.20.300", small.toString());
+
+        // Past a long, the components fall back to BigInteger and still order by value
+        @NotNull String huge = "123456789012345678901234567890";
+        @NotNull Version big = Version.parse(huge + ".0." + Long.MAX_VALUE);
+
+        Assertions.assertEquals(new BigInteger(huge), big.getMajor());
+        Assertions.assertEquals(BigInteger.valueOf(Long.MAX_VALUE), big.getPatch());
+        Assertions.assertEquals(huge + ".0." + Long.MAX_VALUE, big.toString());
+        Assertions.assertTrue(big.compareTo(Version.parse(Long.MAX_VALUE + ".0.0")) > 0);
+        Assertions.assertEquals(big, Version.of(new BigInteger(huge), BigInteger.ZERO, BigInteger.valueOf(Long.MAX_VALUE), null, null));
+        Assertions.assertEquals(big.hashCode(), Version.parse(huge + ".0." + Long.MAX_VALUE).hashCode());
+
+        Assertions.assertEquals(Version.parse(Long.MAX_VALUE + ".0.0"), Version.parse("9223372036854775806.0.0").bumpMajor());
+        Assertions.assertEquals("9223372036854775808.0.0", Version.parse(Long.MAX_VALUE + ".0.0").bumpMajor().toString());
+    }
+
+    @Test
+    public void testNumericIdentifiers() {
+        Assertions.assertTrue(Version.parse("1.0.0-alpha.9").compareTo(Version.parse("1.0.0-alpha.10")) < 0);
+        Assertions.assertTrue(Version.parse("1.0.0-99999999999999999999").compareTo(Version.parse("1.0.0-100000000000000000000")) < 0);
+        Assertions.assertTrue(Version.parse("1.0.0-1").compareTo(Version.parse("1.0.0-alpha")) < 0);
+
+        // Build identifiers may have leading zeros
+        Assertions.assertEquals(0, Version.PRECEDENCE_WITH_BUILD.compare(Version.parse("1.0.0+007"), Version.parse("1.0.0+7")));
+        Assertions.assertTrue(Version.PRECEDENCE_WITH_BUILD.compare(Version.parse("1.0.0+010"), Version.parse("1.0.0+9")) > 0);
+    }
+
+    @Test
+    public void testParseBytes() {
+        byte @NotNull [] bytes = "__2.1.0-rc.1__".getBytes(StandardCharsets.UTF_8);
+
+        @NotNull Version version = Version.parse(bytes, 2, bytes.length - 4);
+        Assertions.assertEquals(Version.parse("2.1.0-rc.1"), version);
+
+        // The same bytes again are served by the cache
+        Assertions.assertSame(version, Version.parse(bytes.clone(), 2, bytes.length - 4));
+
+        @NotNull ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        Assertions.assertSame(version, Version.parse(buffer, bytes.length - 4));
+        Assertions.assertEquals(bytes.length - 2, buffer.position());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Version.parse("1.0".getBytes(StandardCharsets.UTF_8), 0, 3));
+    }
+}
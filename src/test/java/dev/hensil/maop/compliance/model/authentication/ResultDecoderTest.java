@@ -0,0 +1,94 @@
+package dev.hensil.maop.compliance.model.authentication;
+
+import dev.hensil.maop.compliance.model.Version;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+final class ResultDecoderTest {
+
+    @Test
+    public void testSplitAtEveryByte() throws IOException {
+        @NotNull Result[] results = new Result[] {
+                new Approved(Version.parse("1.0.0"), "vendor", UUID.randomUUID(), "session"),
+                new Disapproved(Version.parse("1.0.0"), "vendor", (short) 3, "x".repeat(300), Duration.ofMillis(250)),
+                new Disapproved(Version.parse("1.0.0"), "vendor", (short) 3, null, null)
+        };
+
+        for (@NotNull Result expected : results) {
+            byte @NotNull [] bytes = expected.toByteBuffer().array();
+
+            for (int split = 0; split <= bytes.length; split++) {
+                @NotNull ResultDecoder decoder = new ResultDecoder();
+                @NotNull ByteBuffer in = ByteBuffer.allocate(bytes.length + 4);
+
+                // The bytes following the Result are left in the input
+                in.put(bytes, 0, split).flip();
+                @Nullable Result result = decoder.decode(in);
+
+                if (split < bytes.length) {
+                    Assertions.assertNull(result);
+                    Assertions.assertFalse(in.hasRemaining());
+
+                    in.clear();
+                    in.put(bytes, split, bytes.length - split).putInt(0xCAFE).flip();
+                    result = decoder.decode(in);
+                }
+
+                Assertions.assertEquals(expected, result);
+            }
+
+            @NotNull ByteBuffer in = ByteBuffer.allocate(bytes.length + 4).put(bytes).putInt(0xCAFE).flip();
+            Assertions.assertEquals(expected, new ResultDecoder().decode(in));
+            Assertions.assertEquals(0xCAFE, in.getInt());
+        }
+    }
+
+    @Test
+    public void testTruncatedThenEnded() throws IOException {
+        @NotNull Result expected = new Disapproved(Version.parse("1.0.0"), "vendor", (short) 3, "reason", null);
+        byte @NotNull [] bytes = expected.toByteBuffer().array();
+
+        for (int split = 0; split < bytes.length; split++) {
+            @NotNull ResultDecoder decoder = new ResultDecoder();
+            Assertions.assertNull(decoder.decode(ByteBuffer.wrap(bytes, 0, split)));
+
+            // The stream closes before the rest of the Result
+            Assertions.assertThrows(EOFException.class, decoder::end);
+        }
+
+        @NotNull ResultDecoder decoder = new ResultDecoder();
+        Assertions.assertEquals(expected, decoder.decode(ByteBuffer.wrap(bytes)));
+        decoder.end();
+    }
+
+    @Test
+    public void testEncodedAuthentication() {
+        @NotNull Authentication authentication = new Authentication("Basic", new byte[] { 1, 2, 3 }, Map.of("key", "v\u00E4lue"), "1.0.0", "vendor");
+
+        // The frame is encoded once and parsed back to the same fields
+        @NotNull ByteBuffer buffer = authentication.toByteBuffer();
+        Assertions.assertEquals(authentication.getLength(), buffer.remaining());
+
+        @NotNull Authentication parsed = Authentication.parse(buffer);
+        Assertions.assertEquals("Basic", parsed.getType());
+        Assertions.assertEquals(Map.of("key", "v\u00E4lue"), parsed.getMetadata());
+        Assertions.assertEquals("1.0.0", parsed.getVersion());
+        Assertions.assertEquals("vendor", parsed.getVendor());
+        Assertions.assertFalse(buffer.hasRemaining());
+
+        // Every call returns a copy the caller may modify
+        authentication.toByteBuffer().put(0, (byte) 0xAB);
+        Assertions.assertEquals(authentication.toByteBuffer(), authentication.toByteBuffer());
+        Assertions.assertNotEquals((byte) 0xAB, authentication.toByteBuffer().get(0));
+    }
+}
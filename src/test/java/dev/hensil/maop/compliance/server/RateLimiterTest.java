@@ -0,0 +1,48 @@
+package dev.hensil.maop.compliance.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+final class RateLimiterTest {
+
+    @Test
+    public void testBurstAndRefill() {
+        // 10 per second, so a token every 100ms
+        @NotNull RateLimiter limiter = new RateLimiter(10, 3);
+        long now = System.nanoTime();
+        long interval = TimeUnit.MILLISECONDS.toNanos(100);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.acquire(now));
+        }
+
+        // The retry after is exactly the time until the next token
+        Assertions.assertEquals(interval, limiter.acquire(now));
+        Assertions.assertEquals(interval / 2, limiter.acquire(now + interval / 2));
+
+        Assertions.assertEquals(0, limiter.acquire(now + interval));
+        Assertions.assertEquals(interval, limiter.acquire(now + interval));
+
+        // The bucket never holds more than the burst after an idle period
+        long idle = now + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.acquire(idle));
+        }
+
+        Assertions.assertTrue(limiter.acquire(idle) > 0);
+    }
+
+    @Test
+    public void testUnlimited() {
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(Duration.ZERO, RateLimiter.UNLIMITED.acquire());
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RateLimiter(-1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, 0));
+    }
+}